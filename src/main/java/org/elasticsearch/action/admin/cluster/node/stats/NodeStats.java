@@ -22,6 +22,8 @@ package org.elasticsearch.action.admin.cluster.node.stats;
 import org.elasticsearch.Version;
 import org.elasticsearch.action.support.nodes.NodeOperationResponse;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.AdaptiveSelectionStats;
+import org.elasticsearch.cluster.routing.allocation.AllocationStats;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -80,13 +82,20 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
     @Nullable
     private AllCircuitBreakerStats breaker;
 
+    @Nullable
+    private AdaptiveSelectionStats adaptiveSelectionStats;
+
+    @Nullable
+    private AllocationStats allocationStats;
+
     NodeStats() {
     }
 
     public NodeStats(DiscoveryNode node, long timestamp, @Nullable NodeIndicesStats indices,
                      @Nullable OsStats os, @Nullable ProcessStats process, @Nullable JvmStats jvm, @Nullable ThreadPoolStats threadPool,
                      @Nullable NetworkStats network, @Nullable FsStats fs, @Nullable TransportStats transport, @Nullable HttpStats http,
-                     @Nullable AllCircuitBreakerStats breaker) {
+                     @Nullable AllCircuitBreakerStats breaker, @Nullable AdaptiveSelectionStats adaptiveSelectionStats,
+                     @Nullable AllocationStats allocationStats) {
         super(node);
         this.timestamp = timestamp;
         this.indices = indices;
@@ -99,6 +108,8 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
         this.transport = transport;
         this.http = http;
         this.breaker = breaker;
+        this.adaptiveSelectionStats = adaptiveSelectionStats;
+        this.allocationStats = allocationStats;
     }
 
     public long getTimestamp() {
@@ -181,6 +192,22 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
         return this.breaker;
     }
 
+    /**
+     * Adaptive replica selection statistics, the ranks of the nodes this node sends search requests to.
+     */
+    @Nullable
+    public AdaptiveSelectionStats getAdaptiveSelectionStats() {
+        return this.adaptiveSelectionStats;
+    }
+
+    /**
+     * Shard allocation statistics, the reroutes the node ran while it was the elected master.
+     */
+    @Nullable
+    public AllocationStats getAllocationStats() {
+        return this.allocationStats;
+    }
+
     public static NodeStats readNodeStats(StreamInput in) throws IOException {
         NodeStats nodeInfo = new NodeStats();
         nodeInfo.readFrom(in);
@@ -219,6 +246,10 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
             http = HttpStats.readHttpStats(in);
         }
         breaker = AllCircuitBreakerStats.readOptionalAllCircuitBreakerStats(in);
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            adaptiveSelectionStats = AdaptiveSelectionStats.readOptionalAdaptiveSelectionStats(in);
+            allocationStats = AllocationStats.readOptionalAllocationStats(in);
+        }
 
     }
 
@@ -281,6 +312,10 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
             http.writeTo(out);
         }
         out.writeOptionalStreamable(breaker);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeOptionalStreamable(adaptiveSelectionStats);
+            out.writeOptionalStreamable(allocationStats);
+        }
     }
 
     @Override
@@ -331,6 +366,12 @@ public class NodeStats extends NodeOperationResponse implements ToXContent {
         if (getBreaker() != null) {
             getBreaker().toXContent(builder, params);
         }
+        if (getAdaptiveSelectionStats() != null) {
+            getAdaptiveSelectionStats().toXContent(builder, params);
+        }
+        if (getAllocationStats() != null) {
+            getAllocationStats().toXContent(builder, params);
+        }
 
         return builder;
     }
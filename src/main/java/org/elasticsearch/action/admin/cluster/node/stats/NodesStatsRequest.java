@@ -19,6 +19,7 @@
 
 package org.elasticsearch.action.admin.cluster.node.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.admin.indices.stats.CommonStatsFlags;
 import org.elasticsearch.action.support.nodes.NodesOperationRequest;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -41,6 +42,8 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
     private boolean transport;
     private boolean http;
     private boolean breaker;
+    private boolean adaptiveSelection;
+    private boolean allocation;
 
     protected NodesStatsRequest() {
     }
@@ -67,6 +70,8 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         this.transport = true;
         this.http = true;
         this.breaker = true;
+        this.adaptiveSelection = true;
+        this.allocation = true;
         return this;
     }
 
@@ -84,6 +89,8 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         this.transport = false;
         this.http = false;
         this.breaker = false;
+        this.adaptiveSelection = false;
+        this.allocation = false;
         return this;
     }
 
@@ -240,6 +247,30 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         return this;
     }
 
+    public boolean adaptiveSelection() {
+        return this.adaptiveSelection;
+    }
+
+    /**
+     * Should the node's adaptive replica selection stats be returned.
+     */
+    public NodesStatsRequest adaptiveSelection(boolean adaptiveSelection) {
+        this.adaptiveSelection = adaptiveSelection;
+        return this;
+    }
+
+    public boolean allocation() {
+        return this.allocation;
+    }
+
+    /**
+     * Should the node's shard allocation stats be returned.
+     */
+    public NodesStatsRequest allocation(boolean allocation) {
+        this.allocation = allocation;
+        return this;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
@@ -253,6 +284,10 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         transport = in.readBoolean();
         http = in.readBoolean();
         breaker = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            adaptiveSelection = in.readBoolean();
+            allocation = in.readBoolean();
+        }
     }
 
     @Override
@@ -268,6 +303,10 @@ public class NodesStatsRequest extends NodesOperationRequest<NodesStatsRequest>
         out.writeBoolean(transport);
         out.writeBoolean(http);
         out.writeBoolean(breaker);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeBoolean(adaptiveSelection);
+            out.writeBoolean(allocation);
+        }
     }
 
 }
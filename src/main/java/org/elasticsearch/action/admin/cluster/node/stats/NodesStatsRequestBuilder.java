@@ -62,6 +62,22 @@ public class NodesStatsRequestBuilder extends NodesOperationRequestBuilder<Nodes
         return this;
     }
 
+    /**
+     * Should the node adaptive replica selection stats be returned.
+     */
+    public NodesStatsRequestBuilder setAdaptiveSelection(boolean adaptiveSelection) {
+        request.adaptiveSelection(adaptiveSelection);
+        return this;
+    }
+
+    /**
+     * Should the node shard allocation stats be returned.
+     */
+    public NodesStatsRequestBuilder setAllocation(boolean allocation) {
+        request.allocation(allocation);
+        return this;
+    }
+
     /**
      * Should the node indices stats be returned.
      */
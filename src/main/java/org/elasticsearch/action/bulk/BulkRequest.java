@@ -39,6 +39,7 @@ import org.elasticsearch.common.xcontent.XContentParser;
 import org.elasticsearch.index.VersionType;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -252,10 +253,9 @@ public class BulkRequest extends ActionRequest<BulkRequest> implements Composite
     public BulkRequest add(BytesReference data, boolean contentUnsafe, @Nullable String defaultIndex, @Nullable String defaultType, @Nullable String defaultRouting, @Nullable Object payload, boolean allowExplicitIndex) throws Exception {
         XContent xContent = XContentFactory.xContent(data);
         int from = 0;
-        int length = data.length();
-        byte marker = xContent.streamSeparator();
+        MarkerScanner markers = new MarkerScanner(xContent.streamSeparator(), data);
         while (true) {
-            int nextMarker = findNextMarker(marker, from, data, length);
+            int nextMarker = markers.next(from);
             if (nextMarker == -1) {
                 break;
             }
@@ -332,7 +332,7 @@ public class BulkRequest extends ActionRequest<BulkRequest> implements Composite
                 if ("delete".equals(action)) {
                     add(new DeleteRequest(index, type, id).routing(routing).parent(parent).version(version).versionType(versionType), payload);
                 } else {
-                    nextMarker = findNextMarker(marker, from, data, length);
+                    nextMarker = markers.next(from);
                     if (nextMarker == -1) {
                         break;
                     }
@@ -443,13 +443,70 @@ public class BulkRequest extends ActionRequest<BulkRequest> implements Composite
         return timeout;
     }
 
-    private int findNextMarker(byte marker, int from, BytesReference data, int length) {
-        for (int i = from; i < length; i++) {
-            if (data.get(i) == marker) {
-                return i;
+    /**
+     * Finds the stream separators of bulk data. Scans the backing array of the data, or the backing buffers of its
+     * pages or channel buffer components, instead of reading the data byte by byte through the bytes reference,
+     * which for paged or composite data looks up the page of every single byte.
+     */
+    static final class MarkerScanner {
+
+        private final byte marker;
+        private final ByteBuffer[] buffers;
+        // the offset in the data of the first byte of each buffer
+        private final int[] starts;
+        private int current;
+
+        MarkerScanner(byte marker, BytesReference data) {
+            this.marker = marker;
+            if (data.length() == 0) {
+                buffers = new ByteBuffer[0];
+            } else if (data.hasArray()) {
+                buffers = new ByteBuffer[]{ByteBuffer.wrap(data.array(), data.arrayOffset(), data.length()).slice()};
+            } else {
+                buffers = data.toChannelBuffer().toByteBuffers();
+            }
+            starts = new int[buffers.length];
+            int start = 0;
+            for (int i = 0; i < buffers.length; i++) {
+                starts[i] = start;
+                start += buffers[i].remaining();
+            }
+        }
+
+        /**
+         * The offset of the first separator at or after <tt>from</tt>, or <tt>-1</tt> if there is none.
+         */
+        int next(int from) {
+            if (current < buffers.length && from < starts[current]) {
+                current = 0;
+            }
+            for (; current < buffers.length; current++) {
+                final ByteBuffer buffer = buffers[current];
+                final int start = starts[current];
+                final int end = start + buffer.remaining();
+                if (from >= end) {
+                    continue;
+                }
+                // the index of offset i of the data in the buffer
+                final int base = buffer.position() - start;
+                if (buffer.hasArray()) {
+                    final byte[] array = buffer.array();
+                    final int arrayBase = buffer.arrayOffset() + base;
+                    for (int i = Math.max(from, start); i < end; i++) {
+                        if (array[arrayBase + i] == marker) {
+                            return i;
+                        }
+                    }
+                } else {
+                    for (int i = Math.max(from, start); i < end; i++) {
+                        if (buffer.get(base + i) == marker) {
+                            return i;
+                        }
+                    }
+                }
             }
+            return -1;
         }
-        return -1;
     }
 
     @Override
@@ -20,6 +20,7 @@
 package org.elasticsearch.action.bulk;
 
 import com.google.common.collect.Sets;
+import org.apache.lucene.index.Term;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchIllegalStateException;
 import org.elasticsearch.ElasticsearchWrapperException;
@@ -54,14 +55,19 @@ import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.mapper.DocumentMapper;
 import org.elasticsearch.index.mapper.SourceToParse;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.rest.RestStatus;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.TransportRequestOptions;
 import org.elasticsearch.transport.TransportService;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -135,8 +141,10 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
         IndexService indexService = indicesService.indexServiceSafe(request.index());
         IndexShard indexShard = indexService.shardSafe(shardRequest.shardId.id());
         Engine.IndexingOperation[] ops = null;
+        Translog.Location location = null;
         final Set<String> mappingTypesToUpdate = Sets.newHashSet();
 
+        final Engine.PreloadedVersions preloadedVersions = preloadVersions(request, indexShard, true);
         long[] preVersions = new long[request.items().length];
         VersionType[] preVersionTypes = new VersionType[request.items().length];
         for (int requestIndex = 0; requestIndex < request.items().length; requestIndex++) {
@@ -147,7 +155,8 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                 preVersionTypes[requestIndex] = indexRequest.versionType();
                 try {
                     try {
-                        WriteResult result = shardIndexOperation(request, indexRequest, clusterState, indexShard, true);
+                        WriteResult result = shardIndexOperation(request, indexRequest, clusterState, indexShard, true, preloadedVersions);
+                        location = locationToSync(location, result.location);
                         // add the response
                         IndexResponse indexResponse = result.response();
                         setResponse(item, new BulkItemResponse(item.id(), indexRequest.opType().lowercase(), indexResponse));
@@ -203,7 +212,9 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
 
                 try {
                     // add the response
-                    DeleteResponse deleteResponse = shardDeleteOperation(request, deleteRequest, indexShard).response();
+                    WriteResult result = shardDeleteOperation(request, deleteRequest, indexShard, preloadedVersions);
+                    location = locationToSync(location, result.location);
+                    DeleteResponse deleteResponse = result.response();
                     setResponse(item, new BulkItemResponse(item.id(), OP_TYPE_DELETE, deleteResponse));
                 } catch (Throwable e) {
                     // rethrow the failure if we are going to retry on primary and let parent failure to handle it
@@ -247,6 +258,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                             case UPSERT:
                             case INDEX:
                                 WriteResult result = updateResult.writeResult;
+                                location = locationToSync(location, result.location);
                                 IndexRequest indexRequest = updateResult.request();
                                 BytesReference indexSourceAsBytes = indexRequest.source();
                                 // add the response
@@ -270,6 +282,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                                 // Replace the update request to the translated index request to execute on the replica.
                                 break;
                             case DELETE:
+                                location = locationToSync(location, updateResult.writeResult.location);
                                 DeleteResponse response = updateResult.writeResult.response();
                                 DeleteRequest deleteRequest = updateResult.request();
                                 updateResponse = new UpdateResponse(response.getIndex(), response.getType(), response.getId(), response.getVersion(), false);
@@ -366,7 +379,14 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
             responses[i] = items[i].getPrimaryResponse();
         }
         BulkShardResponse response = new BulkShardResponse(shardRequest.shardId, responses);
-        return new PrimaryResponse<>(shardRequest.request, response, ops);
+        return new PrimaryResponse<>(shardRequest.request, response, ops, location);
+    }
+
+    /**
+     * Returns the translog location the bulk request has to wait for, which is the one written last.
+     */
+    private static Translog.Location locationToSync(Translog.Location current, Translog.Location next) {
+        return next == null ? current : next;
     }
 
     private void setResponse(BulkItemRequest request, BulkItemResponse response) {
@@ -381,11 +401,13 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
         final Object response;
         final String mappingTypeToUpdate;
         final Engine.IndexingOperation op;
+        final Translog.Location location;
 
-        WriteResult(Object response, String mappingTypeToUpdate, Engine.IndexingOperation op) {
+        WriteResult(Object response, String mappingTypeToUpdate, Engine.IndexingOperation op, Translog.Location location) {
             this.response = response;
             this.mappingTypeToUpdate = mappingTypeToUpdate;
             this.op = op;
+            this.location = location;
         }
 
         @SuppressWarnings("unchecked")
@@ -407,7 +429,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
     }
 
     private WriteResult shardIndexOperation(BulkShardRequest request, IndexRequest indexRequest, ClusterState clusterState,
-                                            IndexShard indexShard, boolean processed) {
+                                            IndexShard indexShard, boolean processed, @Nullable Engine.PreloadedVersions preloadedVersions) {
 
         // validate, if routing is required, that we got routing
         MappingMetaData mappingMd = clusterState.metaData().index(request.index()).mappingOrDefault(indexRequest.type());
@@ -436,6 +458,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                 if (index.parsedDoc().mappingsModified()) {
                     mappingTypeToUpdate = indexRequest.type();
                 }
+                index.preloadedVersions(preloadedVersions);
                 indexShard.index(index);
                 version = index.version();
                 op = index;
@@ -446,6 +469,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                 if (create.parsedDoc().mappingsModified()) {
                     mappingTypeToUpdate = indexRequest.type();
                 }
+                create.preloadedVersions(preloadedVersions);
                 indexShard.create(create);
                 version = create.version();
                 op = create;
@@ -462,11 +486,12 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
 
 
         IndexResponse indexResponse = new IndexResponse(request.index(), indexRequest.type(), indexRequest.id(), version, created);
-        return new WriteResult(indexResponse, mappingTypeToUpdate, op);
+        return new WriteResult(indexResponse, mappingTypeToUpdate, op, op.getTranslogLocation());
     }
 
-    private WriteResult shardDeleteOperation(BulkShardRequest request, DeleteRequest deleteRequest, IndexShard indexShard) {
+    private WriteResult shardDeleteOperation(BulkShardRequest request, DeleteRequest deleteRequest, IndexShard indexShard, @Nullable Engine.PreloadedVersions preloadedVersions) {
         Engine.Delete delete = indexShard.prepareDelete(deleteRequest.type(), deleteRequest.id(), deleteRequest.version(), deleteRequest.versionType(), Engine.Operation.Origin.PRIMARY);
+        delete.preloadedVersions(preloadedVersions);
         indexShard.delete(delete);
         // update the request with the version so it will go to the replicas
         deleteRequest.versionType(delete.versionType().versionTypeForReplicationAndRecovery());
@@ -475,7 +500,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
         assert deleteRequest.versionType().validateVersionForWrites(deleteRequest.version());
 
         DeleteResponse deleteResponse = new DeleteResponse(request.index(), deleteRequest.type(), deleteRequest.id(), delete.version(), delete.found());
-        return new WriteResult(deleteResponse, null, null);
+        return new WriteResult(deleteResponse, null, null, delete.getTranslogLocation());
     }
 
     static class UpdateResult {
@@ -538,7 +563,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
             case INDEX:
                 IndexRequest indexRequest = translate.action();
                 try {
-                    WriteResult result = shardIndexOperation(bulkShardRequest, indexRequest, clusterState, indexShard, false);
+                    WriteResult result = shardIndexOperation(bulkShardRequest, indexRequest, clusterState, indexShard, false, null);
                     return new UpdateResult(translate, indexRequest, result);
                 } catch (Throwable t) {
                     t = ExceptionsHelper.unwrapCause(t);
@@ -551,7 +576,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
             case DELETE:
                 DeleteRequest deleteRequest = translate.action();
                 try {
-                    WriteResult result = shardDeleteOperation(bulkShardRequest, deleteRequest, indexShard);
+                    WriteResult result = shardDeleteOperation(bulkShardRequest, deleteRequest, indexShard, null);
                     return new UpdateResult(translate, deleteRequest, result);
                 } catch (Throwable t) {
                     t = ExceptionsHelper.unwrapCause(t);
@@ -574,6 +599,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
     protected void shardOperationOnReplica(ReplicaOperationRequest shardRequest) {
         IndexShard indexShard = indicesService.indexServiceSafe(shardRequest.shardId.getIndex()).shardSafe(shardRequest.shardId.id());
         final BulkShardRequest request = shardRequest.request;
+        final Engine.PreloadedVersions preloadedVersions = preloadVersions(request, indexShard, false);
         for (int i = 0; i < request.items().length; i++) {
             BulkItemRequest item = request.items()[i];
             if (item == null || item.isIgnoreOnReplica()) {
@@ -587,11 +613,13 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
 
                     if (indexRequest.opType() == IndexRequest.OpType.INDEX) {
                         Engine.Index index = indexShard.prepareIndex(sourceToParse, indexRequest.version(), indexRequest.versionType(), Engine.Operation.Origin.REPLICA, request.canHaveDuplicates() || indexRequest.canHaveDuplicates());
+                        index.preloadedVersions(preloadedVersions);
                         indexShard.index(index);
                     } else {
                         Engine.Create create = indexShard.prepareCreate(sourceToParse,
                                 indexRequest.version(), indexRequest.versionType(),
                                 Engine.Operation.Origin.REPLICA, request.canHaveDuplicates() || indexRequest.canHaveDuplicates(), indexRequest.autoGeneratedId());
+                        create.preloadedVersions(preloadedVersions);
                         indexShard.create(create);
                     }
                 } catch (Throwable e) {
@@ -605,6 +633,7 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
                 DeleteRequest deleteRequest = (DeleteRequest) item.request();
                 try {
                     Engine.Delete delete = indexShard.prepareDelete(deleteRequest.type(), deleteRequest.id(), deleteRequest.version(), deleteRequest.versionType(), Engine.Operation.Origin.REPLICA);
+                    delete.preloadedVersions(preloadedVersions);
                     indexShard.delete(delete);
                 } catch (Throwable e) {
                     // if its not an ignore replica failure, we need to make sure to bubble up the failure
@@ -625,6 +654,40 @@ public class TransportShardBulkAction extends TransportShardReplicationOperation
         }
     }
 
+    /**
+     * Loads the current versions of the documents of the index and delete items in one pass over the segments of the
+     * shard, instead of having each item look up the version of its document on its own. Returns <tt>null</tt> if
+     * there are less than two versions to load, or if they can't be loaded, in which case each item looks up its own.
+     */
+    @Nullable
+    private Engine.PreloadedVersions preloadVersions(BulkShardRequest request, IndexShard indexShard, boolean primary) {
+        final List<Term> uids = new ArrayList<>(request.items().length);
+        for (BulkItemRequest item : request.items()) {
+            if (item == null || (primary == false && item.isIgnoreOnReplica())) {
+                continue;
+            }
+            if (item.request() instanceof IndexRequest) {
+                IndexRequest indexRequest = (IndexRequest) item.request();
+                // auto generated ids that can't be duplicates are not looked up
+                if (indexRequest.id() != null && (indexRequest.autoGeneratedId() == false || request.canHaveDuplicates() || indexRequest.canHaveDuplicates())) {
+                    uids.add(new Term(UidFieldMapper.NAME, Uid.createUidAsBytes(indexRequest.type(), indexRequest.id())));
+                }
+            } else if (item.request() instanceof DeleteRequest) {
+                DeleteRequest deleteRequest = (DeleteRequest) item.request();
+                uids.add(new Term(UidFieldMapper.NAME, Uid.createUidAsBytes(deleteRequest.type(), deleteRequest.id())));
+            }
+        }
+        if (uids.size() < 2) {
+            return null;
+        }
+        try {
+            return indexShard.preloadVersions(uids.toArray(new Term[uids.size()]));
+        } catch (Throwable t) {
+            logger.trace("{} failed to preload versions, items will look up their versions", t, indexShard.shardId());
+            return null;
+        }
+    }
+
     private void applyVersion(BulkItemRequest item, long version, VersionType versionType) {
         if (item.request() instanceof IndexRequest) {
             ((IndexRequest) item.request()).version(version).versionType(versionType);
@@ -99,7 +99,7 @@ public class TransportShardDeleteAction extends TransportShardReplicationOperati
 
 
         ShardDeleteResponse response = new ShardDeleteResponse(delete.version(), delete.found());
-        return new PrimaryResponse<>(shardRequest.request, response, null);
+        return new PrimaryResponse<>(shardRequest.request, response, null, delete.getTranslogLocation());
     }
 
     @Override
@@ -21,12 +21,14 @@ package org.elasticsearch.action.search;
 
 import org.elasticsearch.ElasticsearchGenerationException;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.Version;
 import org.elasticsearch.action.ActionRequest;
 import org.elasticsearch.action.ActionRequestValidationException;
 import org.elasticsearch.action.IndicesRequest;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
@@ -43,6 +45,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.Map;
 
+import static org.elasticsearch.action.ValidateActions.addValidationError;
 import static org.elasticsearch.search.Scroll.readScroll;
 
 /**
@@ -84,8 +87,16 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
 
     private Scroll scroll;
 
+    private int batchedReduceSize = DEFAULT_BATCHED_REDUCE_SIZE;
+
+    private int maxConcurrentShardRequestsPerNode = 0;
+
+    private Priority priority;
+
     private String[] types = Strings.EMPTY_ARRAY;
 
+    public static final int DEFAULT_BATCHED_REDUCE_SIZE = 512;
+
     public static final IndicesOptions DEFAULT_INDICES_OPTIONS = IndicesOptions.strictExpandOpenAndForbidClosed();
 
     private IndicesOptions indicesOptions = DEFAULT_INDICES_OPTIONS;
@@ -114,6 +125,9 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
         this.extraSourceUnsafe = searchRequest.extraSourceUnsafe;
         this.queryCache = searchRequest.queryCache;
         this.scroll = searchRequest.scroll;
+        this.batchedReduceSize = searchRequest.batchedReduceSize;
+        this.maxConcurrentShardRequestsPerNode = searchRequest.maxConcurrentShardRequestsPerNode;
+        this.priority = searchRequest.priority;
         this.types = searchRequest.types;
         this.indicesOptions = searchRequest.indicesOptions;
     }
@@ -149,6 +163,16 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
 //        if (source == null && extraSource == null) {
 //            validationException = addValidationError("search source is missing", validationException);
 //        }
+        if (batchedReduceSize < 2) {
+            validationException = addValidationError("batched_reduce_size must be >= 2", validationException);
+        }
+        if (maxConcurrentShardRequestsPerNode < 0) {
+            validationException = addValidationError("max_concurrent_shard_requests_per_node must be >= 0", validationException);
+        }
+        if (priority != null && (priority.after(Priority.LOW) || Priority.HIGH.after(priority))) {
+            // higher priorities would let a search jump ahead of the requests of all other users
+            validationException = addValidationError("priority must be one of [high, normal, low], got [" + priority + "]", validationException);
+        }
         return validationException;
     }
 
@@ -527,6 +551,59 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
         return scroll(new Scroll(TimeValue.parseTimeValue(keepAlive, null)));
     }
 
+    /**
+     * Sets the number of shard results that should be reduced at once on the coordinating node. Aggregations of
+     * shard results are buffered and reduced into a partial result every time that many arrived, which bounds the
+     * memory a search over many shards needs on the coordinating node. Defaults to <tt>512</tt>.
+     */
+    public SearchRequest batchedReduceSize(int batchedReduceSize) {
+        this.batchedReduceSize = batchedReduceSize;
+        return this;
+    }
+
+    /**
+     * The number of shard results that should be reduced at once on the coordinating node.
+     */
+    public int batchedReduceSize() {
+        return batchedReduceSize;
+    }
+
+    /**
+     * Sets the maximum number of shard requests of this search that may execute concurrently on a node, the other
+     * shard requests for the node wait for one of them to complete. Defaults to <tt>0</tt>, which uses the
+     * <tt>action.search.max_concurrent_shard_requests_per_node</tt> setting of the coordinating node.
+     */
+    public SearchRequest maxConcurrentShardRequestsPerNode(int maxConcurrentShardRequestsPerNode) {
+        this.maxConcurrentShardRequestsPerNode = maxConcurrentShardRequestsPerNode;
+        return this;
+    }
+
+    /**
+     * The maximum number of shard requests of this search that may execute concurrently on a node, <tt>0</tt> if
+     * the default of the coordinating node applies.
+     */
+    public int maxConcurrentShardRequestsPerNode() {
+        return maxConcurrentShardRequestsPerNode;
+    }
+
+    /**
+     * Sets the priority the shard requests of this search are queued with on the search thread pool of the nodes, one of
+     * {@link Priority#HIGH}, {@link Priority#NORMAL} and {@link Priority#LOW}. Defaults to {@link Priority#NORMAL}, or
+     * {@link Priority#LOW} for scroll searches. Only has an effect if the search thread pool is prioritized.
+     */
+    public SearchRequest priority(@Nullable Priority priority) {
+        this.priority = priority;
+        return this;
+    }
+
+    /**
+     * The priority the shard requests of this search are queued with, <tt>null</tt> if not set explicitly.
+     */
+    @Nullable
+    public Priority priority() {
+        return priority;
+    }
+
     /**
      * Sets if this request should use the query cache or not, assuming that it can (for
      * example, if "now" is used, it will never be cached). By default (not set, or null,
@@ -575,6 +652,13 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
             templateParams = (Map<String, Object>) in.readGenericValue();
         }
         queryCache = in.readOptionalBoolean();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            batchedReduceSize = in.readVInt();
+            maxConcurrentShardRequestsPerNode = in.readVInt();
+            if (in.readBoolean()) {
+                priority = Priority.readFrom(in);
+            }
+        }
     }
 
     @Override
@@ -611,5 +695,15 @@ public class SearchRequest extends ActionRequest<SearchRequest> implements Indic
         }
 
         out.writeOptionalBoolean(queryCache);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeVInt(batchedReduceSize);
+            out.writeVInt(maxConcurrentShardRequestsPerNode);
+            if (priority == null) {
+                out.writeBoolean(false);
+            } else {
+                out.writeBoolean(true);
+                Priority.writeTo(priority, out);
+            }
+        }
     }
 }
@@ -25,6 +25,7 @@ import org.elasticsearch.action.ActionRequestBuilder;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.client.Client;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.XContentBuilder;
@@ -989,6 +990,32 @@ public class SearchRequestBuilder extends ActionRequestBuilder<SearchRequest, Se
         return this;
     }
 
+    /**
+     * Sets the number of shard results that should be reduced at once on the coordinating node, see
+     * {@link SearchRequest#batchedReduceSize(int)}.
+     */
+    public SearchRequestBuilder setBatchedReduceSize(int batchedReduceSize) {
+        request.batchedReduceSize(batchedReduceSize);
+        return this;
+    }
+
+    /**
+     * Sets the maximum number of shard requests of this search that may execute concurrently on a node, see
+     * {@link SearchRequest#maxConcurrentShardRequestsPerNode(int)}.
+     */
+    public SearchRequestBuilder setMaxConcurrentShardRequestsPerNode(int maxConcurrentShardRequestsPerNode) {
+        request.maxConcurrentShardRequestsPerNode(maxConcurrentShardRequestsPerNode);
+        return this;
+    }
+
+    /**
+     * Sets the priority the shard requests of this search are queued with, see {@link SearchRequest#priority(Priority)}.
+     */
+    public SearchRequestBuilder setPriority(Priority priority) {
+        request.priority(priority);
+        return this;
+    }
+
     /**
      * Sets the source builder to be used with this request. Note, any operations done
      * on this require builder before are discarded as this internal builder replaces
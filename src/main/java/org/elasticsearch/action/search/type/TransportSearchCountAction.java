@@ -20,6 +20,8 @@
 package org.elasticsearch.action.search.type;
 
 import org.elasticsearch.action.ActionListener;
+import org.elasticsearch.action.ActionRunnable;
+import org.elasticsearch.action.search.ReduceSearchPhaseException;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.ActionFilters;
@@ -30,6 +32,7 @@ import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.search.action.SearchServiceListener;
 import org.elasticsearch.search.action.SearchServiceTransportAction;
+import org.elasticsearch.search.controller.AggregationsReducer;
 import org.elasticsearch.search.controller.SearchPhaseController;
 import org.elasticsearch.search.fetch.FetchSearchResultProvider;
 import org.elasticsearch.search.internal.InternalSearchResponse;
@@ -52,13 +55,17 @@ public class TransportSearchCountAction extends TransportSearchTypeAction {
 
     @Override
     protected void doExecute(SearchRequest searchRequest, ActionListener<SearchResponse> listener) {
-        new AsyncAction(searchRequest, listener).start();
+        AggregationsReducer aggregationsReducer = searchPhaseController.newAggregationsReducer(searchRequest.batchedReduceSize(), threadPool.executor(ThreadPool.Names.SEARCH));
+        new AsyncAction(searchRequest, aggregationsReducer, releaseOnCompletion(listener, aggregationsReducer)).start();
     }
 
     private class AsyncAction extends BaseAsyncAction<QuerySearchResultProvider> {
 
-        private AsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
+        final AggregationsReducer aggregationsReducer;
+
+        private AsyncAction(SearchRequest request, AggregationsReducer aggregationsReducer, ActionListener<SearchResponse> listener) {
             super(request, listener);
+            this.aggregationsReducer = aggregationsReducer;
         }
 
         @Override
@@ -71,15 +78,36 @@ public class TransportSearchCountAction extends TransportSearchTypeAction {
             searchService.sendExecuteQuery(node, request, listener);
         }
 
+        @Override
+        protected void consumeFirstPhaseResult(int shardIndex, QuerySearchResultProvider result) {
+            aggregationsReducer.add(result.queryResult());
+        }
+
         @Override
         protected void moveToSecondPhase() throws Exception {
-            // no need to sort, since we know we have no hits back
-            final InternalSearchResponse internalResponse = searchPhaseController.merge(SearchPhaseController.EMPTY_DOCS, firstResults, (AtomicArray<? extends FetchSearchResultProvider>) AtomicArray.empty());
-            String scrollId = null;
-            if (request.scroll() != null) {
-                scrollId = buildScrollId(request.searchType(), firstResults, null);
-            }
-            listener.onResponse(new SearchResponse(internalResponse, scrollId, expectedSuccessfulOps, successfulOps.get(), buildTookInMillis(), buildShardFailures()));
+            // the final reduce may wait for a partial reduce, so it doesn't run on the thread of the last shard response
+            threadPool.executor(ThreadPool.Names.SEARCH).execute(new ActionRunnable<SearchResponse>(listener) {
+                @Override
+                protected void doRun() throws Exception {
+                    // no need to sort, since we know we have no hits back
+                    final InternalSearchResponse internalResponse = searchPhaseController.merge(SearchPhaseController.EMPTY_DOCS, firstResults,
+                            (AtomicArray<? extends FetchSearchResultProvider>) AtomicArray.empty(), aggregationsReducer);
+                    String scrollId = null;
+                    if (request.scroll() != null) {
+                        scrollId = buildScrollId(request.searchType(), firstResults, null);
+                    }
+                    listener.onResponse(new SearchResponse(internalResponse, scrollId, expectedSuccessfulOps, successfulOps.get(), buildTookInMillis(), buildShardFailures()));
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    ReduceSearchPhaseException failure = new ReduceSearchPhaseException("query", "", t, buildShardFailures());
+                    if (logger.isDebugEnabled()) {
+                        logger.debug("failed to reduce search", failure);
+                    }
+                    super.onFailure(failure);
+                }
+            });
         }
     }
 }
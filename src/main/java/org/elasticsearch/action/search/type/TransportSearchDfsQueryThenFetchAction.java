@@ -36,7 +36,9 @@ import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.action.SearchServiceListener;
 import org.elasticsearch.search.action.SearchServiceTransportAction;
+import org.elasticsearch.search.controller.AggregationsReducer;
 import org.elasticsearch.search.controller.SearchPhaseController;
+import org.elasticsearch.search.controller.TopDocsReducer;
 import org.elasticsearch.search.dfs.AggregatedDfs;
 import org.elasticsearch.search.dfs.DfsSearchResult;
 import org.elasticsearch.search.fetch.ShardFetchSearchRequest;
@@ -63,7 +65,8 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
 
     @Override
     protected void doExecute(SearchRequest searchRequest, ActionListener<SearchResponse> listener) {
-        new AsyncAction(searchRequest, listener).start();
+        AggregationsReducer aggregationsReducer = searchPhaseController.newAggregationsReducer(searchRequest.batchedReduceSize(), threadPool.executor(ThreadPool.Names.SEARCH));
+        new AsyncAction(searchRequest, aggregationsReducer, releaseOnCompletion(listener, aggregationsReducer)).start();
     }
 
     private class AsyncAction extends BaseAsyncAction<DfsSearchResult> {
@@ -71,12 +74,16 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
         final AtomicArray<QuerySearchResult> queryResults;
         final AtomicArray<FetchSearchResult> fetchResults;
         final AtomicArray<IntArrayList> docIdsToLoad;
+        final TopDocsReducer topDocsReducer;
+        final AggregationsReducer aggregationsReducer;
 
-        private AsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
+        private AsyncAction(SearchRequest request, AggregationsReducer aggregationsReducer, ActionListener<SearchResponse> listener) {
             super(request, listener);
+            this.aggregationsReducer = aggregationsReducer;
             queryResults = new AtomicArray<>(firstResults.length());
             fetchResults = new AtomicArray<>(firstResults.length());
             docIdsToLoad = new AtomicArray<>(firstResults.length());
+            topDocsReducer = searchPhaseController.newTopDocsReducer(request.scroll() != null);
         }
 
         @Override
@@ -107,6 +114,8 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
                 public void onResult(QuerySearchResult result) {
                     result.shardTarget(dfsResult.shardTarget());
                     queryResults.set(shardIndex, result);
+                    topDocsReducer.add(shardIndex, result);
+                    aggregationsReducer.add(result);
                     if (counter.decrementAndGet() == 0) {
                         executeFetchPhase();
                     }
@@ -143,8 +152,7 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
         }
 
         void innerExecuteFetchPhase() throws Exception {
-            boolean useScroll = request.scroll() != null;
-            sortedShardList = searchPhaseController.sortDocs(useScroll, queryResults);
+            sortedShardList = topDocsReducer.reduce();
             searchPhaseController.fillDocIdsToLoad(docIdsToLoad, sortedShardList);
 
             if (docIdsToLoad.asList().isEmpty()) {
@@ -197,7 +205,7 @@ public class TransportSearchDfsQueryThenFetchAction extends TransportSearchTypeA
             threadPool.executor(ThreadPool.Names.SEARCH).execute(new ActionRunnable<SearchResponse>(listener) {
                 @Override
                 public void doRun() throws IOException {
-                    final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, queryResults, fetchResults);
+                    final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, queryResults, fetchResults, aggregationsReducer);
                     String scrollId = null;
                     if (request.scroll() != null) {
                         scrollId = TransportSearchHelper.buildScrollId(request.searchType(), firstResults, null);
@@ -35,7 +35,9 @@ import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.search.SearchShardTarget;
 import org.elasticsearch.search.action.SearchServiceListener;
 import org.elasticsearch.search.action.SearchServiceTransportAction;
+import org.elasticsearch.search.controller.AggregationsReducer;
 import org.elasticsearch.search.controller.SearchPhaseController;
+import org.elasticsearch.search.controller.TopDocsReducer;
 import org.elasticsearch.search.fetch.ShardFetchSearchRequest;
 import org.elasticsearch.search.fetch.FetchSearchResult;
 import org.elasticsearch.search.internal.InternalSearchResponse;
@@ -59,18 +61,23 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
 
     @Override
     protected void doExecute(SearchRequest searchRequest, ActionListener<SearchResponse> listener) {
-        new AsyncAction(searchRequest, listener).start();
+        AggregationsReducer aggregationsReducer = searchPhaseController.newAggregationsReducer(searchRequest.batchedReduceSize(), threadPool.executor(ThreadPool.Names.SEARCH));
+        new AsyncAction(searchRequest, aggregationsReducer, releaseOnCompletion(listener, aggregationsReducer)).start();
     }
 
     private class AsyncAction extends BaseAsyncAction<QuerySearchResultProvider> {
 
         final AtomicArray<FetchSearchResult> fetchResults;
         final AtomicArray<IntArrayList> docIdsToLoad;
+        final TopDocsReducer topDocsReducer;
+        final AggregationsReducer aggregationsReducer;
 
-        private AsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
+        private AsyncAction(SearchRequest request, AggregationsReducer aggregationsReducer, ActionListener<SearchResponse> listener) {
             super(request, listener);
+            this.aggregationsReducer = aggregationsReducer;
             fetchResults = new AtomicArray<>(firstResults.length());
             docIdsToLoad = new AtomicArray<>(firstResults.length());
+            topDocsReducer = searchPhaseController.newTopDocsReducer(request.scroll() != null);
         }
 
         @Override
@@ -83,10 +90,15 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
             searchService.sendExecuteQuery(node, request, listener);
         }
 
+        @Override
+        protected void consumeFirstPhaseResult(int shardIndex, QuerySearchResultProvider result) {
+            topDocsReducer.add(shardIndex, result.queryResult());
+            aggregationsReducer.add(result.queryResult());
+        }
+
         @Override
         protected void moveToSecondPhase() throws Exception {
-            boolean useScroll = request.scroll() != null;
-            sortedShardList = searchPhaseController.sortDocs(useScroll, firstResults);
+            sortedShardList = topDocsReducer.reduce();
             searchPhaseController.fillDocIdsToLoad(docIdsToLoad, sortedShardList);
 
             if (docIdsToLoad.asList().isEmpty()) {
@@ -141,7 +153,7 @@ public class TransportSearchQueryThenFetchAction extends TransportSearchTypeActi
             threadPool.executor(ThreadPool.Names.SEARCH).execute(new ActionRunnable<SearchResponse>(listener) {
                 @Override
                 public void doRun() throws IOException {
-                    final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, firstResults, fetchResults);
+                    final InternalSearchResponse internalResponse = searchPhaseController.merge(sortedShardList, firstResults, fetchResults, aggregationsReducer);
                     String scrollId = null;
                     if (request.scroll() != null) {
                         scrollId = TransportSearchHelper.buildScrollId(request.searchType(), firstResults, null);
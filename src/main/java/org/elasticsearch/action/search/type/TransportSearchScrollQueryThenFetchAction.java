@@ -34,6 +34,7 @@ import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.search.action.SearchServiceListener;
 import org.elasticsearch.search.action.SearchServiceTransportAction;
 import org.elasticsearch.search.controller.SearchPhaseController;
+import org.elasticsearch.search.controller.TopDocsReducer;
 import org.elasticsearch.search.fetch.FetchSearchResult;
 import org.elasticsearch.search.fetch.ShardFetchRequest;
 import org.elasticsearch.search.internal.InternalScrollSearchRequest;
@@ -80,6 +81,7 @@ public class TransportSearchScrollQueryThenFetchAction extends AbstractComponent
         private volatile AtomicArray<ShardSearchFailure> shardFailures;
         final AtomicArray<QuerySearchResult> queryResults;
         final AtomicArray<FetchSearchResult> fetchResults;
+        final TopDocsReducer topDocsReducer;
 
         private volatile ScoreDoc[] sortedShardList;
 
@@ -94,6 +96,7 @@ public class TransportSearchScrollQueryThenFetchAction extends AbstractComponent
 
             this.queryResults = new AtomicArray<>(scrollId.getContext().length);
             this.fetchResults = new AtomicArray<>(scrollId.getContext().length);
+            this.topDocsReducer = searchPhaseController.newTopDocsReducer(true);
         }
 
         protected final ShardSearchFailure[] buildShardFailures() {
@@ -153,6 +156,7 @@ public class TransportSearchScrollQueryThenFetchAction extends AbstractComponent
                 @Override
                 public void onResult(QuerySearchResult result) {
                     queryResults.set(shardIndex, result);
+                    topDocsReducer.add(shardIndex, result);
                     if (counter.decrementAndGet() == 0) {
                         try {
                             executeFetchPhase();
@@ -189,7 +193,7 @@ public class TransportSearchScrollQueryThenFetchAction extends AbstractComponent
         }
 
         private void executeFetchPhase() throws Exception {
-            sortedShardList = searchPhaseController.sortDocs(true, queryResults);
+            sortedShardList = topDocsReducer.reduce();
             AtomicArray<IntArrayList> docIdsToLoad = new AtomicArray<>(queryResults.length());
             searchPhaseController.fillDocIdsToLoad(docIdsToLoad, sortedShardList);
 
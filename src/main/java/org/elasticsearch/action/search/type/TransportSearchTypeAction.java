@@ -37,7 +37,10 @@ import org.elasticsearch.cluster.routing.GroupShardsIterator;
 import org.elasticsearch.cluster.routing.ShardIterator;
 import org.elasticsearch.cluster.routing.ShardRouting;
 import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.AtomicArray;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.search.SearchShardTarget;
@@ -51,9 +54,13 @@ import org.elasticsearch.search.query.QuerySearchResult;
 import org.elasticsearch.search.query.QuerySearchResultProvider;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.util.ArrayDeque;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.action.search.type.TransportSearchHelper.internalSearchRequest;
@@ -63,18 +70,47 @@ import static org.elasticsearch.action.search.type.TransportSearchHelper.interna
  */
 public abstract class TransportSearchTypeAction extends TransportAction<SearchRequest, SearchResponse> {
 
+    /**
+     * The default maximum number of shard requests of a search that execute concurrently on a node, for searches
+     * that do not set {@link SearchRequest#maxConcurrentShardRequestsPerNode(int)}.
+     */
+    public static final String MAX_CONCURRENT_SHARD_REQUESTS_PER_NODE = "action.search.max_concurrent_shard_requests_per_node";
+    public static final int DEFAULT_MAX_CONCURRENT_SHARD_REQUESTS_PER_NODE = 5;
+
     protected final ClusterService clusterService;
 
     protected final SearchServiceTransportAction searchService;
 
     protected final SearchPhaseController searchPhaseController;
 
+    private final int defaultMaxConcurrentShardRequestsPerNode;
+
     public TransportSearchTypeAction(Settings settings, ThreadPool threadPool, ClusterService clusterService,
                                      SearchServiceTransportAction searchService, SearchPhaseController searchPhaseController, ActionFilters actionFilters) {
         super(settings, SearchAction.NAME, threadPool, actionFilters);
         this.clusterService = clusterService;
         this.searchService = searchService;
         this.searchPhaseController = searchPhaseController;
+        this.defaultMaxConcurrentShardRequestsPerNode = settings.getAsInt(MAX_CONCURRENT_SHARD_REQUESTS_PER_NODE, DEFAULT_MAX_CONCURRENT_SHARD_REQUESTS_PER_NODE);
+    }
+
+    /**
+     * Wraps the listener so that the given releasable is released once the search completed, successfully or not.
+     */
+    protected static ActionListener<SearchResponse> releaseOnCompletion(final ActionListener<SearchResponse> listener, final Releasable releasable) {
+        return new ActionListener<SearchResponse>() {
+            @Override
+            public void onResponse(SearchResponse response) {
+                Releasables.close(releasable);
+                listener.onResponse(response);
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                Releasables.closeWhileHandlingException(releasable);
+                listener.onFailure(e);
+            }
+        };
     }
 
     protected abstract class BaseAsyncAction<FirstResult extends SearchPhaseResult> extends AbstractAsyncAction {
@@ -99,9 +135,13 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
         private final Object shardFailuresMutex = new Object();
         protected volatile ScoreDoc[] sortedShardList;
 
+        private final NodeShardRequests nodeShardRequests;
+
         protected BaseAsyncAction(SearchRequest request, ActionListener<SearchResponse> listener) {
             this.request = request;
             this.listener = listener;
+            this.nodeShardRequests = new NodeShardRequests(request.maxConcurrentShardRequestsPerNode() > 0 ?
+                    request.maxConcurrentShardRequestsPerNode() : defaultMaxConcurrentShardRequestsPerNode);
 
             this.clusterState = clusterService.state();
             nodes = clusterState.nodes();
@@ -153,16 +193,49 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
                 if (node == null) {
                     onFirstPhaseResult(shardIndex, shard, null, shardIt, new NoShardAvailableActionException(shardIt.shardId()));
                 } else {
-                    String[] filteringAliases = clusterState.metaData().filteringAliases(shard.index(), request.indices());
-                    sendExecuteFirstPhase(node, internalSearchRequest(shard, shardsIts.size(), request, filteringAliases, startTime()), new SearchServiceListener<FirstResult>() {
+                    nodeShardRequests.execute(node.id(), new AbstractRunnable() {
+                        // the slot on the node must be released exactly once, even if sending the request fails
+                        // after the listener has been notified
+                        private final AtomicBoolean done = new AtomicBoolean();
+
                         @Override
-                        public void onResult(FirstResult result) {
-                            onFirstPhaseResult(shardIndex, shard, result, shardIt);
+                        protected void doRun() throws Exception {
+                            String[] filteringAliases = clusterState.metaData().filteringAliases(shard.index(), request.indices());
+                            sendExecuteFirstPhase(node, internalSearchRequest(shard, shardsIts.size(), request, filteringAliases, startTime()), new SearchServiceListener<FirstResult>() {
+                                @Override
+                                public void onResult(FirstResult result) {
+                                    if (done.compareAndSet(false, true)) {
+                                        try {
+                                            onFirstPhaseResult(shardIndex, shard, result, shardIt);
+                                        } finally {
+                                            nodeShardRequests.onDone(node.id());
+                                        }
+                                    }
+                                }
+
+                                @Override
+                                public void onFailure(Throwable t) {
+                                    onShardFailure(t);
+                                }
+                            });
                         }
 
                         @Override
                         public void onFailure(Throwable t) {
-                            onFirstPhaseResult(shardIndex, shard, node.id(), shardIt, t);
+                            if (done.get()) {
+                                logger.debug("[{}] failure after the first phase result has been processed", t, shard);
+                            }
+                            onShardFailure(t);
+                        }
+
+                        private void onShardFailure(Throwable t) {
+                            if (done.compareAndSet(false, true)) {
+                                try {
+                                    onFirstPhaseResult(shardIndex, shard, node.id(), shardIt, t);
+                                } finally {
+                                    nodeShardRequests.onDone(node.id());
+                                }
+                            }
                         }
                     });
                 }
@@ -347,6 +420,7 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
 
         protected final void processFirstPhaseResult(int shardIndex, ShardRouting shard, FirstResult result) {
             firstResults.set(shardIndex, result);
+            consumeFirstPhaseResult(shardIndex, result);
 
             if (logger.isTraceEnabled()) {
                 logger.trace("got first-phase result from {}", result != null ? result.shardTarget() : null);
@@ -361,6 +435,12 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
             }
         }
 
+        /**
+         * Called with every successful first phase result as it arrives, before the second phase starts.
+         */
+        protected void consumeFirstPhaseResult(int shardIndex, FirstResult result) {
+        }
+
         final void innerMoveToSecondPhase() throws Exception {
             if (logger.isTraceEnabled()) {
                 StringBuilder sb = new StringBuilder();
@@ -387,4 +467,68 @@ public abstract class TransportSearchTypeAction extends TransportAction<SearchRe
 
         protected abstract String firstPhaseName();
     }
+
+    /**
+     * Limits the number of shard requests of a search that execute concurrently on each node: requests are sent right
+     * away if less than the maximum number of shard requests execute on the node, otherwise once one of them completed.
+     * A single search over many shards can't fill up the search queues of the nodes this way, and leaves room for the
+     * shard requests of other searches. Every shard request must call {@link #onDone(String)} exactly once when it
+     * completes, including when it fails to be sent.
+     */
+    static final class NodeShardRequests {
+
+        private final int maxConcurrentPerNode;
+        private final Map<String, Node> nodes = new HashMap<>(); // guarded by this
+
+        NodeShardRequests(int maxConcurrentPerNode) {
+            this.maxConcurrentPerNode = maxConcurrentPerNode;
+        }
+
+        void execute(String nodeId, AbstractRunnable shardRequest) {
+            synchronized (this) {
+                Node node = nodes.get(nodeId);
+                if (node == null) {
+                    node = new Node();
+                    nodes.put(nodeId, node);
+                }
+                if (node.executing >= maxConcurrentPerNode) {
+                    node.pending.add(shardRequest);
+                    return;
+                }
+                node.executing++;
+            }
+            shardRequest.run();
+        }
+
+        void onDone(String nodeId) {
+            AbstractRunnable next;
+            synchronized (this) {
+                Node node = nodes.get(nodeId);
+                assert node != null && node.executing > 0 : "no shard request is executing on node [" + nodeId + "]";
+                next = node.pending.poll();
+                if (next == null) {
+                    node.executing--;
+                }
+            }
+            if (next != null) {
+                // the completed request hands its slot over to the next one
+                next.run();
+            }
+        }
+
+        synchronized int executing(String nodeId) {
+            Node node = nodes.get(nodeId);
+            return node == null ? 0 : node.executing;
+        }
+
+        synchronized int pending(String nodeId) {
+            Node node = nodes.get(nodeId);
+            return node == null ? 0 : node.pending.size();
+        }
+
+        private static class Node {
+            int executing;
+            final Queue<AbstractRunnable> pending = new ArrayDeque<>();
+        }
+    }
 }
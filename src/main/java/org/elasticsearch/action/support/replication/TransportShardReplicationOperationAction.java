@@ -34,6 +34,7 @@ import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.*;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Settings;
@@ -44,6 +45,7 @@ import org.elasticsearch.index.engine.VersionConflictEngineException;
 import org.elasticsearch.index.IndexService;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.index.shard.IndexShard;
+import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.indices.IndicesService;
 import org.elasticsearch.node.NodeClosedException;
 import org.elasticsearch.rest.RestStatus;
@@ -248,7 +250,31 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
                 failReplicaIfNeeded(request.shardId.getIndex(), request.shardId.id(), t);
                 throw t;
             }
-            channel.sendResponse(TransportResponse.Empty.INSTANCE);
+            Translog translog = durableTranslog(request.shardId);
+            if (translog == null) {
+                channel.sendResponse(TransportResponse.Empty.INSTANCE);
+                return;
+            }
+            translog.ensureSynced(null, new Translog.SyncListener() {
+                @Override
+                public void onSynced() {
+                    try {
+                        channel.sendResponse(TransportResponse.Empty.INSTANCE);
+                    } catch (Throwable t) {
+                        logger.warn("failed to send response for {}", t, transportReplicaAction);
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    failReplicaIfNeeded(request.shardId.getIndex(), request.shardId.id(), t);
+                    try {
+                        channel.sendResponse(t);
+                    } catch (Throwable e) {
+                        logger.warn("failed to send error response for {}", e, transportReplicaAction);
+                    }
+                }
+            });
         }
     }
 
@@ -309,7 +335,7 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
     }
 
     protected class AsyncShardOperationAction {
-        private final ActionListener<Response> listener;
+        private volatile ActionListener<Response> listener;
         private final InternalRequest internalRequest;
         private volatile ShardIterator shardIt;
         private final AtomicBoolean primaryOperationStarted = new AtomicBoolean();
@@ -500,6 +526,15 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
             }
             try {
                 PrimaryResponse<Response, ReplicaRequest> response = shardOperationOnPrimary(clusterState, new PrimaryOperationRequest(primaryShardId, internalRequest.concreteIndex(), internalRequest.request()));
+                if (response.translogLocation() != null) {
+                    Translog translog = durableTranslog(shardIt.shardId());
+                    if (translog != null) {
+                        // fsync the primary concurrently with the replicas, the response waits for both
+                        TranslogSyncedListener syncedListener = new TranslogSyncedListener(listener);
+                        listener = syncedListener;
+                        translog.ensureSynced(response.translogLocation(), syncedListener);
+                    }
+                }
                 performReplicas(response);
             } catch (Throwable e) {
                 internalRequest.request.setCanHaveDuplicates();
@@ -692,9 +727,7 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
                                 } catch (Throwable e) {
                                     failReplicaIfNeeded(shard.index(), shard.id(), e);
                                 }
-                                if (counter.decrementAndGet() == 0) {
-                                    listener.onResponse(response.response());
-                                }
+                                finishLocalReplica(response, counter, shard);
                             }
 
                             // we must never reject on because of thread pool capacity on replicas
@@ -721,10 +754,78 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
                     } catch (Throwable e) {
                         failReplicaIfNeeded(shard.index(), shard.id(), e);
                     }
+                    finishLocalReplica(response, counter, shard);
+                }
+            }
+        }
+
+        /**
+         * Counts down a replica operation executed on the local node, once its translog has been fsynced
+         * if the index requires per request durability.
+         */
+        void finishLocalReplica(final PrimaryResponse<Response, ReplicaRequest> response, final AtomicInteger counter, final ShardRouting shard) {
+            Translog translog = durableTranslog(shard.shardId());
+            if (translog == null) {
+                if (counter.decrementAndGet() == 0) {
+                    listener.onResponse(response.response());
+                }
+                return;
+            }
+            translog.ensureSynced(null, new Translog.SyncListener() {
+                @Override
+                public void onSynced() {
+                    if (counter.decrementAndGet() == 0) {
+                        listener.onResponse(response.response());
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    failReplicaIfNeeded(shard.index(), shard.id(), t);
                     if (counter.decrementAndGet() == 0) {
                         listener.onResponse(response.response());
                     }
                 }
+            });
+        }
+
+        /**
+         * Holds back the response until both the replication has finished and the translog location written
+         * on the primary has been fsynced.
+         */
+        class TranslogSyncedListener implements ActionListener<Response>, Translog.SyncListener {
+
+            private final ActionListener<Response> delegate;
+            private final AtomicInteger pending = new AtomicInteger(2);
+            private final AtomicBoolean notified = new AtomicBoolean();
+            private volatile Response response;
+
+            TranslogSyncedListener(ActionListener<Response> delegate) {
+                this.delegate = delegate;
+            }
+
+            @Override
+            public void onResponse(Response response) {
+                this.response = response;
+                countDown();
+            }
+
+            @Override
+            public void onSynced() {
+                countDown();
+            }
+
+            @Override
+            public void onFailure(Throwable e) {
+                if (notified.compareAndSet(false, true)) {
+                    delegate.onFailure(e);
+                }
+            }
+
+            private void countDown() {
+                if (pending.decrementAndGet() == 0 && notified.compareAndSet(false, true)) {
+                    delegate.onResponse(response);
+                }
             }
         }
 
@@ -798,15 +899,39 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
         }
     }
 
+    /**
+     * Returns the translog of the given shard if requests on it have to wait for their operations to be fsynced,
+     * or <tt>null</tt> if the shard is not allocated on this node or uses async durability.
+     */
+    @Nullable
+    private Translog durableTranslog(ShardId shardId) {
+        IndexService indexService = indicesService.indexService(shardId.getIndex());
+        if (indexService == null) {
+            return null;
+        }
+        IndexShard indexShard = indexService.shard(shardId.id());
+        if (indexShard == null) {
+            return null;
+        }
+        Translog translog = indexShard.translog();
+        return translog.durability() == Translog.Durability.REQUEST ? translog : null;
+    }
+
     public static class PrimaryResponse<Response, ReplicaRequest> {
         private final ReplicaRequest replicaRequest;
         private final Response response;
         private final Object payload;
+        private final Translog.Location translogLocation;
 
         public PrimaryResponse(ReplicaRequest replicaRequest, Response response, Object payload) {
+            this(replicaRequest, response, payload, null);
+        }
+
+        public PrimaryResponse(ReplicaRequest replicaRequest, Response response, Object payload, @Nullable Translog.Location translogLocation) {
             this.replicaRequest = replicaRequest;
             this.response = response;
             this.payload = payload;
+            this.translogLocation = translogLocation;
         }
 
         public ReplicaRequest replicaRequest() {
@@ -820,6 +945,15 @@ public abstract class TransportShardReplicationOperationAction<Request extends S
         public Object payload() {
             return payload;
         }
+
+        /**
+         * The translog location written last by the primary operation, the response waits for it to be
+         * fsynced if the index requires per request durability.
+         */
+        @Nullable
+        public Translog.Location translogLocation() {
+            return translogLocation;
+        }
     }
 
     /**
@@ -20,18 +20,27 @@
 package org.elasticsearch.cache.recycler;
 
 import com.google.common.base.Strings;
+import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.ElasticsearchIllegalStateException;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.recycler.AbstractRecyclerC;
 import org.elasticsearch.common.recycler.Recycler;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.RatioValue;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.DirectBuffers;
 import org.elasticsearch.common.util.concurrent.EsExecutors;
+import org.elasticsearch.monitor.jvm.JvmInfo;
 import org.elasticsearch.threadpool.ThreadPool;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.Arrays;
 import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.elasticsearch.common.recycler.Recyclers.*;
 
@@ -42,6 +51,8 @@ public class PageCacheRecycler extends AbstractComponent {
     public static final String LIMIT_HEAP = "page.limit.heap";
     public static final String LIMIT_PER_THREAD = "page.limit.per_thread";
     public static final String WEIGHT = "page.weight";
+    public static final String OFF_HEAP = "page.off_heap";
+    public static final String LIMIT_OFF_HEAP = "page.limit.off_heap";
 
     private final Recycler<byte[]> bytePage;
     private final Recycler<int[]> intPage;
@@ -49,6 +60,9 @@ public class PageCacheRecycler extends AbstractComponent {
     private final Recycler<float[]> floatPage;
     private final Recycler<double[]> doublePage;
     private final Recycler<Object[]> objectPage;
+    private final Recycler<ByteBuffer> directPage;
+    private final int maxDirectPages;
+    private final AtomicInteger reservedDirectPages = new AtomicInteger();
 
     public void close() {
         bytePage.close();
@@ -57,6 +71,9 @@ public class PageCacheRecycler extends AbstractComponent {
         floatPage.close();
         doublePage.close();
         objectPage.close();
+        if (directPage != null) {
+            directPage.close();
+        }
     }
 
     private static int maximumSearchThreadPoolSize(ThreadPool threadPool, Settings settings) {
@@ -171,6 +188,98 @@ public class PageCacheRecycler extends AbstractComponent {
                 Arrays.fill(value, null); // we need to remove the strong refs on the objects stored in the array
             }
         });
+
+        // Off-heap pages are direct byte buffers that BigArrays interprets as ints, longs, floats or doubles, so a
+        // single recycler serves all of them. The limit is a hard cap on the number of pages that are allocated: arrays
+        // reserve pages before they obtain them, see #reserveDirectPages. Pages are cached in a single queue so that a new
+        // page is only allocated when no cached page is available, and pages that are not cached anymore are freed
+        // explicitly rather than when their buffer happens to be garbage collected.
+        if (componentSettings.getAsBoolean(OFF_HEAP, false)) {
+            maxDirectPages = maxCount(offHeapLimit(componentSettings), BigArrays.PAGE_SIZE_IN_BYTES, 1d, 1d);
+            final Recycler.C<ByteBuffer> directPageC = new AbstractRecyclerC<ByteBuffer>() {
+                @Override
+                public ByteBuffer newInstance(int sizing) {
+                    return ByteBuffer.allocateDirect(BigArrays.PAGE_SIZE_IN_BYTES).order(ByteOrder.nativeOrder());
+                }
+                @Override
+                public void recycle(ByteBuffer value) {
+                    // nothing to do, pages are only accessed through absolute reads and writes
+                }
+                @Override
+                public void destroy(ByteBuffer value) {
+                    DirectBuffers.free(value);
+                }
+            };
+            if (type == Type.NONE || maxDirectPages == 0) {
+                directPage = none(directPageC);
+            } else {
+                directPage = concurrentDeque(directPageC, maxDirectPages);
+            }
+        } else {
+            maxDirectPages = 0;
+            directPage = null;
+        }
+    }
+
+    // The off-heap limit is either an absolute value or a percentage of the maximum amount of direct memory of the JVM
+    // (-XX:MaxDirectMemorySize), which is also what it is checked against since going over it would fail allocations
+    // with an OutOfMemoryError.
+    private static long offHeapLimit(Settings componentSettings) {
+        final String setting = componentSettings.get(LIMIT_OFF_HEAP, "50%");
+        long directMemoryMax = JvmInfo.jvmInfo().getMem().directMemoryMax().bytes();
+        if (directMemoryMax <= 0) {
+            // unknown, the JVM defaults to the maximum heap size
+            directMemoryMax = JvmInfo.jvmInfo().getMem().getHeapMax().bytes();
+        }
+        final long limit;
+        if (setting.endsWith("%")) {
+            limit = (long) (RatioValue.parseRatioValue(setting).getAsRatio() * directMemoryMax);
+        } else {
+            limit = ByteSizeValue.parseBytesSizeValue(setting).bytes();
+        }
+        if (limit > directMemoryMax) {
+            throw new ElasticsearchIllegalArgumentException("[cache.recycler." + LIMIT_OFF_HEAP + "] is set to [" + setting
+                    + "] which is more than the maximum direct memory of the JVM [" + new ByteSizeValue(directMemoryMax)
+                    + "], see -XX:MaxDirectMemorySize");
+        }
+        return limit;
+    }
+
+    /**
+     * Whether {@link BigArrays} should store large primitive arrays in off-heap pages, see {@link #directPage(boolean)}.
+     */
+    public boolean offHeap() {
+        return directPage != null;
+    }
+
+    /**
+     * Try to reserve <code>count</code> off-heap pages, returns <tt>false</tt> if this would exceed
+     * <tt>cache.recycler.page.limit.off_heap</tt>, in which case callers should fall back to on-heap pages. Pages must be
+     * reserved before they are obtained through {@link #directPage(boolean)}, and reservations must only be released
+     * through {@link #releaseDirectPages(int)} after the pages have been closed.
+     */
+    public boolean reserveDirectPages(int count) {
+        assert count >= 0;
+        while (true) {
+            final int reserved = reservedDirectPages.get();
+            if (reserved + count > maxDirectPages) {
+                return false;
+            }
+            if (reservedDirectPages.compareAndSet(reserved, reserved + count)) {
+                return true;
+            }
+        }
+    }
+
+    /** Release reservations that have been made through {@link #reserveDirectPages(int)}. */
+    public void releaseDirectPages(int count) {
+        final int reserved = reservedDirectPages.addAndGet(-count);
+        assert reserved >= 0 : "released more off-heap pages than reserved";
+    }
+
+    /** Return the number of off-heap pages that are currently reserved. */
+    public int reservedDirectPages() {
+        return reservedDirectPages.get();
     }
 
     public Recycler.V<byte[]> bytePage(boolean clear) {
@@ -218,6 +327,26 @@ public class PageCacheRecycler extends AbstractComponent {
         return objectPage.obtain();
     }
 
+    /**
+     * Obtain an off-heap page of {@link BigArrays#PAGE_SIZE_IN_BYTES} bytes in native byte order. Only available if
+     * off-heap pages are enabled, see {@link #offHeap()}, and after the page has been reserved, see
+     * {@link #reserveDirectPages(int)}.
+     */
+    public Recycler.V<ByteBuffer> directPage(boolean clear) {
+        if (directPage == null) {
+            throw new ElasticsearchIllegalStateException("off-heap pages are disabled, see [cache.recycler." + OFF_HEAP + "]");
+        }
+        assert reservedDirectPages.get() > 0 : "off-heap pages must be reserved before they are obtained";
+        final Recycler.V<ByteBuffer> v = directPage.obtain();
+        if (v.isRecycled() && clear) {
+            final ByteBuffer page = v.v();
+            for (int i = 0; i < page.capacity(); i += RamUsageEstimator.NUM_BYTES_LONG) {
+                page.putLong(i, 0L);
+            }
+        }
+        return v;
+    }
+
     private static <T> Recycler<T> build(Type type, int limit, int estimatedThreadPoolSize, int availableProcessors, Recycler.C<T> c) {
         final Recycler<T> recycler;
         if (limit == 0) {
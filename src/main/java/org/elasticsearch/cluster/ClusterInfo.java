@@ -25,18 +25,28 @@ import java.util.Map;
 
 /**
  * ClusterInfo is an object representing a map of nodes to {@link DiskUsage}
- * and a map of shard ids to shard sizes, see
+ * and maps of shard ids to shard sizes and to the indexing and search rates
+ * of the shards, see
  * <code>InternalClusterInfoService.shardIdentifierFromRouting(String)</code>
- * for the key used in the shardSizes map
+ * for the key used in the shard maps
  */
 public class ClusterInfo {
 
     private final ImmutableMap<String, DiskUsage> usages;
     private final ImmutableMap<String, Long> shardSizes;
+    private final ImmutableMap<String, Double> shardIndexingRates;
+    private final ImmutableMap<String, Double> shardSearchRates;
 
     public ClusterInfo(ImmutableMap<String, DiskUsage> usages, ImmutableMap<String, Long> shardSizes) {
+        this(usages, shardSizes, ImmutableMap.<String, Double>of(), ImmutableMap.<String, Double>of());
+    }
+
+    public ClusterInfo(ImmutableMap<String, DiskUsage> usages, ImmutableMap<String, Long> shardSizes,
+                       ImmutableMap<String, Double> shardIndexingRates, ImmutableMap<String, Double> shardSearchRates) {
         this.usages = usages;
         this.shardSizes = shardSizes;
+        this.shardIndexingRates = shardIndexingRates;
+        this.shardSearchRates = shardSearchRates;
     }
 
     public Map<String, DiskUsage> getNodeDiskUsages() {
@@ -46,4 +56,18 @@ public class ClusterInfo {
     public Map<String, Long> getShardSizes() {
         return this.shardSizes;
     }
+
+    /**
+     * The number of index operations per second of each shard, measured between the last two updates
+     */
+    public Map<String, Double> getShardIndexingRates() {
+        return this.shardIndexingRates;
+    }
+
+    /**
+     * The number of queries per second of each shard, measured between the last two updates
+     */
+    public Map<String, Double> getShardSearchRates() {
+        return this.shardSearchRates;
+    }
 }
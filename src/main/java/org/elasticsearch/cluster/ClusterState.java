@@ -666,5 +666,64 @@ public class ClusterState implements ToXContent {
             }
             return builder.build();
         }
+
+        /**
+         * Writes the changes between <tt>previousState</tt> and <tt>state</tt>. The diff can only be applied
+         * using {@link #readDiffFrom(StreamInput, ClusterState, DiscoveryNode)} on a node that has seen
+         * <tt>previousState</tt>, identified by its version and master node.
+         */
+        public static void writeDiffTo(ClusterState previousState, ClusterState state, StreamOutput out) throws IOException {
+            out.writeBoolean(state.clusterName != null);
+            if (state.clusterName != null) {
+                state.clusterName.writeTo(out);
+            }
+            out.writeLong(previousState.version());
+            out.writeOptionalString(previousState.nodes().masterNodeId());
+            out.writeLong(state.version());
+            MetaData.Builder.writeDiffTo(previousState.metaData(), state.metaData(), out);
+            RoutingTable.Builder.writeDiffTo(previousState.routingTable(), state.routingTable(), out);
+            DiscoveryNodes.Builder.writeDiffTo(previousState.nodes(), state.nodes(), out);
+            ClusterBlocks.Builder.writeClusterBlocks(state.blocks(), out);
+            out.writeVInt(state.customs().size());
+            for (ObjectObjectCursor<String, Custom> cursor : state.customs()) {
+                out.writeString(cursor.key);
+                lookupFactorySafe(cursor.key).writeTo(cursor.value, out);
+            }
+        }
+
+        /**
+         * Reads a diff written by {@link #writeDiffTo(ClusterState, ClusterState, StreamOutput)} and applies it
+         * on top of <tt>previousState</tt>.
+         *
+         * @throws IncompatibleClusterStateVersionException if the diff was not computed against <tt>previousState</tt>
+         */
+        public static ClusterState readDiffFrom(StreamInput in, ClusterState previousState, @Nullable DiscoveryNode localNode) throws IOException {
+            ClusterName clusterName = previousState.getClusterName();
+            if (in.readBoolean()) {
+                clusterName = ClusterName.readClusterName(in);
+            }
+            long fromVersion = in.readLong();
+            String fromMasterNodeId = in.readOptionalString();
+            if (fromVersion != previousState.version()) {
+                throw new IncompatibleClusterStateVersionException(previousState.version(), fromVersion);
+            }
+            String previousMasterNodeId = previousState.nodes().masterNodeId();
+            if (fromMasterNodeId == null ? previousMasterNodeId != null : !fromMasterNodeId.equals(previousMasterNodeId)) {
+                throw new IncompatibleClusterStateVersionException("Expected diff from master [" + previousMasterNodeId + "] but received diff from master [" + fromMasterNodeId + "]");
+            }
+            Builder builder = new Builder(clusterName);
+            builder.version = in.readLong();
+            builder.metaData = MetaData.Builder.readDiffFrom(in, previousState.metaData());
+            builder.routingTable = RoutingTable.Builder.readDiffFrom(in, previousState.routingTable());
+            builder.nodes = DiscoveryNodes.Builder.readDiffFrom(in, previousState.nodes(), localNode);
+            builder.blocks = ClusterBlocks.Builder.readClusterBlocks(in);
+            int customSize = in.readVInt();
+            for (int i = 0; i < customSize; i++) {
+                String type = in.readString();
+                Custom customIndexMetaData = lookupFactorySafe(type).readFrom(in);
+                builder.putCustom(type, customIndexMetaData);
+            }
+            return builder.build();
+        }
     }
 }
@@ -46,6 +46,15 @@ abstract public class ClusterStateUpdateTask {
         return true;
     }
 
+    /**
+     * Tasks that return the same non null key may be drained from the queue and executed together, one after
+     * the other, with the resulting cluster state applied and published once for the whole batch.
+     */
+    @Nullable
+    public String batchingKey() {
+        return null;
+    }
+
     /**
      * called when the task was rejected because the local node is no longer master
      */
@@ -33,9 +33,11 @@ import org.elasticsearch.action.admin.indices.stats.TransportIndicesStatsAction;
 import org.elasticsearch.cluster.block.ClusterBlockException;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.allocator.BalancedShardsAllocator;
 import org.elasticsearch.cluster.routing.allocation.decider.DiskThresholdDecider;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
@@ -56,7 +58,10 @@ import java.util.concurrent.TimeUnit;
  * ClusterInfoUpdateJob if a node has been added.
  *
  * Every time the timer runs, gathers information about the disk usage and
- * shard sizes across the cluster.
+ * shard sizes across the cluster, and the indexing and search rates of the
+ * shards since the previous run. It also runs if the disk threshold decider is
+ * disabled but the {@link BalancedShardsAllocator} balances on the load of
+ * the shards.
  */
 public class InternalClusterInfoService extends AbstractComponent implements ClusterInfoService, LocalNodeMasterListener, ClusterStateListener {
 
@@ -66,8 +71,14 @@ public class InternalClusterInfoService extends AbstractComponent implements Clu
 
     private volatile ImmutableMap<String, DiskUsage> usages;
     private volatile ImmutableMap<String, Long> shardSizes;
+    private volatile ImmutableMap<String, Double> shardIndexingRates;
+    private volatile ImmutableMap<String, Double> shardSearchRates;
     private volatile boolean isMaster = false;
     private volatile boolean enabled;
+    private volatile boolean loadBalancingEnabled;
+    // the index and query counts of each shard copy on the previous run, guarded by this
+    private Map<String, long[]> previousShardCounts = new HashMap<>();
+    private long previousShardCountsNanos;
     private final TransportNodesStatsAction transportNodesStatsAction;
     private final TransportIndicesStatsAction transportIndicesStatsAction;
     private final ClusterService clusterService;
@@ -82,12 +93,15 @@ public class InternalClusterInfoService extends AbstractComponent implements Clu
         super(settings);
         this.usages = ImmutableMap.of();
         this.shardSizes = ImmutableMap.of();
+        this.shardIndexingRates = ImmutableMap.of();
+        this.shardSearchRates = ImmutableMap.of();
         this.transportNodesStatsAction = transportNodesStatsAction;
         this.transportIndicesStatsAction = transportIndicesStatsAction;
         this.clusterService = clusterService;
         this.threadPool = threadPool;
         this.updateFrequency = settings.getAsTime(INTERNAL_CLUSTER_INFO_UPDATE_INTERVAL, TimeValue.timeValueSeconds(30));
         this.enabled = settings.getAsBoolean(DiskThresholdDecider.CLUSTER_ROUTING_ALLOCATION_DISK_THRESHOLD_ENABLED, true);
+        this.loadBalancingEnabled = BalancedShardsAllocator.balancesOnLoad(settings);
         nodeSettingsService.addListener(new ApplySettings());
 
         // Add InternalClusterInfoService to listen for Master changes
@@ -117,6 +131,9 @@ public class InternalClusterInfoService extends AbstractComponent implements Clu
             if (newEnabled != null) {
                 InternalClusterInfoService.this.enabled = newEnabled;
             }
+            // the cluster settings override the balance factors of the node settings
+            InternalClusterInfoService.this.loadBalancingEnabled = BalancedShardsAllocator.balancesOnLoad(
+                    ImmutableSettings.builder().put(InternalClusterInfoService.this.settings).put(settings).build());
         }
     }
 
@@ -152,7 +169,7 @@ public class InternalClusterInfoService extends AbstractComponent implements Clu
 
     @Override
     public void clusterChanged(ClusterChangedEvent event) {
-        if (!this.enabled) {
+        if (!this.enabled && !this.loadBalancingEnabled) {
             return;
         }
 
@@ -188,7 +205,7 @@ public class InternalClusterInfoService extends AbstractComponent implements Clu
 
     @Override
     public ClusterInfo getClusterInfo() {
-        return new ClusterInfo(usages, shardSizes);
+        return new ClusterInfo(usages, shardSizes, shardIndexingRates, shardSearchRates);
     }
 
     @Override
@@ -242,6 +259,8 @@ public class InternalClusterInfoService extends AbstractComponent implements Clu
         final IndicesStatsRequest indicesStatsRequest = new IndicesStatsRequest();
         indicesStatsRequest.clear();
         indicesStatsRequest.store(true);
+        indicesStatsRequest.indexing(true);
+        indicesStatsRequest.search(true);
 
         transportIndicesStatsAction.execute(indicesStatsRequest, new LatchedActionListener<>(listener, latch));
         return latch;
@@ -280,7 +299,7 @@ public class InternalClusterInfoService extends AbstractComponent implements Clu
                     logger.debug("Reschedule cluster info service was rejected", ex);
                 }
             }
-            if (!enabled) {
+            if (!enabled && !loadBalancingEnabled) {
                 // Short-circuit if not enabled
                 if (logger.isTraceEnabled()) {
                     logger.trace("Skipping ClusterInfoUpdatedJob since it is disabled");
@@ -340,6 +359,7 @@ public class InternalClusterInfoService extends AbstractComponent implements Clu
                         newShardSizes.put(sid, size);
                     }
                     shardSizes = ImmutableMap.copyOf(newShardSizes);
+                    updateShardRates(stats);
                 }
 
                 @Override
@@ -376,6 +396,49 @@ public class InternalClusterInfoService extends AbstractComponent implements Clu
         }
     }
 
+    /**
+     * Computes the indexing and search rates of the shards from the difference of their index and query counts to
+     * the previous run. Replicas share the same identifier, the rate of the busiest copy is kept.
+     */
+    private synchronized void updateShardRates(ShardStats[] stats) {
+        final long now = System.nanoTime();
+        final double elapsedSeconds = (now - previousShardCountsNanos) / (double) TimeUnit.SECONDS.toNanos(1);
+        final Map<String, long[]> shardCounts = new HashMap<>();
+        final Map<String, Double> newIndexingRates = new HashMap<>();
+        final Map<String, Double> newSearchRates = new HashMap<>();
+        for (ShardStats s : stats) {
+            if (s.getStats().getIndexing() == null || s.getStats().getSearch() == null) {
+                continue;
+            }
+            final String sid = shardIdentifierFromRouting(s.getShardRouting());
+            final String copyId = sid + "[" + s.getShardRouting().currentNodeId() + "]";
+            final long[] counts = new long[]{s.getStats().getIndexing().getTotal().getIndexCount(),
+                    s.getStats().getSearch().getTotal().getQueryCount()};
+            shardCounts.put(copyId, counts);
+            final long[] previousCounts = previousShardCounts.get(copyId);
+            // the counts restart when the shard copy is recreated, we need two runs to measure its rates
+            if (previousCounts == null || elapsedSeconds <= 0 || counts[0] < previousCounts[0] || counts[1] < previousCounts[1]) {
+                continue;
+            }
+            putMax(newIndexingRates, sid, (counts[0] - previousCounts[0]) / elapsedSeconds);
+            putMax(newSearchRates, sid, (counts[1] - previousCounts[1]) / elapsedSeconds);
+            if (logger.isTraceEnabled()) {
+                logger.trace("shard: {} indexing rate: {}/s search rate: {}/s", copyId, newIndexingRates.get(sid), newSearchRates.get(sid));
+            }
+        }
+        previousShardCounts = shardCounts;
+        previousShardCountsNanos = now;
+        shardIndexingRates = ImmutableMap.copyOf(newIndexingRates);
+        shardSearchRates = ImmutableMap.copyOf(newSearchRates);
+    }
+
+    private static void putMax(Map<String, Double> rates, String sid, double rate) {
+        final Double existing = rates.get(sid);
+        if (existing == null || existing < rate) {
+            rates.put(sid, rate);
+        }
+    }
+
     /**
      * Method that incorporates the ShardId for the shard into a string that
      * includes a 'p' or 'r' depending on whether the shard is a primary.
@@ -62,6 +62,12 @@ public class ShardStateAction extends AbstractComponent {
     private final AllocationService allocationService;
     private final ThreadPool threadPool;
 
+    // queued up shard started events are applied together in a single cluster state update, and so are shard failed
+    // events. They use different keys since they are submitted with different priorities, and a batch runs with the
+    // priority of the task that triggered it.
+    private static final String SHARD_FAILED_BATCHING_KEY = "shard-failed";
+    private static final String SHARD_STARTED_BATCHING_KEY = "shard-started";
+
     private final BlockingQueue<ShardRoutingEntry> startedShardsQueue = ConcurrentCollections.newBlockingQueue();
     private final BlockingQueue<ShardRoutingEntry> failedShardQueue = ConcurrentCollections.newBlockingQueue();
 
@@ -144,6 +150,11 @@ public class ShardStateAction extends AbstractComponent {
         logger.warn("{} received shard failed for {}", shardRoutingEntry.shardRouting.shardId(), shardRoutingEntry);
         failedShardQueue.add(shardRoutingEntry);
         clusterService.submitStateUpdateTask("shard-failed (" + shardRoutingEntry.shardRouting + "), reason [" + shardRoutingEntry.reason + "]", Priority.HIGH, new ClusterStateUpdateTask() {
+            @Override
+            public String batchingKey() {
+                return SHARD_FAILED_BATCHING_KEY;
+            }
+
             @Override
             public ClusterState execute(ClusterState currentState) {
                 if (shardRoutingEntry.processed) {
@@ -204,6 +215,11 @@ public class ShardStateAction extends AbstractComponent {
 
         clusterService.submitStateUpdateTask("shard-started (" + shardRoutingEntry.shardRouting + "), reason [" + shardRoutingEntry.reason + "]", Priority.URGENT,
                 new ClusterStateUpdateTask() {
+                    @Override
+                    public String batchingKey() {
+                        return SHARD_STARTED_BATCHING_KEY;
+                    }
+
                     @Override
                     public ClusterState execute(ClusterState currentState) {
 
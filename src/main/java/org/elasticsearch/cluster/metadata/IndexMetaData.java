@@ -25,6 +25,7 @@ import com.google.common.collect.ImmutableMap;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.ElasticsearchIllegalStateException;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.block.ClusterBlock;
 import org.elasticsearch.cluster.block.ClusterBlockLevel;
 import org.elasticsearch.cluster.node.DiscoveryNodeFilters;
@@ -783,5 +784,84 @@ public class IndexMetaData {
                 lookupFactorySafe(cursor.key).writeTo(cursor.value, out);
             }
         }
+
+        /**
+         * Writes the changes between two versions of the same index meta data. Only the mappings, which make up
+         * most of the serialized size, are sent incrementally, the rest is sent in full.
+         */
+        public static void writeDiffTo(IndexMetaData previousIndexMetaData, IndexMetaData indexMetaData, StreamOutput out) throws IOException {
+            out.writeString(indexMetaData.index());
+            out.writeLong(indexMetaData.version());
+            out.writeByte(indexMetaData.state().id());
+            writeSettingsToStream(indexMetaData.settings(), out);
+            int removedMappings = 0;
+            for (ObjectCursor<String> cursor : previousIndexMetaData.mappings().keys()) {
+                if (!indexMetaData.mappings().containsKey(cursor.value)) {
+                    removedMappings++;
+                }
+            }
+            out.writeVInt(removedMappings);
+            for (ObjectCursor<String> cursor : previousIndexMetaData.mappings().keys()) {
+                if (!indexMetaData.mappings().containsKey(cursor.value)) {
+                    out.writeString(cursor.value);
+                }
+            }
+            int changedMappings = 0;
+            for (ObjectObjectCursor<String, MappingMetaData> cursor : indexMetaData.mappings()) {
+                if (previousIndexMetaData.mappings().get(cursor.key) != cursor.value) {
+                    changedMappings++;
+                }
+            }
+            out.writeVInt(changedMappings);
+            for (ObjectObjectCursor<String, MappingMetaData> cursor : indexMetaData.mappings()) {
+                if (previousIndexMetaData.mappings().get(cursor.key) != cursor.value) {
+                    MappingMetaData.writeTo(cursor.value, out);
+                }
+            }
+            out.writeVInt(indexMetaData.aliases().size());
+            for (ObjectCursor<AliasMetaData> cursor : indexMetaData.aliases().values()) {
+                AliasMetaData.Builder.writeTo(cursor.value, out);
+            }
+            out.writeVInt(indexMetaData.customs().size());
+            for (ObjectObjectCursor<String, Custom> cursor : indexMetaData.customs()) {
+                out.writeString(cursor.key);
+                lookupFactorySafe(cursor.key).writeTo(cursor.value, out);
+            }
+        }
+
+        public static IndexMetaData readDiffFrom(StreamInput in, MetaData previousMetaData) throws IOException {
+            String index = in.readString();
+            IndexMetaData previousIndexMetaData = previousMetaData.index(index);
+            if (previousIndexMetaData == null) {
+                throw new IncompatibleClusterStateVersionException("Received a diff for index [" + index + "] which is missing in the previous cluster state");
+            }
+            Builder builder = new Builder(previousIndexMetaData);
+            builder.version(in.readLong());
+            builder.state(State.fromId(in.readByte()));
+            builder.settings(readSettingsFromStream(in));
+            int removedMappings = in.readVInt();
+            for (int i = 0; i < removedMappings; i++) {
+                builder.removeMapping(in.readString());
+            }
+            int changedMappings = in.readVInt();
+            for (int i = 0; i < changedMappings; i++) {
+                builder.putMapping(MappingMetaData.readFrom(in));
+            }
+            builder.removeAllAliases();
+            int aliasesSize = in.readVInt();
+            for (int i = 0; i < aliasesSize; i++) {
+                builder.putAlias(AliasMetaData.Builder.readFrom(in));
+            }
+            for (ObjectCursor<String> cursor : previousIndexMetaData.customs().keys()) {
+                builder.removeCustom(cursor.value);
+            }
+            int customSize = in.readVInt();
+            for (int i = 0; i < customSize; i++) {
+                String type = in.readString();
+                Custom customIndexMetaData = lookupFactorySafe(type).readFrom(in);
+                builder.putCustom(type, customIndexMetaData);
+            }
+            return builder.build();
+        }
     }
 }
@@ -1435,5 +1435,86 @@ public class MetaData implements Iterable<IndexMetaData> {
                 lookupFactorySafe(cursor.key).writeTo(cursor.value, out);
             }
         }
+
+        /**
+         * Writes the changes between two meta data instances. Indices are compared by identity, which holds
+         * for unchanged indices since {@link #put(IndexMetaData, boolean)} keeps the existing instance.
+         */
+        public static void writeDiffTo(MetaData previousMetaData, MetaData metaData, StreamOutput out) throws IOException {
+            out.writeLong(metaData.version);
+            out.writeString(metaData.uuid);
+            writeSettingsToStream(metaData.transientSettings(), out);
+            writeSettingsToStream(metaData.persistentSettings(), out);
+
+            List<String> removedIndices = newArrayList();
+            for (ObjectCursor<String> cursor : previousMetaData.indices.keys()) {
+                if (!metaData.indices.containsKey(cursor.value)) {
+                    removedIndices.add(cursor.value);
+                }
+            }
+            out.writeVInt(removedIndices.size());
+            for (String index : removedIndices) {
+                out.writeString(index);
+            }
+            List<IndexMetaData> changedIndices = newArrayList();
+            for (IndexMetaData indexMetaData : metaData) {
+                if (previousMetaData.indices.get(indexMetaData.index()) != indexMetaData) {
+                    changedIndices.add(indexMetaData);
+                }
+            }
+            out.writeVInt(changedIndices.size());
+            for (IndexMetaData indexMetaData : changedIndices) {
+                IndexMetaData previousIndexMetaData = previousMetaData.indices.get(indexMetaData.index());
+                if (previousIndexMetaData == null) {
+                    out.writeBoolean(false);
+                    IndexMetaData.Builder.writeTo(indexMetaData, out);
+                } else {
+                    out.writeBoolean(true);
+                    IndexMetaData.Builder.writeDiffTo(previousIndexMetaData, indexMetaData, out);
+                }
+            }
+
+            out.writeVInt(metaData.templates.size());
+            for (ObjectCursor<IndexTemplateMetaData> cursor : metaData.templates.values()) {
+                IndexTemplateMetaData.Builder.writeTo(cursor.value, out);
+            }
+            out.writeVInt(metaData.customs().size());
+            for (ObjectObjectCursor<String, Custom> cursor : metaData.customs()) {
+                out.writeString(cursor.key);
+                lookupFactorySafe(cursor.key).writeTo(cursor.value, out);
+            }
+        }
+
+        public static MetaData readDiffFrom(StreamInput in, MetaData previousMetaData) throws IOException {
+            Builder builder = new Builder();
+            builder.version = in.readLong();
+            builder.uuid = in.readString();
+            builder.transientSettings(readSettingsFromStream(in));
+            builder.persistentSettings(readSettingsFromStream(in));
+            builder.indices.putAll(previousMetaData.indices);
+            int size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                builder.remove(in.readString());
+            }
+            size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                if (in.readBoolean()) {
+                    builder.put(IndexMetaData.Builder.readDiffFrom(in, previousMetaData), false);
+                } else {
+                    builder.put(IndexMetaData.Builder.readFrom(in), false);
+                }
+            }
+            size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                builder.put(IndexTemplateMetaData.Builder.readFrom(in));
+            }
+            int customSize = in.readVInt();
+            for (int i = 0; i < customSize; i++) {
+                String type = in.readString();
+                Custom customIndexMetaData = lookupFactorySafe(type).readFrom(in);
+                builder.putCustom(type, customIndexMetaData);
+            }
+            return builder.build();
+        }
     }
 }
@@ -214,6 +214,12 @@ public class MetaDataCreateIndexService extends AbstractComponent {
                 return new ClusterStateUpdateResponse(acknowledged);
             }
 
+            @Override
+            public String batchingKey() {
+                // index creations of different indices can be applied and published in one go
+                return "create-index";
+            }
+
             @Override
             public void onAllNodesAcked(@Nullable Throwable t) {
                 mdLock.release();
@@ -463,6 +463,11 @@ public class MetaDataMappingService extends AbstractComponent {
                 return new ClusterStateUpdateResponse(acknowledged);
             }
 
+            @Override
+            public String batchingKey() {
+                return "put-mapping";
+            }
+
             @Override
             public ClusterState execute(final ClusterState currentState) throws Exception {
                 List<String> indicesToClose = Lists.newArrayList();
@@ -664,5 +664,55 @@ public class DiscoveryNodes implements Iterable<DiscoveryNode> {
             }
             return builder.build();
         }
+
+        /**
+         * Writes the nodes that were removed or added between two node sets. Nodes are identified by their id,
+         * which changes whenever a node restarts.
+         */
+        public static void writeDiffTo(DiscoveryNodes previousNodes, DiscoveryNodes nodes, StreamOutput out) throws IOException {
+            out.writeOptionalString(nodes.masterNodeId());
+            List<String> removedNodes = newArrayList();
+            for (ObjectCursor<String> cursor : previousNodes.nodes().keys()) {
+                if (!nodes.nodeExists(cursor.value)) {
+                    removedNodes.add(cursor.value);
+                }
+            }
+            out.writeVInt(removedNodes.size());
+            for (String nodeId : removedNodes) {
+                out.writeString(nodeId);
+            }
+            List<DiscoveryNode> addedNodes = newArrayList();
+            for (DiscoveryNode node : nodes) {
+                if (!previousNodes.nodeExists(node.id())) {
+                    addedNodes.add(node);
+                }
+            }
+            out.writeVInt(addedNodes.size());
+            for (DiscoveryNode node : addedNodes) {
+                node.writeTo(out);
+            }
+        }
+
+        public static DiscoveryNodes readDiffFrom(StreamInput in, DiscoveryNodes previousNodes, @Nullable DiscoveryNode localNode) throws IOException {
+            Builder builder = new Builder(previousNodes);
+            builder.masterNodeId(in.readOptionalString());
+            if (localNode != null) {
+                builder.localNodeId(localNode.id());
+            }
+            int size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                builder.remove(in.readString());
+            }
+            size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                DiscoveryNode node = DiscoveryNode.readNode(in);
+                if (localNode != null && node.id().equals(localNode.id())) {
+                    // reuse the same instance of our address and local node id for faster equality
+                    node = localNode;
+                }
+                builder.put(node);
+            }
+            return builder.build();
+        }
     }
 }
@@ -0,0 +1,154 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing;
+
+import org.elasticsearch.cluster.routing.ResponseCollectorService.ComputedNodeStats;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The statistics the adaptive replica selection of a node ranks the other nodes with, see {@link ResponseCollectorService}.
+ */
+public class AdaptiveSelectionStats implements Streamable, ToXContent {
+
+    private Map<String, Long> outstandingRequests;
+    private Map<String, ComputedNodeStats> nodeStats;
+
+    AdaptiveSelectionStats() {
+    }
+
+    public AdaptiveSelectionStats(Map<String, Long> outstandingRequests, Map<String, ComputedNodeStats> nodeStats) {
+        this.outstandingRequests = outstandingRequests;
+        this.nodeStats = nodeStats;
+    }
+
+    /**
+     * The number of search requests sent to each node that did not complete yet.
+     */
+    public Map<String, Long> getOutstandingRequests() {
+        return outstandingRequests;
+    }
+
+    /**
+     * The collected statistics of each node.
+     */
+    public Map<String, ComputedNodeStats> getNodeStats() {
+        return nodeStats;
+    }
+
+    /**
+     * The rank of each node, the lower the better, see {@link ComputedNodeStats#rank(long)}.
+     */
+    public Map<String, Double> getRanks() {
+        final Map<String, Double> ranks = new HashMap<>(nodeStats.size());
+        for (Map.Entry<String, ComputedNodeStats> entry : nodeStats.entrySet()) {
+            final Long outstanding = outstandingRequests.get(entry.getKey());
+            ranks.put(entry.getKey(), entry.getValue().rank(outstanding == null ? 0 : outstanding));
+        }
+        return ranks;
+    }
+
+    public static AdaptiveSelectionStats readOptionalAdaptiveSelectionStats(StreamInput in) throws IOException {
+        return in.readOptionalStreamable(new AdaptiveSelectionStats());
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        int size = in.readVInt();
+        outstandingRequests = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            outstandingRequests.put(in.readString(), in.readVLong());
+        }
+        size = in.readVInt();
+        nodeStats = new HashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            nodeStats.put(in.readString(), ComputedNodeStats.readComputedNodeStats(in));
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVInt(outstandingRequests.size());
+        for (Map.Entry<String, Long> entry : outstandingRequests.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeVLong(entry.getValue());
+        }
+        out.writeVInt(nodeStats.size());
+        for (Map.Entry<String, ComputedNodeStats> entry : nodeStats.entrySet()) {
+            out.writeString(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.ADAPTIVE_SELECTION);
+        final Set<String> nodeIds = new HashSet<>(outstandingRequests.keySet());
+        nodeIds.addAll(nodeStats.keySet());
+        for (String nodeId : nodeIds) {
+            builder.startObject(nodeId, XContentBuilder.FieldCaseConversion.NONE);
+            final Long outstanding = outstandingRequests.get(nodeId);
+            builder.field(Fields.OUTGOING_SEARCHES, outstanding == null ? 0 : outstanding);
+            final ComputedNodeStats stats = nodeStats.get(nodeId);
+            if (stats != null) {
+                builder.field(Fields.AVG_QUEUE_SIZE, stats.getQueueSize());
+                nanosField(builder, Fields.AVG_SERVICE_TIME_NS, Fields.AVG_SERVICE_TIME, (long) stats.getServiceTime());
+                nanosField(builder, Fields.AVG_RESPONSE_TIME_NS, Fields.AVG_RESPONSE_TIME, (long) stats.getResponseTime());
+                builder.field(Fields.RANK, String.format(Locale.ROOT, "%.1f", stats.rank(outstanding == null ? 0 : outstanding)));
+            }
+            builder.endObject();
+        }
+        builder.endObject();
+        return builder;
+    }
+
+    private static void nanosField(XContentBuilder builder, XContentBuilderString rawFieldName, XContentBuilderString readableFieldName,
+                                   long nanos) throws IOException {
+        // search requests often take less than a millisecond, so the raw value is in nanoseconds
+        if (builder.humanReadable()) {
+            builder.field(readableFieldName, new TimeValue(nanos, TimeUnit.NANOSECONDS).toString());
+        }
+        builder.field(rawFieldName, nanos);
+    }
+
+    static final class Fields {
+        static final XContentBuilderString ADAPTIVE_SELECTION = new XContentBuilderString("adaptive_selection");
+        static final XContentBuilderString OUTGOING_SEARCHES = new XContentBuilderString("outgoing_searches");
+        static final XContentBuilderString AVG_QUEUE_SIZE = new XContentBuilderString("avg_queue_size");
+        static final XContentBuilderString AVG_SERVICE_TIME = new XContentBuilderString("avg_service_time");
+        static final XContentBuilderString AVG_SERVICE_TIME_NS = new XContentBuilderString("avg_service_time_ns");
+        static final XContentBuilderString AVG_RESPONSE_TIME = new XContentBuilderString("avg_response_time");
+        static final XContentBuilderString AVG_RESPONSE_TIME_NS = new XContentBuilderString("avg_response_time_ns");
+        static final XContentBuilderString RANK = new XContentBuilderString("rank");
+    }
+}
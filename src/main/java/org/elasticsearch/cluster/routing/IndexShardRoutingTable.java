@@ -22,8 +22,10 @@ package org.elasticsearch.cluster.routing;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.UnmodifiableIterator;
+import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.ResponseCollectorService.ComputedNodeStats;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -279,6 +281,70 @@ public class IndexShardRoutingTable implements Iterable<ShardRouting> {
         return new PlainShardIterator(shardId, ordered);
     }
 
+    /**
+     * Returns an iterator over active and initializing shards, the active shards ranked by the statistics the given
+     * collector gathered about their nodes, best first. Active shards on nodes without statistics come first so that
+     * their nodes get measured, ties are in random order. Initializing shards are the last to iterate through.
+     */
+    public ShardIterator activeInitializingShardsRankedIt(ResponseCollectorService collector) {
+        final List<ShardRouting> rankedActiveShards = rankShardsAndUpdateStats(shuffler.shuffle(activeShards), collector);
+        if (allInitializingShards.isEmpty()) {
+            return new PlainShardIterator(shardId, rankedActiveShards);
+        }
+        ArrayList<ShardRouting> ordered = new ArrayList<>(activeShards.size() + allInitializingShards.size());
+        ordered.addAll(rankedActiveShards);
+        ordered.addAll(allInitializingShards);
+        return new PlainShardIterator(shardId, ordered);
+    }
+
+    private static List<ShardRouting> rankShardsAndUpdateStats(List<ShardRouting> shards, ResponseCollectorService collector) {
+        if (shards.size() <= 1) {
+            return shards;
+        }
+        // take a snapshot of the statistics, they change concurrently
+        final Map<String, ComputedNodeStats> nodeStats = new HashMap<>(shards.size());
+        final Map<String, Double> nodeRanks = new HashMap<>(shards.size());
+        for (ShardRouting shard : shards) {
+            final String nodeId = shard.currentNodeId();
+            final ComputedNodeStats stats = collector.getNodeStatistics(nodeId);
+            if (stats != null) {
+                nodeStats.put(nodeId, stats);
+                nodeRanks.put(nodeId, stats.rank(collector.outstandingRequests(nodeId)));
+            }
+        }
+        final List<ShardRouting> ranked = new ArrayList<>(shards);
+        // stable, so ties keep their random order
+        CollectionUtil.timSort(ranked, new Comparator<ShardRouting>() {
+            @Override
+            public int compare(ShardRouting s1, ShardRouting s2) {
+                final Double rank1 = nodeRanks.get(s1.currentNodeId());
+                final Double rank2 = nodeRanks.get(s2.currentNodeId());
+                if (rank1 == null) {
+                    return rank2 == null ? 0 : -1;
+                } else if (rank2 == null) {
+                    return 1;
+                }
+                return Double.compare(rank1, rank2);
+            }
+        });
+
+        // the nodes that lost are only measured again once they receive requests, so move their statistics half way
+        // to the statistics of the winner, a node that was slow for a while gets requests again eventually
+        final ComputedNodeStats winnerStats = nodeStats.get(ranked.get(0).currentNodeId());
+        if (winnerStats != null) {
+            for (int i = 1; i < ranked.size(); i++) {
+                final String nodeId = ranked.get(i).currentNodeId();
+                final ComputedNodeStats stats = nodeStats.get(nodeId);
+                if (stats != null && nodeId.equals(winnerStats.getNodeId()) == false) {
+                    collector.addNodeStatistics(nodeId, (winnerStats.getQueueSize() + stats.getQueueSize()) / 2,
+                            (long) ((winnerStats.getResponseTime() + stats.getResponseTime()) / 2),
+                            (long) ((winnerStats.getServiceTime() + stats.getServiceTime()) / 2));
+                }
+            }
+        }
+        return ranked;
+    }
+
     /**
      * Returns an iterator only on the primary shard.
      */
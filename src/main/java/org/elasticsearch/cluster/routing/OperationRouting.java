@@ -36,6 +36,7 @@ import org.elasticsearch.index.Index;
 import org.elasticsearch.index.IndexShardMissingException;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.indices.IndexMissingException;
+import org.elasticsearch.node.settings.NodeSettingsService;
 
 import java.util.Collections;
 import java.util.HashSet;
@@ -47,14 +48,42 @@ import java.util.Set;
  */
 public class OperationRouting extends AbstractComponent {
 
-
+    /**
+     * Whether searches without preference go to the copies of the shards whose nodes respond the fastest, see
+     * {@link ResponseCollectorService}, instead of random copies.
+     */
+    public static final String CLUSTER_ROUTING_USE_ADAPTIVE_REPLICA_SELECTION = "cluster.routing.use_adaptive_replica_selection";
+
+    class ApplySettings implements NodeSettingsService.Listener {
+        @Override
+        public void onRefreshSettings(Settings settings) {
+            boolean useAdaptiveReplicaSelection = settings.getAsBoolean(CLUSTER_ROUTING_USE_ADAPTIVE_REPLICA_SELECTION, OperationRouting.this.useAdaptiveReplicaSelection);
+            if (useAdaptiveReplicaSelection != OperationRouting.this.useAdaptiveReplicaSelection) {
+                logger.info("updating [{}] from [{}] to [{}]", CLUSTER_ROUTING_USE_ADAPTIVE_REPLICA_SELECTION, OperationRouting.this.useAdaptiveReplicaSelection, useAdaptiveReplicaSelection);
+                OperationRouting.this.useAdaptiveReplicaSelection = useAdaptiveReplicaSelection;
+            }
+        }
+    }
 
     private final AwarenessAllocationDecider awarenessAllocationDecider;
 
-    @Inject
+    @Nullable
+    private final ResponseCollectorService collector;
+
+    private volatile boolean useAdaptiveReplicaSelection;
+
     public OperationRouting(Settings settings, AwarenessAllocationDecider awarenessAllocationDecider) {
+        this(settings, awarenessAllocationDecider, null, new NodeSettingsService(settings));
+    }
+
+    @Inject
+    public OperationRouting(Settings settings, AwarenessAllocationDecider awarenessAllocationDecider, @Nullable ResponseCollectorService collector,
+                            NodeSettingsService nodeSettingsService) {
         super(settings);
         this.awarenessAllocationDecider = awarenessAllocationDecider;
+        this.collector = collector;
+        this.useAdaptiveReplicaSelection = settings.getAsBoolean(CLUSTER_ROUTING_USE_ADAPTIVE_REPLICA_SELECTION, false);
+        nodeSettingsService.addListener(new ApplySettings());
     }
 
     public ShardIterator indexShards(ClusterState clusterState, String index, String type, String id, @Nullable String routing) throws IndexMissingException, IndexShardMissingException {
@@ -66,11 +95,11 @@ public class OperationRouting extends AbstractComponent {
     }
 
     public ShardIterator getShards(ClusterState clusterState, String index, String type, String id, @Nullable String routing, @Nullable String preference) throws IndexMissingException, IndexShardMissingException {
-        return preferenceActiveShardIterator(shards(clusterState, index, type, id, routing), clusterState.nodes().localNodeId(), clusterState.nodes(), preference);
+        return preferenceActiveShardIterator(shards(clusterState, index, type, id, routing), clusterState.nodes().localNodeId(), clusterState.nodes(), preference, null);
     }
 
     public ShardIterator getShards(ClusterState clusterState, String index, int shardId, @Nullable String preference) throws IndexMissingException, IndexShardMissingException {
-        return preferenceActiveShardIterator(shards(clusterState, index, shardId), clusterState.nodes().localNodeId(), clusterState.nodes(), preference);
+        return preferenceActiveShardIterator(shards(clusterState, index, shardId), clusterState.nodes().localNodeId(), clusterState.nodes(), preference, null);
     }
 
     public GroupShardsIterator broadcastDeleteShards(ClusterState clusterState, String index) throws IndexMissingException {
@@ -104,8 +133,9 @@ public class OperationRouting extends AbstractComponent {
     public GroupShardsIterator searchShards(ClusterState clusterState, String[] indices, String[] concreteIndices, @Nullable Map<String, Set<String>> routing, @Nullable String preference) throws IndexMissingException {
         final Set<IndexShardRoutingTable> shards = computeTargetedShards(clusterState, concreteIndices, routing);
         final Set<ShardIterator> set = new HashSet<>(shards.size());
+        final ResponseCollectorService collector = useAdaptiveReplicaSelection ? this.collector : null;
         for (IndexShardRoutingTable shard : shards) {
-            ShardIterator iterator = preferenceActiveShardIterator(shard, clusterState.nodes().localNodeId(), clusterState.nodes(), preference);
+            ShardIterator iterator = preferenceActiveShardIterator(shard, clusterState.nodes().localNodeId(), clusterState.nodes(), preference, collector);
             if (iterator != null) {
                 set.add(iterator);
             }
@@ -141,11 +171,12 @@ public class OperationRouting extends AbstractComponent {
         return set;
     }
 
-    private ShardIterator preferenceActiveShardIterator(IndexShardRoutingTable indexShard, String localNodeId, DiscoveryNodes nodes, @Nullable String preference) {
+    private ShardIterator preferenceActiveShardIterator(IndexShardRoutingTable indexShard, String localNodeId, DiscoveryNodes nodes, @Nullable String preference,
+                                                        @Nullable ResponseCollectorService collector) {
         if (preference == null || preference.isEmpty()) {
             String[] awarenessAttributes = awarenessAllocationDecider.awarenessAttributes();
             if (awarenessAttributes.length == 0) {
-                return indexShard.activeInitializingShardsRandomIt();
+                return randomOrRankedIt(indexShard, collector);
             } else {
                 return indexShard.preferAttributesActiveInitializingShardsIt(awarenessAttributes, nodes);
             }
@@ -177,7 +208,7 @@ public class OperationRouting extends AbstractComponent {
                 if (index == -1 || index == preference.length() - 1) {
                     String[] awarenessAttributes = awarenessAllocationDecider.awarenessAttributes();
                     if (awarenessAttributes.length == 0) {
-                        return indexShard.activeInitializingShardsRandomIt();
+                        return randomOrRankedIt(indexShard, collector);
                     } else {
                         return indexShard.preferAttributesActiveInitializingShardsIt(awarenessAttributes, nodes);
                     }
@@ -215,6 +246,13 @@ public class OperationRouting extends AbstractComponent {
         }
     }
 
+    private ShardIterator randomOrRankedIt(IndexShardRoutingTable indexShard, @Nullable ResponseCollectorService collector) {
+        if (collector == null) {
+            return indexShard.activeInitializingShardsRandomIt();
+        }
+        return indexShard.activeInitializingShardsRankedIt(collector);
+    }
+
     public IndexMetaData indexMetaData(ClusterState clusterState, String index) {
         IndexMetaData indexMetaData = clusterState.metaData().index(index);
         if (indexMetaData == null) {
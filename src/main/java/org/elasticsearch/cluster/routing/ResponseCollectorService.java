@@ -0,0 +1,257 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing;
+
+import org.elasticsearch.cluster.ClusterChangedEvent;
+import org.elasticsearch.cluster.ClusterService;
+import org.elasticsearch.cluster.ClusterStateListener;
+import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.metrics.ExponentiallyWeightedMovingAverage;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects, on the coordinating node, the response times of the search requests sent to the other nodes along with
+ * the search queue size and service time those nodes report in their responses. The statistics rank the copies of a
+ * shard for adaptive replica selection, see {@link ComputedNodeStats#rank(long)}.
+ */
+public class ResponseCollectorService extends AbstractComponent implements ClusterStateListener {
+
+    /**
+     * The weight of a new sample in the moving averages.
+     */
+    private static final double ALPHA = 0.3;
+
+    private final ClusterService clusterService;
+    private final ConcurrentMap<String, NodeStatistics> nodeIdToStats = ConcurrentCollections.newConcurrentMap();
+    private final ConcurrentMap<String, AtomicLong> nodeIdToOutstandingRequests = ConcurrentCollections.newConcurrentMap();
+
+    @Inject
+    public ResponseCollectorService(Settings settings, ClusterService clusterService) {
+        super(settings);
+        this.clusterService = clusterService;
+        clusterService.add(this);
+    }
+
+    @Override
+    public void clusterChanged(ClusterChangedEvent event) {
+        if (event.nodesRemoved()) {
+            for (DiscoveryNode removedNode : event.nodesDelta().removedNodes()) {
+                removeNode(removedNode.id());
+            }
+        }
+    }
+
+    void removeNode(String nodeId) {
+        nodeIdToStats.remove(nodeId);
+        nodeIdToOutstandingRequests.remove(nodeId);
+    }
+
+    /**
+     * Adds the statistics of a response of the given node: the search queue size and the service time it reported
+     * and the response time measured on this node.
+     */
+    public void addNodeStatistics(String nodeId, int queueSize, long responseTimeNanos, long serviceTimeNanos) {
+        NodeStatistics stats = nodeIdToStats.get(nodeId);
+        if (stats == null) {
+            stats = new NodeStatistics(queueSize, responseTimeNanos, serviceTimeNanos);
+            final NodeStatistics existing = nodeIdToStats.putIfAbsent(nodeId, stats);
+            if (existing == null) {
+                return;
+            }
+            stats = existing;
+        }
+        stats.queueSize.addValue(queueSize);
+        stats.responseTime.addValue(responseTimeNanos);
+        stats.serviceTime = serviceTimeNanos;
+    }
+
+    /**
+     * Called when a search request is sent to the given node, must be followed by {@link #onResponse(String)}.
+     */
+    public void onRequest(String nodeId) {
+        AtomicLong outstanding = nodeIdToOutstandingRequests.get(nodeId);
+        if (outstanding == null) {
+            outstanding = new AtomicLong();
+            final AtomicLong existing = nodeIdToOutstandingRequests.putIfAbsent(nodeId, outstanding);
+            if (existing != null) {
+                outstanding = existing;
+            }
+        }
+        outstanding.incrementAndGet();
+    }
+
+    /**
+     * Called when a search request that was sent to the given node completed, successfully or not.
+     */
+    public void onResponse(String nodeId) {
+        final AtomicLong outstanding = nodeIdToOutstandingRequests.get(nodeId);
+        if (outstanding != null) {
+            outstanding.decrementAndGet();
+        }
+    }
+
+    /**
+     * The number of search requests that were sent to the given node and did not complete yet.
+     */
+    public long outstandingRequests(String nodeId) {
+        final AtomicLong outstanding = nodeIdToOutstandingRequests.get(nodeId);
+        return outstanding == null ? 0 : Math.max(0, outstanding.get());
+    }
+
+    /**
+     * The statistics of the given node, <tt>null</tt> if no response of the node was collected yet.
+     */
+    @Nullable
+    public ComputedNodeStats getNodeStatistics(String nodeId) {
+        final NodeStatistics stats = nodeIdToStats.get(nodeId);
+        return stats == null ? null : stats.compute(nodeId, clusterService.state().nodes().size());
+    }
+
+    public Map<String, ComputedNodeStats> getAllNodeStatistics() {
+        final int clientNum = clusterService.state().nodes().size();
+        final Map<String, ComputedNodeStats> nodeStats = new HashMap<>(nodeIdToStats.size());
+        for (Map.Entry<String, NodeStatistics> entry : nodeIdToStats.entrySet()) {
+            nodeStats.put(entry.getKey(), entry.getValue().compute(entry.getKey(), clientNum));
+        }
+        return nodeStats;
+    }
+
+    public AdaptiveSelectionStats getAdaptiveStats() {
+        final Map<String, Long> outstandingRequests = new HashMap<>(nodeIdToOutstandingRequests.size());
+        for (Map.Entry<String, AtomicLong> entry : nodeIdToOutstandingRequests.entrySet()) {
+            outstandingRequests.put(entry.getKey(), Math.max(0, entry.getValue().get()));
+        }
+        return new AdaptiveSelectionStats(outstandingRequests, getAllNodeStatistics());
+    }
+
+    private static class NodeStatistics {
+        final ExponentiallyWeightedMovingAverage queueSize;
+        final ExponentiallyWeightedMovingAverage responseTime;
+        // already a moving average, computed by the node itself
+        volatile long serviceTime;
+
+        NodeStatistics(int queueSize, long responseTimeNanos, long serviceTimeNanos) {
+            this.queueSize = new ExponentiallyWeightedMovingAverage(ALPHA, queueSize);
+            this.responseTime = new ExponentiallyWeightedMovingAverage(ALPHA, responseTimeNanos);
+            this.serviceTime = serviceTimeNanos;
+        }
+
+        ComputedNodeStats compute(String nodeId, int clientNum) {
+            return new ComputedNodeStats(nodeId, clientNum, (int) queueSize.getAverage(), responseTime.getAverage(), serviceTime);
+        }
+    }
+
+    /**
+     * A point in time snapshot of the statistics of a node.
+     */
+    public static class ComputedNodeStats implements Streamable {
+
+        private String nodeId;
+        private int clientNum;
+        private int queueSize;
+        private double responseTime;
+        private double serviceTime;
+
+        ComputedNodeStats() {
+        }
+
+        public ComputedNodeStats(String nodeId, int clientNum, int queueSize, double responseTime, double serviceTime) {
+            this.nodeId = nodeId;
+            this.clientNum = clientNum;
+            this.queueSize = queueSize;
+            this.responseTime = responseTime;
+            this.serviceTime = serviceTime;
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        /**
+         * The moving average of the search queue size of the node.
+         */
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        /**
+         * The moving average of the response time of the node in nanoseconds, as measured by this node.
+         */
+        public double getResponseTime() {
+            return responseTime;
+        }
+
+        /**
+         * The moving average of the time the node took to execute a request in nanoseconds, as reported by the node.
+         */
+        public double getServiceTime() {
+            return serviceTime;
+        }
+
+        /**
+         * Ranks the node, the lower the better, following the C3 replica ranking: the response time minus the service
+         * time, which is the time spent outside of the node, plus the service time times the cube of the estimated
+         * queue size. The queue size is estimated from the reported queue size and the requests that were sent to the
+         * node and did not return yet, times the number of nodes that may send requests to it as well.
+         */
+        public double rank(long outstandingRequests) {
+            final double concurrencyCompensation = outstandingRequests * clientNum;
+            final double queueSizeEstimate = 1 + concurrencyCompensation + queueSize;
+            return responseTime - serviceTime + Math.pow(queueSizeEstimate, 3) * serviceTime;
+        }
+
+        public static ComputedNodeStats readComputedNodeStats(StreamInput in) throws IOException {
+            ComputedNodeStats stats = new ComputedNodeStats();
+            stats.readFrom(in);
+            return stats;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            nodeId = in.readString();
+            clientNum = in.readVInt();
+            queueSize = in.readVInt();
+            responseTime = in.readDouble();
+            serviceTime = in.readDouble();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeString(nodeId);
+            out.writeVInt(clientNum);
+            out.writeVInt(queueSize);
+            out.writeDouble(responseTime);
+            out.writeDouble(serviceTime);
+        }
+    }
+}
@@ -22,6 +22,7 @@ package org.elasticsearch.cluster.routing;
 import com.carrotsearch.hppc.IntSet;
 import com.google.common.collect.*;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.common.io.stream.StreamInput;
@@ -473,6 +474,128 @@ public class RoutingTable implements Iterable<IndexRoutingTable> {
                 IndexRoutingTable.Builder.writeTo(index, out);
             }
         }
+
+        /**
+         * Writes the changes between two routing tables at the granularity of a shard replication group. An index is
+         * sent in full if it did not exist before or if its set of shard ids changed.
+         */
+        public static void writeDiffTo(RoutingTable previousTable, RoutingTable table, StreamOutput out) throws IOException {
+            out.writeLong(table.version);
+            List<String> removedIndices = newArrayList();
+            for (String index : previousTable.indicesRouting.keySet()) {
+                if (!table.indicesRouting.containsKey(index)) {
+                    removedIndices.add(index);
+                }
+            }
+            out.writeVInt(removedIndices.size());
+            for (String index : removedIndices) {
+                out.writeString(index);
+            }
+
+            List<IndexRoutingTable> fullIndices = newArrayList();
+            Map<String, List<IndexShardRoutingTable>> changedShards = newHashMap();
+            for (IndexRoutingTable index : table.indicesRouting.values()) {
+                IndexRoutingTable previousIndex = previousTable.indicesRouting.get(index.index());
+                if (previousIndex == index) {
+                    continue;
+                }
+                if (previousIndex == null || !sameShardIds(previousIndex, index)) {
+                    fullIndices.add(index);
+                    continue;
+                }
+                List<IndexShardRoutingTable> shards = null;
+                for (IndexShardRoutingTable indexShard : index) {
+                    if (!sameShardRoutings(previousIndex.shard(indexShard.shardId().id()), indexShard)) {
+                        if (shards == null) {
+                            shards = newArrayList();
+                            changedShards.put(index.index(), shards);
+                        }
+                        shards.add(indexShard);
+                    }
+                }
+            }
+            out.writeVInt(fullIndices.size());
+            for (IndexRoutingTable index : fullIndices) {
+                IndexRoutingTable.Builder.writeTo(index, out);
+            }
+            out.writeVInt(changedShards.size());
+            for (Map.Entry<String, List<IndexShardRoutingTable>> entry : changedShards.entrySet()) {
+                out.writeString(entry.getKey());
+                out.writeVInt(entry.getValue().size());
+                for (IndexShardRoutingTable indexShard : entry.getValue()) {
+                    IndexShardRoutingTable.Builder.writeToThin(indexShard, out);
+                }
+            }
+        }
+
+        public static RoutingTable readDiffFrom(StreamInput in, RoutingTable previousTable) throws IOException {
+            Builder builder = new Builder(previousTable);
+            builder.version = in.readLong();
+            int size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                builder.remove(in.readString());
+            }
+            size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                builder.add(IndexRoutingTable.Builder.readFrom(in));
+            }
+            size = in.readVInt();
+            for (int i = 0; i < size; i++) {
+                String index = in.readString();
+                IndexRoutingTable previousIndex = previousTable.index(index);
+                if (previousIndex == null) {
+                    throw new IncompatibleClusterStateVersionException("Received a routing diff for index [" + index + "] which is missing in the previous cluster state");
+                }
+                IndexRoutingTable.Builder indexBuilder = new IndexRoutingTable.Builder(index);
+                for (IndexShardRoutingTable indexShard : previousIndex) {
+                    indexBuilder.addIndexShard(indexShard);
+                }
+                int shards = in.readVInt();
+                for (int j = 0; j < shards; j++) {
+                    indexBuilder.addIndexShard(IndexShardRoutingTable.Builder.readFromThin(in, index));
+                }
+                builder.add(indexBuilder);
+            }
+            return builder.build();
+        }
+
+        private static boolean sameShardIds(IndexRoutingTable previousIndex, IndexRoutingTable index) {
+            if (previousIndex.shards().size() != index.shards().size()) {
+                return false;
+            }
+            for (IndexShardRoutingTable indexShard : index) {
+                if (previousIndex.shard(indexShard.shardId().id()) == null) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Compares two shard replication groups including the shard routing versions, which are not
+         * part of {@link ShardRouting#equals(Object)}.
+         */
+        private static boolean sameShardRoutings(IndexShardRoutingTable previousIndexShard, IndexShardRoutingTable indexShard) {
+            if (previousIndexShard == indexShard) {
+                return true;
+            }
+            if (previousIndexShard.primaryAllocatedPostApi() != indexShard.primaryAllocatedPostApi()) {
+                return false;
+            }
+            List<ShardRouting> previousShards = previousIndexShard.shards();
+            List<ShardRouting> shards = indexShard.shards();
+            if (previousShards.size() != shards.size()) {
+                return false;
+            }
+            for (int i = 0; i < shards.size(); i++) {
+                ShardRouting previousShard = previousShards.get(i);
+                ShardRouting shard = shards.get(i);
+                if (previousShard.version() != shard.version() || !previousShard.equals(shard)) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 
     public String prettyPrint() {
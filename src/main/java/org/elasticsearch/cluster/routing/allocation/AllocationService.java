@@ -24,21 +24,28 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ElasticsearchIllegalStateException;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterInfoService;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
 import org.elasticsearch.cluster.routing.*;
 import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocators;
 import org.elasticsearch.cluster.routing.allocation.command.AllocationCommands;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.node.settings.NodeSettingsService;
 
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
 import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
@@ -48,19 +55,64 @@ import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
  * {@link AllocationService} keeps {@link AllocationDeciders} to choose nodes
  * for shard allocation. This class also manages new nodes joining the cluster
  * and rerouting of shards.
+ * <p/>
+ * With <code>cluster.routing.allocation.incremental</code> enabled, a reroute skips moving and rebalancing shards if
+ * nothing changed since the last reroute that found nothing to move or rebalance: neither the routing table, the
+ * metadata, the nodes, the cluster info nor the dynamic settings of the deciders and allocators. Moving and rebalancing
+ * asks the deciders about every started shard, which dominates reroutes of large clusters. This assumes that the
+ * deciders and allocators decide on nothing else, which custom deciders may not, so it is disabled by default.
+ * <p/>
+ * The number of reroutes and the time spent in each decider are exposed by {@link #stats()}, which the node stats read
+ * through {@link AllocationStatsService}, and logged per reroute on <tt>DEBUG</tt>.
  */
 public class AllocationService extends AbstractComponent {
 
+    public static final String CLUSTER_ROUTING_ALLOCATION_INCREMENTAL = "cluster.routing.allocation.incremental";
+
     private final AllocationDeciders allocationDeciders;
     private final ClusterInfoService clusterInfoService;
     private final ShardsAllocators shardsAllocators;
+    private final AllocationStatsService allocationStatsService;
+
+    private volatile boolean incremental;
+    // incremented on every settings refresh, the deciders and allocators may have changed their minds
+    private final AtomicLong settingsVersion = new AtomicLong();
+    // the inputs of the last reroute that did not move nor rebalance any shard
+    private volatile RerouteInputs lastBalancedInputs;
 
-    @Inject
     public AllocationService(Settings settings, AllocationDeciders allocationDeciders, ShardsAllocators shardsAllocators, ClusterInfoService clusterInfoService) {
         super(settings);
         this.allocationDeciders = allocationDeciders;
         this.shardsAllocators = shardsAllocators;
         this.clusterInfoService = clusterInfoService;
+        this.allocationStatsService = new AllocationStatsService(settings);
+        // without settings updates we can't tell whether the deciders changed
+        this.incremental = false;
+    }
+
+    @Inject
+    public AllocationService(Settings settings, AllocationDeciders allocationDeciders, ShardsAllocators shardsAllocators, ClusterInfoService clusterInfoService,
+                             NodeSettingsService nodeSettingsService, AllocationStatsService allocationStatsService) {
+        super(settings);
+        this.allocationDeciders = allocationDeciders;
+        this.shardsAllocators = shardsAllocators;
+        this.clusterInfoService = clusterInfoService;
+        this.allocationStatsService = allocationStatsService;
+        this.incremental = settings.getAsBoolean(CLUSTER_ROUTING_ALLOCATION_INCREMENTAL, false);
+        nodeSettingsService.addListener(new ApplySettings());
+    }
+
+    class ApplySettings implements NodeSettingsService.Listener {
+        @Override
+        public void onRefreshSettings(Settings settings) {
+            settingsVersion.incrementAndGet();
+            lastBalancedInputs = null;
+            boolean incremental = settings.getAsBoolean(CLUSTER_ROUTING_ALLOCATION_INCREMENTAL, AllocationService.this.incremental);
+            if (incremental != AllocationService.this.incremental) {
+                logger.info("updating [{}] from [{}] to [{}]", CLUSTER_ROUTING_ALLOCATION_INCREMENTAL, AllocationService.this.incremental, incremental);
+                AllocationService.this.incremental = incremental;
+            }
+        }
     }
 
     /**
@@ -155,9 +207,14 @@ public class AllocationService extends AbstractComponent {
         RoutingNodes routingNodes = clusterState.routingNodes();
         // shuffle the unassigned nodes, just so we won't have things like poison failed shards
         routingNodes.unassigned().shuffle();
-        RoutingAllocation allocation = new RoutingAllocation(allocationDeciders, routingNodes, clusterState.nodes(), clusterInfoService.getClusterInfo());
+        ClusterInfo clusterInfo = clusterInfoService.getClusterInfo();
+        RoutingAllocation allocation = new RoutingAllocation(allocationDeciders, routingNodes, clusterState.nodes(), clusterInfo);
         allocation.debugDecision(debug);
-        if (!reroute(allocation)) {
+        RerouteInputs inputs = null;
+        if (incremental && !debug) {
+            inputs = new RerouteInputs(clusterState.routingTable(), clusterState.metaData(), clusterState.nodes(), clusterInfo, settingsVersion.get());
+        }
+        if (!reroute(allocation, inputs)) {
             return new RoutingAllocation.Result(false, clusterState.routingTable());
         }
         return new RoutingAllocation.Result(true, new RoutingTable.Builder().updateNodes(routingNodes).build().validateRaiseException(clusterState.metaData()));
@@ -201,7 +258,18 @@ public class AllocationService extends AbstractComponent {
     }
 
     private boolean reroute(RoutingAllocation allocation) {
+        return reroute(allocation, null);
+    }
+
+    /**
+     * Reroutes, moving and rebalancing the shards only if the given inputs differ from the inputs of the last reroute
+     * that neither moved nor rebalanced any shard, or are <code>null</code>.
+     */
+    private boolean reroute(RoutingAllocation allocation, @Nullable RerouteInputs inputs) {
+        final long startNanos = System.nanoTime();
+        allocation.deciderTimings(allocationDeciders.newTimings());
         boolean changed = false;
+        boolean skippedRebalance = false;
         // first, clear from the shards any node id they used to belong to that is now dead
         changed |= deassociateDeadNodes(allocation);
 
@@ -219,15 +287,41 @@ public class AllocationService extends AbstractComponent {
             changed |= electPrimariesAndUnassignedDanglingReplicas(allocation);
         }
 
-        // move shards that no longer can be allocated
-        changed |= moveShards(allocation);
+        if (!changed && inputs != null && inputs.equals(lastBalancedInputs)) {
+            // the shards are where they were after the last reroute, and it found nothing to move nor to rebalance
+            if (logger.isTraceEnabled()) {
+                logger.trace("nothing changed since the last reroute, skipping moving and rebalancing shards");
+            }
+            skippedRebalance = true;
+        } else {
+            // move shards that no longer can be allocated
+            changed |= moveShards(allocation);
+
+            // rebalance
+            changed |= shardsAllocators.rebalance(allocation);
 
-        // rebalance
-        changed |= shardsAllocators.rebalance(allocation);
+            if (!changed && inputs != null) {
+                lastBalancedInputs = inputs;
+            }
+        }
         assert RoutingNodes.assertShardStats(allocation.routingNodes());
+        final long tookNanos = System.nanoTime() - startNanos;
+        final AllocationDeciders.Timings timings = allocation.deciderTimings();
+        allocation.deciderTimings(null);
+        if (logger.isDebugEnabled()) {
+            logger.debug("reroute took [{}], [{}] of it in deciders: {}", TimeValue.timeValueNanos(tookNanos), timings.totalTime(), timings);
+        }
+        allocationStatsService.onReroute(tookNanos, skippedRebalance, timings);
         return changed;
     }
 
+    /**
+     * The number of reroutes this service ran, the time they took and the time they spent in each decider.
+     */
+    public AllocationStats stats() {
+        return allocationStatsService.stats();
+    }
+
     private boolean moveShards(RoutingAllocation allocation) {
         boolean changed = false;
 
@@ -536,4 +630,54 @@ public class AllocationService extends AbstractComponent {
         }
         return dirty;
     }
+
+    /**
+     * Everything the moving and rebalancing of shards depends on, compared by identity: the cluster state and the
+     * cluster info create new instances on every change.
+     */
+    static final class RerouteInputs {
+
+        private final RoutingTable routingTable;
+        private final MetaData metaData;
+        private final DiscoveryNodes nodes;
+        private final ClusterInfo clusterInfo;
+        private final long settingsVersion;
+
+        RerouteInputs(RoutingTable routingTable, MetaData metaData, DiscoveryNodes nodes, ClusterInfo clusterInfo, long settingsVersion) {
+            this.routingTable = routingTable;
+            this.metaData = metaData;
+            this.nodes = nodes;
+            this.clusterInfo = clusterInfo;
+            this.settingsVersion = settingsVersion;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RerouteInputs that = (RerouteInputs) o;
+            // a cluster info instance is created on every call, compare its maps instead
+            return routingTable == that.routingTable && metaData == that.metaData && nodes == that.nodes
+                    && settingsVersion == that.settingsVersion
+                    && sameClusterInfo(clusterInfo, that.clusterInfo);
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(routingTable);
+        }
+
+        private static boolean sameClusterInfo(ClusterInfo info, ClusterInfo other) {
+            if (info == null || other == null) {
+                return info == other;
+            }
+            return info.getNodeDiskUsages() == other.getNodeDiskUsages() && info.getShardSizes() == other.getShardSizes()
+                    && info.getShardIndexingRates() == other.getShardIndexingRates()
+                    && info.getShardSearchRates() == other.getShardSearchRates();
+        }
+    }
 }
@@ -0,0 +1,189 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.cluster.routing.allocation;
+
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.common.xcontent.XContentBuilderString;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The reroutes the {@link AllocationService} of a node ran while it was the elected master, and the time they spent in
+ * each allocation decider.
+ */
+public class AllocationStats implements Streamable, ToXContent {
+
+    private long reroutes;
+    private long rerouteTimeInMillis;
+    private long skippedRebalances;
+    private Map<String, DeciderStats> deciders;
+
+    AllocationStats() {
+    }
+
+    public AllocationStats(long reroutes, long rerouteTimeInMillis, long skippedRebalances, Map<String, DeciderStats> deciders) {
+        this.reroutes = reroutes;
+        this.rerouteTimeInMillis = rerouteTimeInMillis;
+        this.skippedRebalances = skippedRebalances;
+        this.deciders = deciders;
+    }
+
+    /**
+     * The number of reroutes.
+     */
+    public long getReroutes() {
+        return reroutes;
+    }
+
+    /**
+     * The total time spent in reroutes.
+     */
+    public TimeValue getRerouteTime() {
+        return new TimeValue(rerouteTimeInMillis);
+    }
+
+    /**
+     * The number of reroutes that skipped moving and rebalancing shards because nothing changed, see
+     * {@link AllocationService#CLUSTER_ROUTING_ALLOCATION_INCREMENTAL}.
+     */
+    public long getSkippedRebalances() {
+        return skippedRebalances;
+    }
+
+    /**
+     * The statistics of each decider, by the simple name of its class.
+     */
+    public Map<String, DeciderStats> getDeciders() {
+        return deciders;
+    }
+
+    public static AllocationStats readOptionalAllocationStats(StreamInput in) throws IOException {
+        return in.readOptionalStreamable(new AllocationStats());
+    }
+
+    @Override
+    public void readFrom(StreamInput in) throws IOException {
+        reroutes = in.readVLong();
+        rerouteTimeInMillis = in.readVLong();
+        skippedRebalances = in.readVLong();
+        int size = in.readVInt();
+        deciders = new LinkedHashMap<>(size);
+        for (int i = 0; i < size; i++) {
+            deciders.put(in.readString(), DeciderStats.readDeciderStats(in));
+        }
+    }
+
+    @Override
+    public void writeTo(StreamOutput out) throws IOException {
+        out.writeVLong(reroutes);
+        out.writeVLong(rerouteTimeInMillis);
+        out.writeVLong(skippedRebalances);
+        out.writeVInt(deciders.size());
+        for (Map.Entry<String, DeciderStats> entry : deciders.entrySet()) {
+            out.writeString(entry.getKey());
+            entry.getValue().writeTo(out);
+        }
+    }
+
+    @Override
+    public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+        builder.startObject(Fields.ALLOCATION);
+        builder.field(Fields.REROUTES, reroutes);
+        builder.timeValueField(Fields.REROUTE_TIME_IN_MILLIS, Fields.REROUTE_TIME, rerouteTimeInMillis);
+        builder.field(Fields.SKIPPED_REBALANCES, skippedRebalances);
+        builder.startObject(Fields.DECIDERS);
+        for (Map.Entry<String, DeciderStats> entry : deciders.entrySet()) {
+            builder.startObject(entry.getKey(), XContentBuilder.FieldCaseConversion.NONE);
+            entry.getValue().toXContent(builder, params);
+            builder.endObject();
+        }
+        builder.endObject();
+        builder.endObject();
+        return builder;
+    }
+
+    /**
+     * The number of decisions a decider took during reroutes and the time it took them.
+     */
+    public static class DeciderStats implements Streamable, ToXContent {
+
+        private long decisions;
+        private long timeInMillis;
+
+        DeciderStats() {
+        }
+
+        public DeciderStats(long decisions, long timeInMillis) {
+            this.decisions = decisions;
+            this.timeInMillis = timeInMillis;
+        }
+
+        public long getDecisions() {
+            return decisions;
+        }
+
+        public TimeValue getTime() {
+            return new TimeValue(timeInMillis);
+        }
+
+        public static DeciderStats readDeciderStats(StreamInput in) throws IOException {
+            DeciderStats stats = new DeciderStats();
+            stats.readFrom(in);
+            return stats;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            decisions = in.readVLong();
+            timeInMillis = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(decisions);
+            out.writeVLong(timeInMillis);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field(Fields.DECISIONS, decisions);
+            builder.timeValueField(Fields.TIME_IN_MILLIS, Fields.TIME, timeInMillis);
+            return builder;
+        }
+    }
+
+    static final class Fields {
+        static final XContentBuilderString ALLOCATION = new XContentBuilderString("allocation");
+        static final XContentBuilderString REROUTES = new XContentBuilderString("reroutes");
+        static final XContentBuilderString REROUTE_TIME = new XContentBuilderString("reroute_time");
+        static final XContentBuilderString REROUTE_TIME_IN_MILLIS = new XContentBuilderString("reroute_time_in_millis");
+        static final XContentBuilderString SKIPPED_REBALANCES = new XContentBuilderString("skipped_rebalances");
+        static final XContentBuilderString DECIDERS = new XContentBuilderString("deciders");
+        static final XContentBuilderString DECISIONS = new XContentBuilderString("decisions");
+        static final XContentBuilderString TIME = new XContentBuilderString("time");
+        static final XContentBuilderString TIME_IN_MILLIS = new XContentBuilderString("time_in_millis");
+    }
+}
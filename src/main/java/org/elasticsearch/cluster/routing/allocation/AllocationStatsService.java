@@ -0,0 +1,69 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.cluster.routing.allocation;
+
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
+import org.elasticsearch.common.component.AbstractComponent;
+import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.settings.Settings;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sums up the reroutes of the {@link AllocationService} for the node stats, see {@link AllocationStats}. This is a
+ * component of its own because the node stats can't depend on the allocation service: its deciders read the node stats.
+ */
+public class AllocationStatsService extends AbstractComponent {
+
+    private long reroutes;
+    private long rerouteNanos;
+    private long skippedRebalances;
+    // the sum of the timings of all reroutes, null until the first one
+    private AllocationDeciders.Timings deciderTimings;
+
+    @Inject
+    public AllocationStatsService(Settings settings) {
+        super(settings);
+    }
+
+    /**
+     * Adds a reroute that took the given time, of which the given timings were spent in deciders. The timings must not
+     * be used anymore.
+     */
+    synchronized void onReroute(long tookNanos, boolean skippedRebalance, AllocationDeciders.Timings timings) {
+        reroutes++;
+        rerouteNanos += tookNanos;
+        if (skippedRebalance) {
+            skippedRebalances++;
+        }
+        if (deciderTimings == null) {
+            deciderTimings = timings;
+        } else {
+            deciderTimings.add(timings);
+        }
+    }
+
+    public synchronized AllocationStats stats() {
+        Map<String, AllocationStats.DeciderStats> deciders = deciderTimings == null
+                ? Collections.<String, AllocationStats.DeciderStats>emptyMap() : deciderTimings.deciderStats();
+        return new AllocationStats(reroutes, TimeUnit.NANOSECONDS.toMillis(rerouteNanos), skippedRebalances, deciders);
+    }
+}
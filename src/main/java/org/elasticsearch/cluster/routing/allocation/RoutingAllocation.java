@@ -26,6 +26,7 @@ import org.elasticsearch.cluster.routing.RoutingNodes;
 import org.elasticsearch.cluster.routing.RoutingTable;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.index.shard.ShardId;
 
 import java.util.HashMap;
@@ -115,6 +116,8 @@ public class RoutingAllocation {
 
     private boolean debugDecision = false;
 
+    private AllocationDeciders.Timings deciderTimings = null;
+
     /**
      * Creates a new {@link RoutingAllocation}
      * 
@@ -197,6 +200,21 @@ public class RoutingAllocation {
         return this.debugDecision;
     }
 
+    /**
+     * Measures the time spent in each decider with the given timings, see {@link AllocationDeciders#newTimings()}.
+     */
+    public void deciderTimings(AllocationDeciders.Timings timings) {
+        this.deciderTimings = timings;
+    }
+
+    /**
+     * The timings of the deciders, <code>null</code> unless they are measured.
+     */
+    @Nullable
+    public AllocationDeciders.Timings deciderTimings() {
+        return this.deciderTimings;
+    }
+
     public void addIgnoreShardForNode(ShardId shardId, String nodeId) {
         if (ignoredShardToNodes == null) {
             ignoredShardToNodes = new HashMap<>();
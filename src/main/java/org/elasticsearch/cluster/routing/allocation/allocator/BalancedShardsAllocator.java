@@ -23,6 +23,8 @@ import com.google.common.base.Predicate;
 import org.apache.lucene.util.ArrayUtil;
 import org.apache.lucene.util.IntroSorter;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.cluster.ClusterInfo;
+import org.elasticsearch.cluster.InternalClusterInfoService;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.routing.MutableShardRouting;
 import org.elasticsearch.cluster.routing.RoutingNode;
@@ -34,6 +36,7 @@ import org.elasticsearch.cluster.routing.allocation.StartedRerouteAllocation;
 import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision;
 import org.elasticsearch.cluster.routing.allocation.decider.Decision.Type;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.IdentityHashSet;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -55,6 +58,10 @@ import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
  * for shards allocated on a {@link RoutingNode}</li>
  * <li><code>cluster.routing.allocation.balance.index</code> - The <b>index balance</b> defines a factor to the number
  * of {@link org.elasticsearch.cluster.routing.ShardRouting}s per index allocated on a specific node</li>
+ * <li><code>cluster.routing.allocation.balance.disk_usage</code>, <code>cluster.routing.allocation.balance.indexing_rate</code>
+ * and <code>cluster.routing.allocation.balance.search_rate</code> - The <b>load balance</b> factors of the size on disk,
+ * the indexing rate and the search rate of the shards allocated on a {@link RoutingNode}, as collected by the
+ * {@link InternalClusterInfoService}. These default to <tt>0.0</tt>, only balancing the number of shards</li>
  * <li><code>cluster.routing.allocation.balance.threshold</code> - A <b>threshold</b> to set the minimal optimization
  * value of operations that should be performed</li>
  * </ul>
@@ -67,21 +74,39 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
     public static final String SETTING_THRESHOLD = "cluster.routing.allocation.balance.threshold";
     public static final String SETTING_INDEX_BALANCE_FACTOR = "cluster.routing.allocation.balance.index";
     public static final String SETTING_SHARD_BALANCE_FACTOR = "cluster.routing.allocation.balance.shard";
+    public static final String SETTING_DISK_USAGE_BALANCE_FACTOR = "cluster.routing.allocation.balance.disk_usage";
+    public static final String SETTING_INDEXING_RATE_BALANCE_FACTOR = "cluster.routing.allocation.balance.indexing_rate";
+    public static final String SETTING_SEARCH_RATE_BALANCE_FACTOR = "cluster.routing.allocation.balance.search_rate";
 
     private static final float DEFAULT_INDEX_BALANCE_FACTOR = 0.55f;
     private static final float DEFAULT_SHARD_BALANCE_FACTOR = 0.45f;
+    private static final float DEFAULT_LOAD_BALANCE_FACTOR = 0.0f;
+
+    /**
+     * Returns <code>true</code> iff the given settings set any of the load balance factors, in which case the
+     * {@link InternalClusterInfoService} must collect the sizes and the rates of the shards.
+     */
+    public static boolean balancesOnLoad(Settings settings) {
+        return settings.getAsFloat(SETTING_DISK_USAGE_BALANCE_FACTOR, DEFAULT_LOAD_BALANCE_FACTOR) > 0.0f
+                || settings.getAsFloat(SETTING_INDEXING_RATE_BALANCE_FACTOR, DEFAULT_LOAD_BALANCE_FACTOR) > 0.0f
+                || settings.getAsFloat(SETTING_SEARCH_RATE_BALANCE_FACTOR, DEFAULT_LOAD_BALANCE_FACTOR) > 0.0f;
+    }
 
     class ApplySettings implements NodeSettingsService.Listener {
         @Override
         public void onRefreshSettings(Settings settings) {
             final float indexBalance = settings.getAsFloat(SETTING_INDEX_BALANCE_FACTOR, weightFunction.indexBalance);
             final float shardBalance = settings.getAsFloat(SETTING_SHARD_BALANCE_FACTOR, weightFunction.shardBalance);
+            final float diskUsageBalance = settings.getAsFloat(SETTING_DISK_USAGE_BALANCE_FACTOR, weightFunction.diskUsageBalance);
+            final float indexingRateBalance = settings.getAsFloat(SETTING_INDEXING_RATE_BALANCE_FACTOR, weightFunction.indexingRateBalance);
+            final float searchRateBalance = settings.getAsFloat(SETTING_SEARCH_RATE_BALANCE_FACTOR, weightFunction.searchRateBalance);
             float threshold = settings.getAsFloat(SETTING_THRESHOLD, BalancedShardsAllocator.this.threshold);
             if (threshold <= 0.0f) {
                 throw new ElasticsearchIllegalArgumentException("threshold must be greater than 0.0f but was: " + threshold);
             }
             BalancedShardsAllocator.this.threshold = threshold;
-            BalancedShardsAllocator.this.weightFunction = new WeightFunction(indexBalance, shardBalance);
+            BalancedShardsAllocator.this.weightFunction = new WeightFunction(indexBalance, shardBalance, diskUsageBalance,
+                    indexingRateBalance, searchRateBalance);
         }
     }
 
@@ -146,13 +171,37 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         return weightFunction.shardBalance;
     }
 
+    /**
+     * Returns the weight factor of the size of the shards on disk.
+     */
+    public float getDiskUsageBalance() {
+        return weightFunction.diskUsageBalance;
+    }
+
+    /**
+     * Returns the weight factor of the indexing rate of the shards.
+     */
+    public float getIndexingRateBalance() {
+        return weightFunction.indexingRateBalance;
+    }
+
+    /**
+     * Returns the weight factor of the search rate of the shards.
+     */
+    public float getSearchRateBalance() {
+        return weightFunction.searchRateBalance;
+    }
+
 
     /**
      * This class is the primary weight function used to create balanced over nodes and shards in the cluster.
-     * Currently this function has 3 properties:
+     * Currently this function has 5 properties:
      * <ul>
      * <li><code>index balance</code> - balance property over shards per index</li>
      * <li><code>shard balance</code> - balance property over shards per cluster</li>
+     * <li><code>disk usage balance</code> - balance property over the size on disk of the shards per cluster</li>
+     * <li><code>indexing rate balance</code> - balance property over the indexing rate of the shards per cluster</li>
+     * <li><code>search rate balance</code> - balance property over the search rate of the shards per cluster</li>
      * </ul>
      * <p>
      * Each of these properties are expressed as factor such that the properties factor defines the relative importance of the property for the
@@ -167,31 +216,68 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
      * <li>
      * <code>weight<sub>node</sub>(node, index) = shardBalance * (node.numShards() - avgShardsPerNode)</code>
      * </li>
+     * <li>
+     * <code>weight<sub>load</sub>(node) = loadBalance * (node.load() - avgLoadPerNode) / avgLoadPerShard</code>
+     * </li>
      * </ul>
-     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index)</code>
+     * <code>weight(node, index) = weight<sub>index</sub>(node, index) + weight<sub>node</sub>(node, index) + weight<sub>load</sub>(node)</code>
+     * <p>
+     * The load of a node, one term per load property, is expressed in average shards so that an unbalance of the load
+     * weighs as much as an unbalance of the number of shards.
+     * </p>
      */
     public static class WeightFunction {
 
         private final float indexBalance;
         private final float shardBalance;
+        private final float diskUsageBalance;
+        private final float indexingRateBalance;
+        private final float searchRateBalance;
         private final float[] theta;
 
 
         public WeightFunction(float indexBalance, float shardBalance) {
-            float sum = indexBalance + shardBalance;
+            this(indexBalance, shardBalance, DEFAULT_LOAD_BALANCE_FACTOR, DEFAULT_LOAD_BALANCE_FACTOR, DEFAULT_LOAD_BALANCE_FACTOR);
+        }
+
+        public WeightFunction(float indexBalance, float shardBalance, float diskUsageBalance, float indexingRateBalance, float searchRateBalance) {
+            if (diskUsageBalance < 0.0f || indexingRateBalance < 0.0f || searchRateBalance < 0.0f) {
+                throw new ElasticsearchIllegalArgumentException("Load balance factors must be >= 0 but were: [" + diskUsageBalance + ", "
+                        + indexingRateBalance + ", " + searchRateBalance + "]");
+            }
+            float sum = indexBalance + shardBalance + diskUsageBalance + indexingRateBalance + searchRateBalance;
             if (sum <= 0.0f) {
                 throw new ElasticsearchIllegalArgumentException("Balance factors must sum to a value > 0 but was: " + sum);
             }
-            theta = new float[]{shardBalance / sum, indexBalance / sum};
+            theta = new float[]{shardBalance / sum, indexBalance / sum, diskUsageBalance / sum, indexingRateBalance / sum, searchRateBalance / sum};
             this.indexBalance = indexBalance;
             this.shardBalance = shardBalance;
+            this.diskUsageBalance = diskUsageBalance;
+            this.indexingRateBalance = indexingRateBalance;
+            this.searchRateBalance = searchRateBalance;
+        }
+
+        /**
+         * Returns <code>true</code> iff any of the load balance factors is set.
+         */
+        public boolean balancesOnLoad() {
+            return diskUsageBalance > 0.0f || indexingRateBalance > 0.0f || searchRateBalance > 0.0f;
         }
 
         public float weight(Operation operation, Balancer balancer, ModelNode node, String index) {
             final float weightShard = (node.numShards() - balancer.avgShardsPerNode());
             final float weightIndex = (node.numShards(index) - balancer.avgShardsPerNode(index));
             assert theta != null;
-            return theta[0] * weightShard + theta[1] * weightIndex;
+            float weight = theta[0] * weightShard + theta[1] * weightIndex;
+            if (balancesOnLoad()) {
+                for (Load load : Load.values()) {
+                    final float factor = theta[2 + load.ordinal()];
+                    if (factor > 0.0f) {
+                        weight += factor * balancer.loadWeight(node, load);
+                    }
+                }
+            }
+            return weight;
         }
 
     }
@@ -215,6 +301,24 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         MOVE
     }
 
+    /**
+     * The loads of a shard the {@link WeightFunction} may balance, as collected by the {@link InternalClusterInfoService}.
+     */
+    public static enum Load {
+        /**
+         * The size of the shard on disk.
+         */
+        DISK_USAGE,
+        /**
+         * The number of index operations per second on the shard.
+         */
+        INDEXING_RATE,
+        /**
+         * The number of queries per second on the shard.
+         */
+        SEARCH_RATE
+    }
+
     /**
      * A {@link Balancer}
      */
@@ -228,6 +332,10 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
 
         private final float threshold;
         private final MetaData metaData;
+        /* null unless the weight function balances on load */
+        private final ShardLoads shardLoads;
+        /* the total load of all shards in the cluster */
+        private final double[] totalLoads = new double[Load.values().length];
 
         private final Predicate<MutableShardRouting> assignedFilter = new Predicate<MutableShardRouting>() {
             @Override
@@ -243,8 +351,10 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             this.weight = weight;
             this.threshold = threshold;
             this.routingNodes = allocation.routingNodes();
+            final ClusterInfo clusterInfo = allocation.clusterInfo();
+            this.shardLoads = weight.balancesOnLoad() && clusterInfo != null ? new ShardLoads(clusterInfo) : null;
             for (RoutingNode node : routingNodes) {
-                nodes.put(node.nodeId(), new ModelNode(node.nodeId()));
+                nodes.put(node.nodeId(), new ModelNode(node.nodeId(), shardLoads));
             }
             metaData = routingNodes.metaData();
         }
@@ -270,6 +380,23 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             return ((float) metaData.totalNumberOfShards()) / nodes.size();
         }
 
+        /**
+         * Returns the weight of the given load of the given node, the difference of its load to the average load per
+         * node in average loads per shard, or <tt>0</tt> if the load of the shards is unknown.
+         */
+        public float loadWeight(ModelNode node, Load load) {
+            if (shardLoads == null) {
+                return 0.0f;
+            }
+            final double totalLoad = totalLoads[load.ordinal()];
+            if (totalLoad <= 0.0d) {
+                return 0.0f;
+            }
+            final double avgLoadPerShard = totalLoad / metaData.totalNumberOfShards();
+            final double avgLoadPerNode = totalLoad / nodes.size();
+            return (float) ((node.load(load) - avgLoadPerNode) / avgLoadPerShard);
+        }
+
         /**
          * Returns the global average of primaries per node
          */
@@ -294,6 +421,19 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             }
             indices.addAll(allocation.routingTable().indicesRouting().keySet());
             buildModelFromAssigned(routing.shards(assignedFilter));
+            if (shardLoads != null) {
+                for (ModelNode node : nodes.values()) {
+                    for (Load load : Load.values()) {
+                        totalLoads[load.ordinal()] += node.load(load);
+                    }
+                }
+                for (MutableShardRouting shard : unassigned) {
+                    final double[] loads = shardLoads.loads(shard);
+                    for (int i = 0; i < loads.length; i++) {
+                        totalLoads[i] += loads[i];
+                    }
+                }
+            }
             return allocateUnassigned(unassigned, routing.ignoredUnassigned());
         }
 
@@ -812,9 +952,13 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         private final Map<String, ModelIndex> indices = new HashMap<>();
         /* cached stats - invalidated on add/remove and lazily calculated */
         private int numShards = -1;
+        private final ShardLoads shardLoads;
+        /* the load of the shards on the node - maintained on add/remove */
+        private final double[] loads = new double[Load.values().length];
 
-        public ModelNode(String id) {
+        public ModelNode(String id, @Nullable ShardLoads shardLoads) {
             this.id = id;
+            this.shardLoads = shardLoads;
         }
 
         public ModelIndex getIndex(String indexId) {
@@ -841,6 +985,10 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
             return index == null ? 0 : index.numShards();
         }
 
+        public double load(Load load) {
+            return loads[load.ordinal()];
+        }
+
         public Collection<MutableShardRouting> shards() {
             Collection<MutableShardRouting> result = new ArrayList<>();
             for (ModelIndex index : indices.values()) {
@@ -865,6 +1013,12 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                 indices.put(index.getIndexId(), index);
             }
             index.addShard(shard, decision);
+            if (shardLoads != null) {
+                final double[] shardLoad = shardLoads.loads(shard);
+                for (int i = 0; i < loads.length; i++) {
+                    loads[i] += shardLoad[i];
+                }
+            }
         }
 
         public Decision removeShard(MutableShardRouting shard) {
@@ -876,6 +1030,12 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
                 if (removed != null && index.numShards() == 0) {
                     indices.remove(shard.index());
                 }
+                if (removed != null && shardLoads != null) {
+                    final double[] shardLoad = shardLoads.loads(shard);
+                    for (int i = 0; i < loads.length; i++) {
+                        loads[i] -= shardLoad[i];
+                    }
+                }
             }
             return removed;
         }
@@ -967,6 +1127,42 @@ public class BalancedShardsAllocator extends AbstractComponent implements Shards
         }
     }
 
+    /**
+     * Looks up the loads of the shards in the {@link ClusterInfo}, shards without statistics have no load.
+     */
+    static final class ShardLoads {
+        private final Map<String, Long> shardSizes;
+        private final Map<String, Double> shardIndexingRates;
+        private final Map<String, Double> shardSearchRates;
+        /* the identifiers are built from the routing, looked up again and again while the model is updated */
+        private final Map<MutableShardRouting, double[]> loads = new IdentityHashMap<>();
+
+        ShardLoads(ClusterInfo clusterInfo) {
+            this.shardSizes = clusterInfo.getShardSizes();
+            this.shardIndexingRates = clusterInfo.getShardIndexingRates();
+            this.shardSearchRates = clusterInfo.getShardSearchRates();
+        }
+
+        /**
+         * Returns the loads of the given shard indexed by {@link Load#ordinal()}.
+         */
+        double[] loads(MutableShardRouting shard) {
+            double[] shardLoads = loads.get(shard);
+            if (shardLoads == null) {
+                final String sid = InternalClusterInfoService.shardIdentifierFromRouting(shard);
+                shardLoads = new double[Load.values().length];
+                final Long size = shardSizes.get(sid);
+                shardLoads[Load.DISK_USAGE.ordinal()] = size == null ? 0.0d : size;
+                final Double indexingRate = shardIndexingRates.get(sid);
+                shardLoads[Load.INDEXING_RATE.ordinal()] = indexingRate == null ? 0.0d : indexingRate;
+                final Double searchRate = shardSearchRates.get(sid);
+                shardLoads[Load.SEARCH_RATE.ordinal()] = searchRate == null ? 0.0d : searchRate;
+                loads.put(shard, shardLoads);
+            }
+            return shardLoads;
+        }
+    }
+
     static final class NodeSorter extends IntroSorter {
 
         final ModelNode[] modelNodes;
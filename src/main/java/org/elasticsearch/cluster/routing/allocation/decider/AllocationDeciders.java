@@ -21,11 +21,18 @@ package org.elasticsearch.cluster.routing.allocation.decider;
 
 import org.elasticsearch.cluster.routing.RoutingNode;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.AllocationStats;
 import org.elasticsearch.cluster.routing.allocation.RoutingAllocation;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.unit.TimeValue;
 
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A composite {@link AllocationDecider} combining the "decision" of multiple
@@ -48,8 +55,14 @@ public class AllocationDeciders extends AllocationDecider {
     @Override
     public Decision canRebalance(ShardRouting shardRouting, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        final Timings timings = allocation.deciderTimings();
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            final long startNanos = timings == null ? 0 : System.nanoTime();
             Decision decision = allocationDecider.canRebalance(shardRouting, allocation);
+            if (timings != null) {
+                timings.add(i, System.nanoTime() - startNanos);
+            }
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -70,8 +83,14 @@ public class AllocationDeciders extends AllocationDecider {
             return Decision.NO;
         }
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        final Timings timings = allocation.deciderTimings();
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            final long startNanos = timings == null ? 0 : System.nanoTime();
             Decision decision = allocationDecider.canAllocate(shardRouting, node, allocation);
+            if (timings != null) {
+                timings.add(i, System.nanoTime() - startNanos);
+            }
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
@@ -101,8 +120,14 @@ public class AllocationDeciders extends AllocationDecider {
             return Decision.NO;
         }
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        final Timings timings = allocation.deciderTimings();
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            final long startNanos = timings == null ? 0 : System.nanoTime();
             Decision decision = allocationDecider.canRemain(shardRouting, node, allocation);
+            if (timings != null) {
+                timings.add(i, System.nanoTime() - startNanos);
+            }
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (logger.isTraceEnabled()) {
@@ -122,8 +147,14 @@ public class AllocationDeciders extends AllocationDecider {
 
     public Decision canAllocate(ShardRouting shardRouting, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        final Timings timings = allocation.deciderTimings();
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            final long startNanos = timings == null ? 0 : System.nanoTime();
             Decision decision = allocationDecider.canAllocate(shardRouting, allocation);
+            if (timings != null) {
+                timings.add(i, System.nanoTime() - startNanos);
+            }
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -140,8 +171,14 @@ public class AllocationDeciders extends AllocationDecider {
 
     public Decision canAllocate(RoutingNode node, RoutingAllocation allocation) {
         Decision.Multi ret = new Decision.Multi();
-        for (AllocationDecider allocationDecider : allocations) {
+        final Timings timings = allocation.deciderTimings();
+        for (int i = 0; i < allocations.length; i++) {
+            final AllocationDecider allocationDecider = allocations[i];
+            final long startNanos = timings == null ? 0 : System.nanoTime();
             Decision decision = allocationDecider.canAllocate(node, allocation);
+            if (timings != null) {
+                timings.add(i, System.nanoTime() - startNanos);
+            }
             // short track if a NO is returned.
             if (decision == Decision.NO) {
                 if (!allocation.debugDecision()) {
@@ -155,4 +192,113 @@ public class AllocationDeciders extends AllocationDecider {
         }
         return ret;
     }
+
+    /**
+     * Returns new {@link Timings} for the deciders, to measure the time a {@link RoutingAllocation} spends in each of them.
+     */
+    public Timings newTimings() {
+        return new Timings(allocations);
+    }
+
+    /**
+     * The number of decisions each decider took and the time it took them, see
+     * {@link RoutingAllocation#deciderTimings(Timings)}.
+     */
+    public static class Timings {
+
+        private final AllocationDecider[] deciders;
+        private final long[] calls;
+        private final long[] nanos;
+
+        Timings(AllocationDecider[] deciders) {
+            this.deciders = deciders;
+            this.calls = new long[deciders.length];
+            this.nanos = new long[deciders.length];
+        }
+
+        void add(int decider, long tookNanos) {
+            calls[decider]++;
+            nanos[decider] += tookNanos;
+        }
+
+        /**
+         * Adds the decisions of the given timings, which must be timings of the same deciders, to these timings.
+         */
+        public void add(Timings other) {
+            assert other.deciders == deciders : "timings of different deciders";
+            for (int i = 0; i < calls.length; i++) {
+                calls[i] += other.calls[i];
+                nanos[i] += other.nanos[i];
+            }
+        }
+
+        /**
+         * The number of decisions and the time spent in each decider, by the simple name of its class. Deciders of
+         * classes with the same simple name are summed up.
+         */
+        public Map<String, AllocationStats.DeciderStats> deciderStats() {
+            Map<String, long[]> totals = new LinkedHashMap<>();
+            for (int i = 0; i < deciders.length; i++) {
+                String name = name(deciders[i]);
+                long[] total = totals.get(name);
+                if (total == null) {
+                    total = new long[2];
+                    totals.put(name, total);
+                }
+                total[0] += calls[i];
+                total[1] += nanos[i];
+            }
+            Map<String, AllocationStats.DeciderStats> stats = new LinkedHashMap<>(totals.size());
+            for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+                stats.put(entry.getKey(), new AllocationStats.DeciderStats(entry.getValue()[0], TimeUnit.NANOSECONDS.toMillis(entry.getValue()[1])));
+            }
+            return stats;
+        }
+
+        /**
+         * The total time spent in deciders.
+         */
+        public TimeValue totalTime() {
+            long total = 0;
+            for (long took : nanos) {
+                total += took;
+            }
+            return TimeValue.timeValueNanos(total);
+        }
+
+        /**
+         * Lists the deciders that took any decision, the slowest first.
+         */
+        @Override
+        public String toString() {
+            Integer[] order = new Integer[deciders.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer o1, Integer o2) {
+                    return Long.compare(nanos[o2], nanos[o1]);
+                }
+            });
+            StringBuilder sb = new StringBuilder();
+            for (int i : order) {
+                if (calls[i] == 0) {
+                    continue;
+                }
+                if (sb.length() > 0) {
+                    sb.append(", ");
+                }
+                sb.append(name(deciders[i])).append(" [").append(calls[i]).append(" decisions in ")
+                        .append(TimeValue.timeValueNanos(nanos[i])).append("]");
+            }
+            return sb.toString();
+        }
+
+        private static String name(AllocationDecider decider) {
+            String name = decider.getClass().getSimpleName();
+            // anonymous deciders have no simple name
+            return name.isEmpty() ? decider.getClass().getName() : name;
+        }
+    }
 }
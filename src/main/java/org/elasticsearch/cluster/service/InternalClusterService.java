@@ -52,6 +52,7 @@ import org.elasticsearch.transport.TransportService;
 
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.elasticsearch.common.util.concurrent.EsExecutors.daemonThreadFactory;
 
@@ -94,6 +95,11 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
 
     private final Queue<NotifyTimeout> onGoingTimeouts = ConcurrentCollections.newQueue();
 
+    // queued update tasks per batching key, drained by the first of them to execute
+    private final ConcurrentMap<String, Queue<UpdateTask>> batchedTasks = ConcurrentCollections.newConcurrentMap();
+
+    private final int maxBatchSize;
+
     private volatile ClusterState clusterState;
 
     private final ClusterBlocks.Builder initialBlocks;
@@ -118,6 +124,7 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
         this.nodeSettingsService.setClusterService(this);
 
         this.reconnectInterval = componentSettings.getAsTime("reconnect_interval", TimeValue.timeValueSeconds(10));
+        this.maxBatchSize = componentSettings.getAsInt("max_batch_size", 1000);
 
         localNodeMasterListeners = new LocalNodeMasterListeners(threadPool);
 
@@ -262,8 +269,21 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
         if (!lifecycle.started()) {
             return;
         }
+        final UpdateTask task = new UpdateTask(source, priority, updateTask);
+        Queue<UpdateTask> batchQueue = null;
         try {
-            final UpdateTask task = new UpdateTask(source, priority, updateTask);
+            String batchingKey = updateTask.batchingKey();
+            if (batchingKey != null) {
+                batchQueue = batchedTasks.get(batchingKey);
+                if (batchQueue == null) {
+                    Queue<UpdateTask> newQueue = ConcurrentCollections.newQueue();
+                    batchQueue = batchedTasks.putIfAbsent(batchingKey, newQueue);
+                    if (batchQueue == null) {
+                        batchQueue = newQueue;
+                    }
+                }
+                batchQueue.add(task);
+            }
             if (updateTask instanceof TimeoutClusterStateUpdateTask) {
                 final TimeoutClusterStateUpdateTask timeoutUpdateTask = (TimeoutClusterStateUpdateTask) updateTask;
                 updateTasksExecutor.execute(task, threadPool.scheduler(), timeoutUpdateTask.timeout(), new Runnable() {
@@ -272,7 +292,10 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
                         threadPool.generic().execute(new Runnable() {
                             @Override
                             public void run() {
-                                timeoutUpdateTask.onFailure(task.source, new ProcessClusterEventTimeoutException(timeoutUpdateTask.timeout(), task.source));
+                                // the task might have been executed as part of a batch in the meantime
+                                if (task.processed.compareAndSet(false, true)) {
+                                    timeoutUpdateTask.onFailure(task.source, new ProcessClusterEventTimeoutException(timeoutUpdateTask.timeout(), task.source));
+                                }
                             }
                         });
                     }
@@ -281,6 +304,14 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
                 updateTasksExecutor.execute(task);
             }
         } catch (EsRejectedExecutionException e) {
+            if (batchQueue != null) {
+                // the rejected task must not be executed as part of the batch of another task either
+                batchQueue.remove(task);
+                if (task.processed.compareAndSet(false, true) == false) {
+                    // too late, it has been executed as part of a batch already
+                    return;
+                }
+            }
             // ignore cases where we are shutting down..., there is really nothing interesting
             // to be done here...
             if (!lifecycle.stoppedOrClosed()) {
@@ -297,16 +328,29 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
         for (PrioritizedEsThreadPoolExecutor.Pending pending : pendings) {
             final String source;
             final long timeInQueue;
+            boolean executing = pending.executing;
+            int batchSize = 1;
+            long timeExecuting = -1;
             if (pending.task instanceof UpdateTask) {
                 UpdateTask updateTask = (UpdateTask) pending.task;
+                UpdateTaskBatch batch = updateTask.batch;
+                if (batch == null && updateTask.processed.get()) {
+                    // already executed as part of a batch, just waiting to be removed from the queue
+                    continue;
+                }
                 source = updateTask.source;
                 timeInQueue = now - updateTask.addedAt;
+                if (batch != null) {
+                    executing = true;
+                    batchSize = batch.size;
+                    timeExecuting = now - batch.startedAt;
+                }
             } else {
                 source = "unknown";
                 timeInQueue = -1;
             }
 
-            pendingClusterTasks.add(new PendingClusterTask(pending.insertionOrder, pending.priority, new StringText(source), timeInQueue, pending.executing));
+            pendingClusterTasks.add(new PendingClusterTask(pending.insertionOrder, pending.priority, new StringText(source), timeInQueue, executing, batchSize, timeExecuting));
         }
         return pendingClusterTasks;
     }
@@ -316,6 +360,10 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
         public final String source;
         public final ClusterStateUpdateTask updateTask;
         public final long addedAt = System.currentTimeMillis();
+        // set once the task is executed, either on its own, as part of a batch, or failed on timeout
+        final AtomicBoolean processed = new AtomicBoolean();
+        // the batch this task is executed in, only set while it is executing
+        volatile UpdateTaskBatch batch;
 
         UpdateTask(String source, Priority priority, ClusterStateUpdateTask updateTask) {
             super(priority);
@@ -325,64 +373,132 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
 
         @Override
         public void run() {
-            if (!lifecycle.started()) {
-                logger.debug("processing [{}]: ignoring, cluster_service not started", source);
+            if (!processed.compareAndSet(false, true)) {
+                // already executed as part of a batch of another task
                 return;
             }
-            logger.debug("processing [{}]: execute", source);
-            ClusterState previousClusterState = clusterState;
-            if (!previousClusterState.nodes().localNodeMaster() && updateTask.runOnlyOnMaster()) {
-                logger.debug("failing [{}]: local node is no longer master", source);
-                updateTask.onNoLongerMaster(source);
-                return;
+            List<UpdateTask> tasks = new ArrayList<>();
+            tasks.add(this);
+            String batchingKey = updateTask.batchingKey();
+            if (batchingKey != null) {
+                Queue<UpdateTask> queue = batchedTasks.get(batchingKey);
+                if (queue != null) {
+                    UpdateTask task;
+                    while (tasks.size() < maxBatchSize && (task = queue.poll()) != null) {
+                        if (task != this && task.processed.compareAndSet(false, true)) {
+                            tasks.add(task);
+                        }
+                    }
+                }
+            }
+            UpdateTaskBatch taskBatch = new UpdateTaskBatch(tasks.size());
+            for (UpdateTask task : tasks) {
+                task.batch = taskBatch;
             }
-            ClusterState newClusterState;
             try {
-                newClusterState = updateTask.execute(previousClusterState);
+                runTasks(tasks);
+            } finally {
+                for (UpdateTask task : tasks) {
+                    task.batch = null;
+                }
+                if (tasks.size() > 1) {
+                    logger.debug("processed batch [{}] of [{}] tasks in [{}]", batchingKey, tasks.size(), TimeValue.timeValueMillis(System.currentTimeMillis() - taskBatch.startedAt));
+                }
+            }
+        }
+    }
+
+    /**
+     * Timing information of a batch of update tasks that are executed together
+     */
+    static class UpdateTaskBatch {
+
+        final int size;
+        final long startedAt = System.currentTimeMillis();
+
+        UpdateTaskBatch(int size) {
+            this.size = size;
+        }
+    }
+
+    /**
+     * Executes the given tasks one after the other against the current cluster state, and applies and publishes
+     * the resulting cluster state once for all of them.
+     */
+    private void runTasks(List<UpdateTask> tasks) {
+        final String source;
+        if (tasks.size() == 1) {
+            source = tasks.get(0).source;
+        } else {
+            source = tasks.get(0).source + " (batched with " + (tasks.size() - 1) + " more tasks)";
+        }
+        if (!lifecycle.started()) {
+            logger.debug("processing [{}]: ignoring, cluster_service not started", source);
+            return;
+        }
+        logger.debug("processing [{}]: execute", source);
+        ClusterState previousClusterState = clusterState;
+        ClusterState newClusterState = previousClusterState;
+        List<UpdateTask> executedTasks = new ArrayList<>(tasks.size());
+        for (UpdateTask task : tasks) {
+            ClusterStateUpdateTask updateTask = task.updateTask;
+            if (!newClusterState.nodes().localNodeMaster() && updateTask.runOnlyOnMaster()) {
+                logger.debug("failing [{}]: local node is no longer master", task.source);
+                updateTask.onNoLongerMaster(task.source);
+                continue;
+            }
+            try {
+                newClusterState = updateTask.execute(newClusterState);
+                executedTasks.add(task);
             } catch (Throwable e) {
                 if (logger.isTraceEnabled()) {
-                    StringBuilder sb = new StringBuilder("failed to execute cluster state update, state:\nversion [").append(previousClusterState.version()).append("], source [").append(source).append("]\n");
-                    sb.append(previousClusterState.nodes().prettyPrint());
-                    sb.append(previousClusterState.routingTable().prettyPrint());
-                    sb.append(previousClusterState.readOnlyRoutingNodes().prettyPrint());
+                    StringBuilder sb = new StringBuilder("failed to execute cluster state update, state:\nversion [").append(newClusterState.version()).append("], source [").append(task.source).append("]\n");
+                    sb.append(newClusterState.nodes().prettyPrint());
+                    sb.append(newClusterState.routingTable().prettyPrint());
+                    sb.append(newClusterState.readOnlyRoutingNodes().prettyPrint());
                     logger.trace(sb.toString(), e);
                 }
-                updateTask.onFailure(source, e);
-                return;
+                updateTask.onFailure(task.source, e);
             }
+        }
 
-            if (previousClusterState == newClusterState) {
-                logger.debug("processing [{}]: no change in cluster_state", source);
+        if (previousClusterState == newClusterState) {
+            logger.debug("processing [{}]: no change in cluster_state", source);
+            for (UpdateTask task : executedTasks) {
+                ClusterStateUpdateTask updateTask = task.updateTask;
                 if (updateTask instanceof AckedClusterStateUpdateTask) {
                     //no need to wait for ack if nothing changed, the update can be counted as acknowledged
                     ((AckedClusterStateUpdateTask) updateTask).onAllNodesAcked(null);
                 }
                 if (updateTask instanceof ProcessedClusterStateUpdateTask) {
-                    ((ProcessedClusterStateUpdateTask) updateTask).clusterStateProcessed(source, previousClusterState, newClusterState);
+                    ((ProcessedClusterStateUpdateTask) updateTask).clusterStateProcessed(task.source, previousClusterState, newClusterState);
                 }
-                return;
             }
+            return;
+        }
 
-            try {
-                Discovery.AckListener ackListener = new NoOpAckListener();
-                if (newClusterState.nodes().localNodeMaster()) {
-                    // only the master controls the version numbers
-                    Builder builder = ClusterState.builder(newClusterState).version(newClusterState.version() + 1);
-                    if (previousClusterState.routingTable() != newClusterState.routingTable()) {
-                        builder.routingTable(RoutingTable.builder(newClusterState.routingTable()).version(newClusterState.routingTable().version() + 1));
-                    }
-                    if (previousClusterState.metaData() != newClusterState.metaData()) {
-                        builder.metaData(MetaData.builder(newClusterState.metaData()).version(newClusterState.metaData().version() + 1));
-                    }
-                    newClusterState = builder.build();
+        try {
+            Discovery.AckListener ackListener = new NoOpAckListener();
+            if (newClusterState.nodes().localNodeMaster()) {
+                // only the master controls the version numbers
+                Builder builder = ClusterState.builder(newClusterState).version(newClusterState.version() + 1);
+                if (previousClusterState.routingTable() != newClusterState.routingTable()) {
+                    builder.routingTable(RoutingTable.builder(newClusterState.routingTable()).version(newClusterState.routingTable().version() + 1));
+                }
+                if (previousClusterState.metaData() != newClusterState.metaData()) {
+                    builder.metaData(MetaData.builder(newClusterState.metaData()).version(newClusterState.metaData().version() + 1));
+                }
+                newClusterState = builder.build();
 
-                    if (updateTask instanceof AckedClusterStateUpdateTask) {
-                        final AckedClusterStateUpdateTask ackedUpdateTask = (AckedClusterStateUpdateTask) updateTask;
+                List<Discovery.AckListener> ackListeners = new ArrayList<>();
+                for (UpdateTask task : executedTasks) {
+                    if (task.updateTask instanceof AckedClusterStateUpdateTask) {
+                        final AckedClusterStateUpdateTask ackedUpdateTask = (AckedClusterStateUpdateTask) task.updateTask;
                         if (ackedUpdateTask.ackTimeout() == null || ackedUpdateTask.ackTimeout().millis() == 0) {
                             ackedUpdateTask.onAckTimeout();
                         } else {
                             try {
-                                ackListener = new AckCountDownListener(ackedUpdateTask, newClusterState.version(), newClusterState.nodes(), threadPool);
+                                ackListeners.add(new AckCountDownListener(ackedUpdateTask, newClusterState.version(), newClusterState.nodes(), threadPool));
                             } catch (EsRejectedExecutionException ex) {
                                 if (logger.isDebugEnabled()) {
                                     logger.debug("Couldn't schedule timeout thread - node might be shutting down", ex);
@@ -393,99 +509,106 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
                         }
                     }
                 }
+                if (ackListeners.size() == 1) {
+                    ackListener = ackListeners.get(0);
+                } else if (ackListeners.size() > 1) {
+                    ackListener = new DelegatingAckListener(ackListeners);
+                }
+            }
 
-                newClusterState.status(ClusterState.ClusterStateStatus.BEING_APPLIED);
+            newClusterState.status(ClusterState.ClusterStateStatus.BEING_APPLIED);
 
-                if (logger.isTraceEnabled()) {
-                    StringBuilder sb = new StringBuilder("cluster state updated, source [").append(source).append("]\n");
-                    sb.append(newClusterState.prettyPrint());
-                    logger.trace(sb.toString());
-                } else if (logger.isDebugEnabled()) {
-                    logger.debug("cluster state updated, version [{}], source [{}]", newClusterState.version(), source);
-                }
-
-                ClusterChangedEvent clusterChangedEvent = new ClusterChangedEvent(source, newClusterState, previousClusterState);
-                // new cluster state, notify all listeners
-                final DiscoveryNodes.Delta nodesDelta = clusterChangedEvent.nodesDelta();
-                if (nodesDelta.hasChanges() && logger.isInfoEnabled()) {
-                    String summary = nodesDelta.shortSummary();
-                    if (summary.length() > 0) {
-                        logger.info("{}, reason: {}", summary, source);
-                    }
-                }
+            if (logger.isTraceEnabled()) {
+                StringBuilder sb = new StringBuilder("cluster state updated, source [").append(source).append("]\n");
+                sb.append(newClusterState.prettyPrint());
+                logger.trace(sb.toString());
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("cluster state updated, version [{}], source [{}]", newClusterState.version(), source);
+            }
 
-                // TODO, do this in parallel (and wait)
-                for (DiscoveryNode node : nodesDelta.addedNodes()) {
-                    if (!nodeRequiresConnection(node)) {
-                        continue;
-                    }
-                    try {
-                        transportService.connectToNode(node);
-                    } catch (Throwable e) {
-                        // the fault detection will detect it as failed as well
-                        logger.warn("failed to connect to node [" + node + "]", e);
-                    }
+            ClusterChangedEvent clusterChangedEvent = new ClusterChangedEvent(source, newClusterState, previousClusterState);
+            // new cluster state, notify all listeners
+            final DiscoveryNodes.Delta nodesDelta = clusterChangedEvent.nodesDelta();
+            if (nodesDelta.hasChanges() && logger.isInfoEnabled()) {
+                String summary = nodesDelta.shortSummary();
+                if (summary.length() > 0) {
+                    logger.info("{}, reason: {}", summary, source);
                 }
+            }
 
-                // if we are the master, publish the new state to all nodes
-                // we publish here before we send a notification to all the listeners, since if it fails
-                // we don't want to notify
-                if (newClusterState.nodes().localNodeMaster()) {
-                    logger.debug("publishing cluster state version {}", newClusterState.version());
-                    discoveryService.publish(newClusterState, ackListener);
+            // TODO, do this in parallel (and wait)
+            for (DiscoveryNode node : nodesDelta.addedNodes()) {
+                if (!nodeRequiresConnection(node)) {
+                    continue;
                 }
+                try {
+                    transportService.connectToNode(node);
+                } catch (Throwable e) {
+                    // the fault detection will detect it as failed as well
+                    logger.warn("failed to connect to node [" + node + "]", e);
+                }
+            }
 
-                // update the current cluster state
-                clusterState = newClusterState;
-                logger.debug("set local cluster state to version {}", newClusterState.version());
-                for (ClusterStateListener listener : preAppliedListeners) {
-                    try {
-                        listener.clusterChanged(clusterChangedEvent);
-                    } catch (Exception ex) {
-                        logger.warn("failed to notify ClusterStateListener", ex);
-                    }
+            // if we are the master, publish the new state to all nodes
+            // we publish here before we send a notification to all the listeners, since if it fails
+            // we don't want to notify
+            if (newClusterState.nodes().localNodeMaster()) {
+                logger.debug("publishing cluster state version {}", newClusterState.version());
+                discoveryService.publish(newClusterState, ackListener);
+            }
+
+            // update the current cluster state
+            clusterState = newClusterState;
+            logger.debug("set local cluster state to version {}", newClusterState.version());
+            for (ClusterStateListener listener : preAppliedListeners) {
+                try {
+                    listener.clusterChanged(clusterChangedEvent);
+                } catch (Exception ex) {
+                    logger.warn("failed to notify ClusterStateListener", ex);
                 }
+            }
 
-                for (DiscoveryNode node : nodesDelta.removedNodes()) {
-                    try {
-                        transportService.disconnectFromNode(node);
-                    } catch (Throwable e) {
-                        logger.warn("failed to disconnect to node [" + node + "]", e);
-                    }
+            for (DiscoveryNode node : nodesDelta.removedNodes()) {
+                try {
+                    transportService.disconnectFromNode(node);
+                } catch (Throwable e) {
+                    logger.warn("failed to disconnect to node [" + node + "]", e);
                 }
+            }
 
-                newClusterState.status(ClusterState.ClusterStateStatus.APPLIED);
+            newClusterState.status(ClusterState.ClusterStateStatus.APPLIED);
 
-                for (ClusterStateListener listener : postAppliedListeners) {
-                    try {
-                        listener.clusterChanged(clusterChangedEvent);
-                    } catch (Exception ex) {
-                        logger.warn("failed to notify ClusterStateListener", ex);
-                    }
+            for (ClusterStateListener listener : postAppliedListeners) {
+                try {
+                    listener.clusterChanged(clusterChangedEvent);
+                } catch (Exception ex) {
+                    logger.warn("failed to notify ClusterStateListener", ex);
                 }
+            }
 
-                //manual ack only from the master at the end of the publish
-                if (newClusterState.nodes().localNodeMaster()) {
-                    try {
-                        ackListener.onNodeAck(newClusterState.nodes().localNode(), null);
-                    } catch (Throwable t) {
-                        logger.debug("error while processing ack for master node [{}]", t, newClusterState.nodes().localNode());
-                    }
+            //manual ack only from the master at the end of the publish
+            if (newClusterState.nodes().localNodeMaster()) {
+                try {
+                    ackListener.onNodeAck(newClusterState.nodes().localNode(), null);
+                } catch (Throwable t) {
+                    logger.debug("error while processing ack for master node [{}]", t, newClusterState.nodes().localNode());
                 }
+            }
 
-                if (updateTask instanceof ProcessedClusterStateUpdateTask) {
-                    ((ProcessedClusterStateUpdateTask) updateTask).clusterStateProcessed(source, previousClusterState, newClusterState);
+            for (UpdateTask task : executedTasks) {
+                if (task.updateTask instanceof ProcessedClusterStateUpdateTask) {
+                    ((ProcessedClusterStateUpdateTask) task.updateTask).clusterStateProcessed(task.source, previousClusterState, newClusterState);
                 }
-
-                logger.debug("processing [{}]: done applying updated cluster_state (version: {})", source, newClusterState.version());
-            } catch (Throwable t) {
-                StringBuilder sb = new StringBuilder("failed to apply updated cluster state:\nversion [").append(newClusterState.version()).append("], source [").append(source).append("]\n");
-                sb.append(newClusterState.nodes().prettyPrint());
-                sb.append(newClusterState.routingTable().prettyPrint());
-                sb.append(newClusterState.readOnlyRoutingNodes().prettyPrint());
-                logger.warn(sb.toString(), t);
-                // TODO: do we want to call updateTask.onFailure here?
             }
+
+            logger.debug("processing [{}]: done applying updated cluster_state (version: {})", source, newClusterState.version());
+        } catch (Throwable t) {
+            StringBuilder sb = new StringBuilder("failed to apply updated cluster state:\nversion [").append(newClusterState.version()).append("], source [").append(source).append("]\n");
+            sb.append(newClusterState.nodes().prettyPrint());
+            sb.append(newClusterState.routingTable().prettyPrint());
+            sb.append(newClusterState.readOnlyRoutingNodes().prettyPrint());
+            logger.warn(sb.toString(), t);
+            // TODO: do we want to call updateTask.onFailure here?
         }
     }
 
@@ -658,6 +781,29 @@ public class InternalClusterService extends AbstractLifecycleComponent<ClusterSe
         }
     }
 
+    private static class DelegatingAckListener implements Discovery.AckListener {
+
+        private final List<Discovery.AckListener> listeners;
+
+        private DelegatingAckListener(List<Discovery.AckListener> listeners) {
+            this.listeners = listeners;
+        }
+
+        @Override
+        public void onNodeAck(DiscoveryNode node, @Nullable Throwable t) {
+            for (Discovery.AckListener listener : listeners) {
+                listener.onNodeAck(node, t);
+            }
+        }
+
+        @Override
+        public void onTimeout() {
+            for (Discovery.AckListener listener : listeners) {
+                listener.onTimeout();
+            }
+        }
+    }
+
     private static class AckCountDownListener implements Discovery.AckListener {
 
         private static final ESLogger logger = Loggers.getLogger(AckCountDownListener.class);
@@ -38,16 +38,24 @@ public class PendingClusterTask implements Streamable {
     private Text source;
     private long timeInQueue;
     private boolean executing;
+    private int batchSize = 1;
+    private long timeExecuting = -1;
 
     public PendingClusterTask() {
     }
 
     public PendingClusterTask(long insertOrder, Priority priority, Text source, long timeInQueue, boolean executing) {
+        this(insertOrder, priority, source, timeInQueue, executing, 1, -1);
+    }
+
+    public PendingClusterTask(long insertOrder, Priority priority, Text source, long timeInQueue, boolean executing, int batchSize, long timeExecuting) {
         this.insertOrder = insertOrder;
         this.priority = priority;
         this.source = source;
         this.timeInQueue = timeInQueue;
         this.executing = executing;
+        this.batchSize = batchSize;
+        this.timeExecuting = timeExecuting;
     }
 
     public long getInsertOrder() {
@@ -74,6 +82,24 @@ public class PendingClusterTask implements Streamable {
         return executing;
     }
 
+    /**
+     * The number of tasks executed together with this task, including itself
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * The time since the batch of this task started executing, <tt>-1</tt> if not executing as part of a batch
+     */
+    public long getTimeExecutingInMillis() {
+        return timeExecuting;
+    }
+
+    public TimeValue getTimeExecuting() {
+        return new TimeValue(getTimeExecutingInMillis());
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         insertOrder = in.readVLong();
@@ -81,6 +107,10 @@ public class PendingClusterTask implements Streamable {
         source = in.readText();
         timeInQueue = in.readLong();
         executing = in.readBoolean();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            batchSize = in.readVInt();
+            timeExecuting = in.readLong();
+        }
     }
 
     @Override
@@ -90,5 +120,9 @@ public class PendingClusterTask implements Streamable {
         out.writeText(source);
         out.writeLong(timeInQueue);
         out.writeBoolean(executing);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeVInt(batchSize);
+            out.writeLong(timeExecuting);
+        }
     }
 }
\ No newline at end of file
@@ -55,6 +55,18 @@ public final class Priority implements Comparable<Priority> {
         }
     }
 
+    /**
+     * Parses the name of a priority, case insensitive.
+     */
+    public static Priority fromString(String priority) {
+        for (Priority p : values) {
+            if (p.toString().equalsIgnoreCase(priority)) {
+                return p;
+            }
+        }
+        throw new ElasticsearchIllegalArgumentException("can't find priority for [" + priority + "]");
+    }
+
     public static final Priority IMMEDIATE = new Priority((byte) -1);
     public static final Priority URGENT = new Priority((byte) 0);
     public static final Priority HIGH = new Priority((byte) 1);
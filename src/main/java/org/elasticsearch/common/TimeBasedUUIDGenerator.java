@@ -29,7 +29,7 @@ import java.util.concurrent.atomic.AtomicLong;
 /** These are essentially flake ids (http://boundary.com/blog/2012/01/12/flake-a-decentralized-k-ordered-unique-id-generator-in-erlang) but
  *  we use 6 (not 8) bytes for timestamp, and use 3 (not 2) bytes for sequence number. */
 
-class TimeBasedUUIDGenerator implements UUIDGenerator {
+public class TimeBasedUUIDGenerator implements UUIDGenerator {
 
     // We only use bottom 3 bytes for the sequence number.  Paranoia: init with random int so that if JVM/OS/machine goes down, clock slips
     // backwards, and JVM comes back up, we are less likely to be on the same sequenceNumber at the same time:
@@ -38,14 +38,14 @@ class TimeBasedUUIDGenerator implements UUIDGenerator {
     // Used to ensure clock moves forward:
     private long lastTimestamp;
 
-    private static final byte[] secureMungedAddress = MacAddressProvider.getSecureMungedAddress();
+    static final byte[] secureMungedAddress = MacAddressProvider.getSecureMungedAddress();
 
     static {
         assert secureMungedAddress.length == 6;
     }
 
     /** Puts the lower numberOfLongBytes from l into the array, starting index pos. */
-    private static void putLong(byte[] array, long l, int pos, int numberOfLongBytes) {
+    static void putLong(byte[] array, long l, int pos, int numberOfLongBytes) {
         for (int i=0; i<numberOfLongBytes; ++i) {
             array[pos+numberOfLongBytes-i-1] = (byte) (l >>> (i*8));
         }
@@ -71,7 +71,22 @@ class TimeBasedUUIDGenerator implements UUIDGenerator {
         }
 
         final byte[] uuidBytes = new byte[15];
+        putUUIDBytes(uuidBytes, timestamp, sequenceId);
 
+        byte[] encoded;
+        try {
+            encoded = Base64.encodeBytesToBytes(uuidBytes, 0, uuidBytes.length, base64Options());
+        } catch (IOException e) {
+            throw new ElasticsearchIllegalStateException("should not be thrown", e);
+        }
+
+        // We are a multiple of 3 bytes so we should not see any padding:
+        assert encoded[encoded.length - 1] != '=';
+        return new String(encoded, 0, encoded.length, Base64.PREFERRED_ENCODING);
+    }
+
+    /** Puts the timestamp, the MAC address and the lower 3 bytes of the sequence number into the 15 bytes of the uuid. */
+    void putUUIDBytes(byte[] uuidBytes, long timestamp, int sequenceId) {
         // Only use lower 6 bytes of the timestamp (this will suffice beyond the year 10000):
         putLong(uuidBytes, timestamp, 0, 6);
 
@@ -82,16 +97,9 @@ class TimeBasedUUIDGenerator implements UUIDGenerator {
         putLong(uuidBytes, sequenceId, 12, 3);
 
         assert 9 + secureMungedAddress.length == uuidBytes.length;
+    }
 
-        byte[] encoded;
-        try {
-            encoded = Base64.encodeBytesToBytes(uuidBytes, 0, uuidBytes.length, Base64.URL_SAFE);
-        } catch (IOException e) {
-            throw new ElasticsearchIllegalStateException("should not be thrown", e);
-        }
-
-        // We are a multiple of 3 bytes so we should not see any padding:
-        assert encoded[encoded.length - 1] != '=';
-        return new String(encoded, 0, encoded.length, Base64.PREFERRED_ENCODING);
+    int base64Options() {
+        return Base64.URL_SAFE;
     }
 }
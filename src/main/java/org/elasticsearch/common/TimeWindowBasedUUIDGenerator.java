@@ -0,0 +1,51 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common;
+
+/** Same bytes as {@link TimeBasedUUIDGenerator}, laid out so that ids generated on the same node within the same time window
+ *  (~65 seconds) share a long prefix: the upper 4 bytes of the timestamp come first, then the MAC address, then the lower 2 bytes
+ *  of the timestamp and the sequence number.  Long shared prefixes compress well in the terms dictionary, and the ordered
+ *  Base64 alphabet keeps the ids in the order of their bytes, so that the ids of a segment span a narrow uid range. */
+
+public class TimeWindowBasedUUIDGenerator extends TimeBasedUUIDGenerator {
+
+    @Override
+    void putUUIDBytes(byte[] uuidBytes, long timestamp, int sequenceId) {
+        // Upper 4 of the lower 6 bytes of the timestamp, they change every ~65 seconds:
+        putLong(uuidBytes, timestamp >>> 16, 0, 4);
+
+        // MAC address adds 6 bytes:
+        System.arraycopy(secureMungedAddress, 0, uuidBytes, 4, secureMungedAddress.length);
+
+        // Lower 2 bytes of the timestamp:
+        putLong(uuidBytes, timestamp, 10, 2);
+
+        // Sequence number adds 3 bytes:
+        putLong(uuidBytes, sequenceId, 12, 3);
+
+        assert 9 + secureMungedAddress.length == uuidBytes.length;
+    }
+
+    @Override
+    int base64Options() {
+        // url safe as well, but in the order of the bytes
+        return Base64.ORDERED;
+    }
+}
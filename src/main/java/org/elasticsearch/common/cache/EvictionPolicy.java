@@ -0,0 +1,47 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+
+/**
+ * How a cache built by {@link WeightedCacheBuilder} picks the entries it evicts.
+ */
+public enum EvictionPolicy {
+
+    /**
+     * Evicts the least recently used entries, the cache is built with Guava's {@link com.google.common.cache.CacheBuilder}.
+     */
+    LRU,
+
+    /**
+     * Only admits entries that are accessed more often than the ones they would evict, see {@link TinyLfuCache}.
+     */
+    TINY_LFU;
+
+    public static EvictionPolicy fromString(String policy) {
+        if ("lru".equals(policy)) {
+            return LRU;
+        } else if ("tinylfu".equals(policy) || "tiny_lfu".equals(policy)) {
+            return TINY_LFU;
+        }
+        throw new ElasticsearchIllegalArgumentException("no eviction policy for [" + policy + "]");
+    }
+}
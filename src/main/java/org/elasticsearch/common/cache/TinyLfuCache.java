@@ -0,0 +1,786 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.metrics.CounterMetric;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+
+import java.lang.reflect.Constructor;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A weighted cache that evicts with a W-TinyLFU policy and never locks on reads.
+ * <p/>
+ * Entries are held in a concurrent map. Recency is tracked in three access ordered queues: a small admission window
+ * of about 1% of the maximum weight, and a main space split into a probation and a protected segment. New entries
+ * enter the window. Entries that overflow the window move to probation, and when the cache is over its maximum
+ * weight, the newest entry of probation competes with its oldest entry: whichever a {@link FrequencySketch} saw
+ * accessed less often recently is evicted. Entries that are read again while on probation are promoted to the
+ * protected segment. This keeps one-off accesses, like scans, from pushing frequently used entries out.
+ * <p/>
+ * Reads look entries up in the map and record the access in a lossy, striped buffer that is replayed against the
+ * queues and the sketch under the eviction lock, which only is taken if available. Writes take the eviction lock.
+ * Removal listeners are notified on the thread that modified the cache, after the lock is released.
+ */
+public final class TinyLfuCache<K, V> extends AbstractCache<K, V> {
+
+    private static final int WINDOW = 0;
+    private static final int PROBATION = 1;
+    private static final int PROTECTED = 2;
+    private static final int DEAD = 3;
+
+    private static final int READ_BUFFER_SIZE = 32;
+    private static final int READ_BUFFER_DRAIN_THRESHOLD = READ_BUFFER_SIZE / 2;
+    private static final int READ_BUFFERS = Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 4 - 1) << 1;
+
+    private final ConcurrentMap<K, Node<K, V>> data;
+    private final ConcurrentMap<K, FutureTask<V>> loading = ConcurrentCollections.newConcurrentMap();
+    private final long maximumWeight;
+    private final long maximumWindowWeight;
+    private final long maximumProtectedWeight;
+    private final Weigher<? super K, ? super V> weigher;
+    private final long expireAfterAccessNanos;
+    @Nullable
+    private final RemovalListener<? super K, ? super V> removalListener;
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    // guarded by evictionLock
+    private final AccessOrderQueue<K, V> window = new AccessOrderQueue<>();
+    private final AccessOrderQueue<K, V> probation = new AccessOrderQueue<>();
+    private final AccessOrderQueue<K, V> protectedQueue = new AccessOrderQueue<>();
+    private final FrequencySketch sketch = new FrequencySketch();
+    private long windowWeight;
+    private long protectedWeight;
+    private volatile long weight;
+
+    private final ReadBuffer<K, V>[] readBuffers;
+    private final ConcurrentLinkedQueue<Node<K, V>> pendingNotifications = new ConcurrentLinkedQueue<>();
+
+    private final CounterMetric hitCount = new CounterMetric();
+    private final CounterMetric missCount = new CounterMetric();
+    private final CounterMetric loadSuccessCount = new CounterMetric();
+    private final CounterMetric loadExceptionCount = new CounterMetric();
+    private final CounterMetric totalLoadTime = new CounterMetric();
+    private final CounterMetric evictionCount = new CounterMetric();
+
+    private ConcurrentMap<K, V> asMap;
+
+    /**
+     * @param maximumWeight          the maximum total weight of the entries, or <tt>-1</tt> for no maximum
+     * @param weigher                weighs entries, or <tt>null</tt> to weigh each entry 1
+     * @param expireAfterAccessNanos how long entries stay after their last access, or <tt>-1</tt> to never expire them
+     * @param concurrencyLevel       the estimated number of threads that modify the cache concurrently
+     */
+    @SuppressWarnings("unchecked")
+    public TinyLfuCache(long maximumWeight, @Nullable Weigher<? super K, ? super V> weigher, long expireAfterAccessNanos,
+                        @Nullable RemovalListener<? super K, ? super V> removalListener, int concurrencyLevel) {
+        this.data = new ConcurrentHashMap<>(16, 0.75f, Math.max(1, concurrencyLevel));
+        this.maximumWeight = maximumWeight < 0 ? Long.MAX_VALUE : maximumWeight;
+        this.maximumWindowWeight = Math.max(1, this.maximumWeight / 100);
+        this.maximumProtectedWeight = (long) ((this.maximumWeight - maximumWindowWeight) * 0.8);
+        this.weigher = weigher;
+        this.expireAfterAccessNanos = expireAfterAccessNanos;
+        this.removalListener = removalListener;
+        this.readBuffers = new ReadBuffer[READ_BUFFERS];
+        for (int i = 0; i < readBuffers.length; i++) {
+            readBuffers[i] = new ReadBuffer<>();
+        }
+    }
+
+    @Override
+    public V getIfPresent(Object key) {
+        final Node<K, V> node = data.get(key);
+        if (node == null) {
+            missCount.inc();
+            return null;
+        }
+        final long now = expireAfterAccessNanos < 0 ? 0 : System.nanoTime();
+        if (isExpired(node, now)) {
+            missCount.inc();
+            expire(node);
+            return null;
+        }
+        hitCount.inc();
+        afterRead(node, now);
+        return node.value;
+    }
+
+    @Override
+    public V get(final K key, final Callable<? extends V> valueLoader) throws ExecutionException {
+        final V value = getIfPresent(key);
+        if (value != null) {
+            return value;
+        }
+        FutureTask<V> task = new FutureTask<>(new Callable<V>() {
+            @Override
+            public V call() throws Exception {
+                // someone else might have loaded the value since we missed
+                final Node<K, V> node = data.get(key);
+                if (node != null && !isExpired(node, expireAfterAccessNanos < 0 ? 0 : System.nanoTime())) {
+                    return node.value;
+                }
+                final long start = System.nanoTime();
+                final V value;
+                try {
+                    value = valueLoader.call();
+                } catch (Throwable t) {
+                    loadExceptionCount.inc();
+                    totalLoadTime.inc(System.nanoTime() - start);
+                    throw t;
+                }
+                totalLoadTime.inc(System.nanoTime() - start);
+                if (value == null) {
+                    loadExceptionCount.inc();
+                    throw new CacheLoader.InvalidCacheLoadException("CacheLoader returned null for key " + key + ".");
+                }
+                loadSuccessCount.inc();
+                put(key, value);
+                return value;
+            }
+        });
+        final FutureTask<V> existing = loading.putIfAbsent(key, task);
+        if (existing == null) {
+            try {
+                task.run();
+            } finally {
+                loading.remove(key, task);
+            }
+        } else {
+            task = existing;
+        }
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExecutionException(e);
+        } catch (ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw new ExecutionError((Error) cause);
+            } else if (cause instanceof RuntimeException) {
+                throw new UncheckedExecutionException(cause);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public void put(K key, V value) {
+        evictionLock.lock();
+        try {
+            doPut(key, value);
+        } finally {
+            evictionLock.unlock();
+        }
+        processNotifications();
+    }
+
+    // must be called under the eviction lock, removal listeners are notified by processNotifications() after unlocking
+    private void doPut(K key, V value) {
+        assert evictionLock.isHeldByCurrentThread();
+        final int nodeWeight = weigher == null ? 1 : weigher.weigh(key, value);
+        final Node<K, V> node = new Node<>(key, value, nodeWeight);
+        node.accessTime = expireAfterAccessNanos < 0 ? 0 : System.nanoTime();
+        final Node<K, V> previous = data.put(key, node);
+        if (previous != null) {
+            unlink(previous);
+            notifyRemoval(previous, RemovalCause.REPLACED);
+        }
+        node.queue = WINDOW;
+        window.addLast(node);
+        windowWeight += nodeWeight;
+        weight += nodeWeight;
+        sketch.ensureCapacity(data.size());
+        sketch.increment(key);
+        drainReadBuffers();
+        evict();
+    }
+
+    @Override
+    public void invalidate(Object key) {
+        evictionLock.lock();
+        try {
+            doInvalidate(key);
+        } finally {
+            evictionLock.unlock();
+        }
+        processNotifications();
+    }
+
+    // must be called under the eviction lock, removal listeners are notified by processNotifications() after unlocking
+    private void doInvalidate(Object key) {
+        assert evictionLock.isHeldByCurrentThread();
+        final Node<K, V> node = data.remove(key);
+        if (node != null) {
+            unlink(node);
+            notifyRemoval(node, RemovalCause.EXPLICIT);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        evictionLock.lock();
+        try {
+            for (Node<K, V> node : data.values()) {
+                if (data.remove(node.key, node)) {
+                    unlink(node);
+                    notifyRemoval(node, RemovalCause.EXPLICIT);
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        processNotifications();
+    }
+
+    @Override
+    public long size() {
+        return data.size();
+    }
+
+    /**
+     * The total weight of the entries in the cache.
+     */
+    public long weight() {
+        return weight;
+    }
+
+    @Override
+    public CacheStats stats() {
+        return new CacheStats(hitCount.count(), missCount.count(), loadSuccessCount.count(), loadExceptionCount.count(),
+                totalLoadTime.count(), evictionCount.count());
+    }
+
+    /**
+     * Replays buffered reads and removes expired entries.
+     */
+    @Override
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            drainReadBuffers();
+            if (expireAfterAccessNanos >= 0) {
+                final long now = System.nanoTime();
+                for (Node<K, V> node : data.values()) {
+                    if (isExpired(node, now) && data.remove(node.key, node)) {
+                        unlink(node);
+                        notifyRemoval(node, RemovalCause.EXPIRED);
+                    }
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        processNotifications();
+    }
+
+    @Override
+    public ConcurrentMap<K, V> asMap() {
+        ConcurrentMap<K, V> asMap = this.asMap;
+        if (asMap == null) {
+            asMap = this.asMap = new AsMap();
+        }
+        return asMap;
+    }
+
+    private boolean isExpired(Node<K, V> node, long now) {
+        return expireAfterAccessNanos >= 0 && now - node.accessTime >= expireAfterAccessNanos;
+    }
+
+    private void expire(Node<K, V> node) {
+        evictionLock.lock();
+        try {
+            if (data.remove(node.key, node)) {
+                unlink(node);
+                notifyRemoval(node, RemovalCause.EXPIRED);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+        processNotifications();
+    }
+
+    private void afterRead(Node<K, V> node, long now) {
+        if (expireAfterAccessNanos >= 0) {
+            node.accessTime = now;
+        }
+        final ReadBuffer<K, V> buffer = readBuffers[(int) Thread.currentThread().getId() & (readBuffers.length - 1)];
+        if (buffer.offer(node) && evictionLock.tryLock()) {
+            try {
+                drainReadBuffers();
+            } finally {
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /** Must be called under the eviction lock. */
+    private void drainReadBuffers() {
+        for (ReadBuffer<K, V> buffer : readBuffers) {
+            long head = buffer.readCounter;
+            final long tail = buffer.writeCounter.get();
+            for (; head < tail; head++) {
+                final int index = (int) (head & (READ_BUFFER_SIZE - 1));
+                final Node<K, V> node = buffer.nodes.get(index);
+                if (node == null) {
+                    // the reader claimed the slot but did not publish the node yet, pick it up next time
+                    break;
+                }
+                buffer.nodes.lazySet(index, null);
+                onAccess(node);
+            }
+            buffer.readCounter = head;
+        }
+    }
+
+    /** Must be called under the eviction lock. */
+    private void onAccess(Node<K, V> node) {
+        if (node.queue == DEAD) {
+            return;
+        }
+        sketch.increment(node.key);
+        switch (node.queue) {
+            case WINDOW:
+                window.moveToBack(node);
+                break;
+            case PROBATION:
+                probation.remove(node);
+                node.queue = PROTECTED;
+                protectedQueue.addLast(node);
+                protectedWeight += node.weight;
+                // demote the least recently used protected entries back to probation
+                while (protectedWeight > maximumProtectedWeight) {
+                    final Node<K, V> demoted = protectedQueue.pollFirst();
+                    protectedWeight -= demoted.weight;
+                    demoted.queue = PROBATION;
+                    probation.addLast(demoted);
+                }
+                break;
+            case PROTECTED:
+                protectedQueue.moveToBack(node);
+                break;
+        }
+    }
+
+    /** Must be called under the eviction lock. */
+    private void evict() {
+        // entries that overflow the window become candidates for the main space
+        while (windowWeight > maximumWindowWeight && window.isEmpty() == false) {
+            final Node<K, V> node = window.pollFirst();
+            windowWeight -= node.weight;
+            node.queue = PROBATION;
+            probation.addLast(node);
+        }
+        while (weight > maximumWeight) {
+            Node<K, V> victim = probation.peekFirst();
+            if (victim == null) {
+                victim = protectedQueue.peekFirst();
+                if (victim == null) {
+                    victim = window.peekFirst();
+                }
+            } else {
+                final Node<K, V> candidate = probation.peekLast();
+                if (candidate != victim && sketch.frequency(candidate.key) <= sketch.frequency(victim.key)) {
+                    victim = candidate;
+                }
+            }
+            if (victim == null) {
+                break;
+            }
+            if (data.remove(victim.key, victim)) {
+                unlink(victim);
+                evictionCount.inc();
+                notifyRemoval(victim, RemovalCause.SIZE);
+            } else {
+                // removed concurrently, but still linked
+                unlink(victim);
+            }
+        }
+    }
+
+    /** Must be called under the eviction lock. */
+    private void unlink(Node<K, V> node) {
+        switch (node.queue) {
+            case WINDOW:
+                window.remove(node);
+                windowWeight -= node.weight;
+                break;
+            case PROBATION:
+                probation.remove(node);
+                break;
+            case PROTECTED:
+                protectedQueue.remove(node);
+                protectedWeight -= node.weight;
+                break;
+            case DEAD:
+                return;
+        }
+        node.queue = DEAD;
+        weight -= node.weight;
+    }
+
+    private void notifyRemoval(Node<K, V> node, RemovalCause cause) {
+        if (removalListener != null) {
+            node.removalCause = cause;
+            pendingNotifications.add(node);
+        }
+    }
+
+    private void processNotifications() {
+        if (removalListener == null) {
+            return;
+        }
+        Node<K, V> node;
+        while ((node = pendingNotifications.poll()) != null) {
+            removalListener.onRemoval(TinyLfuCache.<K, V>newRemovalNotification(node.key, node.value, node.removalCause));
+        }
+    }
+
+    // the constructor of RemovalNotification is package private, it is only meant to be called by guava's caches
+    private static final Constructor<RemovalNotification> REMOVAL_NOTIFICATION_CONSTRUCTOR;
+
+    static {
+        try {
+            REMOVAL_NOTIFICATION_CONSTRUCTOR = RemovalNotification.class.getDeclaredConstructor(Object.class, Object.class, RemovalCause.class);
+            REMOVAL_NOTIFICATION_CONSTRUCTOR.setAccessible(true);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> RemovalNotification<K, V> newRemovalNotification(K key, V value, RemovalCause cause) {
+        try {
+            return REMOVAL_NOTIFICATION_CONSTRUCTOR.newInstance(key, value, cause);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("failed to create a removal notification", e);
+        }
+    }
+
+    static final class Node<K, V> {
+        final K key;
+        final V value;
+        final int weight;
+        volatile long accessTime;
+
+        // guarded by the eviction lock
+        int queue = DEAD;
+        Node<K, V> previous;
+        Node<K, V> next;
+        RemovalCause removalCause;
+
+        Node(K key, V value, int weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * A doubly linked list of nodes, from least to most recently used. Not thread-safe.
+     */
+    static final class AccessOrderQueue<K, V> {
+        private Node<K, V> first;
+        private Node<K, V> last;
+
+        boolean isEmpty() {
+            return first == null;
+        }
+
+        Node<K, V> peekFirst() {
+            return first;
+        }
+
+        Node<K, V> peekLast() {
+            return last;
+        }
+
+        void addLast(Node<K, V> node) {
+            node.previous = last;
+            node.next = null;
+            if (last == null) {
+                first = node;
+            } else {
+                last.next = node;
+            }
+            last = node;
+        }
+
+        Node<K, V> pollFirst() {
+            final Node<K, V> node = first;
+            if (node != null) {
+                remove(node);
+            }
+            return node;
+        }
+
+        void remove(Node<K, V> node) {
+            if (node.previous == null) {
+                first = node.next;
+            } else {
+                node.previous.next = node.next;
+            }
+            if (node.next == null) {
+                last = node.previous;
+            } else {
+                node.next.previous = node.previous;
+            }
+            node.previous = null;
+            node.next = null;
+        }
+
+        void moveToBack(Node<K, V> node) {
+            if (node != last) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * A bounded buffer of reads that drops reads when full, so that readers never wait for the eviction lock.
+     */
+    static final class ReadBuffer<K, V> {
+        final AtomicLong writeCounter = new AtomicLong();
+        final AtomicReferenceArray<Node<K, V>> nodes = new AtomicReferenceArray<>(READ_BUFFER_SIZE);
+        // only written under the eviction lock
+        volatile long readCounter;
+
+        /**
+         * Records the read, returns true if the buffer should be drained.
+         */
+        boolean offer(Node<K, V> node) {
+            final long head = readCounter;
+            final long tail = writeCounter.get();
+            final long size = tail - head;
+            if (size >= READ_BUFFER_SIZE) {
+                return true;
+            }
+            if (writeCounter.compareAndSet(tail, tail + 1)) {
+                nodes.lazySet((int) (tail & (READ_BUFFER_SIZE - 1)), node);
+                return size + 1 >= READ_BUFFER_DRAIN_THRESHOLD;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A view of the cache as a map, reads don't count as accesses.
+     */
+    private final class AsMap extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+        private Set<Entry<K, V>> entrySet;
+
+        @Override
+        public int size() {
+            return data.size();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return get(key) != null;
+        }
+
+        @Override
+        public V get(Object key) {
+            final Node<K, V> node = data.get(key);
+            if (node == null || isExpired(node, expireAfterAccessNanos < 0 ? 0 : System.nanoTime())) {
+                return null;
+            }
+            return node.value;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            final V previous = get(key);
+            TinyLfuCache.this.put(key, value);
+            return previous;
+        }
+
+        @Override
+        public V remove(Object key) {
+            final V previous = get(key);
+            invalidate(key);
+            return previous;
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            evictionLock.lock();
+            try {
+                final V previous = get(key);
+                if (previous != null) {
+                    return previous;
+                }
+                doPut(key, value);
+                return null;
+            } finally {
+                evictionLock.unlock();
+                processNotifications();
+            }
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            evictionLock.lock();
+            try {
+                final V current = get(key);
+                if (current == null || current.equals(value) == false) {
+                    return false;
+                }
+                doInvalidate(key);
+                return true;
+            } finally {
+                evictionLock.unlock();
+                processNotifications();
+            }
+        }
+
+        @Override
+        public boolean replace(K key, V oldValue, V newValue) {
+            evictionLock.lock();
+            try {
+                final V current = get(key);
+                if (current == null || current.equals(oldValue) == false) {
+                    return false;
+                }
+                doPut(key, newValue);
+                return true;
+            } finally {
+                evictionLock.unlock();
+                processNotifications();
+            }
+        }
+
+        @Override
+        public V replace(K key, V value) {
+            evictionLock.lock();
+            try {
+                final V current = get(key);
+                if (current != null) {
+                    doPut(key, value);
+                }
+                return current;
+            } finally {
+                evictionLock.unlock();
+                processNotifications();
+            }
+        }
+
+        @Override
+        public void clear() {
+            invalidateAll();
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            Set<Entry<K, V>> entrySet = this.entrySet;
+            if (entrySet == null) {
+                entrySet = this.entrySet = new AbstractSet<Entry<K, V>>() {
+                    @Override
+                    public Iterator<Entry<K, V>> iterator() {
+                        return new EntryIterator();
+                    }
+
+                    @Override
+                    public int size() {
+                        return data.size();
+                    }
+                };
+            }
+            return entrySet;
+        }
+    }
+
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+
+        private final Iterator<Node<K, V>> nodes = data.values().iterator();
+        private Node<K, V> next;
+        private Node<K, V> current;
+
+        @Override
+        public boolean hasNext() {
+            if (next != null) {
+                return true;
+            }
+            final long now = expireAfterAccessNanos < 0 ? 0 : System.nanoTime();
+            while (nodes.hasNext()) {
+                final Node<K, V> node = nodes.next();
+                if (isExpired(node, now) == false) {
+                    next = node;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (hasNext() == false) {
+                throw new NoSuchElementException();
+            }
+            current = next;
+            next = null;
+            return new AbstractMap.SimpleImmutableEntry<>(current.key, current.value);
+        }
+
+        @Override
+        public void remove() {
+            if (current == null) {
+                throw new IllegalStateException();
+            }
+            evictionLock.lock();
+            try {
+                if (data.remove(current.key, current)) {
+                    unlink(current);
+                    notifyRemoval(current, RemovalCause.EXPLICIT);
+                }
+            } finally {
+                evictionLock.unlock();
+            }
+            processNotifications();
+            current = null;
+        }
+    }
+}
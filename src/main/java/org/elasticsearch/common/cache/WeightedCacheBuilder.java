@@ -0,0 +1,99 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.Weigher;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Builds a {@link Cache} that evicts entries based on their weight, with the eviction policy picked from settings.
+ * Supports the subset of {@link CacheBuilder} options that the node level caches use.
+ */
+public final class WeightedCacheBuilder<K, V> {
+
+    private final EvictionPolicy evictionPolicy;
+    private long maximumWeight = -1;
+    private Weigher<? super K, ? super V> weigher;
+    private RemovalListener<? super K, ? super V> removalListener;
+    private int concurrencyLevel = 4;
+    private long expireAfterAccessNanos = -1;
+
+    private WeightedCacheBuilder(EvictionPolicy evictionPolicy) {
+        this.evictionPolicy = evictionPolicy;
+    }
+
+    public static <K, V> WeightedCacheBuilder<K, V> newBuilder(EvictionPolicy evictionPolicy) {
+        return new WeightedCacheBuilder<>(evictionPolicy);
+    }
+
+    public WeightedCacheBuilder<K, V> maximumWeight(long maximumWeight) {
+        this.maximumWeight = maximumWeight;
+        return this;
+    }
+
+    public WeightedCacheBuilder<K, V> weigher(Weigher<? super K, ? super V> weigher) {
+        this.weigher = weigher;
+        return this;
+    }
+
+    public WeightedCacheBuilder<K, V> removalListener(RemovalListener<? super K, ? super V> removalListener) {
+        this.removalListener = removalListener;
+        return this;
+    }
+
+    public WeightedCacheBuilder<K, V> concurrencyLevel(int concurrencyLevel) {
+        this.concurrencyLevel = concurrencyLevel;
+        return this;
+    }
+
+    public WeightedCacheBuilder<K, V> expireAfterAccess(long duration, TimeUnit unit) {
+        this.expireAfterAccessNanos = unit.toNanos(duration);
+        return this;
+    }
+
+    public Cache<K, V> build() {
+        switch (evictionPolicy) {
+            case LRU:
+                CacheBuilder<Object, Object> cacheBuilder = CacheBuilder.newBuilder().concurrencyLevel(concurrencyLevel);
+                if (maximumWeight >= 0) {
+                    if (weigher == null) {
+                        cacheBuilder.maximumSize(maximumWeight);
+                    } else {
+                        cacheBuilder.maximumWeight(maximumWeight).<K, V>weigher(weigher);
+                    }
+                }
+                if (expireAfterAccessNanos >= 0) {
+                    cacheBuilder.expireAfterAccess(expireAfterAccessNanos, TimeUnit.NANOSECONDS);
+                }
+                if (removalListener != null) {
+                    cacheBuilder.<K, V>removalListener(removalListener);
+                }
+                return cacheBuilder.<K, V>build();
+            case TINY_LFU:
+                return new TinyLfuCache<>(maximumWeight, weigher, expireAfterAccessNanos, removalListener, concurrencyLevel);
+            default:
+                throw new UnsupportedOperationException("unknown eviction policy [" + evictionPolicy + "]");
+        }
+    }
+}
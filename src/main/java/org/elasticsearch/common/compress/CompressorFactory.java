@@ -26,6 +26,7 @@ import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.collect.MapBuilder;
+import org.elasticsearch.common.compress.lz4.LZ4Compressor;
 import org.elasticsearch.common.compress.lzf.LZFCompressor;
 import org.elasticsearch.common.io.Streams;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
@@ -43,6 +44,7 @@ import java.util.Locale;
 public class CompressorFactory {
 
     private static final LZFCompressor LZF = new LZFCompressor();
+    private static final LZ4Compressor LZ4 = new LZ4Compressor();
 
     private static final Compressor[] compressors;
     private static final ImmutableMap<String, Compressor> compressorsByType;
@@ -51,6 +53,7 @@ public class CompressorFactory {
     static {
         List<Compressor> compressorsX = Lists.newArrayList();
         compressorsX.add(LZF);
+        compressorsX.add(LZ4);
 
         compressors = compressorsX.toArray(new Compressor[compressorsX.size()]);
         MapBuilder<String, Compressor> compressorsByTypeX = MapBuilder.newMapBuilder();
@@ -0,0 +1,82 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.store.BufferedIndexInput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.compress.CompressedIndexInput;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ */
+@Deprecated
+public class LZ4CompressedIndexInput extends CompressedIndexInput<LZ4CompressorContext> {
+
+    private Decompressor decompressor;
+    private BytesRef scratch = new BytesRef();
+
+    public LZ4CompressedIndexInput(IndexInput in, Decompressor decompressor) throws IOException {
+        super(in, LZ4CompressorContext.INSTANCE);
+        this.decompressor = decompressor;
+        this.uncompressed = new byte[LZ4Compressor.UNCOMPRESSED_BUFFER_SIZE];
+        this.uncompressedLength = LZ4Compressor.CHUNK_SIZE;
+    }
+
+    @Override
+    protected void readHeader(IndexInput in) throws IOException {
+        byte[] header = new byte[LZ4Compressor.LUCENE_HEADER.length];
+        in.readBytes(header, 0, header.length, false);
+        if (!Arrays.equals(header, LZ4Compressor.LUCENE_HEADER)) {
+            throw new IOException("wrong lz4 compressed header [" + Arrays.toString(header) + "]");
+        }
+    }
+
+    @Override
+    protected int uncompress(IndexInput in, byte[] out) throws IOException {
+        for (byte b : LZ4Compressor.CHUNK_HEADER) {
+            if (in.readByte() != b) {
+                throw new IOException("corrupted lz4 input, invalid chunk header");
+            }
+        }
+        return LZ4Compressor.uncompressChunk(decompressor, in, out, scratch);
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        // nothing to do here...
+    }
+
+    @Override
+    public IndexInput clone() {
+        LZ4CompressedIndexInput cloned = (LZ4CompressedIndexInput) super.clone();
+        cloned.decompressor = decompressor.clone();
+        cloned.scratch = new BytesRef();
+        return cloned;
+    }
+
+    @Override
+    public IndexInput slice(String description, long offset, long length) throws IOException {
+        return BufferedIndexInput.wrap(description, this, offset, length);
+    }
+}
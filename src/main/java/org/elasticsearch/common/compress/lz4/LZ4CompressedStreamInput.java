@@ -0,0 +1,63 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.compress.CompressedStreamInput;
+import org.elasticsearch.common.io.stream.StreamInput;
+
+import java.io.IOException;
+
+/**
+ */
+public class LZ4CompressedStreamInput extends CompressedStreamInput<LZ4CompressorContext> {
+
+    private final Decompressor decompressor;
+    private final BytesRef scratch = new BytesRef();
+
+    public LZ4CompressedStreamInput(StreamInput in, Decompressor decompressor) throws IOException {
+        super(in, LZ4CompressorContext.INSTANCE);
+        this.decompressor = decompressor;
+        this.uncompressed = new byte[LZ4Compressor.UNCOMPRESSED_BUFFER_SIZE];
+    }
+
+    @Override
+    public void readHeader(StreamInput in) throws IOException {
+        // nothing to do here, each chunk has a header
+    }
+
+    @Override
+    public int uncompress(StreamInput in, byte[] out) throws IOException {
+        final int first = in.read();
+        if (first == -1) {
+            return -1;
+        }
+        if (first != LZ4Compressor.CHUNK_HEADER[0] || in.readByte() != LZ4Compressor.CHUNK_HEADER[1] || in.readByte() != LZ4Compressor.CHUNK_HEADER[2]) {
+            throw new IOException("corrupted lz4 stream, invalid chunk header");
+        }
+        return LZ4Compressor.uncompressChunk(decompressor, new LZ4Compressor.StreamInputDataInput(in), out, scratch);
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        uncompressed = null;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import org.elasticsearch.common.compress.CompressedStreamOutput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+
+import java.io.IOException;
+
+public class LZ4CompressedStreamOutput extends CompressedStreamOutput<LZ4CompressorContext> {
+
+    private final org.apache.lucene.codecs.compressing.Compressor compressor;
+
+    public LZ4CompressedStreamOutput(StreamOutput out, org.apache.lucene.codecs.compressing.Compressor compressor) throws IOException {
+        super(out, LZ4CompressorContext.INSTANCE);
+        this.compressor = compressor;
+        this.uncompressed = new byte[LZ4Compressor.CHUNK_SIZE];
+        this.uncompressedLength = LZ4Compressor.CHUNK_SIZE;
+    }
+
+    @Override
+    public void writeHeader(StreamOutput out) throws IOException {
+        // nothing to do here, each chunk has a header of its own
+    }
+
+    @Override
+    protected void compress(byte[] data, int offset, int len, StreamOutput out) throws IOException {
+        LZ4Compressor.compressChunk(compressor, data, offset, len, new LZ4Compressor.StreamOutputDataOutput(out));
+    }
+
+    @Override
+    protected void doClose() throws IOException {
+        uncompressed = null;
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.compress.lz4;
+
+import org.apache.lucene.codecs.compressing.CompressionMode;
+import org.apache.lucene.codecs.compressing.Decompressor;
+import org.apache.lucene.store.DataInput;
+import org.apache.lucene.store.DataOutput;
+import org.apache.lucene.store.IndexInput;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.CompressedIndexInput;
+import org.elasticsearch.common.compress.CompressedStreamInput;
+import org.elasticsearch.common.compress.CompressedStreamOutput;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.io.Streams;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.settings.Settings;
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import java.io.IOException;
+
+/**
+ * A compressor that trades compression ratio for speed, based on the LZ4 implementation of Lucene's
+ * {@link CompressionMode#FAST} stored fields compression. Compression is usually several times faster than LZF,
+ * decompression is about as fast.
+ * <p/>
+ * Data is compressed in chunks of at most {@link #CHUNK_SIZE} bytes, each chunk starts with {@link #CHUNK_HEADER},
+ * followed by the uncompressed length of the chunk as a vint and the LZ4 compressed bytes. Since every chunk carries
+ * a header, compressed data can be detected like LZF data and both formats can be read whatever the default
+ * compressor is.
+ */
+public class LZ4Compressor implements Compressor {
+
+    static final byte[] LUCENE_HEADER = {'L', 'Z', '4', 0};
+
+    static final byte[] CHUNK_HEADER = {'Z', 'L', '4'};
+
+    static final int CHUNK_SIZE = 1 << 16;
+
+    // the LZ4 decompressor asks for 7 bytes of slack after the uncompressed data and allocates a new buffer otherwise
+    static final int UNCOMPRESSED_BUFFER_SIZE = CHUNK_SIZE + 7;
+
+    public static final String TYPE = "lz4";
+
+    @Override
+    public String type() {
+        return TYPE;
+    }
+
+    @Override
+    public void configure(Settings settings) {}
+
+    @Override
+    public boolean isCompressed(BytesReference bytes) {
+        return bytes.length() >= CHUNK_HEADER.length &&
+                bytes.get(0) == CHUNK_HEADER[0] &&
+                bytes.get(1) == CHUNK_HEADER[1] &&
+                bytes.get(2) == CHUNK_HEADER[2];
+    }
+
+    @Override
+    public boolean isCompressed(byte[] data, int offset, int length) {
+        return length >= CHUNK_HEADER.length &&
+                data[offset] == CHUNK_HEADER[0] &&
+                data[offset + 1] == CHUNK_HEADER[1] &&
+                data[offset + 2] == CHUNK_HEADER[2];
+    }
+
+    @Override
+    public boolean isCompressed(ChannelBuffer buffer) {
+        int offset = buffer.readerIndex();
+        return buffer.readableBytes() >= CHUNK_HEADER.length &&
+                buffer.getByte(offset) == CHUNK_HEADER[0] &&
+                buffer.getByte(offset + 1) == CHUNK_HEADER[1] &&
+                buffer.getByte(offset + 2) == CHUNK_HEADER[2];
+    }
+
+    @Override
+    public boolean isCompressed(IndexInput in) throws IOException {
+        long currentPointer = in.getFilePointer();
+        // since we have some metdata before the first compressed header, we check on our specific header
+        if (in.length() - currentPointer < (LUCENE_HEADER.length)) {
+            return false;
+        }
+        for (int i = 0; i < LUCENE_HEADER.length; i++) {
+            if (in.readByte() != LUCENE_HEADER[i]) {
+                in.seek(currentPointer);
+                return false;
+            }
+        }
+        in.seek(currentPointer);
+        return true;
+    }
+
+    @Override
+    public byte[] uncompress(byte[] data, int offset, int length) throws IOException {
+        StreamInput compressed = streamInput(new BytesArray(data, offset, length).streamInput());
+        BytesStreamOutput uncompressed = new BytesStreamOutput();
+        Streams.copy(compressed, uncompressed);
+        return uncompressed.bytes().toBytes();
+    }
+
+    @Override
+    public byte[] compress(byte[] data, int offset, int length) throws IOException {
+        BytesStreamOutput compressed = new BytesStreamOutput();
+        if (length == 0) {
+            // write an empty chunk so that the result can still be detected as compressed
+            compressChunk(CompressionMode.FAST.newCompressor(), data, offset, length, new StreamOutputDataOutput(compressed));
+        } else {
+            StreamOutput out = streamOutput(compressed);
+            out.writeBytes(data, offset, length);
+            out.close();
+        }
+        return compressed.bytes().toBytes();
+    }
+
+    @Override
+    public CompressedStreamInput streamInput(StreamInput in) throws IOException {
+        return new LZ4CompressedStreamInput(in, CompressionMode.FAST.newDecompressor());
+    }
+
+    @Override
+    public CompressedStreamOutput streamOutput(StreamOutput out) throws IOException {
+        return new LZ4CompressedStreamOutput(out, CompressionMode.FAST.newCompressor());
+    }
+
+    @Override
+    public CompressedIndexInput indexInput(IndexInput in) throws IOException {
+        return new LZ4CompressedIndexInput(in, CompressionMode.FAST.newDecompressor());
+    }
+
+    static void compressChunk(org.apache.lucene.codecs.compressing.Compressor compressor, byte[] data, int offset, int length, DataOutput out) throws IOException {
+        assert length <= CHUNK_SIZE;
+        out.writeBytes(CHUNK_HEADER, CHUNK_HEADER.length);
+        out.writeVInt(length);
+        if (length > 0) {
+            compressor.compress(data, offset, length, out);
+        }
+    }
+
+    /**
+     * Uncompresses the chunk that starts after the chunk header into <tt>out</tt>, which must be able to hold
+     * {@link #CHUNK_SIZE} bytes, and returns the uncompressed length. <tt>out</tt> should be
+     * {@link #UNCOMPRESSED_BUFFER_SIZE} long to save a copy.
+     */
+    static int uncompressChunk(Decompressor decompressor, DataInput in, byte[] out, BytesRef scratch) throws IOException {
+        final int length = in.readVInt();
+        if (length < 0 || length > CHUNK_SIZE) {
+            throw new IOException("corrupted lz4 chunk, invalid length [" + length + "]");
+        }
+        if (length > 0) {
+            scratch.bytes = out;
+            decompressor.decompress(in, length, 0, length, scratch);
+            if (scratch.bytes != out || scratch.offset != 0) {
+                // the decompressor needed a larger buffer
+                System.arraycopy(scratch.bytes, scratch.offset, out, 0, length);
+            }
+        }
+        return length;
+    }
+
+    /**
+     * Exposes a {@link StreamOutput} as a Lucene {@link DataOutput}, so that chunks are compressed straight into it.
+     */
+    static final class StreamOutputDataOutput extends DataOutput {
+
+        private final StreamOutput out;
+
+        StreamOutputDataOutput(StreamOutput out) {
+            this.out = out;
+        }
+
+        @Override
+        public void writeByte(byte b) throws IOException {
+            out.writeByte(b);
+        }
+
+        @Override
+        public void writeBytes(byte[] b, int offset, int length) throws IOException {
+            out.writeBytes(b, offset, length);
+        }
+    }
+
+    /**
+     * Exposes a {@link StreamInput} as a Lucene {@link DataInput}, so that chunks are uncompressed straight from it.
+     */
+    static final class StreamInputDataInput extends DataInput {
+
+        private final StreamInput in;
+
+        StreamInputDataInput(StreamInput in) {
+            this.in = in;
+        }
+
+        @Override
+        public byte readByte() throws IOException {
+            return in.readByte();
+        }
+
+        @Override
+        public void readBytes(byte[] b, int offset, int len) throws IOException {
+            in.readBytes(b, offset, len);
+        }
+    }
+}
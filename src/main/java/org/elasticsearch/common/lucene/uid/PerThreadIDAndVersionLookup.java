@@ -21,6 +21,7 @@ package org.elasticsearch.common.lucene.uid;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import org.apache.lucene.index.DocsAndPositionsEnum;
@@ -33,8 +34,12 @@ import org.apache.lucene.index.Terms;
 import org.apache.lucene.index.TermsEnum;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Numbers;
 import org.elasticsearch.common.lucene.uid.Versions.DocIdAndVersion;
+import org.elasticsearch.common.lucene.uid.Versions.LookupStats;
+import org.elasticsearch.common.util.BloomFilter;
+import org.elasticsearch.index.codec.postingsformat.BloomFilterPostingsFormat;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 import org.elasticsearch.index.mapper.internal.VersionFieldMapper;
 
@@ -44,7 +49,13 @@ import org.elasticsearch.index.mapper.internal.VersionFieldMapper;
  *  not thread safe, so it is the caller's job to create and use one
  *  instance of this per thread.  Do not use this if a term may appear
  *  in more than one document!  It will only return the first one it
- *  finds. */
+ *  finds.
+ *
+ *  Segments whose smallest and largest uid don't include the looked up
+ *  uid are skipped without seeking their terms enum, as are segments
+ *  whose (old) bloom filter rules the uid out. Ids that grow over time,
+ *  like time based ids, end up in few segments and let lookups skip most
+ *  of them. */
 
 final class PerThreadIDAndVersionLookup {
 
@@ -58,6 +69,10 @@ final class PerThreadIDAndVersionLookup {
     private final int numSegs;
     private final boolean hasDeletions;
     private final boolean[] hasPayloads;
+    // the range of uids of each segment, and its bloom filter if it was written with one
+    private final BytesRef[] minUids;
+    private final BytesRef[] maxUids;
+    private final BloomFilter[] bloomFilters;
 
     public PerThreadIDAndVersionLookup(IndexReader r) throws IOException {
 
@@ -70,6 +85,9 @@ final class PerThreadIDAndVersionLookup {
         liveDocs = new Bits[leaves.size()];
         versions = new NumericDocValues[leaves.size()];
         hasPayloads = new boolean[leaves.size()];
+        minUids = new BytesRef[leaves.size()];
+        maxUids = new BytesRef[leaves.size()];
+        bloomFilters = new BloomFilter[leaves.size()];
         int numSegs = 0;
         boolean hasDeletions = false;
         // iterate backwards to optimize for the frequently updated documents
@@ -87,6 +105,15 @@ final class PerThreadIDAndVersionLookup {
                     liveDocs[numSegs] = readerContext.reader().getLiveDocs();
                     hasDeletions |= readerContext.reader().hasDeletions();
                     versions[numSegs] = readerContext.reader().getNumericDocValues(VersionFieldMapper.NAME);
+                    final BytesRef min = terms.getMin();
+                    final BytesRef max = terms.getMax();
+                    if (min != null && max != null) {
+                        minUids[numSegs] = BytesRef.deepCopyOf(min);
+                        maxUids[numSegs] = BytesRef.deepCopyOf(max);
+                    }
+                    if (terms instanceof BloomFilterPostingsFormat.BloomFilteredTerms) {
+                        bloomFilters[numSegs] = ((BloomFilterPostingsFormat.BloomFilteredTerms) terms).getFilter();
+                    }
                     numSegs++;
                 }
             }
@@ -96,50 +123,110 @@ final class PerThreadIDAndVersionLookup {
     }
 
     /** Return null if id is not found. */
-    public DocIdAndVersion lookup(BytesRef id) throws IOException {
+    public DocIdAndVersion lookup(BytesRef id, @Nullable LookupStats stats) throws IOException {
+        int searched = 0;
+        DocIdAndVersion docIdAndVersion = null;
         for(int seg=0;seg<numSegs;seg++) {
-            if (termsEnums[seg].seekExact(id)) {
-
-                NumericDocValues segVersions = versions[seg];
-                if (segVersions != null || hasPayloads[seg] == false) {
-                    // Use NDV to retrieve the version, in which case we only need DocsEnum:
-
-                    // there may be more than one matching docID, in the case of nested docs, so we want the last one:
-                    DocsEnum docs = docsEnums[seg] = termsEnums[seg].docs(liveDocs[seg], docsEnums[seg], 0);
-                    int docID = DocsEnum.NO_MORE_DOCS;
-                    for (int d = docs.nextDoc(); d != DocsEnum.NO_MORE_DOCS; d = docs.nextDoc()) {
-                        docID = d;
-                    }
+            if (mightContain(seg, id)) {
+                searched++;
+                docIdAndVersion = lookup(seg, id);
+                if (docIdAndVersion != null) {
+                    countSegments(stats, searched, seg + 1 - searched);
+                    return docIdAndVersion;
+                }
+            }
+        }
+        countSegments(stats, searched, numSegs - searched);
+        return null;
+    }
 
-                    if (docID != DocsEnum.NO_MORE_DOCS) {
-                        if (segVersions != null) {
-                            return new DocIdAndVersion(docID, segVersions.get(docID), readerContexts[seg]);
-                        } else {
-                            // _uid found, but no doc values and no payloads
-                            return new DocIdAndVersion(docID, Versions.NOT_SET, readerContexts[seg]);
-                        }
-                    } else {
-                        assert hasDeletions;
+    /**
+     * Looks up the versions of the given ids segment by segment instead of id by id, so that all ids are looked up
+     * with the terms enum of a segment before moving on to the next segment. The ids are looked up in the given
+     * order, which should be term order to make seeking the terms enum cheaper. The version of an id is
+     * {@link Versions#NOT_FOUND} if the id is not found.
+     */
+    public void lookupVersions(BytesRef[] ids, long[] versions, @Nullable LookupStats stats) throws IOException {
+        assert ids.length == versions.length;
+        boolean[] found = new boolean[ids.length];
+        Arrays.fill(versions, Versions.NOT_FOUND);
+        long searched = 0;
+        long skipped = 0;
+        for(int seg=0;seg<numSegs;seg++) {
+            for (int i = 0; i < ids.length; i++) {
+                if (found[i] == false) {
+                    if (mightContain(seg, ids[i]) == false) {
+                        skipped++;
                         continue;
                     }
+                    searched++;
+                    DocIdAndVersion docIdAndVersion = lookup(seg, ids[i]);
+                    if (docIdAndVersion != null) {
+                        versions[i] = docIdAndVersion.version;
+                        found[i] = true;
+                    }
                 }
+            }
+        }
+        countSegments(stats, searched, skipped);
+    }
+
+    /** Whether the segment may contain the id, false if the id is out of the uid range or bloom filter of the segment. */
+    private boolean mightContain(int seg, BytesRef id) {
+        if (minUids[seg] != null && (id.compareTo(minUids[seg]) < 0 || id.compareTo(maxUids[seg]) > 0)) {
+            return false;
+        }
+        return bloomFilters[seg] == null || bloomFilters[seg].mightContain(id);
+    }
+
+    private static void countSegments(@Nullable LookupStats stats, long searched, long skipped) {
+        if (stats != null) {
+            stats.searched.inc(searched);
+            stats.skipped.inc(skipped);
+        }
+    }
+
+    private DocIdAndVersion lookup(int seg, BytesRef id) throws IOException {
+        if (termsEnums[seg].seekExact(id)) {
 
-                // ... but used to be stored as payloads; in this case we must use DocsAndPositionsEnum
-                DocsAndPositionsEnum dpe = posEnums[seg] = termsEnums[seg].docsAndPositions(liveDocs[seg], posEnums[seg], DocsAndPositionsEnum.FLAG_PAYLOADS);
-                assert dpe != null; // terms has payloads
+            NumericDocValues segVersions = versions[seg];
+            if (segVersions != null || hasPayloads[seg] == false) {
+                // Use NDV to retrieve the version, in which case we only need DocsEnum:
+
+                // there may be more than one matching docID, in the case of nested docs, so we want the last one:
+                DocsEnum docs = docsEnums[seg] = termsEnums[seg].docs(liveDocs[seg], docsEnums[seg], 0);
                 int docID = DocsEnum.NO_MORE_DOCS;
-                for (int d = dpe.nextDoc(); d != DocsEnum.NO_MORE_DOCS; d = dpe.nextDoc()) {
+                for (int d = docs.nextDoc(); d != DocsEnum.NO_MORE_DOCS; d = docs.nextDoc()) {
                     docID = d;
-                    dpe.nextPosition();
-                    final BytesRef payload = dpe.getPayload();
-                    if (payload != null && payload.length == 8) {
-                        // TODO: does this break the nested docs case?  we are not returning the last matching docID here?
-                        return new DocIdAndVersion(d, Numbers.bytesToLong(payload), readerContexts[seg]);
+                }
+
+                if (docID != DocsEnum.NO_MORE_DOCS) {
+                    if (segVersions != null) {
+                        return new DocIdAndVersion(docID, segVersions.get(docID), readerContexts[seg]);
+                    } else {
+                        // _uid found, but no doc values and no payloads
+                        return new DocIdAndVersion(docID, Versions.NOT_SET, readerContexts[seg]);
                     }
+                } else {
+                    assert hasDeletions;
+                    return null;
                 }
             }
-        }
 
+            // ... but used to be stored as payloads; in this case we must use DocsAndPositionsEnum
+            DocsAndPositionsEnum dpe = posEnums[seg] = termsEnums[seg].docsAndPositions(liveDocs[seg], posEnums[seg], DocsAndPositionsEnum.FLAG_PAYLOADS);
+            assert dpe != null; // terms has payloads
+            int docID = DocsEnum.NO_MORE_DOCS;
+            for (int d = dpe.nextDoc(); d != DocsEnum.NO_MORE_DOCS; d = dpe.nextDoc()) {
+                docID = d;
+                dpe.nextPosition();
+                final BytesRef payload = dpe.getPayload();
+                if (payload != null && payload.length == 8) {
+                    // TODO: does this break the nested docs case?  we are not returning the last matching docID here?
+                    return new DocIdAndVersion(d, Numbers.bytesToLong(payload), readerContexts[seg]);
+                }
+            }
+        }
         return null;
     }
 
@@ -24,10 +24,14 @@ import java.util.concurrent.ConcurrentMap;
 
 import org.apache.lucene.index.*;
 import org.apache.lucene.index.IndexReader.ReaderClosedListener;
+import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.CloseableThreadLocal;
+import org.apache.lucene.util.InPlaceMergeSorter;
 import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.mapper.internal.UidFieldMapper;
 
@@ -98,6 +102,23 @@ public class Versions {
         }
     }
 
+    /**
+     * Counts the segments that uid lookups searched and the segments they skipped because the uid was out of the
+     * uid range or the bloom filter of the segment.
+     */
+    public static final class LookupStats {
+        final CounterMetric searched = new CounterMetric();
+        final CounterMetric skipped = new CounterMetric();
+
+        public long searchedSegments() {
+            return searched.count();
+        }
+
+        public long skippedSegments() {
+            return skipped.count();
+        }
+    }
+
     /**
      * Load the internal doc ID and version for the uid from the reader, returning<ul>
      * <li>null if the uid wasn't found,
@@ -105,8 +126,15 @@ public class Versions {
      * </ul>
      */
     public static DocIdAndVersion loadDocIdAndVersion(IndexReader reader, Term term) throws IOException {
+        return loadDocIdAndVersion(reader, term, null);
+    }
+
+    /**
+     * Same as {@link #loadDocIdAndVersion(IndexReader, Term)}, counts the searched and skipped segments on the given stats.
+     */
+    public static DocIdAndVersion loadDocIdAndVersion(IndexReader reader, Term term, @Nullable LookupStats stats) throws IOException {
         assert term.field().equals(UidFieldMapper.NAME);
-        return getLookupState(reader).lookup(term.bytes());
+        return getLookupState(reader).lookup(term.bytes(), stats);
     }
 
     /**
@@ -117,7 +145,56 @@ public class Versions {
      * </ul>
      */
     public static long loadVersion(IndexReader reader, Term term) throws IOException {
-        final DocIdAndVersion docIdAndVersion = loadDocIdAndVersion(reader, term);
+        return loadVersion(reader, term, null);
+    }
+
+    /**
+     * Same as {@link #loadVersion(IndexReader, Term)}, counts the searched and skipped segments on the given stats.
+     */
+    public static long loadVersion(IndexReader reader, Term term, @Nullable LookupStats stats) throws IOException {
+        final DocIdAndVersion docIdAndVersion = loadDocIdAndVersion(reader, term, stats);
         return docIdAndVersion == null ? NOT_FOUND : docIdAndVersion.version;
     }
+
+    /**
+     * Load the versions for the uids from the reader, see {@link #loadVersion(IndexReader, Term)}. The uids are looked
+     * up segment by segment and in term order, which is cheaper than looking them up one by one.
+     */
+    public static long[] loadVersions(IndexReader reader, BytesRef[] uids) throws IOException {
+        return loadVersions(reader, uids, null);
+    }
+
+    /**
+     * Same as {@link #loadVersions(IndexReader, BytesRef[])}, counts the searched and skipped segments on the given stats.
+     */
+    public static long[] loadVersions(IndexReader reader, BytesRef[] uids, @Nullable LookupStats stats) throws IOException {
+        final BytesRef[] sorted = uids.clone();
+        final int[] order = new int[uids.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        new InPlaceMergeSorter() {
+            @Override
+            protected void swap(int i, int j) {
+                final BytesRef uid = sorted[i];
+                sorted[i] = sorted[j];
+                sorted[j] = uid;
+                final int o = order[i];
+                order[i] = order[j];
+                order[j] = o;
+            }
+
+            @Override
+            protected int compare(int i, int j) {
+                return sorted[i].compareTo(sorted[j]);
+            }
+        }.sort(0, sorted.length);
+        final long[] sortedVersions = new long[sorted.length];
+        getLookupState(reader).lookupVersions(sorted, sortedVersions, stats);
+        final long[] versions = new long[uids.length];
+        for (int i = 0; i < order.length; i++) {
+            versions[order[i]] = sortedVersions[i];
+        }
+        return versions;
+    }
 }
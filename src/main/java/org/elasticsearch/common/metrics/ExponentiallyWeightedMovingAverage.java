@@ -0,0 +1,58 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.metrics;
+
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An exponentially weighted moving average of values, unlike {@link EWMA} which is a moving average of a rate. A new
+ * value is weighted with <tt>alpha</tt> and the previous average with <tt>1 - alpha</tt>, so a higher alpha discounts
+ * older values faster. Values can be added concurrently.
+ */
+public class ExponentiallyWeightedMovingAverage implements Metric {
+
+    private final double alpha;
+    private final AtomicLong averageBits;
+
+    public ExponentiallyWeightedMovingAverage(double alpha, double initialAverage) {
+        if (alpha < 0 || alpha > 1) {
+            throw new ElasticsearchIllegalArgumentException("alpha must be greater or equal to 0 and less than or equal to 1 but was [" + alpha + "]");
+        }
+        this.alpha = alpha;
+        this.averageBits = new AtomicLong(Double.doubleToLongBits(initialAverage));
+    }
+
+    public double getAverage() {
+        return Double.longBitsToDouble(averageBits.get());
+    }
+
+    public void addValue(double value) {
+        while (true) {
+            final long currentBits = averageBits.get();
+            final double currentAverage = Double.longBitsToDouble(currentBits);
+            final double newAverage = alpha * value + (1 - alpha) * currentAverage;
+            if (averageBits.compareAndSet(currentBits, Double.doubleToLongBits(newAverage))) {
+                return;
+            }
+        }
+    }
+}
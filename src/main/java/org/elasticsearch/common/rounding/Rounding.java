@@ -62,6 +62,15 @@ public abstract class Rounding implements Streamable {
      */
     public abstract long nextRoundingValue(long value);
 
+    /**
+     * A lower bound of the distance between two distinct keys. Dividing the keys by it maps them to distinct indices
+     * that have few gaps, even if the keys themselves are, for instance, milliseconds since the epoch. Defaults to
+     * <tt>1</tt> for keys that are consecutive numbers.
+     */
+    public long minKeyDistance() {
+        return 1;
+    }
+
     /**
      * Rounding strategy which is based on an interval
      *
@@ -165,6 +174,11 @@ public abstract class Rounding implements Streamable {
             return rounding.nextRoundingValue(value);
         }
 
+        @Override
+        public long minKeyDistance() {
+            return rounding.minKeyDistance();
+        }
+
         @Override
         public void readFrom(StreamInput in) throws IOException {
             rounding = (TimeZoneRounding) Rounding.Streams.read(in);
@@ -216,6 +230,11 @@ public abstract class Rounding implements Streamable {
             return postOffset + rounding.nextRoundingValue(value - postOffset);
         }
 
+        @Override
+        public long minKeyDistance() {
+            return rounding.minKeyDistance();
+        }
+
         @Override
         public void readFrom(StreamInput in) throws IOException {
             rounding = Rounding.Streams.read(in);
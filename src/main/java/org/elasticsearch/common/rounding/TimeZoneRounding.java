@@ -125,6 +125,14 @@ public abstract class TimeZoneRounding extends Rounding {
         }
     }
 
+    /**
+     * The length of the shortest unit of the given duration field. Units that vary in length, like months, are at
+     * least 0.9 times as long as their average length.
+     */
+    static long minUnitMillis(DurationField durationField) {
+        return durationField.isPrecise() ? durationField.getUnitMillis() : (long) (durationField.getUnitMillis() * 0.9);
+    }
+
     static class TimeTimeZoneRoundingFloor extends TimeZoneRounding {
 
         static final byte ID = 1;
@@ -170,6 +178,11 @@ public abstract class TimeZoneRounding extends Rounding {
             return durationField.add(value, 1);
         }
 
+        @Override
+        public long minKeyDistance() {
+            return minUnitMillis(durationField);
+        }
+
         @Override
         public void readFrom(StreamInput in) throws IOException {
             unit = DateTimeUnit.resolve(in.readByte());
@@ -224,6 +237,11 @@ public abstract class TimeZoneRounding extends Rounding {
             return durationField.add(value, 1);
         }
 
+        @Override
+        public long minKeyDistance() {
+            return minUnitMillis(durationField);
+        }
+
         @Override
         public void readFrom(StreamInput in) throws IOException {
             unit = DateTimeUnit.resolve(in.readByte());
@@ -282,6 +300,11 @@ public abstract class TimeZoneRounding extends Rounding {
             return durationField.add(value, 1);
         }
 
+        @Override
+        public long minKeyDistance() {
+            return minUnitMillis(durationField);
+        }
+
         @Override
         public void readFrom(StreamInput in) throws IOException {
             unit = DateTimeUnit.resolve(in.readByte());
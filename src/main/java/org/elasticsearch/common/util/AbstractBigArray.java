@@ -27,6 +27,7 @@ import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.recycler.Recycler;
 
 import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 
 /** Common implementation for array lists that slice data into fixed-size blocks. */
@@ -36,6 +37,7 @@ abstract class AbstractBigArray extends AbstractArray {
 
     private final PageCacheRecycler recycler;
     private Recycler.V<?>[] cache;
+    private int reservedDirectPages; // number of off-heap pages that are reserved on the recycler
 
     private final int pageShift;
     private final int pageMask;
@@ -157,6 +159,42 @@ abstract class AbstractBigArray extends AbstractArray {
         }
     }
 
+    /**
+     * Reserve enough off-heap pages on the recycler for this array to hold <code>capacity</code> elements. Returns
+     * <tt>false</tt> if the off-heap limit would be exceeded, in which case nothing is reserved.
+     */
+    final boolean reserveDirectPages(long capacity) {
+        assert recycler != null && recycler.offHeap();
+        final int numPages = numPages(capacity);
+        if (numPages > reservedDirectPages) {
+            if (recycler.reserveDirectPages(numPages - reservedDirectPages) == false) {
+                return false;
+            }
+            reservedDirectPages = numPages;
+        }
+        return true;
+    }
+
+    /** Give back reservations of off-heap pages beyond <code>numPages</code>, the pages must have been released already. */
+    protected final void releaseDirectPages(int numPages) {
+        if (reservedDirectPages > numPages) {
+            recycler.releaseDirectPages(reservedDirectPages - numPages);
+            reservedDirectPages = numPages;
+        }
+    }
+
+    protected final ByteBuffer newDirectPage(int page) {
+        // off-heap pages are only handed out by the recycler, which is the only one able to release them
+        assert recycler != null && recycler.offHeap();
+        assert page < reservedDirectPages : "off-heap page [" + page + "] has not been reserved";
+        final Recycler.V<ByteBuffer> v = recycler.directPage(clearOnResize);
+        cache = grow(cache, page + 1);
+        assert cache[page] == null;
+        cache[page] = v;
+        assert v.v().capacity() == BigArrays.PAGE_SIZE_IN_BYTES;
+        return v.v();
+    }
+
     protected final void releasePage(int page) {
         if (recycler != null) {
             cache[page].close();
@@ -169,6 +207,7 @@ abstract class AbstractBigArray extends AbstractArray {
         if (recycler != null) {
             Releasables.close(cache);
             cache = null;
+            releaseDirectPages(0);
         }
     }
 
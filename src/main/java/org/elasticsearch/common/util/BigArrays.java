@@ -380,12 +380,23 @@ public class BigArrays extends AbstractComponent {
         this.breakerService = breakerService;
     }
 
+    /**
+     * Whether int, long, float and double arrays that are larger than a page are stored in off-heap pages. Their
+     * memory is still accounted on the request circuit breaker and is given back to the {@link PageCacheRecycler} when
+     * the array is released, see {@link PageCacheRecycler#offHeap()}. Arrays fall back to on-heap pages once the off-heap
+     * limit of the recycler is reached. Byte arrays always stay on heap since callers of
+     * {@link ByteArray#get(long, int, BytesRef)} expect to get a reference to the pages.
+     */
+    public boolean offHeap() {
+        return recycler != null && recycler.offHeap();
+    }
+
     /**
      * Adjust the circuit breaker with the given delta, if the delta is
      * negative, or checkBreaker is false, the breaker will be adjusted
      * without tripping
      */
-    void adjustBreaker(long delta) {
+    public void adjustBreaker(long delta) {
         if (this.breakerService != null) {
             CircuitBreaker breaker = this.breakerService.getBreaker(CircuitBreaker.Name.REQUEST);
             if (this.checkBreaker == true) {
@@ -530,7 +541,17 @@ public class BigArrays extends AbstractComponent {
     public IntArray newIntArray(long size, boolean clearOnResize) {
         final IntArray array;
         if (size > INT_PAGE_SIZE) {
-            array = new BigIntArray(size, this, clearOnResize);
+            final DirectBigIntArray directArray = offHeap() ? new DirectBigIntArray(this, clearOnResize) : null;
+            if (directArray != null && directArray.reserveDirectPages(size)) {
+                directArray.resize(size);
+                array = directArray;
+            } else {
+                if (directArray != null) {
+                    // the off-heap limit has been reached
+                    directArray.close();
+                }
+                array = new BigIntArray(size, this, clearOnResize);
+            }
         } else if (size >= INT_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<int[]> page = recycler.intPage(clearOnResize);
             array = new IntArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -552,6 +573,8 @@ public class BigArrays extends AbstractComponent {
     public IntArray resize(IntArray array, long size) {
         if (array instanceof BigIntArray) {
             return resizeInPlace((BigIntArray) array, size);
+        } else if (array instanceof DirectBigIntArray && ((DirectBigIntArray) array).reserveDirectPages(size)) {
+            return resizeInPlace((DirectBigIntArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final IntArray newArray = newIntArray(size, arr.clearOnResize);
@@ -580,7 +603,17 @@ public class BigArrays extends AbstractComponent {
     public LongArray newLongArray(long size, boolean clearOnResize) {
         final LongArray array;
         if (size > LONG_PAGE_SIZE) {
-            array = new BigLongArray(size, this, clearOnResize);
+            final DirectBigLongArray directArray = offHeap() ? new DirectBigLongArray(this, clearOnResize) : null;
+            if (directArray != null && directArray.reserveDirectPages(size)) {
+                directArray.resize(size);
+                array = directArray;
+            } else {
+                if (directArray != null) {
+                    // the off-heap limit has been reached
+                    directArray.close();
+                }
+                array = new BigLongArray(size, this, clearOnResize);
+            }
         } else if (size >= LONG_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<long[]> page = recycler.longPage(clearOnResize);
             array = new LongArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -602,6 +635,8 @@ public class BigArrays extends AbstractComponent {
     public LongArray resize(LongArray array, long size) {
         if (array instanceof BigLongArray) {
             return resizeInPlace((BigLongArray) array, size);
+        } else if (array instanceof DirectBigLongArray && ((DirectBigLongArray) array).reserveDirectPages(size)) {
+            return resizeInPlace((DirectBigLongArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final LongArray newArray = newLongArray(size, arr.clearOnResize);
@@ -630,7 +665,17 @@ public class BigArrays extends AbstractComponent {
     public DoubleArray newDoubleArray(long size, boolean clearOnResize) {
         final DoubleArray arr;
         if (size > DOUBLE_PAGE_SIZE) {
-            arr = new BigDoubleArray(size, this, clearOnResize);
+            final DirectBigDoubleArray directArray = offHeap() ? new DirectBigDoubleArray(this, clearOnResize) : null;
+            if (directArray != null && directArray.reserveDirectPages(size)) {
+                directArray.resize(size);
+                arr = directArray;
+            } else {
+                if (directArray != null) {
+                    // the off-heap limit has been reached
+                    directArray.close();
+                }
+                arr = new BigDoubleArray(size, this, clearOnResize);
+            }
         } else if (size >= DOUBLE_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<double[]> page = recycler.doublePage(clearOnResize);
             arr = new DoubleArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -649,6 +694,8 @@ public class BigArrays extends AbstractComponent {
     public DoubleArray resize(DoubleArray array, long size) {
         if (array instanceof BigDoubleArray) {
             return resizeInPlace((BigDoubleArray) array, size);
+        } else if (array instanceof DirectBigDoubleArray && ((DirectBigDoubleArray) array).reserveDirectPages(size)) {
+            return resizeInPlace((DirectBigDoubleArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final DoubleArray newArray = newDoubleArray(size, arr.clearOnResize);
@@ -677,7 +724,17 @@ public class BigArrays extends AbstractComponent {
     public FloatArray newFloatArray(long size, boolean clearOnResize) {
         final FloatArray array;
         if (size > FLOAT_PAGE_SIZE) {
-            array = new BigFloatArray(size, this, clearOnResize);
+            final DirectBigFloatArray directArray = offHeap() ? new DirectBigFloatArray(this, clearOnResize) : null;
+            if (directArray != null && directArray.reserveDirectPages(size)) {
+                directArray.resize(size);
+                array = directArray;
+            } else {
+                if (directArray != null) {
+                    // the off-heap limit has been reached
+                    directArray.close();
+                }
+                array = new BigFloatArray(size, this, clearOnResize);
+            }
         } else if (size >= FLOAT_PAGE_SIZE / 2 && recycler != null) {
             final Recycler.V<float[]> page = recycler.floatPage(clearOnResize);
             array = new FloatArrayWrapper(this, page.v(), size, page, clearOnResize);
@@ -696,6 +753,8 @@ public class BigArrays extends AbstractComponent {
     public FloatArray resize(FloatArray array, long size) {
         if (array instanceof BigFloatArray) {
             return resizeInPlace((BigFloatArray) array, size);
+        } else if (array instanceof DirectBigFloatArray && ((DirectBigFloatArray) array).reserveDirectPages(size)) {
+            return resizeInPlace((DirectBigFloatArray) array, size);
         } else {
             AbstractArray arr = (AbstractArray) array;
             final FloatArray newArray = newFloatArray(size, arr.clearOnResize);
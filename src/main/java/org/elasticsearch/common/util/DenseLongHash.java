@@ -0,0 +1,185 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util;
+
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+
+/**
+ * Maps long values to ids like {@link LongHash}, for values that are expected within a small known range. Values
+ * in the range are looked up in an array indexed by the value, without hashing. Values that are known to be at least
+ * <code>step</code> apart, like rounded dates, are looked up at the value divided by the step. The first value out of
+ * the range, or closer than the step to another value, moves all values to a {@link LongHash}, keeping their ids, so
+ * any value can be added.
+ * This class is not thread-safe.
+ */
+// IDs are internally stored as id + 1 so that 0 encodes for an unseen value
+public final class DenseLongHash implements Releasable {
+
+    private final BigArrays bigArrays;
+    private final long min;
+    private final long max;
+    private final long step;
+    private final long minIndex;
+
+    private LongArray ids;
+    private LongArray keys;
+    private long size;
+    private LongHash hash;
+
+    /**
+     * Creates a hash for values between <code>min</code> and <code>max</code>, both inclusive, which needs 8 bytes
+     * per value of the range up-front.
+     */
+    public DenseLongHash(long min, long max, long capacity, BigArrays bigArrays) {
+        this(min, max, 1, capacity, bigArrays);
+    }
+
+    /**
+     * Creates a hash for values between <code>min</code> and <code>max</code>, both inclusive, which are expected to
+     * be at least <code>step</code> apart. It needs 8 bytes per step of the range up-front.
+     */
+    public DenseLongHash(long min, long max, long step, long capacity, BigArrays bigArrays) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("step must be > 0 but was [" + step + "]");
+        }
+        if (max < min || max - min < 0 || floorDiv(max, step) - floorDiv(min, step) >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("invalid range [" + min + "-" + max + "]");
+        }
+        this.bigArrays = bigArrays;
+        this.min = min;
+        this.max = max;
+        this.step = step;
+        this.minIndex = floorDiv(min, step);
+        final long size = floorDiv(max, step) - minIndex + 1;
+        boolean success = false;
+        try {
+            ids = bigArrays.newLongArray(size, true);
+            keys = bigArrays.newLongArray(Math.min(capacity, size), false);
+            success = true;
+        } finally {
+            if (!success) {
+                close();
+            }
+        }
+    }
+
+    /**
+     * Whether the values are still looked up in the array, <tt>false</tt> once a value out of the range was added.
+     */
+    public boolean isDense() {
+        return hash == null;
+    }
+
+    /**
+     * Try to add <code>key</code>. Return its newly allocated id if it wasn't in the hash table yet, or </code>-1-id</code>
+     * if it was already present in the hash table.
+     */
+    public long add(long key) {
+        if (hash != null) {
+            return hash.add(key);
+        }
+        if (key < min || key > max) {
+            switchToHash();
+            return hash.add(key);
+        }
+        final long index = index(key);
+        final long id = ids.get(index) - 1;
+        if (id >= 0) {
+            if (step != 1 && keys.get(id) != key) {
+                // another value within the same step
+                switchToHash();
+                return hash.add(key);
+            }
+            return -1 - id;
+        }
+        keys = bigArrays.grow(keys, size + 1);
+        keys.set(size, key);
+        ids.set(index, size + 1);
+        return size++;
+    }
+
+    /**
+     * Return the key of the given id.
+     */
+    public long get(long id) {
+        return hash == null ? keys.get(id) : hash.get(id);
+    }
+
+    /**
+     * Get the id associated with <code>key</code> or -1 if the key is not contained in the hash.
+     */
+    public long find(long key) {
+        if (hash != null) {
+            return hash.find(key);
+        }
+        if (key < min || key > max) {
+            return -1;
+        }
+        final long id = ids.get(index(key)) - 1;
+        if (id >= 0 && step != 1 && keys.get(id) != key) {
+            return -1;
+        }
+        return id;
+    }
+
+    /**
+     * Get the number of mappings in this hash table.
+     */
+    public long size() {
+        return hash == null ? size : hash.size();
+    }
+
+    private long index(long key) {
+        return step == 1 ? key - min : floorDiv(key, step) - minIndex;
+    }
+
+    private static long floorDiv(long x, long y) {
+        final long q = x / y;
+        // round towards negative infinity rather than zero
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+
+    private void switchToHash() {
+        final LongHash hash = new LongHash(Math.max(size, 1), bigArrays);
+        boolean success = false;
+        try {
+            // ids are assigned in insertion order, so adding the keys in the order of their ids keeps the ids
+            for (long id = 0; id < size; id++) {
+                final long newId = hash.add(keys.get(id));
+                assert newId == id;
+            }
+            success = true;
+        } finally {
+            if (!success) {
+                hash.close();
+            }
+        }
+        Releasables.close(ids, keys);
+        ids = null;
+        keys = null;
+        this.hash = hash;
+    }
+
+    @Override
+    public void close() {
+        Releasables.close(ids, keys, hash);
+    }
+}
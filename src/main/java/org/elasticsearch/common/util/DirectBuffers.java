@@ -0,0 +1,80 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util;
+
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * Utility methods to release the native memory of direct {@link ByteBuffer}s without waiting for them to be garbage
+ * collected, which might never happen in time if explicit GCs are disabled (<tt>-XX:+DisableExplicitGC</tt>).
+ */
+public enum DirectBuffers {
+    ;
+
+    private static final Method CLEANER_METHOD;
+    private static final Method CLEAN_METHOD;
+
+    static {
+        Method cleanerMethod = null;
+        Method cleanMethod = null;
+        try {
+            // sun.misc.Cleaner is not accessible at compile time, so go through reflection
+            final ByteBuffer buffer = ByteBuffer.allocateDirect(1);
+            cleanerMethod = buffer.getClass().getMethod("cleaner");
+            cleanerMethod.setAccessible(true);
+            final Object cleaner = cleanerMethod.invoke(buffer);
+            cleanMethod = cleaner.getClass().getMethod("clean");
+            cleanMethod.setAccessible(true);
+            cleanMethod.invoke(cleaner);
+        } catch (Throwable t) {
+            cleanerMethod = null;
+            cleanMethod = null;
+        }
+        CLEANER_METHOD = cleanerMethod;
+        CLEAN_METHOD = cleanMethod;
+    }
+
+    /** Whether direct buffers can be freed explicitly on this JVM. */
+    public static boolean freeSupported() {
+        return CLEAN_METHOD != null;
+    }
+
+    /**
+     * Free the native memory of the given direct buffer, if supported by the JVM. The buffer must not be used anymore
+     * after this method has been called.
+     */
+    public static void free(ByteBuffer buffer) {
+        assert buffer.isDirect();
+        if (CLEAN_METHOD == null) {
+            // let the garbage collector free it
+            return;
+        }
+        try {
+            final Object cleaner = CLEANER_METHOD.invoke(buffer);
+            if (cleaner != null) {
+                CLEAN_METHOD.invoke(cleaner);
+            }
+        } catch (Exception e) {
+            // should not happen since it worked on the buffer that we created in the static block
+            throw new IllegalStateException("failed to free direct buffer", e);
+        }
+    }
+}
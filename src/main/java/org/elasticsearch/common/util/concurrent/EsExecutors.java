@@ -73,6 +73,14 @@ public class EsExecutors {
         return new EsThreadPoolExecutor(size, size, 0, TimeUnit.MILLISECONDS, queue, threadFactory, new EsAbortPolicy());
     }
 
+    /**
+     * A fixed size executor like {@link #newFixed(int, int, ThreadFactory)} that executes queued tasks by priority,
+     * see {@link PrioritizedFixedEsThreadPoolExecutor}.
+     */
+    public static PrioritizedFixedEsThreadPoolExecutor newFixedPrioritizing(int size, int queueCapacity, ThreadFactory threadFactory) {
+        return PrioritizedFixedEsThreadPoolExecutor.newExecutor(size, queueCapacity, threadFactory);
+    }
+
     public static String threadName(Settings settings, String ... names) {
         return threadName(settings, "[" +  Joiner.on(".").skipNulls().join(names) + "]");
     }
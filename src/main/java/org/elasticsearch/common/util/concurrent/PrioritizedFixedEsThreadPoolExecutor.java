@@ -0,0 +1,158 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util.concurrent;
+
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Priority;
+import org.elasticsearch.common.metrics.MeanMetric;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size executor which uses a (optionally bounded) priority queue as a work queue. Tasks that are
+ * {@link PrioritizedRunnable}s are queued with their priority, all other tasks with {@link Priority#NORMAL}. Tasks of
+ * the same priority execute in the order they were submitted in.
+ * <p/>
+ * Unlike {@link PrioritizedEsThreadPoolExecutor}, rejections and forced executions of {@link AbstractRunnable}s are
+ * handled the same way as by {@link EsThreadPoolExecutor}. The time tasks wait in the queue is tracked per priority.
+ */
+public class PrioritizedFixedEsThreadPoolExecutor extends EsThreadPoolExecutor {
+
+    private final AtomicLong insertionOrder = new AtomicLong();
+    private final ImmutableMap<Priority, MeanMetric> queueWait;
+
+    PrioritizedFixedEsThreadPoolExecutor(int size, BlockingQueue<Runnable> workQueue, ThreadFactory threadFactory) {
+        super(size, size, 0, TimeUnit.MILLISECONDS, workQueue, threadFactory, new EsAbortPolicy());
+        ImmutableMap.Builder<Priority, MeanMetric> queueWait = ImmutableMap.builder();
+        for (Priority priority : Priority.values()) {
+            queueWait.put(priority, new MeanMetric());
+        }
+        this.queueWait = queueWait.build();
+    }
+
+    static PrioritizedFixedEsThreadPoolExecutor newExecutor(int size, int queueCapacity, ThreadFactory threadFactory) {
+        BlockingQueue<Runnable> queue = new PriorityBlockingQueue<>();
+        if (queueCapacity >= 0) {
+            queue = new SizeBlockingQueue<>(queue, queueCapacity);
+        }
+        return new PrioritizedFixedEsThreadPoolExecutor(size, queue, threadFactory);
+    }
+
+    /**
+     * The number of tasks of the given priority that were taken from the queue for execution.
+     */
+    public long queueWaitCount(Priority priority) {
+        return queueWait.get(priority).count();
+    }
+
+    /**
+     * The total time, in nanoseconds, the tasks of the given priority waited in the queue before their execution.
+     */
+    public long queueWaitNanos(Priority priority) {
+        return queueWait.get(priority).sum();
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Priority priority = command instanceof PrioritizedRunnable ? ((PrioritizedRunnable) command).priority() : Priority.NORMAL;
+        super.execute(new PrioritizedTask(command, priority, insertionOrder.incrementAndGet(), System.nanoTime()));
+    }
+
+    @Override
+    protected void beforeExecute(Thread t, Runnable r) {
+        super.beforeExecute(t, r);
+        if (r instanceof PrioritizedTask) {
+            PrioritizedTask task = (PrioritizedTask) r;
+            queueWait.get(task.priority).inc(Math.max(0, System.nanoTime() - task.queuedNanos));
+        }
+    }
+
+    static class PrioritizedTask extends AbstractRunnable implements Comparable<PrioritizedTask> {
+
+        final Runnable runnable;
+        final Priority priority;
+        final long insertionOrder;
+        final long queuedNanos;
+        private boolean rejected;
+
+        PrioritizedTask(Runnable runnable, Priority priority, long insertionOrder, long queuedNanos) {
+            this.runnable = runnable;
+            this.priority = priority;
+            this.insertionOrder = insertionOrder;
+            this.queuedNanos = queuedNanos;
+        }
+
+        @Override
+        public boolean isForceExecution() {
+            return runnable instanceof AbstractRunnable && ((AbstractRunnable) runnable).isForceExecution();
+        }
+
+        @Override
+        protected void doRun() throws Exception {
+            runnable.run();
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            // the wrapped runnable failed, fail the same way as if it was executed directly
+            if (t instanceof Error) {
+                throw (Error) t;
+            }
+            throw ExceptionsHelper.convertToRuntime(t);
+        }
+
+        @Override
+        public void onRejection(Throwable t) {
+            if (runnable instanceof AbstractRunnable) {
+                rejected = true;
+                ((AbstractRunnable) runnable).onRejection(t);
+            } else {
+                throw ExceptionsHelper.convertToRuntime(t);
+            }
+        }
+
+        @Override
+        public void onAfter() {
+            // a wrapped abstract runnable that ran already called its own onAfter
+            if (rejected) {
+                ((AbstractRunnable) runnable).onAfter();
+            }
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask other) {
+            int res = priority.compareTo(other.priority);
+            if (res != 0) {
+                return res;
+            }
+            return insertionOrder < other.insertionOrder ? -1 : (insertionOrder == other.insertionOrder ? 0 : 1);
+        }
+
+        @Override
+        public String toString() {
+            return "[" + priority + "] " + runnable;
+        }
+    }
+}
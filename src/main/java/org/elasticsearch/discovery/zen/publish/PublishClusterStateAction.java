@@ -20,9 +20,11 @@
 package org.elasticsearch.discovery.zen.publish;
 
 import com.google.common.collect.Maps;
+import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.AbstractComponent;
@@ -39,6 +41,7 @@ import org.elasticsearch.discovery.zen.DiscoveryNodesProvider;
 import org.elasticsearch.threadpool.ThreadPool;
 import org.elasticsearch.transport.*;
 
+import java.io.IOException;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -67,6 +70,9 @@ public class PublishClusterStateAction extends AbstractComponent {
     private final DiscoverySettings discoverySettings;
     private final ClusterName clusterName;
 
+    // the last cluster state published by this node while it was master, diffs are computed against it
+    private volatile ClusterState lastPublishedState;
+
     public PublishClusterStateAction(Settings settings, TransportService transportService, DiscoveryNodesProvider nodesProvider,
                                      NewClusterStateListener listener, DiscoverySettings discoverySettings, ClusterName clusterName) {
         super(settings);
@@ -89,8 +95,11 @@ public class PublishClusterStateAction extends AbstractComponent {
     private void publish(final ClusterState clusterState, final ClusterStatePublishResponseHandler publishResponseHandler) {
 
         DiscoveryNode localNode = nodesProvider.nodes().localNode();
+        final ClusterState previousState = lastPublishedState;
+        final boolean sendDiffs = discoverySettings.getPublishDiff() && previousState != null;
 
-        Map<Version, BytesReference> serializedStates = Maps.newHashMap();
+        final Map<Version, BytesReference> serializedStates = Maps.newHashMap();
+        Map<Version, BytesReference> serializedDiffs = Maps.newHashMap();
 
         final AtomicBoolean timedOutWaitingForNodes = new AtomicBoolean(false);
         final TimeValue publishTimeout = discoverySettings.getPublishTimeout();
@@ -99,54 +108,33 @@ public class PublishClusterStateAction extends AbstractComponent {
             if (node.equals(localNode)) {
                 continue;
             }
+            // only nodes that were part of the previously published state can have seen it, all others get the full state
+            boolean sendDiff = sendDiffs && node.version().onOrAfter(Version.V_2_0_0) && previousState.nodes().nodeExists(node.id());
             // try and serialize the cluster state once (or per version), so we don't serialize it
             // per node when we send it over the wire, compress it while we are at it...
-            BytesReference bytes = serializedStates.get(node.version());
-            if (bytes == null) {
-                try {
-                    BytesStreamOutput bStream = new BytesStreamOutput();
-                    StreamOutput stream = new HandlesStreamOutput(CompressorFactory.defaultCompressor().streamOutput(bStream));
-                    stream.setVersion(node.version());
-                    ClusterState.Builder.writeTo(clusterState, stream);
-                    stream.close();
-                    bytes = bStream.bytes();
-                    serializedStates.put(node.version(), bytes);
-                } catch (Throwable e) {
-                    logger.warn("failed to serialize cluster_state before publishing it to node {}", e, node);
-                    publishResponseHandler.onFailure(node, e);
-                    continue;
-                }
-            }
+            BytesReference bytes;
             try {
-                TransportRequestOptions options = TransportRequestOptions.options().withType(TransportRequestOptions.Type.STATE).withCompress(false);
-                // no need to put a timeout on the options here, because we want the response to eventually be received
-                // and not log an error if it arrives after the timeout
-                transportService.sendRequest(node, ACTION_NAME,
-                        new BytesTransportRequest(bytes, node.version()),
-                        options, // no need to compress, we already compressed the bytes
-
-                        new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
-
-                            @Override
-                            public void handleResponse(TransportResponse.Empty response) {
-                                if (timedOutWaitingForNodes.get()) {
-                                    logger.debug("node {} responded for cluster state [{}] (took longer than [{}])", node, clusterState.version(), publishTimeout);
-                                }
-                                publishResponseHandler.onResponse(node);
-                            }
-
-                            @Override
-                            public void handleException(TransportException exp) {
-                                logger.debug("failed to send cluster state to {}", exp, node);
-                                publishResponseHandler.onFailure(node, exp);
-                            }
-                        });
-            } catch (Throwable t) {
-                logger.debug("error sending cluster state to {}", t, node);
-                publishResponseHandler.onFailure(node, t);
+                if (sendDiff) {
+                    bytes = serializedDiffs.get(node.version());
+                    if (bytes == null) {
+                        bytes = serializeDiffClusterState(previousState, clusterState, node.version());
+                        serializedDiffs.put(node.version(), bytes);
+                    }
+                } else {
+                    synchronized (serializedStates) {
+                        bytes = serializedFullClusterState(clusterState, node.version(), serializedStates);
+                    }
+                }
+            } catch (Throwable e) {
+                logger.warn("failed to serialize cluster_state before publishing it to node {}", e, node);
+                publishResponseHandler.onFailure(node, e);
+                continue;
             }
+            sendClusterStateToNode(clusterState, bytes, node, sendDiff, serializedStates, timedOutWaitingForNodes, publishTimeout, publishResponseHandler);
         }
 
+        lastPublishedState = clusterState;
+
         if (publishTimeout.millis() > 0) {
             // only wait if the publish timeout is configured...
             try {
@@ -161,8 +149,92 @@ public class PublishClusterStateAction extends AbstractComponent {
         }
     }
 
+    private void sendClusterStateToNode(final ClusterState clusterState, BytesReference bytes, final DiscoveryNode node, final boolean sentDiff,
+                                        final Map<Version, BytesReference> serializedStates, final AtomicBoolean timedOutWaitingForNodes,
+                                        final TimeValue publishTimeout, final ClusterStatePublishResponseHandler publishResponseHandler) {
+        try {
+            TransportRequestOptions options = TransportRequestOptions.options().withType(TransportRequestOptions.Type.STATE).withCompress(false);
+            // no need to put a timeout on the options here, because we want the response to eventually be received
+            // and not log an error if it arrives after the timeout
+            transportService.sendRequest(node, ACTION_NAME,
+                    new BytesTransportRequest(bytes, node.version()),
+                    options, // no need to compress, we already compressed the bytes
+
+                    new EmptyTransportResponseHandler(ThreadPool.Names.SAME) {
+
+                        @Override
+                        public void handleResponse(TransportResponse.Empty response) {
+                            if (timedOutWaitingForNodes.get()) {
+                                logger.debug("node {} responded for cluster state [{}] (took longer than [{}])", node, clusterState.version(), publishTimeout);
+                            }
+                            publishResponseHandler.onResponse(node);
+                        }
+
+                        @Override
+                        public void handleException(TransportException exp) {
+                            if (sentDiff && ExceptionsHelper.unwrapCause(exp) instanceof IncompatibleClusterStateVersionException) {
+                                logger.debug("resending full cluster state to node {} reason {}", node, exp.getDetailedMessage());
+                                BytesReference fullBytes;
+                                try {
+                                    synchronized (serializedStates) {
+                                        fullBytes = serializedFullClusterState(clusterState, node.version(), serializedStates);
+                                    }
+                                } catch (Throwable e) {
+                                    logger.warn("failed to serialize cluster_state before publishing it to node {}", e, node);
+                                    publishResponseHandler.onFailure(node, e);
+                                    return;
+                                }
+                                sendClusterStateToNode(clusterState, fullBytes, node, false, serializedStates, timedOutWaitingForNodes, publishTimeout, publishResponseHandler);
+                                return;
+                            }
+                            logger.debug("failed to send cluster state to {}", exp, node);
+                            publishResponseHandler.onFailure(node, exp);
+                        }
+                    });
+        } catch (Throwable t) {
+            logger.debug("error sending cluster state to {}", t, node);
+            publishResponseHandler.onFailure(node, t);
+        }
+    }
+
+    private BytesReference serializedFullClusterState(ClusterState clusterState, Version nodeVersion, Map<Version, BytesReference> serializedStates) throws IOException {
+        BytesReference bytes = serializedStates.get(nodeVersion);
+        if (bytes == null) {
+            bytes = serializeFullClusterState(clusterState, nodeVersion);
+            serializedStates.put(nodeVersion, bytes);
+        }
+        return bytes;
+    }
+
+    public static BytesReference serializeFullClusterState(ClusterState clusterState, Version nodeVersion) throws IOException {
+        BytesStreamOutput bStream = new BytesStreamOutput();
+        StreamOutput stream = new HandlesStreamOutput(CompressorFactory.defaultCompressor().streamOutput(bStream));
+        stream.setVersion(nodeVersion);
+        if (nodeVersion.onOrAfter(Version.V_2_0_0)) {
+            stream.writeBoolean(true);
+        }
+        ClusterState.Builder.writeTo(clusterState, stream);
+        stream.close();
+        return bStream.bytes();
+    }
+
+    public static BytesReference serializeDiffClusterState(ClusterState previousState, ClusterState clusterState, Version nodeVersion) throws IOException {
+        BytesStreamOutput bStream = new BytesStreamOutput();
+        StreamOutput stream = new HandlesStreamOutput(CompressorFactory.defaultCompressor().streamOutput(bStream));
+        stream.setVersion(nodeVersion);
+        stream.writeBoolean(false);
+        ClusterState.Builder.writeDiffTo(previousState, clusterState, stream);
+        stream.close();
+        return bStream.bytes();
+    }
+
     private class PublishClusterStateRequestHandler extends BaseTransportRequestHandler<BytesTransportRequest> {
 
+        /**
+         * The last cluster state received from the master, used as the base to apply incoming diffs on
+         */
+        private ClusterState lastSeenClusterState;
+
         @Override
         public BytesTransportRequest newInstance() {
             return new BytesTransportRequest();
@@ -178,9 +250,21 @@ public class PublishClusterStateAction extends AbstractComponent {
                 in = CachedStreamInput.cachedHandles(request.bytes().streamInput());
             }
             in.setVersion(request.version());
-            ClusterState clusterState = ClusterState.Builder.readFrom(in, nodesProvider.nodes().localNode(), clusterName);
+            ClusterState clusterState;
+            synchronized (this) {
+                if (in.getVersion().before(Version.V_2_0_0) || in.readBoolean()) {
+                    clusterState = ClusterState.Builder.readFrom(in, nodesProvider.nodes().localNode(), clusterName);
+                    logger.debug("received full cluster state version {}", clusterState.version());
+                } else if (lastSeenClusterState != null) {
+                    clusterState = ClusterState.Builder.readDiffFrom(in, lastSeenClusterState, nodesProvider.nodes().localNode());
+                    logger.debug("received diff cluster state version {}", clusterState.version());
+                } else {
+                    logger.debug("received diff cluster state but don't have any local cluster state - requesting full state");
+                    throw new IncompatibleClusterStateVersionException("have no local cluster state");
+                }
+                lastSeenClusterState = clusterState;
+            }
             clusterState.status(ClusterState.ClusterStateStatus.RECEIVED);
-            logger.debug("received cluster state version {}", clusterState.version());
             listener.onNewClusterState(clusterState, new NewClusterStateListener.NewStateProcessed() {
                 @Override
                 public void onNewClusterStateProcessed() {
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.cache.query;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -37,15 +38,26 @@ public class QueryCacheStats implements Streamable, ToXContent {
     long evictions;
     long hitCount;
     long missCount;
+    long segmentHitCount;
+    long segmentMissCount;
+    long rejectedCount;
 
     public QueryCacheStats() {
     }
 
     public QueryCacheStats(long memorySize, long evictions, long hitCount, long missCount) {
+        this(memorySize, evictions, hitCount, missCount, 0, 0, 0);
+    }
+
+    public QueryCacheStats(long memorySize, long evictions, long hitCount, long missCount,
+                           long segmentHitCount, long segmentMissCount, long rejectedCount) {
         this.memorySize = memorySize;
         this.evictions = evictions;
         this.hitCount = hitCount;
         this.missCount = missCount;
+        this.segmentHitCount = segmentHitCount;
+        this.segmentMissCount = segmentMissCount;
+        this.rejectedCount = rejectedCount;
     }
 
     public void add(QueryCacheStats stats) {
@@ -53,6 +65,9 @@ public class QueryCacheStats implements Streamable, ToXContent {
         this.evictions += stats.evictions;
         this.hitCount += stats.hitCount;
         this.missCount += stats.missCount;
+        this.segmentHitCount += stats.segmentHitCount;
+        this.segmentMissCount += stats.segmentMissCount;
+        this.rejectedCount += stats.rejectedCount;
     }
 
     public long getMemorySizeInBytes() {
@@ -75,12 +90,38 @@ public class QueryCacheStats implements Streamable, ToXContent {
         return this.missCount;
     }
 
+    /**
+     * The number of segment results that were served from the cache while computing a shard result per segment.
+     */
+    public long getSegmentHitCount() {
+        return this.segmentHitCount;
+    }
+
+    /**
+     * The number of segment results that had to be computed while computing a shard result per segment.
+     */
+    public long getSegmentMissCount() {
+        return this.segmentMissCount;
+    }
+
+    /**
+     * The number of computed results that were not cached because they were cheaper to compute than the admission cost.
+     */
+    public long getRejectedCount() {
+        return this.rejectedCount;
+    }
+
     @Override
     public void readFrom(StreamInput in) throws IOException {
         memorySize = in.readVLong();
         evictions = in.readVLong();
         hitCount = in.readVLong();
         missCount = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            segmentHitCount = in.readVLong();
+            segmentMissCount = in.readVLong();
+            rejectedCount = in.readVLong();
+        }
     }
 
     @Override
@@ -89,6 +130,11 @@ public class QueryCacheStats implements Streamable, ToXContent {
         out.writeVLong(evictions);
         out.writeVLong(hitCount);
         out.writeVLong(missCount);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeVLong(segmentHitCount);
+            out.writeVLong(segmentMissCount);
+            out.writeVLong(rejectedCount);
+        }
     }
 
     @Override
@@ -98,6 +144,9 @@ public class QueryCacheStats implements Streamable, ToXContent {
         builder.field(Fields.EVICTIONS, getEvictions());
         builder.field(Fields.HIT_COUNT, getHitCount());
         builder.field(Fields.MISS_COUNT, getMissCount());
+        builder.field(Fields.SEGMENT_HIT_COUNT, getSegmentHitCount());
+        builder.field(Fields.SEGMENT_MISS_COUNT, getSegmentMissCount());
+        builder.field(Fields.REJECTED_COUNT, getRejectedCount());
         builder.endObject();
         return builder;
     }
@@ -109,5 +158,8 @@ public class QueryCacheStats implements Streamable, ToXContent {
         static final XContentBuilderString EVICTIONS = new XContentBuilderString("evictions");
         static final XContentBuilderString HIT_COUNT = new XContentBuilderString("hit_count");
         static final XContentBuilderString MISS_COUNT = new XContentBuilderString("miss_count");
+        static final XContentBuilderString SEGMENT_HIT_COUNT = new XContentBuilderString("segment_hit_count");
+        static final XContentBuilderString SEGMENT_MISS_COUNT = new XContentBuilderString("segment_miss_count");
+        static final XContentBuilderString REJECTED_COUNT = new XContentBuilderString("rejected_count");
     }
 }
@@ -42,6 +42,9 @@ public class ShardQueryCache extends AbstractIndexShardComponent implements Remo
     final CounterMetric totalMetric = new CounterMetric();
     final CounterMetric hitCount = new CounterMetric();
     final CounterMetric missCount = new CounterMetric();
+    final CounterMetric segmentHitCount = new CounterMetric();
+    final CounterMetric segmentMissCount = new CounterMetric();
+    final CounterMetric rejectedCount = new CounterMetric();
 
     @Inject
     public ShardQueryCache(ShardId shardId, @IndexSettings Settings indexSettings) {
@@ -49,7 +52,8 @@ public class ShardQueryCache extends AbstractIndexShardComponent implements Remo
     }
 
     public QueryCacheStats stats() {
-        return new QueryCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count());
+        return new QueryCacheStats(totalMetric.count(), evictionsMetric.count(), hitCount.count(), missCount.count(),
+                segmentHitCount.count(), segmentMissCount.count(), rejectedCount.count());
     }
 
     public void onHit() {
@@ -60,6 +64,21 @@ public class ShardQueryCache extends AbstractIndexShardComponent implements Remo
         missCount.inc();
     }
 
+    public void onSegmentHit() {
+        segmentHitCount.inc();
+    }
+
+    public void onSegmentMiss() {
+        segmentMissCount.inc();
+    }
+
+    /**
+     * A computed result was not cached because it was too cheap to compute.
+     */
+    public void onRejected() {
+        rejectedCount.inc();
+    }
+
     public void onCached(IndicesQueryCache.Key key, BytesReference value) {
         totalMetric.inc(key.ramBytesUsed() + value.length());
     }
@@ -86,6 +86,14 @@ public interface Engine extends CloseableComponent {
 
     GetResult get(Get get) throws EngineException;
 
+    /**
+     * Loads the current versions of the documents with the given uids from the index in one pass, segment by segment
+     * and in term order. Index, create and delete operations that carry the loaded versions, see
+     * {@link IndexingOperation#preloadedVersions(PreloadedVersions)}, use them instead of looking up the version of
+     * their document on their own, unless the engine was refreshed in the meantime.
+     */
+    PreloadedVersions preloadVersions(Term[] uids) throws EngineException;
+
     /**
      * Returns a new searcher instance. The consumer of this
      * API is responsible for releasing the returned seacher in a
@@ -284,6 +292,12 @@ public interface Engine extends CloseableComponent {
         }
     }
 
+    /**
+     * Versions of documents loaded ahead of the operations on them, see {@link Engine#preloadVersions(Term[])}.
+     */
+    static interface PreloadedVersions {
+    }
+
     static interface Operation {
         static enum Type {
             CREATE,
@@ -311,6 +325,8 @@ public interface Engine extends CloseableComponent {
         private final VersionType versionType;
         private final Origin origin;
         private final boolean canHaveDuplicates;
+        private Translog.Location translogLocation;
+        private PreloadedVersions preloadedVersions;
 
         private final long startTime;
         private long endTime;
@@ -376,10 +392,33 @@ public interface Engine extends CloseableComponent {
             this.doc.version().setLongValue(version);
         }
 
+        public void setTranslogLocation(Translog.Location translogLocation) {
+            this.translogLocation = translogLocation;
+        }
+
+        /**
+         * The location the operation was written to in the translog, or <tt>null</tt> if it was not executed (yet).
+         */
+        public Translog.Location getTranslogLocation() {
+            return this.translogLocation;
+        }
+
         public VersionType versionType() {
             return this.versionType;
         }
 
+        /**
+         * Sets the versions that were loaded ahead of this operation, see {@link Engine#preloadVersions(Term[])}.
+         */
+        public void preloadedVersions(@Nullable PreloadedVersions preloadedVersions) {
+            this.preloadedVersions = preloadedVersions;
+        }
+
+        @Nullable
+        public PreloadedVersions preloadedVersions() {
+            return this.preloadedVersions;
+        }
+
         public boolean canHaveDuplicates() {
             return this.canHaveDuplicates;
         }
@@ -487,6 +526,8 @@ public interface Engine extends CloseableComponent {
         private final VersionType versionType;
         private final Origin origin;
         private boolean found;
+        private Translog.Location translogLocation;
+        private PreloadedVersions preloadedVersions;
 
         private final long startTime;
         private long endTime;
@@ -537,6 +578,17 @@ public interface Engine extends CloseableComponent {
             this.found = found;
         }
 
+        public void setTranslogLocation(Translog.Location translogLocation) {
+            this.translogLocation = translogLocation;
+        }
+
+        /**
+         * The location the delete was written to in the translog, or <tt>null</tt> if it was not executed (yet).
+         */
+        public Translog.Location getTranslogLocation() {
+            return this.translogLocation;
+        }
+
         /**
          * before delete execution this is the version to be deleted. After this is the version of the "delete" transaction record.
          */
@@ -548,6 +600,18 @@ public interface Engine extends CloseableComponent {
             return this.versionType;
         }
 
+        /**
+         * Sets the versions that were loaded ahead of this operation, see {@link Engine#preloadVersions(Term[])}.
+         */
+        public void preloadedVersions(@Nullable PreloadedVersions preloadedVersions) {
+            this.preloadedVersions = preloadedVersions;
+        }
+
+        @Nullable
+        public PreloadedVersions preloadedVersions() {
+            return this.preloadedVersions;
+        }
+
         public boolean found() {
             return this.found;
         }
@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.engine;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
@@ -42,6 +43,8 @@ public class SegmentsStats implements Streamable, ToXContent {
     private long indexWriterMaxMemoryInBytes;
     private long versionMapMemoryInBytes;
     private long bitsetMemoryInBytes;
+    private long uidLookupSearchedSegments;
+    private long uidLookupSkippedSegments;
 
     public SegmentsStats() {}
 
@@ -86,6 +89,11 @@ public class SegmentsStats implements Streamable, ToXContent {
         this.bitsetMemoryInBytes += bitsetMemoryInBytes;
     }
 
+    public void addUidLookupSegments(long searchedSegments, long skippedSegments) {
+        this.uidLookupSearchedSegments += searchedSegments;
+        this.uidLookupSkippedSegments += skippedSegments;
+    }
+
     public void add(SegmentsStats mergeStats) {
         if (mergeStats == null) {
             return;
@@ -100,6 +108,7 @@ public class SegmentsStats implements Streamable, ToXContent {
         addIndexWriterMaxMemoryInBytes(mergeStats.indexWriterMaxMemoryInBytes);
         addVersionMapMemoryInBytes(mergeStats.versionMapMemoryInBytes);
         addBitsetMemoryInBytes(mergeStats.bitsetMemoryInBytes);
+        addUidLookupSegments(mergeStats.uidLookupSearchedSegments, mergeStats.uidLookupSkippedSegments);
     }
 
     /**
@@ -219,6 +228,20 @@ public class SegmentsStats implements Streamable, ToXContent {
         return new ByteSizeValue(bitsetMemoryInBytes);
     }
 
+    /**
+     * The number of segments that were searched to look up the version of a document by its uid.
+     */
+    public long getUidLookupSearchedSegments() {
+        return uidLookupSearchedSegments;
+    }
+
+    /**
+     * The number of segments that uid lookups skipped because the uid was out of the uid range of the segment.
+     */
+    public long getUidLookupSkippedSegments() {
+        return uidLookupSkippedSegments;
+    }
+
     public static SegmentsStats readSegmentsStats(StreamInput in) throws IOException {
         SegmentsStats stats = new SegmentsStats();
         stats.readFrom(in);
@@ -239,6 +262,8 @@ public class SegmentsStats implements Streamable, ToXContent {
         builder.byteSizeField(Fields.INDEX_WRITER_MAX_MEMORY_IN_BYTES, Fields.INDEX_WRITER_MAX_MEMORY, indexWriterMaxMemoryInBytes);
         builder.byteSizeField(Fields.VERSION_MAP_MEMORY_IN_BYTES, Fields.VERSION_MAP_MEMORY, versionMapMemoryInBytes);
         builder.byteSizeField(Fields.FIXED_BIT_SET_MEMORY_IN_BYTES, Fields.FIXED_BIT_SET, bitsetMemoryInBytes);
+        builder.field(Fields.UID_LOOKUP_SEARCHED_SEGMENTS, uidLookupSearchedSegments);
+        builder.field(Fields.UID_LOOKUP_SKIPPED_SEGMENTS, uidLookupSkippedSegments);
         builder.endObject();
         return builder;
     }
@@ -266,6 +291,8 @@ public class SegmentsStats implements Streamable, ToXContent {
         static final XContentBuilderString VERSION_MAP_MEMORY_IN_BYTES = new XContentBuilderString("version_map_memory_in_bytes");
         static final XContentBuilderString FIXED_BIT_SET = new XContentBuilderString("fixed_bit_set");
         static final XContentBuilderString FIXED_BIT_SET_MEMORY_IN_BYTES = new XContentBuilderString("fixed_bit_set_memory_in_bytes");
+        static final XContentBuilderString UID_LOOKUP_SEARCHED_SEGMENTS = new XContentBuilderString("uid_lookup_searched_segments");
+        static final XContentBuilderString UID_LOOKUP_SKIPPED_SEGMENTS = new XContentBuilderString("uid_lookup_skipped_segments");
     }
 
     @Override
@@ -281,6 +308,10 @@ public class SegmentsStats implements Streamable, ToXContent {
         versionMapMemoryInBytes = in.readLong();
         indexWriterMaxMemoryInBytes = in.readLong();
         bitsetMemoryInBytes = in.readLong();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            uidLookupSearchedSegments = in.readVLong();
+            uidLookupSkippedSegments = in.readVLong();
+        }
     }
 
     @Override
@@ -296,5 +327,9 @@ public class SegmentsStats implements Streamable, ToXContent {
         out.writeLong(versionMapMemoryInBytes);
         out.writeLong(indexWriterMaxMemoryInBytes);
         out.writeLong(bitsetMemoryInBytes);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeVLong(uidLookupSearchedSegments);
+            out.writeVLong(uidLookupSkippedSegments);
+        }
     }
 }
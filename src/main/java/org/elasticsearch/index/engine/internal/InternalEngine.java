@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.engine.internal;
 
+import com.carrotsearch.hppc.ObjectLongOpenHashMap;
 import com.google.common.collect.Lists;
 
 import org.apache.lucene.index.*;
@@ -46,6 +47,7 @@ import org.elasticsearch.common.lucene.uid.Versions;
 import org.elasticsearch.common.math.MathUtils;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.common.util.concurrent.AbstractRunnable;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.analysis.AnalysisService;
@@ -146,9 +148,10 @@ public class InternalEngine implements Engine {
 
     // A uid (in the form of BytesRef) to the version map
     // we use the hashed variant since we iterate over it and check removal and additions on existing keys
-    private final LiveVersionMap versionMap;
+    private final VersionMap versionMap;
 
-    private final Object[] dirtyLocks;
+    // each lock doubles as the holder the version of the uids it guards is looked up into
+    private final VersionLookup[] dirtyLocks;
 
     private final Object refreshMutex = new Object();
 
@@ -159,6 +162,12 @@ public class InternalEngine implements Engine {
     private final AtomicLong translogIdGenerator = new AtomicLong();
     private final AtomicBoolean versionMapRefreshPending = new AtomicBoolean();
 
+    // incremented when a refresh makes changes visible, before they are removed from the version map, so that
+    // preloaded versions that were loaded from an older searcher are not used anymore
+    private final AtomicLong refreshGeneration = new AtomicLong();
+
+    private final Versions.LookupStats uidLookupStats = new Versions.LookupStats();
+
     private SegmentInfos lastCommittedSegmentInfos;
 
     private final IndexThrottle throttle;
@@ -170,7 +179,7 @@ public class InternalEngine implements Engine {
                           AnalysisService analysisService, SimilarityService similarityService,
                           boolean enableGcDeletes, long gcDeletesInMillis, ByteSizeValue indexingBufferSize, String codecName,
                           boolean compoundOnFlush, int indexConcurrency, boolean optimizeAutoGenerateId, boolean failEngineOnCorruption,
-                          FailedEngineListener failedEngineListener) throws EngineException {
+                          boolean packedVersionMap, FailedEngineListener failedEngineListener) throws EngineException {
         Preconditions.checkNotNull(store, "Store must be provided to the engine");
         Preconditions.checkNotNull(deletionPolicy, "Snapshot deletion policy must be provided to the engine");
         Preconditions.checkNotNull(translog, "Translog must be provided to the engine");
@@ -196,10 +205,10 @@ public class InternalEngine implements Engine {
         this.codecService = codecService;
         this.compoundOnFlush = compoundOnFlush;
         this.indexConcurrency = indexConcurrency;
-        this.versionMap = new LiveVersionMap();
-        this.dirtyLocks = new Object[indexConcurrency * 50]; // we multiply it to have enough...
+        this.versionMap = packedVersionMap ? new PackedLiveVersionMap(BigArrays.NON_RECYCLING_INSTANCE) : new LiveVersionMap();
+        this.dirtyLocks = new VersionLookup[indexConcurrency * 50]; // we multiply it to have enough...
         for (int i = 0; i < dirtyLocks.length; i++) {
-            dirtyLocks[i] = new Object();
+            dirtyLocks[i] = new VersionLookup();
         }
         this.optimizeAutoGenerateId = optimizeAutoGenerateId;
         this.failEngineOnCorruption = failEngineOnCorruption;
@@ -385,6 +394,26 @@ public class InternalEngine implements Engine {
         }
     }
 
+    @Override
+    public PreloadedVersions preloadVersions(Term[] uids) throws EngineException {
+        // read the generation before acquiring the searcher, a refresh in between only means the versions aren't used
+        final long generation = refreshGeneration.get();
+        try (final Searcher searcher = acquireSearcher("load_versions")) {
+            final BytesRef[] ids = new BytesRef[uids.length];
+            for (int i = 0; i < uids.length; i++) {
+                ids[i] = uids[i].bytes();
+            }
+            final long[] versions = Versions.loadVersions(searcher.reader(), ids, uidLookupStats);
+            final ObjectLongOpenHashMap<BytesRef> loaded = new ObjectLongOpenHashMap<>(ids.length);
+            for (int i = 0; i < ids.length; i++) {
+                loaded.put(ids[i], versions[i]);
+            }
+            return new LoadedVersions(this, generation, loaded);
+        } catch (IOException e) {
+            throw new EngineException(shardId, "failed to load versions", e);
+        }
+    }
+
     @Override
     public GetResult get(Get get) throws EngineException {
         try (InternalLock _ = readLock.acquire()) {
@@ -412,7 +441,7 @@ public class InternalEngine implements Engine {
             final Searcher searcher = acquireSearcher("get");
             final Versions.DocIdAndVersion docIdAndVersion;
             try {
-                docIdAndVersion = Versions.loadDocIdAndVersion(searcher.reader(), get.uid());
+                docIdAndVersion = Versions.loadDocIdAndVersion(searcher.reader(), get.uid(), uidLookupStats);
             } catch (Throwable e) {
                 Releasables.closeWhileHandlingException(searcher);
                 //TODO: A better exception goes here
@@ -461,25 +490,25 @@ public class InternalEngine implements Engine {
             // We don't need to lock because this ID cannot be concurrently updated:
             innerCreateNoLock(create, writer, Versions.NOT_FOUND, null);
         } else {
-            synchronized (dirtyLock(create.uid())) {
+            final VersionLookup versionLookup = dirtyLock(create.uid());
+            synchronized (versionLookup) {
                 final long currentVersion;
-                final VersionValue versionValue;
-                versionValue = versionMap.getUnderLock(create.uid().bytes());
-                if (versionValue == null) {
-                    currentVersion = loadCurrentVersionFromIndex(create.uid());
+                final boolean inVersionMap = versionMap.getUnderLock(create.uid().bytes(), versionLookup);
+                if (inVersionMap == false) {
+                    currentVersion = loadCurrentVersionFromIndex(create.uid(), create.preloadedVersions());
                 } else {
-                    if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
+                    if (enableGcDeletes && versionLookup.delete() && (threadPool.estimatedTimeInMillis() - versionLookup.time()) > gcDeletesInMillis) {
                         currentVersion = Versions.NOT_FOUND; // deleted, and GC
                     } else {
-                        currentVersion = versionValue.version();
+                        currentVersion = versionLookup.version();
                     }
                 }
-                innerCreateNoLock(create, writer, currentVersion, versionValue);
+                innerCreateNoLock(create, writer, currentVersion, inVersionMap ? versionLookup : null);
             }
         }
     }
 
-    private void innerCreateNoLock(Create create, IndexWriter writer, long currentVersion, VersionValue versionValue) throws IOException {
+    private void innerCreateNoLock(Create create, IndexWriter writer, long currentVersion, @Nullable VersionLookup versionLookup) throws IOException {
 
         // same logic as index
         long updatedVersion;
@@ -495,7 +524,7 @@ public class InternalEngine implements Engine {
 
         // if the doc exists
         boolean doUpdate = false;
-        if ((versionValue != null && versionValue.delete() == false) || (versionValue == null && currentVersion != Versions.NOT_FOUND)) {
+        if ((versionLookup != null && versionLookup.delete() == false) || (versionLookup == null && currentVersion != Versions.NOT_FOUND)) {
             if (create.origin() == Operation.Origin.RECOVERY) {
                 return;
             } else if (create.origin() == Operation.Origin.REPLICA) {
@@ -536,8 +565,9 @@ public class InternalEngine implements Engine {
             }
         }
         Translog.Location translogLocation = translog.add(new Translog.Create(create));
+        create.setTranslogLocation(translogLocation);
 
-        versionMap.putUnderLock(create.uid().bytes(), new VersionValue(updatedVersion, translogLocation));
+        versionMap.putUnderLock(create.uid().bytes(), updatedVersion, translogLocation);
 
         indexingService.postCreateUnderLock(create);
     }
@@ -588,16 +618,17 @@ public class InternalEngine implements Engine {
     }
 
     private void innerIndex(Index index, IndexWriter writer) throws IOException {
-        synchronized (dirtyLock(index.uid())) {
+        final VersionLookup versionLookup = dirtyLock(index.uid());
+        synchronized (versionLookup) {
             final long currentVersion;
-            VersionValue versionValue = versionMap.getUnderLock(index.uid().bytes());
-            if (versionValue == null) {
-                currentVersion = loadCurrentVersionFromIndex(index.uid());
+            final boolean inVersionMap = versionMap.getUnderLock(index.uid().bytes(), versionLookup);
+            if (inVersionMap == false) {
+                currentVersion = loadCurrentVersionFromIndex(index.uid(), index.preloadedVersions());
             } else {
-                if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
+                if (enableGcDeletes && versionLookup.delete() && (threadPool.estimatedTimeInMillis() - versionLookup.time()) > gcDeletesInMillis) {
                     currentVersion = Versions.NOT_FOUND; // deleted, and GC
                 } else {
-                    currentVersion = versionValue.version();
+                    currentVersion = versionLookup.version();
                 }
             }
 
@@ -622,8 +653,8 @@ public class InternalEngine implements Engine {
                     writer.addDocument(index.docs().get(0), index.analyzer());
                 }
             } else {
-                if (versionValue != null) {
-                    index.created(versionValue.delete()); // we have a delete which is not GC'ed...
+                if (inVersionMap) {
+                    index.created(versionLookup.delete()); // we have a delete which is not GC'ed...
                 }
                 if (index.docs().size() > 1) {
                     writer.updateDocuments(index.uid(), index.docs(), index.analyzer());
@@ -632,8 +663,9 @@ public class InternalEngine implements Engine {
                 }
             }
             Translog.Location translogLocation = translog.add(new Translog.Index(index));
+            index.setTranslogLocation(translogLocation);
 
-            versionMap.putUnderLock(index.uid().bytes(), new VersionValue(updatedVersion, translogLocation));
+            versionMap.putUnderLock(index.uid().bytes(), updatedVersion, translogLocation);
 
             indexingService.postIndexUnderLock(index);
         }
@@ -667,16 +699,17 @@ public class InternalEngine implements Engine {
     }
 
     private void innerDelete(Delete delete, IndexWriter writer) throws IOException {
-        synchronized (dirtyLock(delete.uid())) {
+        final VersionLookup versionLookup = dirtyLock(delete.uid());
+        synchronized (versionLookup) {
             final long currentVersion;
-            VersionValue versionValue = versionMap.getUnderLock(delete.uid().bytes());
-            if (versionValue == null) {
-                currentVersion = loadCurrentVersionFromIndex(delete.uid());
+            final boolean inVersionMap = versionMap.getUnderLock(delete.uid().bytes(), versionLookup);
+            if (inVersionMap == false) {
+                currentVersion = loadCurrentVersionFromIndex(delete.uid(), delete.preloadedVersions());
             } else {
-                if (enableGcDeletes && versionValue.delete() && (threadPool.estimatedTimeInMillis() - versionValue.time()) > gcDeletesInMillis) {
+                if (enableGcDeletes && versionLookup.delete() && (threadPool.estimatedTimeInMillis() - versionLookup.time()) > gcDeletesInMillis) {
                     currentVersion = Versions.NOT_FOUND; // deleted, and GC
                 } else {
-                    currentVersion = versionValue.version();
+                    currentVersion = versionLookup.version();
                 }
             }
 
@@ -694,7 +727,7 @@ public class InternalEngine implements Engine {
             if (currentVersion == Versions.NOT_FOUND) {
                 // doc does not exist and no prior deletes
                 found = false;
-            } else if (versionValue != null && versionValue.delete()) {
+            } else if (inVersionMap && versionLookup.delete()) {
                 // a "delete on delete", in this case, we still increment the version, log it, and return that version
                 found = false;
             } else {
@@ -705,7 +738,8 @@ public class InternalEngine implements Engine {
 
             delete.updateVersion(updatedVersion, found);
             Translog.Location translogLocation = translog.add(new Translog.Delete(delete));
-            versionMap.putUnderLock(delete.uid().bytes(), new DeleteVersionValue(updatedVersion, threadPool.estimatedTimeInMillis(), translogLocation));
+            delete.setTranslogLocation(translogLocation);
+            versionMap.putDeleteUnderLock(delete.uid().bytes(), updatedVersion, threadPool.estimatedTimeInMillis(), translogLocation);
 
             indexingService.postDeleteUnderLock(delete);
         }
@@ -1035,11 +1069,10 @@ public class InternalEngine implements Engine {
         // TODO: not good that we reach into LiveVersionMap here; can we move this inside VersionMap instead?  problem is the dirtyLock...
 
         // we only need to prune the deletes map; the current/old version maps are cleared on refresh:
-        for (Map.Entry<BytesRef, VersionValue> entry : versionMap.getAllTombstones()) {
-            BytesRef uid = entry.getKey();
+        for (BytesRef uid : versionMap.getAllTombstones()) {
             synchronized (dirtyLock(uid)) { // can we do it without this lock on each value? maybe batch to a set and get the lock once per set?
 
-                // Must re-get it here, vs using entry.getValue(), in case the uid was indexed/deleted since we pulled the iterator:                
+                // Must re-get it here in case the uid was indexed/deleted since we pulled the iterator:                
                 VersionValue versionValue = versionMap.getTombstoneUnderLock(uid);
                 if (versionValue != null) {
                     if (timeMSec - versionValue.time() > gcDeletesInMillis) {
@@ -1260,6 +1293,7 @@ public class InternalEngine implements Engine {
                     stats.addDocValuesMemoryInBytes(guardedRamBytesUsed(segmentReader.getDocValuesReader()));
                 }
                 stats.addVersionMapMemoryInBytes(versionMap.ramBytesUsed());
+                stats.addUidLookupSegments(uidLookupStats.searchedSegments(), uidLookupStats.skippedSegments());
                 stats.addIndexWriterMemoryInBytes(indexWriter.ramBytesUsed());
                 stats.addIndexWriterMaxMemoryInBytes((long) (indexWriter.getConfig().getRAMBufferSizeMB() * 1024 * 1024));
                 return stats;
@@ -1427,18 +1461,42 @@ public class InternalEngine implements Engine {
         }
     }
 
-    private Object dirtyLock(BytesRef uid) {
+    private VersionLookup dirtyLock(BytesRef uid) {
         int hash = DjbHashFunction.DJB_HASH(uid.bytes, uid.offset, uid.length);
         return dirtyLocks[MathUtils.mod(hash, dirtyLocks.length)];
     }
 
-    private Object dirtyLock(Term uid) {
+    private VersionLookup dirtyLock(Term uid) {
         return dirtyLock(uid.bytes());
     }
 
     private long loadCurrentVersionFromIndex(Term uid) throws IOException {
         try (final Searcher searcher = acquireSearcher("load_version")) {
-            return Versions.loadVersion(searcher.reader(), uid);
+            return Versions.loadVersion(searcher.reader(), uid, uidLookupStats);
+        }
+    }
+
+    private long loadCurrentVersionFromIndex(Term uid, @Nullable PreloadedVersions preloadedVersions) throws IOException {
+        if (preloadedVersions instanceof LoadedVersions) {
+            final LoadedVersions loadedVersions = (LoadedVersions) preloadedVersions;
+            // the versions can only be used if no changes were removed from the version map since they were loaded
+            if (loadedVersions.engine == this && loadedVersions.refreshGeneration == refreshGeneration.get()
+                    && loadedVersions.versions.containsKey(uid.bytes())) {
+                return loadedVersions.versions.lget();
+            }
+        }
+        return loadCurrentVersionFromIndex(uid);
+    }
+
+    private static final class LoadedVersions implements PreloadedVersions {
+        private final InternalEngine engine;
+        private final long refreshGeneration;
+        private final ObjectLongOpenHashMap<BytesRef> versions;
+
+        LoadedVersions(InternalEngine engine, long refreshGeneration, ObjectLongOpenHashMap<BytesRef> versions) {
+            this.engine = engine;
+            this.refreshGeneration = refreshGeneration;
+            this.versions = versions;
         }
     }
 
@@ -1512,7 +1570,22 @@ public class InternalEngine implements Engine {
 
     private SearcherManager buildSearchManager(IndexWriter indexWriter) throws IOException {
         final DirectoryReader directoryReader = ElasticsearchDirectoryReader.wrap(DirectoryReader.open(indexWriter, true), shardId);
-        return new SearcherManager(directoryReader, searcherFactory);
+        final SearcherManager searcherManager = new SearcherManager(directoryReader, searcherFactory);
+        // registered before the version map is, so that it's notified before changes are removed from the version map
+        searcherManager.addListener(new ReferenceManager.RefreshListener() {
+            @Override
+            public void beforeRefresh() {
+            }
+
+            @Override
+            public void afterRefresh(boolean didRefresh) {
+                // the version map drops changes even if nothing was refreshed
+                refreshGeneration.incrementAndGet();
+            }
+        });
+        // the version map is cleared when a new searcher manager is set on it
+        refreshGeneration.incrementAndGet();
+        return searcherManager;
     }
 
     class EngineSearcher implements Searcher {
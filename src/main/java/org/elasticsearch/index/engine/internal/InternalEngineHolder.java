@@ -20,6 +20,7 @@ package org.elasticsearch.index.engine.internal;
 
 import org.apache.lucene.index.IndexWriterConfig;
 import org.apache.lucene.index.MergePolicy;
+import org.apache.lucene.index.Term;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Preconditions;
@@ -76,6 +77,7 @@ public class InternalEngineHolder extends AbstractIndexShardComponent implements
     protected volatile boolean enableGcDeletes = true;
     protected volatile String codecName;
     protected final boolean optimizeAutoGenerateId;
+    protected final boolean packedVersionMap;
 
     protected final ThreadPool threadPool;
 
@@ -100,6 +102,7 @@ public class InternalEngineHolder extends AbstractIndexShardComponent implements
     public static final String INDEX_GC_DELETES = "index.gc_deletes";
     public static final String INDEX_FAIL_ON_MERGE_FAILURE = "index.fail_on_merge_failure";
     public static final String INDEX_FAIL_ON_CORRUPTION = "index.fail_on_corruption";
+    public static final String INDEX_VERSION_MAP_PACKED = "index.version_map.packed";
 
     public static final TimeValue DEFAULT_REFRESH_INTERVAL = new TimeValue(1, TimeUnit.SECONDS);
 
@@ -135,6 +138,7 @@ public class InternalEngineHolder extends AbstractIndexShardComponent implements
         this.compoundOnFlush = indexSettings.getAsBoolean(INDEX_COMPOUND_ON_FLUSH, this.compoundOnFlush);
         this.indexConcurrency = indexSettings.getAsInt(INDEX_INDEX_CONCURRENCY, Math.max(IndexWriterConfig.DEFAULT_MAX_THREAD_STATES, (int) (EsExecutors.boundedNumberOfProcessors(indexSettings) * 0.65)));
         this.optimizeAutoGenerateId = indexSettings.getAsBoolean("index.optimize_auto_generated_id", true);
+        this.packedVersionMap = indexSettings.getAsBoolean(INDEX_VERSION_MAP_PACKED, false);
 
         this.failEngineOnCorruption = indexSettings.getAsBoolean(INDEX_FAIL_ON_CORRUPTION, true);
         this.failOnMergeFailure = indexSettings.getAsBoolean(INDEX_FAIL_ON_MERGE_FAILURE, true);
@@ -235,7 +239,7 @@ public class InternalEngineHolder extends AbstractIndexShardComponent implements
         return new InternalEngine(shardId, logger, codecService, threadPool, indexingService,
                 warmer, store, deletionPolicy, translog, mergePolicyProvider, mergeScheduler, analysisService, similarityService,
                 enableGcDeletes, gcDeletesInMillis,
-                indexingBufferSize, codecName, compoundOnFlush, indexConcurrency, optimizeAutoGenerateId, failEngineOnCorruption, this);
+                indexingBufferSize, codecName, compoundOnFlush, indexConcurrency, optimizeAutoGenerateId, failEngineOnCorruption, packedVersionMap, this);
     }
 
     @Override
@@ -263,6 +267,11 @@ public class InternalEngineHolder extends AbstractIndexShardComponent implements
         return engineSafe().get(get);
     }
 
+    @Override
+    public PreloadedVersions preloadVersions(Term[] uids) throws EngineException {
+        return engineSafe().preloadVersions(uids);
+    }
+
     @Override
     public Searcher acquireSearcher(String source) throws EngineException {
         return engineSafe().acquireSearcher(source);
@@ -24,6 +24,7 @@ import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.BytesRef;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.index.translog.Translog;
 
 import java.io.IOException;
 import java.util.Collection;
@@ -31,8 +32,8 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicLong;
 
-/** Maps _uid value to its version information. */
-class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
+/** Maps _uid value to its version information, keeping a {@link BytesRef} and a {@link VersionValue} per uid. */
+class LiveVersionMap implements VersionMap {
 
     private static class Maps {
 
@@ -87,7 +88,8 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
     final AtomicLong ramBytesUsedTombstones = new AtomicLong();
 
     /** Sync'd because we replace old mgr. */
-    synchronized void setManager(ReferenceManager newMgr) {
+    @Override
+    public synchronized void setManager(ReferenceManager newMgr) {
         if (mgr != null) {
             mgr.removeListener(this);
         }
@@ -125,8 +127,8 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
         maps = new Maps(maps.current, ConcurrentCollections.<BytesRef,VersionValue>newConcurrentMapWithAggressiveConcurrency());
     }
 
-    /** Returns the live version (add or delete) for this uid. */
-    VersionValue getUnderLock(BytesRef uid) {
+    @Override
+    public VersionValue getUnderLock(BytesRef uid) {
         Maps currentMaps = maps;
 
         // First try to get the "live" value:
@@ -143,6 +145,26 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
         return tombstones.get(uid);
     }
 
+    @Override
+    public boolean getUnderLock(BytesRef uid, VersionLookup lookup) {
+        VersionValue value = getUnderLock(uid);
+        if (value == null) {
+            return false;
+        }
+        lookup.set(value.version(), value.delete(), value.delete() ? value.time() : -1);
+        return true;
+    }
+
+    @Override
+    public void putUnderLock(BytesRef uid, long version, Translog.Location translogLocation) {
+        putUnderLock(uid, new VersionValue(version, translogLocation));
+    }
+
+    @Override
+    public void putDeleteUnderLock(BytesRef uid, long version, long time, Translog.Location translogLocation) {
+        putUnderLock(uid, new DeleteVersionValue(version, time, translogLocation));
+    }
+
     /** Adds this uid/version to the pending adds map. */
     void putUnderLock(BytesRef uid, VersionValue version) {
 
@@ -192,8 +214,8 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
         }
     }
 
-    /** Removes this uid from the pending deletes map. */
-    void removeTombstoneUnderLock(BytesRef uid) {
+    @Override
+    public void removeTombstoneUnderLock(BytesRef uid) {
 
         long uidRAMBytesUsed = BASE_BYTES_PER_BYTESREF + uid.bytes.length;
 
@@ -212,18 +234,18 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
         }
     }
 
-    /** Caller has a lock, so that this uid will not be concurrently added/deleted by another thread. */
-    VersionValue getTombstoneUnderLock(BytesRef uid) {
+    @Override
+    public VersionValue getTombstoneUnderLock(BytesRef uid) {
         return tombstones.get(uid);
     }
 
-    /** Iterates over all deleted versions, including new ones (not yet exposed via reader) and old ones (exposed via reader but not yet GC'd). */
-    Iterable<Map.Entry<BytesRef,VersionValue>> getAllTombstones() {
-        return tombstones.entrySet();
+    @Override
+    public Iterable<BytesRef> getAllTombstones() {
+        return tombstones.keySet();
     }
 
-    /** Called when this index is closed. */
-    synchronized void clear() {
+    @Override
+    public synchronized void clear() {
         maps = new Maps();
         tombstones.clear();
         ramBytesUsedCurrent.set(0);
@@ -244,9 +266,8 @@ class LiveVersionMap implements ReferenceManager.RefreshListener, Accountable {
         return ramBytesUsedCurrent.get() + ramBytesUsedTombstones.get();
     }
 
-    /** Returns how much RAM would be freed up by refreshing. This is {@link ramBytesUsed} except does not include tombstones because they
-     *  don't clear on refresh. */
-    long ramBytesUsedForRefresh() {
+    @Override
+    public long ramBytesUsedForRefresh() {
         return ramBytesUsedCurrent.get();
     }
 
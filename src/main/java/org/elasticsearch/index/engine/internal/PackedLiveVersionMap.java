@@ -0,0 +1,435 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine.internal;
+
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.BytesRefHash;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.common.util.LongArray;
+import org.elasticsearch.index.translog.Translog;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A {@link VersionMap} that keeps uids and their version information in paged arrays of primitives rather than in a
+ * {@link BytesRef} and a {@link VersionValue} object per uid. Uids are stored in open addressing {@link BytesRefHash}es
+ * and the version, delete time and translog location of each uid are stored in parallel arrays indexed by the uid's
+ * id in the hash. The map is split into segments, each guarded by its own lock, so concurrent indexing of different uids
+ * rarely contends.
+ * <p/>
+ * The current and old tables are dropped as a whole on refresh. Tombstones are marked as removed when pruned and the
+ * tombstones table is rebuilt once more than half of a large enough table is removed entries.
+ */
+final class PackedLiveVersionMap implements VersionMap {
+
+    private static final int SEGMENTS = 16;
+    // don't bother rebuilding small tombstone tables
+    private static final long MIN_REMOVED_TO_COMPACT = 1024;
+
+    private final BigArrays bigArrays;
+    private final Segment[] segments;
+
+    private ReferenceManager mgr;
+
+    PackedLiveVersionMap(BigArrays bigArrays) {
+        this.bigArrays = bigArrays;
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < segments.length; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+    private Segment segment(int code) {
+        return segments[code & (SEGMENTS - 1)];
+    }
+
+    /** Sync'd because we replace old mgr. */
+    @Override
+    public synchronized void setManager(ReferenceManager newMgr) {
+        if (mgr != null) {
+            mgr.removeListener(this);
+        }
+        mgr = newMgr;
+
+        // In case InternalEngine closes & opens a new IndexWriter/SearcherManager, all deletes are made visible, so we clear old and
+        // current here.  This is safe because caller holds writeLock here (so no concurrent adds/deletes can be happening):
+        for (Segment segment : segments) {
+            segment.clearCurrentAndOld();
+        }
+
+        // So we are notified when reopen starts and finishes
+        mgr.addListener(this);
+    }
+
+    @Override
+    public void beforeRefresh() throws IOException {
+        // Start sending all updates after this point to a new current table, lookups try current, then old, then the searcher:
+        for (Segment segment : segments) {
+            segment.beforeRefresh();
+        }
+    }
+
+    @Override
+    public void afterRefresh(boolean didRefresh) throws IOException {
+        // Operations in old are now visible via the newly opened searcher, see LiveVersionMap#afterRefresh for why it is safe to drop
+        // old even if didRefresh is false:
+        for (Segment segment : segments) {
+            segment.afterRefresh();
+        }
+    }
+
+    @Override
+    public VersionValue getUnderLock(BytesRef uid) {
+        final int code = uid.hashCode();
+        return segment(code).get(uid, code);
+    }
+
+    @Override
+    public boolean getUnderLock(BytesRef uid, VersionLookup lookup) {
+        final int code = uid.hashCode();
+        return segment(code).get(uid, code, lookup);
+    }
+
+    @Override
+    public void putUnderLock(BytesRef uid, long version, Translog.Location translogLocation) {
+        final int code = uid.hashCode();
+        segment(code).put(uid, code, version, -1, translogLocation);
+    }
+
+    @Override
+    public void putDeleteUnderLock(BytesRef uid, long version, long time, Translog.Location translogLocation) {
+        assert time >= 0 : "time=" + time;
+        final int code = uid.hashCode();
+        segment(code).put(uid, code, version, time, translogLocation);
+    }
+
+    @Override
+    public void removeTombstoneUnderLock(BytesRef uid) {
+        final int code = uid.hashCode();
+        segment(code).removeTombstone(uid, code);
+    }
+
+    @Override
+    public VersionValue getTombstoneUnderLock(BytesRef uid) {
+        final int code = uid.hashCode();
+        return segment(code).getTombstone(uid, code);
+    }
+
+    @Override
+    public Iterable<BytesRef> getAllTombstones() {
+        List<BytesRef> uids = new ArrayList<>();
+        for (Segment segment : segments) {
+            segment.addTombstoneUids(uids);
+        }
+        return uids;
+    }
+
+    @Override
+    public synchronized void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        if (mgr != null) {
+            mgr.removeListener(this);
+            mgr = null;
+        }
+    }
+
+    @Override
+    public long ramBytesUsed() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.ramBytesUsedCurrent + segment.ramBytesUsedOld + segment.ramBytesUsedTombstones;
+        }
+        return bytes;
+    }
+
+    @Override
+    public long ramBytesUsedForRefresh() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.ramBytesUsedCurrent;
+        }
+        return bytes;
+    }
+
+    @Override
+    public Collection<Accountable> getChildResources() {
+        return Collections.emptyList();
+    }
+
+    private final class Segment {
+
+        // All writes (adds and deletes) go into here, null until the first write after a refresh:
+        private Table current;
+        // Used while refresh is running, we read from both current and old on lookup:
+        private Table old;
+        // All deletes also go here, and delete tombstones are retained after refresh:
+        private Table tombstones;
+
+        volatile long ramBytesUsedCurrent;
+        volatile long ramBytesUsedOld;
+        volatile long ramBytesUsedTombstones;
+
+        synchronized boolean get(BytesRef uid, int code, VersionLookup lookup) {
+            return (current != null && current.get(uid, code, lookup))
+                    || (old != null && old.get(uid, code, lookup))
+                    || (tombstones != null && tombstones.get(uid, code, lookup));
+        }
+
+        synchronized VersionValue get(BytesRef uid, int code) {
+            VersionValue value = current == null ? null : current.get(uid, code);
+            if (value == null && old != null) {
+                value = old.get(uid, code);
+            }
+            if (value == null && tombstones != null) {
+                value = tombstones.get(uid, code);
+            }
+            return value;
+        }
+
+        synchronized VersionValue getTombstone(BytesRef uid, int code) {
+            return tombstones == null ? null : tombstones.get(uid, code);
+        }
+
+        synchronized void put(BytesRef uid, int code, long version, long time, Translog.Location location) {
+            if (current == null) {
+                current = new Table(bigArrays);
+            }
+            current.put(uid, code, version, time, location);
+            ramBytesUsedCurrent = current.ramBytesUsed();
+            if (time >= 0) {
+                if (tombstones == null) {
+                    tombstones = new Table(bigArrays);
+                }
+                tombstones.put(uid, code, version, time, location);
+                ramBytesUsedTombstones = tombstones.ramBytesUsed();
+            } else if (tombstones != null) {
+                // UID came back to life so we remove the tombstone:
+                removeTombstone(uid, code);
+            }
+        }
+
+        synchronized void removeTombstone(BytesRef uid, int code) {
+            if (tombstones != null && tombstones.remove(uid, code)) {
+                if (tombstones.size() == 0) {
+                    Releasables.close(tombstones);
+                    tombstones = null;
+                } else if (tombstones.removed > Math.max(tombstones.size(), MIN_REMOVED_TO_COMPACT)) {
+                    Table compacted = tombstones.compact();
+                    Releasables.close(tombstones);
+                    tombstones = compacted;
+                }
+                ramBytesUsedTombstones = tombstones == null ? 0 : tombstones.ramBytesUsed();
+            }
+        }
+
+        synchronized void addTombstoneUids(List<BytesRef> uids) {
+            if (tombstones != null) {
+                tombstones.addUids(uids);
+            }
+        }
+
+        synchronized void beforeRefresh() {
+            Releasables.close(old);
+            old = current;
+            current = null;
+            ramBytesUsedOld = ramBytesUsedCurrent;
+            ramBytesUsedCurrent = 0;
+        }
+
+        synchronized void afterRefresh() {
+            Releasables.close(old);
+            old = null;
+            ramBytesUsedOld = 0;
+        }
+
+        synchronized void clearCurrentAndOld() {
+            Releasables.close(current, old);
+            current = null;
+            old = null;
+            ramBytesUsedCurrent = 0;
+            ramBytesUsedOld = 0;
+        }
+
+        synchronized void clear() {
+            clearCurrentAndOld();
+            Releasables.close(tombstones);
+            tombstones = null;
+            ramBytesUsedTombstones = 0;
+        }
+    }
+
+    /**
+     * Version information of a set of uids, stored column-wise by the id of the uid in the hash. Not thread-safe.
+     */
+    private static final class Table implements Releasable {
+
+        private static final long INITIAL_CAPACITY = 16;
+        // marks the version of an entry that was removed, the uid stays in the hash
+        private static final long REMOVED = Long.MIN_VALUE;
+
+        private final BigArrays bigArrays;
+        private final BytesRefHash uids;
+        private LongArray versions;
+        // the time of deletes, -1 for adds
+        private LongArray times;
+        private LongArray translogIds;
+        private LongArray translogPositions;
+        private IntArray translogSizes;
+        private final BytesRef spare = new BytesRef();
+
+        long removed;
+
+        Table(BigArrays bigArrays) {
+            this.bigArrays = bigArrays;
+            boolean success = false;
+            try {
+                uids = new BytesRefHash(INITIAL_CAPACITY, bigArrays);
+                versions = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+                times = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+                translogIds = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+                translogPositions = bigArrays.newLongArray(INITIAL_CAPACITY, false);
+                translogSizes = bigArrays.newIntArray(INITIAL_CAPACITY, false);
+                success = true;
+            } finally {
+                if (success == false) {
+                    close();
+                }
+            }
+        }
+
+        /** The number of entries that are not removed. */
+        long size() {
+            return uids.size() - removed;
+        }
+
+        private long find(BytesRef uid, int code) {
+            final long id = uids.find(uid, code);
+            if (id >= 0 && versions.get(id) == REMOVED) {
+                return -1;
+            }
+            return id;
+        }
+
+        boolean get(BytesRef uid, int code, VersionLookup lookup) {
+            final long id = find(uid, code);
+            if (id < 0) {
+                return false;
+            }
+            final long time = times.get(id);
+            lookup.set(versions.get(id), time >= 0, time);
+            return true;
+        }
+
+        VersionValue get(BytesRef uid, int code) {
+            final long id = find(uid, code);
+            return id < 0 ? null : value(id);
+        }
+
+        private VersionValue value(long id) {
+            final Translog.Location location = new Translog.Location(translogIds.get(id), translogPositions.get(id), translogSizes.get(id));
+            final long time = times.get(id);
+            if (time >= 0) {
+                return new DeleteVersionValue(versions.get(id), time, location);
+            }
+            return new VersionValue(versions.get(id), location);
+        }
+
+        void put(BytesRef uid, int code, long version, long time, Translog.Location location) {
+            long id = uids.add(uid, code);
+            if (id < 0) {
+                id = -1 - id;
+                if (versions.get(id) == REMOVED) {
+                    removed--;
+                }
+            } else {
+                versions = bigArrays.grow(versions, id + 1);
+                times = bigArrays.grow(times, id + 1);
+                translogIds = bigArrays.grow(translogIds, id + 1);
+                translogPositions = bigArrays.grow(translogPositions, id + 1);
+                translogSizes = bigArrays.grow(translogSizes, id + 1);
+            }
+            versions.set(id, version);
+            times.set(id, time);
+            translogIds.set(id, location.translogId);
+            translogPositions.set(id, location.translogLocation);
+            translogSizes.set(id, location.size);
+        }
+
+        boolean remove(BytesRef uid, int code) {
+            final long id = find(uid, code);
+            if (id < 0) {
+                return false;
+            }
+            versions.set(id, REMOVED);
+            removed++;
+            return true;
+        }
+
+        void addUids(List<BytesRef> dest) {
+            for (long id = 0; id < uids.size(); id++) {
+                if (versions.get(id) != REMOVED) {
+                    dest.add(BytesRef.deepCopyOf(uids.get(id, spare)));
+                }
+            }
+        }
+
+        /** Returns a copy of this table without the removed entries. */
+        Table compact() {
+            Table compacted = new Table(bigArrays);
+            boolean success = false;
+            try {
+                for (long id = 0; id < uids.size(); id++) {
+                    if (versions.get(id) != REMOVED) {
+                        BytesRef uid = uids.get(id, spare);
+                        compacted.put(uid, uid.hashCode(), versions.get(id), times.get(id),
+                                new Translog.Location(translogIds.get(id), translogPositions.get(id), translogSizes.get(id)));
+                    }
+                }
+                success = true;
+                return compacted;
+            } finally {
+                if (success == false) {
+                    compacted.close();
+                }
+            }
+        }
+
+        long ramBytesUsed() {
+            return uids.ramBytesUsed() + versions.ramBytesUsed() + times.ramBytesUsed() + translogIds.ramBytesUsed()
+                    + translogPositions.ramBytesUsed() + translogSizes.ramBytesUsed();
+        }
+
+        @Override
+        public void close() {
+            Releasables.close(uids, versions, times, translogIds, translogPositions, translogSizes);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.engine.internal;
+
+/**
+ * A mutable view of the version information a {@link VersionMap} holds for a uid. Indexing operations fill a
+ * reused instance instead of retrieving a {@link VersionValue}, so version checks don't allocate.
+ */
+final class VersionLookup {
+
+    private long version;
+    private boolean delete;
+    private long time;
+
+    void set(long version, boolean delete, long time) {
+        this.version = version;
+        this.delete = delete;
+        this.time = time;
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public boolean delete() {
+        return delete;
+    }
+
+    /** The time of the delete, only available for deletes. */
+    public long time() {
+        if (delete == false) {
+            throw new UnsupportedOperationException();
+        }
+        return time;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.index.engine.internal;
+
+import org.apache.lucene.search.ReferenceManager;
+import org.apache.lucene.util.Accountable;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.index.translog.Translog;
+
+/**
+ * Maps _uid value to its version information for uids that were indexed or deleted since the last refresh, and
+ * keeps delete tombstones until they are pruned. Callers hold the uid's dirty lock for all <tt>*UnderLock</tt> methods.
+ */
+interface VersionMap extends ReferenceManager.RefreshListener, Accountable {
+
+    /** Sets the searcher manager whose refreshes clear the map, all pending adds and deletes are dropped. */
+    void setManager(ReferenceManager newMgr);
+
+    /** Returns the live version (add or delete) for this uid, or <tt>null</tt> if the map has no version for it. */
+    VersionValue getUnderLock(BytesRef uid);
+
+    /**
+     * Copies the live version (add or delete) for this uid into the given lookup, without allocating.
+     * Returns <tt>false</tt> if the map has no version for it.
+     */
+    boolean getUnderLock(BytesRef uid, VersionLookup lookup);
+
+    /** Adds this uid/version to the pending adds map. */
+    void putUnderLock(BytesRef uid, long version, Translog.Location translogLocation);
+
+    /** Adds this uid/version to the pending deletes, and enrolls it as a tombstone. */
+    void putDeleteUnderLock(BytesRef uid, long version, long time, Translog.Location translogLocation);
+
+    /** Removes this uid from the pending deletes map. */
+    void removeTombstoneUnderLock(BytesRef uid);
+
+    /** Caller has a lock, so that this uid will not be concurrently added/deleted by another thread. */
+    VersionValue getTombstoneUnderLock(BytesRef uid);
+
+    /** Returns the uids of all deleted versions, including new ones (not yet exposed via reader) and old ones (exposed via reader but not yet GC'd). */
+    Iterable<BytesRef> getAllTombstones();
+
+    /** Called when this index is closed. */
+    void clear();
+
+    /** Returns how much RAM would be freed up by refreshing. This is {@link #ramBytesUsed} except does not include tombstones because they
+     *  don't clear on refresh. */
+    long ramBytesUsedForRefresh();
+}
@@ -33,6 +33,17 @@ public interface IndexFieldDataCache {
 
     <FD extends AtomicFieldData, IFD extends IndexFieldData.Global<FD>> IFD load(final IndexReader indexReader, final IFD indexFieldData) throws Exception;
 
+    /**
+     * Whether global field data for the given top level reader is cached, without loading it.
+     */
+    boolean isLoaded(IndexReader indexReader);
+
+    /**
+     * Records a search of the given top level reader while its global field data isn't loaded, and returns the number
+     * of such searches so far, this one included.
+     */
+    long onSearchWithoutGlobal(IndexReader indexReader);
+
     /**
      * Clears all the field data stored cached in on this index.
      */
@@ -65,6 +76,17 @@ public interface IndexFieldDataCache {
             return (IFD) indexFieldData.localGlobalDirect(indexReader);
         }
 
+        @Override
+        public boolean isLoaded(IndexReader indexReader) {
+            return false;
+        }
+
+        @Override
+        public long onSearchWithoutGlobal(IndexReader indexReader) {
+            // global field data would be built again by every search that needs it, it never pays off
+            return 0;
+        }
+
         @Override
         public void clear() {
         }
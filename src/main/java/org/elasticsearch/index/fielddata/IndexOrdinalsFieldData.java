@@ -39,4 +39,16 @@ public interface IndexOrdinalsFieldData extends IndexFieldData.Global<AtomicOrdi
      */
     IndexOrdinalsFieldData localGlobalDirect(IndexReader indexReader) throws Exception;
 
+    /**
+     * Whether {@link #loadGlobal(IndexReader)} would return global ordinals for the given {@link IndexReader} without
+     * having to build them.
+     */
+    boolean isGlobalLoaded(IndexReader indexReader);
+
+    /**
+     * Records a search of the given {@link IndexReader} while global ordinals aren't loaded for it, see
+     * {@link #isGlobalLoaded(IndexReader)}, and returns the number of such searches so far, this one included.
+     */
+    long onSearchWithoutGlobal(IndexReader indexReader);
+
 }
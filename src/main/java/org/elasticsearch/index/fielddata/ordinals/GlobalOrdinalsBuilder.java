@@ -23,6 +23,7 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.MultiDocValues.OrdinalMap;
 import org.apache.lucene.index.RandomAccessOrds;
 import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.settings.Settings;
@@ -39,9 +40,11 @@ public enum GlobalOrdinalsBuilder {
     ;
 
     /**
-     * Build global ordinals for the provided {@link IndexReader}.
+     * Build global ordinals for the provided {@link IndexReader}, reusing the ordinal map that was built for a reader with
+     * the same segments if there is one in the given {@link ReusableOrdinalMaps}.
      */
-    public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData, Settings settings, CircuitBreakerService breakerService, ESLogger logger) throws IOException {
+    public static IndexOrdinalsFieldData build(final IndexReader indexReader, IndexOrdinalsFieldData indexFieldData, Settings settings, CircuitBreakerService breakerService, ESLogger logger,
+                                               @Nullable ReusableOrdinalMaps reusableOrdinalMaps) throws IOException {
         assert indexReader.leaves().size() > 1;
         long startTime = System.currentTimeMillis();
 
@@ -51,16 +54,25 @@ public enum GlobalOrdinalsBuilder {
             atomicFD[i] = indexFieldData.load(indexReader.leaves().get(i));
             subs[i] = atomicFD[i].getOrdinalsValues();
         }
-        final OrdinalMap ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+        OrdinalMap ordinalMap = reusableOrdinalMaps == null ? null : reusableOrdinalMaps.get(indexReader);
+        final boolean reused = ordinalMap != null;
+        if (ordinalMap == null) {
+            ordinalMap = OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+            if (reusableOrdinalMaps != null) {
+                reusableOrdinalMaps.put(indexReader, ordinalMap);
+            }
+        }
+        // a reused ordinal map is accounted for once per global ordinals instance, since each one releases it when evicted
         final long memorySizeInBytes = ordinalMap.ramBytesUsed();
         breakerService.getBreaker(CircuitBreaker.Name.FIELDDATA).addWithoutBreaking(memorySizeInBytes);
 
         if (logger.isDebugEnabled()) {
             logger.debug(
-                    "Global-ordinals[{}][{}] took {} ms",
+                    "Global-ordinals[{}][{}] took {} ms{}",
                     indexFieldData.getFieldNames().fullName(),
                     ordinalMap.getValueCount(),
-                    (System.currentTimeMillis() - startTime)
+                    (System.currentTimeMillis() - startTime),
+                    reused ? ", reused the ordinal map of the previous reader" : ""
             );
         }
         return new InternalGlobalOrdinalsIndexFieldData(indexFieldData.index(), settings, indexFieldData.getFieldNames(),
@@ -62,6 +62,16 @@ public abstract class GlobalOrdinalsIndexFieldData extends AbstractIndexComponen
         return this;
     }
 
+    @Override
+    public boolean isGlobalLoaded(IndexReader indexReader) {
+        return true;
+    }
+
+    @Override
+    public long onSearchWithoutGlobal(IndexReader indexReader) {
+        throw new UnsupportedOperationException("global ordinals are loaded already");
+    }
+
     @Override
     public IndexOrdinalsFieldData localGlobalDirect(IndexReader indexReader) throws Exception {
         return this;
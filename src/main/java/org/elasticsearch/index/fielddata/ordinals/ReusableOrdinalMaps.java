@@ -0,0 +1,123 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.MultiDocValues.OrdinalMap;
+import org.elasticsearch.common.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Remembers the {@link OrdinalMap}s that were built for the top level readers of a field, so that the global ordinals
+ * of a new top level reader with the same segments, like after a refresh that only deleted documents, reuse them
+ * instead of being built again. The mapping of the ordinals of a segment only depends on the terms of the segments,
+ * which don't change with deletes.
+ * <p/>
+ * Both the ordinal maps and the segments are weakly referenced, an ordinal map can only be reused as long as the global
+ * ordinals it was built for are cached.
+ */
+public final class ReusableOrdinalMaps {
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /**
+     * The ordinal map that was built for a reader with the same segments, in the same order, as the given reader, or
+     * <tt>null</tt> if there is none.
+     */
+    @Nullable
+    public synchronized OrdinalMap get(IndexReader reader) {
+        for (Iterator<Entry> it = entries.iterator(); it.hasNext(); ) {
+            final Entry entry = it.next();
+            final OrdinalMap ordinalMap = entry.ordinalMap.get();
+            if (ordinalMap == null) {
+                it.remove();
+            } else if (entry.sameSegments(reader)) {
+                return ordinalMap;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remembers the ordinal map that was built for the given reader. Ordinal maps of readers that share segments with
+     * it, which are older readers of the same shard, are forgotten.
+     */
+    public synchronized void put(IndexReader reader, OrdinalMap ordinalMap) {
+        for (Iterator<Entry> it = entries.iterator(); it.hasNext(); ) {
+            final Entry entry = it.next();
+            if (entry.ordinalMap.get() == null || entry.sharesSegments(reader)) {
+                it.remove();
+            }
+        }
+        entries.add(new Entry(reader, ordinalMap));
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private static final class Entry {
+
+        private final WeakReference<OrdinalMap> ordinalMap;
+        private final List<WeakReference<Object>> coreCacheKeys;
+
+        Entry(IndexReader reader, OrdinalMap ordinalMap) {
+            this.ordinalMap = new WeakReference<>(ordinalMap);
+            this.coreCacheKeys = new ArrayList<>(reader.leaves().size());
+            for (LeafReaderContext context : reader.leaves()) {
+                coreCacheKeys.add(new WeakReference<>(context.reader().getCoreCacheKey()));
+            }
+        }
+
+        boolean sameSegments(IndexReader reader) {
+            final List<LeafReaderContext> leaves = reader.leaves();
+            if (leaves.size() != coreCacheKeys.size()) {
+                return false;
+            }
+            for (int i = 0; i < leaves.size(); i++) {
+                if (coreCacheKeys.get(i).get() != leaves.get(i).reader().getCoreCacheKey()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        boolean sharesSegments(IndexReader reader) {
+            for (LeafReaderContext context : reader.leaves()) {
+                final Object coreCacheKey = context.reader().getCoreCacheKey();
+                for (WeakReference<Object> ref : coreCacheKeys) {
+                    if (ref.get() == coreCacheKey) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import org.elasticsearch.index.fielddata.*;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
 import org.elasticsearch.index.fielddata.fieldcomparator.BytesRefFieldComparatorSource;
 import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsBuilder;
+import org.elasticsearch.index.fielddata.ordinals.ReusableOrdinalMaps;
 import org.elasticsearch.index.mapper.FieldMapper.Names;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
 import org.elasticsearch.search.MultiValueMode;
@@ -43,6 +44,7 @@ public abstract class AbstractIndexOrdinalsFieldData extends AbstractIndexFieldD
     protected Settings frequency;
     protected Settings regex;
     protected final CircuitBreakerService breakerService;
+    private final ReusableOrdinalMaps reusableOrdinalMaps = new ReusableOrdinalMaps();
 
     protected AbstractIndexOrdinalsFieldData(Index index, Settings indexSettings, Names fieldNames, FieldDataType fieldDataType,
                                           IndexFieldDataCache cache, CircuitBreakerService breakerService) {
@@ -58,6 +60,12 @@ public abstract class AbstractIndexOrdinalsFieldData extends AbstractIndexFieldD
         return new BytesRefFieldComparatorSource(this, missingValue, sortMode, nested);
     }
 
+    @Override
+    public void clear() {
+        super.clear();
+        reusableOrdinalMaps.clear();
+    }
+
     @Override
     public IndexOrdinalsFieldData loadGlobal(IndexReader indexReader) {
         if (indexReader.leaves().size() <= 1) {
@@ -75,9 +83,20 @@ public abstract class AbstractIndexOrdinalsFieldData extends AbstractIndexFieldD
         }
     }
 
+    @Override
+    public boolean isGlobalLoaded(IndexReader indexReader) {
+        // ordinals of a single segment are already global
+        return indexReader.leaves().size() <= 1 || cache.isLoaded(indexReader);
+    }
+
+    @Override
+    public long onSearchWithoutGlobal(IndexReader indexReader) {
+        return cache.onSearchWithoutGlobal(indexReader);
+    }
+
     @Override
     public IndexOrdinalsFieldData localGlobalDirect(IndexReader indexReader) throws Exception {
-        return GlobalOrdinalsBuilder.build(indexReader, this, indexSettings, breakerService, logger);
+        return GlobalOrdinalsBuilder.build(indexReader, this, indexSettings, breakerService, logger, reusableOrdinalMaps);
     }
 
     protected TermsEnum filter(Terms terms, LeafReader reader) throws IOException {
@@ -131,6 +131,11 @@ public class IndexIndexFieldData extends AbstractIndexOrdinalsFieldData {
         return this;
     }
 
+    @Override
+    public boolean isGlobalLoaded(IndexReader indexReader) {
+        return true;
+    }
+
     @Override
     public IndexOrdinalsFieldData localGlobalDirect(IndexReader indexReader) throws Exception {
         return loadGlobal(indexReader);
@@ -28,6 +28,7 @@ import org.elasticsearch.index.fielddata.*;
 import org.elasticsearch.index.fielddata.IndexFieldData.XFieldComparatorSource.Nested;
 import org.elasticsearch.index.fielddata.fieldcomparator.BytesRefFieldComparatorSource;
 import org.elasticsearch.index.fielddata.ordinals.GlobalOrdinalsBuilder;
+import org.elasticsearch.index.fielddata.ordinals.ReusableOrdinalMaps;
 import org.elasticsearch.index.mapper.FieldMapper.Names;
 import org.elasticsearch.search.MultiValueMode;
 import org.elasticsearch.indices.breaker.CircuitBreakerService;
@@ -37,6 +38,7 @@ public class SortedSetDVOrdinalsIndexFieldData extends DocValuesIndexFieldData i
     private final Settings indexSettings;
     private final IndexFieldDataCache cache;
     private final CircuitBreakerService breakerService;
+    private final ReusableOrdinalMaps reusableOrdinalMaps = new ReusableOrdinalMaps();
 
     public SortedSetDVOrdinalsIndexFieldData(Index index, IndexFieldDataCache cache, Settings indexSettings, Names fieldNames, CircuitBreakerService breakerService, FieldDataType fieldDataType) {
         super(index, fieldNames, fieldDataType);
@@ -76,8 +78,19 @@ public class SortedSetDVOrdinalsIndexFieldData extends DocValuesIndexFieldData i
         }
     }
 
+    @Override
+    public boolean isGlobalLoaded(IndexReader indexReader) {
+        // ordinals of a single segment are already global
+        return indexReader.leaves().size() <= 1 || cache.isLoaded(indexReader);
+    }
+
+    @Override
+    public long onSearchWithoutGlobal(IndexReader indexReader) {
+        return cache.onSearchWithoutGlobal(indexReader);
+    }
+
     @Override
     public IndexOrdinalsFieldData localGlobalDirect(IndexReader indexReader) throws Exception {
-        return GlobalOrdinalsBuilder.build(indexReader, this, indexSettings, breakerService, logger);
+        return GlobalOrdinalsBuilder.build(indexReader, this, indexSettings, breakerService, logger, reusableOrdinalMaps);
     }
 }
@@ -28,7 +28,6 @@ import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.ExceptionsHelper;
 import org.elasticsearch.cluster.action.index.MappingUpdatedAction;
 import org.elasticsearch.common.inject.Inject;
-import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
@@ -51,9 +50,11 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.io.Closeable;
 import java.io.EOFException;
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Arrays;
 import java.util.Set;
 import java.util.concurrent.CountDownLatch;
@@ -233,27 +234,31 @@ public class IndexShardGateway extends AbstractIndexShardComponent implements Cl
 
             recoveryState.getTranslog().startTime(System.currentTimeMillis());
             recoveryState.setStage(RecoveryState.Stage.TRANSLOG);
-            StreamInput in = null;
+            FileChannel channel = null;
 
             try {
                 logger.trace("recovering translog file: {} length: {}", recoveringTranslogFile, Files.size(recoveringTranslogFile));
                 TranslogStream stream = TranslogStreams.translogStreamFor(recoveringTranslogFile);
+                BufferedTranslogReader reader = null;
                 try {
-                    in = stream.openInput(recoveringTranslogFile);
+                    // validates the header, operations are then read in bulk straight from the channel
+                    IOUtils.close(stream.openInput(recoveringTranslogFile));
+                    channel = FileChannel.open(recoveringTranslogFile, StandardOpenOption.READ);
+                    reader = new BufferedTranslogReader(channel, stream, stream.headerLength(), channel.size(), BufferedTranslogReader.DEFAULT_BUFFER_SIZE);
                 } catch (TruncatedTranslogException e) {
                     // file is empty or header has been half-written and should be ignored
                     logger.trace("ignoring truncation exception, the translog is either empty or half-written", e);
                 }
                 while (true) {
-                    if (in == null) {
+                    if (reader == null) {
                         break;
                     }
                     Translog.Operation operation;
                     try {
-                        if (stream instanceof LegacyTranslogStream) {
-                            in.readInt(); // ignored opSize
+                        operation = reader.next();
+                        if (operation == null) {
+                            break;
                         }
-                        operation = stream.read(in);
                     } catch (EOFException e) {
                         // ignore, not properly written the last op
                         logger.trace("ignoring translog EOF exception, the last operation was not properly written", e);
@@ -271,6 +276,7 @@ public class IndexShardGateway extends AbstractIndexShardComponent implements Cl
                             }
                         }
                         recoveryState.getTranslog().addTranslogOperations(1);
+                        recoveryState.getTranslog().addTranslogBytes(reader.lastOperationSize());
                     } catch (ElasticsearchException e) {
                         if (e.status() == RestStatus.BAD_REQUEST) {
                             // mainly for MapperParsingException and Failure to detect xcontent
@@ -284,7 +290,7 @@ public class IndexShardGateway extends AbstractIndexShardComponent implements Cl
                 IOUtils.closeWhileHandlingException(indexShard.translog());
                 throw new IndexShardGatewayRecoveryException(shardId, "failed to recover shard", e);
             } finally {
-                IOUtils.closeWhileHandlingException(in);
+                IOUtils.closeWhileHandlingException(channel);
             }
             indexShard.performRecoveryFinalization(true);
 
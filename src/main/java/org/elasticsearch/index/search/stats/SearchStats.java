@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.search.stats;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -47,21 +48,32 @@ public class SearchStats implements Streamable, ToXContent {
         private long fetchTimeInMillis;
         private long fetchCurrent;
 
+        private long querySliceCount;
+        private long querySliceTimeInMillis;
+
         Stats() {
 
         }
 
         public Stats(long queryCount, long queryTimeInMillis, long queryCurrent, long fetchCount, long fetchTimeInMillis, long fetchCurrent) {
+            this(queryCount, queryTimeInMillis, queryCurrent, fetchCount, fetchTimeInMillis, fetchCurrent, 0, 0);
+        }
+
+        public Stats(long queryCount, long queryTimeInMillis, long queryCurrent, long fetchCount, long fetchTimeInMillis, long fetchCurrent,
+                     long querySliceCount, long querySliceTimeInMillis) {
             this.queryCount = queryCount;
             this.queryTimeInMillis = queryTimeInMillis;
             this.queryCurrent = queryCurrent;
             this.fetchCount = fetchCount;
             this.fetchTimeInMillis = fetchTimeInMillis;
             this.fetchCurrent = fetchCurrent;
+            this.querySliceCount = querySliceCount;
+            this.querySliceTimeInMillis = querySliceTimeInMillis;
         }
 
         public Stats(Stats stats) {
-            this(stats.queryCount, stats.queryTimeInMillis, stats.queryCurrent, stats.fetchCount, stats.fetchTimeInMillis, stats.fetchCurrent);
+            this(stats.queryCount, stats.queryTimeInMillis, stats.queryCurrent, stats.fetchCount, stats.fetchTimeInMillis, stats.fetchCurrent,
+                    stats.querySliceCount, stats.querySliceTimeInMillis);
         }
 
         public void add(Stats stats) {
@@ -72,6 +84,9 @@ public class SearchStats implements Streamable, ToXContent {
             fetchCount += stats.fetchCount;
             fetchTimeInMillis += stats.fetchTimeInMillis;
             fetchCurrent += stats.fetchCurrent;
+
+            querySliceCount += stats.querySliceCount;
+            querySliceTimeInMillis += stats.querySliceTimeInMillis;
         }
 
         public long getQueryCount() {
@@ -106,6 +121,21 @@ public class SearchStats implements Streamable, ToXContent {
             return fetchCurrent;
         }
 
+        /**
+         * The number of slices searched by query phases that searched their shard concurrently.
+         */
+        public long getQuerySliceCount() {
+            return querySliceCount;
+        }
+
+        public TimeValue getQuerySliceTime() {
+            return new TimeValue(querySliceTimeInMillis);
+        }
+
+        public long getQuerySliceTimeInMillis() {
+            return querySliceTimeInMillis;
+        }
+
 
         public static Stats readStats(StreamInput in) throws IOException {
             Stats stats = new Stats();
@@ -122,6 +152,11 @@ public class SearchStats implements Streamable, ToXContent {
             fetchCount = in.readVLong();
             fetchTimeInMillis = in.readVLong();
             fetchCurrent = in.readVLong();
+
+            if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+                querySliceCount = in.readVLong();
+                querySliceTimeInMillis = in.readVLong();
+            }
         }
 
         @Override
@@ -133,6 +168,11 @@ public class SearchStats implements Streamable, ToXContent {
             out.writeVLong(fetchCount);
             out.writeVLong(fetchTimeInMillis);
             out.writeVLong(fetchCurrent);
+
+            if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+                out.writeVLong(querySliceCount);
+                out.writeVLong(querySliceTimeInMillis);
+            }
         }
 
         @Override
@@ -145,6 +185,9 @@ public class SearchStats implements Streamable, ToXContent {
             builder.timeValueField(Fields.FETCH_TIME_IN_MILLIS, Fields.FETCH_TIME, fetchTimeInMillis);
             builder.field(Fields.FETCH_CURRENT, fetchCurrent);
 
+            builder.field(Fields.QUERY_SLICE_TOTAL, querySliceCount);
+            builder.timeValueField(Fields.QUERY_SLICE_TIME_IN_MILLIS, Fields.QUERY_SLICE_TIME, querySliceTimeInMillis);
+
             return builder;
         }
     }
@@ -233,6 +276,9 @@ public class SearchStats implements Streamable, ToXContent {
         static final XContentBuilderString FETCH_TIME = new XContentBuilderString("fetch_time");
         static final XContentBuilderString FETCH_TIME_IN_MILLIS = new XContentBuilderString("fetch_time_in_millis");
         static final XContentBuilderString FETCH_CURRENT = new XContentBuilderString("fetch_current");
+        static final XContentBuilderString QUERY_SLICE_TOTAL = new XContentBuilderString("query_slice_total");
+        static final XContentBuilderString QUERY_SLICE_TIME = new XContentBuilderString("query_slice_time");
+        static final XContentBuilderString QUERY_SLICE_TIME_IN_MILLIS = new XContentBuilderString("query_slice_time_in_millis");
     }
 
     public static SearchStats readSearchStats(StreamInput in) throws IOException {
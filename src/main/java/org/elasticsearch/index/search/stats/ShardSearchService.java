@@ -28,6 +28,7 @@ import org.elasticsearch.common.regex.Regex;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.index.search.slowlog.ShardSlowLogSearchService;
 import org.elasticsearch.index.settings.IndexSettings;
+import org.elasticsearch.index.settings.IndexSettingsService;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
 import org.elasticsearch.index.shard.ShardId;
 import org.elasticsearch.search.internal.SearchContext;
@@ -40,17 +41,66 @@ import java.util.concurrent.TimeUnit;
  */
 public class ShardSearchService extends AbstractIndexShardComponent {
 
+    /**
+     * A dynamic index setting to execute the query phase concurrently over slices of the segments of a shard, see
+     * {@link org.elasticsearch.search.query.QueryPhase}. Defaults to false.
+     */
+    public static final String INDEX_SEARCH_CONCURRENT_ENABLED = "index.search.concurrent.enabled";
+    /**
+     * A dynamic index setting for the maximum number of slices a shard is searched with concurrently. Defaults to
+     * the size of the {@link org.elasticsearch.threadpool.ThreadPool.Names#SEARCH_SLICE} thread pool.
+     */
+    public static final String INDEX_SEARCH_CONCURRENT_MAX_SLICES = "index.search.concurrent.max_slices";
+
     private final ShardSlowLogSearchService slowLogSearchService;
 
+    private volatile boolean concurrentEnabled;
+    private volatile int concurrentMaxSlices;
+
     private final StatsHolder totalStats = new StatsHolder();
     private final CounterMetric openContexts = new CounterMetric();
 
     private volatile Map<String, StatsHolder> groupsStats = ImmutableMap.of();
 
     @Inject
-    public ShardSearchService(ShardId shardId, @IndexSettings Settings indexSettings, ShardSlowLogSearchService slowLogSearchService) {
+    public ShardSearchService(ShardId shardId, @IndexSettings Settings indexSettings, IndexSettingsService indexSettingsService,
+                              ShardSlowLogSearchService slowLogSearchService) {
         super(shardId, indexSettings);
         this.slowLogSearchService = slowLogSearchService;
+        this.concurrentEnabled = indexSettings.getAsBoolean(INDEX_SEARCH_CONCURRENT_ENABLED, false);
+        this.concurrentMaxSlices = indexSettings.getAsInt(INDEX_SEARCH_CONCURRENT_MAX_SLICES, -1);
+        indexSettingsService.addListener(new ApplySettings());
+    }
+
+    class ApplySettings implements IndexSettingsService.Listener {
+        @Override
+        public void onRefreshSettings(Settings settings) {
+            boolean concurrentEnabled = settings.getAsBoolean(INDEX_SEARCH_CONCURRENT_ENABLED, ShardSearchService.this.concurrentEnabled);
+            if (concurrentEnabled != ShardSearchService.this.concurrentEnabled) {
+                logger.info("updating [{}] from [{}] to [{}]", INDEX_SEARCH_CONCURRENT_ENABLED, ShardSearchService.this.concurrentEnabled, concurrentEnabled);
+                ShardSearchService.this.concurrentEnabled = concurrentEnabled;
+            }
+            int concurrentMaxSlices = settings.getAsInt(INDEX_SEARCH_CONCURRENT_MAX_SLICES, ShardSearchService.this.concurrentMaxSlices);
+            if (concurrentMaxSlices != ShardSearchService.this.concurrentMaxSlices) {
+                logger.info("updating [{}] from [{}] to [{}]", INDEX_SEARCH_CONCURRENT_MAX_SLICES, ShardSearchService.this.concurrentMaxSlices, concurrentMaxSlices);
+                ShardSearchService.this.concurrentMaxSlices = concurrentMaxSlices;
+            }
+        }
+    }
+
+    /**
+     * Whether the query phase may search slices of the segments of the shard concurrently.
+     */
+    public boolean concurrentEnabled() {
+        return concurrentEnabled;
+    }
+
+    /**
+     * The maximum number of slices to search the shard with concurrently, <tt>-1</tt> to use the size of the
+     * {@link org.elasticsearch.threadpool.ThreadPool.Names#SEARCH_SLICE} thread pool.
+     */
+    public int concurrentMaxSlices() {
+        return concurrentMaxSlices;
     }
 
     /**
@@ -109,6 +159,19 @@ public class ShardSearchService extends AbstractIndexShardComponent {
         slowLogSearchService.onQueryPhase(searchContext, tookInNanos);
     }
 
+    /**
+     * Called once per slice when the query phase searched the shard concurrently, with the time it took to search the
+     * slice. The query phase itself is still reported through {@link #onQueryPhase}.
+     */
+    public void onQuerySlice(SearchContext searchContext, long tookInNanos) {
+        totalStats.querySliceMetric.inc(tookInNanos);
+        if (searchContext.groupStats() != null) {
+            for (int i = 0; i < searchContext.groupStats().size(); i++) {
+                groupStats(searchContext.groupStats().get(i)).querySliceMetric.inc(tookInNanos);
+            }
+        }
+    }
+
     public void onPreFetchPhase(SearchContext searchContext) {
         totalStats.fetchCurrent.inc();
         if (searchContext.groupStats() != null) {
@@ -181,12 +244,14 @@ public class ShardSearchService extends AbstractIndexShardComponent {
     static class StatsHolder {
         public final MeanMetric queryMetric = new MeanMetric();
         public final MeanMetric fetchMetric = new MeanMetric();
+        public final MeanMetric querySliceMetric = new MeanMetric();
         public final CounterMetric queryCurrent = new CounterMetric();
         public final CounterMetric fetchCurrent = new CounterMetric();
 
         public SearchStats.Stats stats() {
             return new SearchStats.Stats(queryMetric.count(), TimeUnit.NANOSECONDS.toMillis(queryMetric.sum()), queryCurrent.count(),
-                    fetchMetric.count(), TimeUnit.NANOSECONDS.toMillis(fetchMetric.sum()), fetchCurrent.count());
+                    fetchMetric.count(), TimeUnit.NANOSECONDS.toMillis(fetchMetric.sum()), fetchCurrent.count(),
+                    querySliceMetric.count(), TimeUnit.NANOSECONDS.toMillis(querySliceMetric.sum()));
         }
 
         public long totalCurrent() {
@@ -196,6 +261,7 @@ public class ShardSearchService extends AbstractIndexShardComponent {
         public void clear() {
             queryMetric.clear();
             fetchMetric.clear();
+            querySliceMetric.clear();
         }
     }
 }
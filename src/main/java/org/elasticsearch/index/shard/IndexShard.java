@@ -23,6 +23,7 @@ import com.google.common.base.Charsets;
 
 import org.apache.lucene.codecs.PostingsFormat;
 import org.apache.lucene.index.CheckIndex;
+import org.apache.lucene.index.Term;
 import org.apache.lucene.search.Filter;
 import org.apache.lucene.search.FilteredQuery;
 import org.apache.lucene.search.Query;
@@ -485,6 +486,14 @@ public class IndexShard extends AbstractIndexShardComponent implements IndexShar
         return engine.get(get);
     }
 
+    /**
+     * Loads the current versions of the documents with the given uids, see {@link Engine#preloadVersions(Term[])}.
+     */
+    public Engine.PreloadedVersions preloadVersions(Term[] uids) throws ElasticsearchException {
+        verifyNotClosed();
+        return engine.preloadVersions(uids);
+    }
+
     public void refresh(String source, boolean force) throws ElasticsearchException {
         verifyNotClosed();
         if (logger.isTraceEnabled()) {
@@ -0,0 +1,127 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.translog;
+
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.io.Channels;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+/**
+ * Reads translog operations sequentially from a file channel through a read-ahead buffer, so that replaying
+ * a translog issues one read per buffer instead of two reads per operation.
+ * <p/>
+ * Operations are decoded straight out of the buffer and their sources are slices of it rather than copies.
+ * Every read fills a new buffer, so operations returned earlier stay valid after further calls to {@link #next()}.
+ */
+public class BufferedTranslogReader {
+
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+
+    private static final int SIZE_HEADER_LENGTH = 4;
+
+    private final FileChannel channel;
+    private final TranslogStream stream;
+    private final long length;
+    private final int bufferSize;
+
+    // holds the bytes of the file starting at position from bufferOffset up to bufferLength
+    private byte[] buffer = new byte[0];
+    private int bufferOffset = 0;
+    private int bufferLength = 0;
+
+    private long position;
+    private int lastOperationSize;
+
+    /**
+     * @param position the file position of the first operation, past any header
+     * @param length   the file position at which reading stops
+     */
+    public BufferedTranslogReader(FileChannel channel, TranslogStream stream, long position, long length, int bufferSize) {
+        this.channel = channel;
+        this.stream = stream;
+        this.position = position;
+        this.length = length;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Returns the next operation, or <tt>null</tt> if the reader reached its length.
+     *
+     * @throws EOFException if the last operation was not fully written
+     */
+    public Translog.Operation next() throws IOException {
+        if (position >= length) {
+            return null;
+        }
+        ensureAvailable(SIZE_HEADER_LENGTH);
+        final int opSize = ((buffer[bufferOffset] & 0xFF) << 24) | ((buffer[bufferOffset + 1] & 0xFF) << 16)
+                | ((buffer[bufferOffset + 2] & 0xFF) << 8) | (buffer[bufferOffset + 3] & 0xFF);
+        if (opSize < 0 || position + SIZE_HEADER_LENGTH + opSize > length) {
+            throw new EOFException("opSize of [" + opSize + "] pointed beyond EOF. position [" + position + "] length [" + length + "]");
+        }
+        ensureAvailable(SIZE_HEADER_LENGTH + opSize);
+        Translog.Operation operation = stream.read(new BytesArray(buffer, bufferOffset + SIZE_HEADER_LENGTH, opSize));
+        lastOperationSize = SIZE_HEADER_LENGTH + opSize;
+        bufferOffset += lastOperationSize;
+        position += lastOperationSize;
+        return operation;
+    }
+
+    /**
+     * The file position of the next operation.
+     */
+    public long position() {
+        return position;
+    }
+
+    /**
+     * The number of bytes, including its size header, the operation returned last took in the file.
+     */
+    public int lastOperationSize() {
+        return lastOperationSize;
+    }
+
+    public void seekTo(long position) {
+        this.position = position;
+        this.bufferOffset = 0;
+        this.bufferLength = 0;
+    }
+
+    private void ensureAvailable(int bytes) throws IOException {
+        final int available = bufferLength - bufferOffset;
+        if (available >= bytes) {
+            return;
+        }
+        if (position + bytes > length) {
+            throw new EOFException("read past EOF. position [" + position + "] needed [" + bytes + "] length [" + length + "]");
+        }
+        // never refill the current buffer in place, operations we returned might still reference it
+        final int newLength = (int) Math.min(Math.max(bytes, bufferSize), length - position);
+        byte[] newBuffer = new byte[newLength];
+        System.arraycopy(buffer, bufferOffset, newBuffer, 0, available);
+        Channels.readFromFileChannelWithEofException(channel, position + available, newBuffer, available, newLength - available);
+        buffer = newBuffer;
+        bufferOffset = 0;
+        bufferLength = newLength;
+    }
+}
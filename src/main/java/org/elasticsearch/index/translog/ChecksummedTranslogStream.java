@@ -23,6 +23,8 @@ import org.apache.lucene.codecs.CodecUtil;
 import org.apache.lucene.store.InputStreamDataInput;
 import org.apache.lucene.store.OutputStreamDataOutput;
 import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.*;
 
 import java.io.*;
@@ -30,6 +32,7 @@ import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.zip.CRC32;
 
 /**
  * Version 1 of the translog file format. Writes a header to identify the
@@ -72,6 +75,34 @@ public class ChecksummedTranslogStream implements TranslogStream {
         return operation;
     }
 
+    @Override
+    public Translog.Operation read(BytesReference bytes) throws IOException {
+        // the checksum covers everything but itself, compute it over the raw bytes in one go
+        final int checksummedLength = bytes.length() - 4;
+        if (checksummedLength < 1) {
+            throw new TranslogCorruptedException("translog operation of [" + bytes.length() + "] bytes is too short");
+        }
+        final BytesArray array = bytes.toBytesArray();
+        final CRC32 digest = new CRC32();
+        digest.update(array.array(), array.arrayOffset(), checksummedLength);
+        final long expectedChecksum = digest.getValue();
+        final long readChecksum = new BytesStreamInput(array.slice(checksummedLength, 4)).readInt() & 0xFFFF_FFFFL;
+        if (readChecksum != expectedChecksum) {
+            throw new TranslogCorruptedException("translog stream is corrupted, expected: 0x" +
+                    Long.toHexString(expectedChecksum) + ", got: 0x" + Long.toHexString(readChecksum));
+        }
+        BytesStreamInput in = new BytesStreamInput(array.slice(0, checksummedLength));
+        Translog.Operation operation;
+        try {
+            Translog.Operation.Type type = Translog.Operation.Type.fromId(in.readByte());
+            operation = TranslogStreams.newOperationFromType(type);
+            operation.readFrom(in);
+        } catch (AssertionError|Exception e) {
+            throw new TranslogCorruptedException("translog corruption while reading from stream", e);
+        }
+        return operation;
+    }
+
     @Override
     public void write(StreamOutput outStream, Translog.Operation op) throws IOException {
         // We first write to a NoopStreamOutput to get the size of the
@@ -104,6 +135,11 @@ public class ChecksummedTranslogStream implements TranslogStream {
         return CodecUtil.headerLength(TranslogStreams.TRANSLOG_CODEC);
     }
 
+    @Override
+    public int headerLength() {
+        return CodecUtil.headerLength(TranslogStreams.TRANSLOG_CODEC);
+    }
+
     @Override
     public StreamInput openInput(Path translogFile) throws IOException {
         final InputStream fileInputStream = Files.newInputStream(translogFile);
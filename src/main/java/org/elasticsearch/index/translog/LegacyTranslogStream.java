@@ -19,6 +19,8 @@
 
 package org.elasticsearch.index.translog;
 
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamInput;
 import org.elasticsearch.common.io.stream.InputStreamStreamInput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -47,6 +49,11 @@ public class LegacyTranslogStream implements TranslogStream {
         return operation;
     }
 
+    @Override
+    public Translog.Operation read(BytesReference bytes) throws IOException {
+        return read(new BytesStreamInput(bytes));
+    }
+
     @Override
     public void write(StreamOutput out, Translog.Operation op) throws IOException {
         out.writeByte(op.opType().id());
@@ -59,6 +66,11 @@ public class LegacyTranslogStream implements TranslogStream {
         return 0;
     }
 
+    @Override
+    public int headerLength() {
+        return 0;
+    }
+
     @Override
     public StreamInput openInput(Path translogFile) throws IOException {
         // nothing to do, legacy translogs have no header
@@ -133,6 +133,18 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
 
     void syncOnEachOperation(boolean syncOnEachOperation);
 
+    /**
+     * Returns the durability index and delete requests wait for before they are acknowledged.
+     */
+    Durability durability();
+
+    /**
+     * Notifies the given listener once the operation at the given location, and all operations written
+     * before it, have been fsynced to disk. Concurrent callers are grouped together and share a single
+     * fsync. A <tt>null</tt> location waits for everything written to the translog so far.
+     */
+    void ensureSynced(@Nullable Location location, SyncListener listener);
+
     /**
      * Returns all translog locations as absolute paths.
      * These paths don't contain actual translog files they are
@@ -156,6 +168,36 @@ public interface Translog extends IndexShardComponent, Closeable, Accountable {
      */
     long findLargestPresentTranslogId() throws IOException;
 
+    static enum Durability {
+        /**
+         * Requests are acknowledged once written to the translog, the translog is fsynced in the background.
+         */
+        ASYNC,
+        /**
+         * Requests are acknowledged only once the translog location they wrote to has been fsynced.
+         */
+        REQUEST;
+
+        public static Durability fromString(String durability) throws ElasticsearchIllegalArgumentException {
+            if (ASYNC.name().equalsIgnoreCase(durability)) {
+                return ASYNC;
+            } else if (REQUEST.name().equalsIgnoreCase(durability)) {
+                return REQUEST;
+            }
+            throw new ElasticsearchIllegalArgumentException("No translog durability [" + durability + "]");
+        }
+    }
+
+    /**
+     * A listener notified by {@link #ensureSynced(Location, SyncListener)}.
+     */
+    static interface SyncListener {
+
+        void onSynced();
+
+        void onFailure(Throwable t);
+    }
+
     static class Location implements Accountable {
 
         public final long translogId;
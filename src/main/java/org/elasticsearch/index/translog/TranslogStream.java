@@ -19,6 +19,7 @@
 
 package org.elasticsearch.index.translog;
 
+import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 
@@ -38,6 +39,13 @@ public interface TranslogStream {
      */
     public Translog.Operation read(StreamInput in) throws IOException;
 
+    /**
+     * Read a single translog operation from the given bytes, which hold exactly one operation
+     * without its leading size. The sources of the returned operation reference the given bytes
+     * instead of copying them.
+     */
+    public Translog.Operation read(BytesReference bytes) throws IOException;
+
     /**
      * Write the given translog operation to the output stream
      */
@@ -49,6 +57,11 @@ public interface TranslogStream {
      */
     public int writeHeader(FileChannel channel) throws IOException;
 
+    /**
+     * Returns the length of the header written by {@link #writeHeader(FileChannel)}
+     */
+    public int headerLength();
+
     /**
      * Seek past the header, if any header is present
      */
@@ -20,15 +20,12 @@
 package org.elasticsearch.index.translog.fs;
 
 import org.elasticsearch.ElasticsearchException;
-import org.elasticsearch.common.io.Channels;
-import org.elasticsearch.common.io.stream.BytesStreamInput;
+import org.elasticsearch.index.translog.BufferedTranslogReader;
 import org.elasticsearch.index.translog.TranslogStreams;
 import org.elasticsearch.index.translog.Translog;
 
-import java.io.EOFException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.concurrent.atomic.AtomicBoolean;
 
@@ -47,11 +44,7 @@ public class FsChannelSnapshot implements Translog.Snapshot {
 
     private final long length;
 
-    private Translog.Operation lastOperationRead = null;
-
-    private long position = 0;
-
-    private ByteBuffer cacheBuffer;
+    private final BufferedTranslogReader reader;
 
     private AtomicBoolean closed = new AtomicBoolean(false);
 
@@ -65,6 +58,7 @@ public class FsChannelSnapshot implements Translog.Snapshot {
         this.channel = channelReference.channel();
         this.length = length;
         this.totalOperations = totalOperations;
+        this.reader = new BufferedTranslogReader(channel, TranslogStreams.LATEST, 0, length, BufferedTranslogReader.DEFAULT_BUFFER_SIZE);
     }
 
     @Override
@@ -74,7 +68,7 @@ public class FsChannelSnapshot implements Translog.Snapshot {
 
     @Override
     public long position() {
-        return this.position;
+        return reader.position();
     }
 
     @Override
@@ -89,48 +83,13 @@ public class FsChannelSnapshot implements Translog.Snapshot {
 
     @Override
     public long lengthInBytes() {
-        return length - position;
+        return length - reader.position();
     }
 
     @Override
     public Translog.Operation next() {
         try {
-            if (position >= length) {
-                return null;
-            }
-            if (cacheBuffer == null) {
-                cacheBuffer = ByteBuffer.allocate(1024);
-            }
-            cacheBuffer.limit(4);
-            int bytesRead = Channels.readFromFileChannel(channel, position, cacheBuffer);
-            if (bytesRead < 0) {
-                // the snapshot is acquired under a write lock. we should never
-                // read beyond the EOF, must be an abrupt EOF
-                throw new EOFException("read past EOF. pos [" + position + "] length: [" + cacheBuffer.limit() + "] end: [" + channel.size() + "]");
-            }
-            assert bytesRead == 4;
-            cacheBuffer.flip();
-            // Add an extra 4 to account for the operation size integer itself
-            int opSize = cacheBuffer.getInt() + 4;
-            if ((position + opSize) > length) {
-                // the snapshot is acquired under a write lock. we should never
-                // read beyond the EOF, must be an abrupt EOF
-                throw new EOFException("opSize of [" + opSize + "] pointed beyond EOF. position [" + position + "] length [" + length + "]");
-            }
-            if (cacheBuffer.capacity() < opSize) {
-                cacheBuffer = ByteBuffer.allocate(opSize);
-            }
-            cacheBuffer.clear();
-            cacheBuffer.limit(opSize);
-            bytesRead = Channels.readFromFileChannel(channel, position, cacheBuffer);
-            if (bytesRead < 0) {
-                // the snapshot is acquired under a write lock. we should never
-                // read beyond the EOF, must be an abrupt EOF
-                throw new EOFException("tried to read past EOF. opSize [" + opSize + "] position [" + position + "] length [" + length + "]");
-            }
-            cacheBuffer.flip();
-            position += opSize;
-            return TranslogStreams.readTranslogOperation(new BytesStreamInput(cacheBuffer.array(), 0, opSize, true));
+            return reader.next();
         } catch (IOException e) {
             throw new ElasticsearchException("unexpected exception reading from translog snapshot of " + this.channelReference.file(), e);
         }
@@ -138,7 +97,7 @@ public class FsChannelSnapshot implements Translog.Snapshot {
 
     @Override
     public void seekTo(long position) {
-        this.position = position;
+        reader.seekTo(position);
     }
 
     @Override
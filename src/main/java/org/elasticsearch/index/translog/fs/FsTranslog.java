@@ -22,6 +22,7 @@ package org.elasticsearch.index.translog.fs;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.IOUtils;
 import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesArray;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.inject.Inject;
@@ -31,6 +32,8 @@ import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.settings.IndexSettings;
 import org.elasticsearch.index.settings.IndexSettingsService;
 import org.elasticsearch.index.shard.AbstractIndexShardComponent;
@@ -40,6 +43,7 @@ import org.elasticsearch.index.translog.Translog;
 import org.elasticsearch.index.translog.TranslogException;
 import org.elasticsearch.index.translog.TranslogStats;
 import org.elasticsearch.index.translog.TranslogStreams;
+import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
@@ -49,9 +53,13 @@ import java.nio.file.OpenOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.regex.Matcher;
@@ -63,6 +71,7 @@ import java.util.regex.Pattern;
 public class FsTranslog extends AbstractIndexShardComponent implements Translog {
 
     public static final String INDEX_TRANSLOG_FS_TYPE = "index.translog.fs.type";
+    public static final String INDEX_TRANSLOG_DURABILITY = "index.translog.durability";
     private static final String TRANSLOG_FILE_PREFIX = "translog-";
     private static final Pattern PARSE_ID_PATTERN = Pattern.compile(TRANSLOG_FILE_PREFIX + "(\\d+).*");
 
@@ -74,11 +83,18 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
                 logger.info("updating type from [{}] to [{}]", FsTranslog.this.type, type);
                 FsTranslog.this.type = type;
             }
+            Durability durability = Durability.fromString(settings.get(INDEX_TRANSLOG_DURABILITY, FsTranslog.this.durability.name()));
+            if (durability != FsTranslog.this.durability) {
+                logger.info("updating durability from [{}] to [{}]", FsTranslog.this.durability, durability);
+                FsTranslog.this.durability = durability;
+            }
         }
     }
 
     private final IndexSettingsService indexSettingsService;
     private final BigArrays bigArrays;
+    @Nullable
+    private final ThreadPool threadPool;
 
     private final ReadWriteLock rwl = new ReentrantReadWriteLock();
     private final Path[] locations;
@@ -95,14 +111,23 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
 
     private final ApplySettings applySettings = new ApplySettings();
 
+    private volatile Durability durability;
+
+    // listeners waiting for the next group sync, and whether a group sync is currently scheduled or running
+    private final Queue<SyncListener> pendingSyncs = ConcurrentCollections.newQueue();
+    private final AtomicBoolean groupSyncScheduled = new AtomicBoolean();
+    private final GroupSync groupSync = new GroupSync();
+    // serializes fsyncs so a sync never returns while another one is still forcing the same data to disk
+    private final Object syncLock = new Object();
 
 
     @Inject
     public FsTranslog(ShardId shardId, @IndexSettings Settings indexSettings, IndexSettingsService indexSettingsService,
-                      BigArrays bigArrays, IndexStore indexStore) throws IOException {
+                      BigArrays bigArrays, IndexStore indexStore, ThreadPool threadPool) throws IOException {
         super(shardId, indexSettings);
         this.indexSettingsService = indexSettingsService;
         this.bigArrays = bigArrays;
+        this.threadPool = threadPool;
         this.locations = indexStore.shardTranslogLocations(shardId);
         for (Path location : locations) {
             Files.createDirectories(location);
@@ -111,6 +136,7 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         this.type = FsTranslogFile.Type.fromString(componentSettings.get("type", FsTranslogFile.Type.BUFFERED.name()));
         this.bufferSize = (int) componentSettings.getAsBytesSize("buffer_size", ByteSizeValue.parseBytesSizeValue("64k")).bytes(); // Not really interesting, updated by IndexingMemoryController...
         this.transientBufferSize = (int) componentSettings.getAsBytesSize("transient_buffer_size", ByteSizeValue.parseBytesSizeValue("8k")).bytes();
+        this.durability = Durability.fromString(indexSettings.get(INDEX_TRANSLOG_DURABILITY, Durability.ASYNC.name()));
 
         indexSettingsService.addListener(applySettings);
     }
@@ -121,6 +147,8 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
         this.locations = new Path[]{location};
         Files.createDirectories(location);
         this.bigArrays = BigArrays.NON_RECYCLING_INSTANCE;
+        this.threadPool = null;
+        this.durability = Durability.fromString(indexSettings.get(INDEX_TRANSLOG_DURABILITY, Durability.ASYNC.name()));
 
         this.type = FsTranslogFile.Type.fromString(componentSettings.get("type", FsTranslogFile.Type.BUFFERED.name()));
         this.bufferSize = (int) componentSettings.getAsBytesSize("buffer_size", ByteSizeValue.parseBytesSizeValue("64k")).bytes();
@@ -403,21 +431,112 @@ public class FsTranslog extends AbstractIndexShardComponent implements Translog
 
     @Override
     public void sync() throws IOException {
-        FsTranslogFile current1 = this.current;
-        if (current1 == null) {
+        synchronized (syncLock) {
+            syncFile(this.current);
+        }
+    }
+
+    private void syncFile(FsTranslogFile file) throws IOException {
+        if (file == null) {
             return;
         }
         try {
-            current1.sync();
+            file.sync();
         } catch (IOException e) {
             // if we switches translots (!=), then this failure is not relevant
             // we are working on a new translog
-            if (this.current == current1) {
+            if (this.current == file || this.trans == file) {
                 throw e;
             }
         }
     }
 
+    @Override
+    public Durability durability() {
+        return durability;
+    }
+
+    @Override
+    public void ensureSynced(@Nullable Location location, SyncListener listener) {
+        if (location != null && isCommitted(location)) {
+            listener.onSynced();
+            return;
+        }
+        pendingSyncs.add(listener);
+        scheduleGroupSync();
+    }
+
+    /**
+     * Returns <tt>true</tt> if the location belongs to a translog that has been replaced by a newer one,
+     * in which case the operation is already part of a Lucene commit.
+     */
+    private boolean isCommitted(Location location) {
+        final FsTranslogFile current1 = this.current;
+        final FsTranslogFile trans1 = this.trans;
+        return (current1 == null || current1.id() != location.translogId) &&
+                (trans1 == null || trans1.id() != location.translogId);
+    }
+
+    private void scheduleGroupSync() {
+        if (groupSyncScheduled.compareAndSet(false, true) == false) {
+            // the running group sync will pick up the listener
+            return;
+        }
+        if (threadPool == null) {
+            groupSync.run();
+            return;
+        }
+        try {
+            threadPool.executor(ThreadPool.Names.TRANSLOG_SYNC).execute(groupSync);
+        } catch (EsRejectedExecutionException e) {
+            // we are shutting down, sync on the calling thread instead
+            groupSync.run();
+        }
+    }
+
+    /**
+     * Drains all listeners waiting for durability, fsyncs the translog once on their behalf and notifies them.
+     * Listeners that register while the fsync is in progress are handled by the next round.
+     */
+    private class GroupSync implements Runnable {
+
+        @Override
+        public void run() {
+            do {
+                List<SyncListener> listeners = new ArrayList<>();
+                for (SyncListener listener = pendingSyncs.poll(); listener != null; listener = pendingSyncs.poll()) {
+                    listeners.add(listener);
+                }
+                if (listeners.isEmpty() == false) {
+                    Throwable failure = null;
+                    try {
+                        synchronized (syncLock) {
+                            // operations are written to both translogs while a transient one exists
+                            syncFile(FsTranslog.this.trans);
+                            syncFile(FsTranslog.this.current);
+                        }
+                    } catch (Throwable t) {
+                        logger.warn("failed to sync translog", t);
+                        failure = t;
+                    }
+                    for (SyncListener listener : listeners) {
+                        try {
+                            if (failure == null) {
+                                listener.onSynced();
+                            } else {
+                                listener.onFailure(failure);
+                            }
+                        } catch (Throwable t) {
+                            logger.warn("failed to notify translog sync listener", t);
+                        }
+                    }
+                }
+                groupSyncScheduled.set(false);
+                // a listener might have been added after we drained the queue but before we released the flag
+            } while (pendingSyncs.isEmpty() == false && groupSyncScheduled.compareAndSet(false, true));
+        }
+    }
+
     @Override
     public boolean syncNeeded() {
         FsTranslogFile current1 = this.current;
@@ -22,11 +22,12 @@ package org.elasticsearch.indices.cache.filter;
 import com.carrotsearch.hppc.ObjectOpenHashSet;
 import com.google.common.base.Objects;
 import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import org.apache.lucene.search.DocIdSet;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.cache.EvictionPolicy;
+import org.elasticsearch.common.cache.WeightedCacheBuilder;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
@@ -40,6 +41,7 @@ import org.elasticsearch.node.settings.NodeSettingsService;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.Iterator;
+import java.util.Locale;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -53,6 +55,7 @@ public class IndicesFilterCache extends AbstractComponent implements RemovalList
     private volatile long sizeInBytes;
     private volatile TimeValue expire;
     private volatile int concurrencyLevel;
+    private volatile EvictionPolicy evictionPolicy;
 
     private final TimeValue cleanInterval;
     private final int minimumEntryWeight;
@@ -66,6 +69,7 @@ public class IndicesFilterCache extends AbstractComponent implements RemovalList
     public static final String INDICES_CACHE_FILTER_CONCURRENCY_LEVEL = "indices.cache.filter.concurrency_level";
     public static final String INDICES_CACHE_FILTER_CLEAN_INTERVAL = "indices.cache.filter.clean_interval";
     public static final String INDICES_CACHE_FILTER_MINIMUM_ENTRY_WEIGHT = "indices.cache.filter.minimum_entry_weight";
+    public static final String INDICES_CACHE_FILTER_EVICTION_POLICY = "indices.cache.filter.eviction_policy";
 
     class ApplySettings implements NodeSettingsService.Listener {
         @Override
@@ -95,6 +99,14 @@ public class IndicesFilterCache extends AbstractComponent implements RemovalList
                 IndicesFilterCache.this.concurrencyLevel = concurrencyLevel;
                 replace = true;
             }
+            final EvictionPolicy evictionPolicy = EvictionPolicy.fromString(settings.get(INDICES_CACHE_FILTER_EVICTION_POLICY,
+                    IndicesFilterCache.this.evictionPolicy.name().toLowerCase(Locale.ROOT)));
+            if (evictionPolicy != IndicesFilterCache.this.evictionPolicy) {
+                logger.info("updating [{}] from [{}] to [{}]",
+                        INDICES_CACHE_FILTER_EVICTION_POLICY, IndicesFilterCache.this.evictionPolicy, evictionPolicy);
+                IndicesFilterCache.this.evictionPolicy = evictionPolicy;
+                replace = true;
+            }
             if (replace) {
                 Cache<WeightedFilterCache.FilterCacheKey, DocIdSet> oldCache = IndicesFilterCache.this.cache;
                 computeSizeInBytes();
@@ -120,17 +132,18 @@ public class IndicesFilterCache extends AbstractComponent implements RemovalList
         if (concurrencyLevel <= 0) {
             throw new ElasticsearchIllegalArgumentException("concurrency_level must be > 0 but was: " + concurrencyLevel);
         }
+        this.evictionPolicy = EvictionPolicy.fromString(settings.get(INDICES_CACHE_FILTER_EVICTION_POLICY, "lru"));
         computeSizeInBytes();
         buildCache();
-        logger.debug("using [node] weighted filter cache with size [{}], actual_size [{}], expire [{}], clean_interval [{}]",
-                size, new ByteSizeValue(sizeInBytes), expire, cleanInterval);
+        logger.debug("using [node] weighted filter cache with size [{}], actual_size [{}], expire [{}], clean_interval [{}], eviction_policy [{}]",
+                size, new ByteSizeValue(sizeInBytes), expire, cleanInterval, evictionPolicy);
 
         nodeSettingsService.addListener(new ApplySettings());
         threadPool.schedule(cleanInterval, ThreadPool.Names.SAME, new ReaderCleaner());
     }
 
     private void buildCache() {
-        CacheBuilder<WeightedFilterCache.FilterCacheKey, DocIdSet> cacheBuilder = CacheBuilder.newBuilder()
+        WeightedCacheBuilder<WeightedFilterCache.FilterCacheKey, DocIdSet> cacheBuilder = WeightedCacheBuilder.<WeightedFilterCache.FilterCacheKey, DocIdSet>newBuilder(evictionPolicy)
                 .removalListener(this)
                 .maximumWeight(sizeInBytes).weigher(new WeightedFilterCache.FilterCacheValueWeigher(minimumEntryWeight));
 
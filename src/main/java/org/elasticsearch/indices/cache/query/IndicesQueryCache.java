@@ -22,13 +22,20 @@ package org.elasticsearch.indices.cache.query;
 import com.carrotsearch.hppc.ObjectOpenHashSet;
 import com.carrotsearch.hppc.ObjectSet;
 import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalListener;
 import com.google.common.cache.RemovalNotification;
 import com.google.common.cache.Weigher;
 
 import org.apache.lucene.index.DirectoryReader;
 import org.apache.lucene.index.IndexReader;
+import org.apache.lucene.index.LeafReader;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermContext;
+import org.apache.lucene.search.CollectionStatistics;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.TermStatistics;
+import org.apache.lucene.search.TopDocs;
 import org.apache.lucene.util.Accountable;
 import org.apache.lucene.util.RamUsageEstimator;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
@@ -37,20 +44,28 @@ import org.elasticsearch.ElasticsearchParseException;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.cache.EvictionPolicy;
+import org.elasticsearch.common.cache.WeightedCacheBuilder;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.MemorySizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
+import org.elasticsearch.index.cache.query.ShardQueryCache;
+import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.index.shard.IndexShard;
 import org.elasticsearch.index.shard.IndexShardState;
 import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.internal.ShardSearchRequest;
 import org.elasticsearch.search.query.QueryPhase;
@@ -59,9 +74,11 @@ import org.elasticsearch.search.query.QuerySearchResultProvider;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
@@ -79,6 +96,12 @@ import static org.elasticsearch.common.Strings.hasLength;
  * Currently, the cache is only enabled for {@link SearchType#COUNT}, and can only be opted in on an index
  * level setting that can be dynamically changed and defaults to false.
  * <p/>
+ * When {@link #INDEX_CACHE_QUERY_PER_SEGMENT} is enabled, a shard level miss is computed segment by segment, and
+ * the per segment results are cached as well, keyed by the segment core and its deletes. A refresh that only adds a
+ * segment then only needs to compute the new segment, and reduces it with the cached results of the others. Only
+ * per segment results that took at least {@link #INDICES_CACHE_QUERY_MIN_COST} to compute are admitted to the cache,
+ * cheaper ones are recomputed when needed.
+ * <p/>
  * There are still several TODOs left in this class, some easily addressable, some more complex, but the support
  * is functional.
  */
@@ -89,11 +112,19 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
      * since we are checking on the cluster state IndexMetaData always.
      */
     public static final String INDEX_CACHE_QUERY_ENABLED = "index.cache.query.enable";
+    /**
+     * A dynamic index setting to cache results per segment. Only requests whose aggregations reduce exactly, see
+     * {@link org.elasticsearch.search.aggregations.AggregatorFactory#reducesExactly()}, are computed per segment, others
+     * are cached per shard. Defaults to false.
+     */
+    public static final String INDEX_CACHE_QUERY_PER_SEGMENT = "index.cache.query.per_segment";
     public static final String INDICES_CACHE_QUERY_CLEAN_INTERVAL = "indices.cache.query.clean_interval";
 
     public static final String INDICES_CACHE_QUERY_SIZE = "indices.cache.query.size";
     public static final String INDICES_CACHE_QUERY_EXPIRE = "indices.cache.query.expire";
     public static final String INDICES_CACHE_QUERY_CONCURRENCY_LEVEL = "indices.cache.query.concurrency_level";
+    public static final String INDICES_CACHE_QUERY_MIN_COST = "indices.cache.query.min_cost";
+    public static final String INDICES_CACHE_QUERY_EVICTION_POLICY = "indices.cache.query.eviction_policy";
 
     private final ThreadPool threadPool;
     private final ClusterService clusterService;
@@ -103,12 +134,17 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
 
     final ConcurrentMap<CleanupKey, Boolean> registeredClosedListeners = ConcurrentCollections.newConcurrentMap();
     final Set<CleanupKey> keysToClean = ConcurrentCollections.newConcurrentSet();
+    final ConcurrentMap<Object, Boolean> registeredClosedSegments = ConcurrentCollections.newConcurrentMap();
+    final Set<Object> segmentsToClean = ConcurrentCollections.newConcurrentSet();
+    private final SegmentCleanup segmentCleanup = new SegmentCleanup();
 
 
     //TODO make these changes configurable on the cluster level
     private final String size;
     private final TimeValue expire;
     private final int concurrencyLevel;
+    private final TimeValue minCost;
+    private final EvictionPolicy evictionPolicy;
 
     private volatile Cache<Key, BytesReference> cache;
 
@@ -126,6 +162,8 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
         if (concurrencyLevel <= 0) {
             throw new ElasticsearchIllegalArgumentException("concurrency_level must be > 0 but was: " + concurrencyLevel);
         }
+        this.minCost = settings.getAsTime(INDICES_CACHE_QUERY_MIN_COST, TimeValue.timeValueMillis(1));
+        this.evictionPolicy = EvictionPolicy.fromString(settings.get(INDICES_CACHE_QUERY_EVICTION_POLICY, "lru"));
         buildCache();
 
         this.reaper = new Reaper();
@@ -135,7 +173,7 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
     private void buildCache() {
         long sizeInBytes = MemorySizeValue.parseBytesSizeValueOrHeapRatio(size).bytes();
 
-        CacheBuilder<Key, BytesReference> cacheBuilder = CacheBuilder.newBuilder()
+        WeightedCacheBuilder<Key, BytesReference> cacheBuilder = WeightedCacheBuilder.<Key, BytesReference>newBuilder(evictionPolicy)
                 .maximumWeight(sizeInBytes).weigher(new QueryCacheWeigher()).removalListener(this);
         cacheBuilder.concurrencyLevel(concurrencyLevel);
 
@@ -218,10 +256,14 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
      * to have a single load operation that will cause other requests with the same key to wait till its loaded an reuse
      * the same cache.
      */
-    public QuerySearchResultProvider load(final ShardSearchRequest request, final SearchContext context, final QueryPhase queryPhase) throws Exception {
+    public QuerySearchResultProvider load(final ShardSearchRequest request, final SearchContext context, final QueryPhase queryPhase,
+                                          @Nullable SegmentQueryPhase segmentQueryPhase) throws Exception {
         assert canCache(request, context);
         Key key = buildKey(request, context);
-        Loader loader = new Loader(queryPhase, context, key);
+        if (segmentQueryPhase != null && !canCachePerSegment(request, context)) {
+            segmentQueryPhase = null;
+        }
+        Loader loader = new Loader(queryPhase, segmentQueryPhase, request, context, key);
         BytesReference value = cache.get(key, loader);
         if (loader.isLoaded()) {
             key.shard.queryCache().onMiss();
@@ -238,18 +280,53 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
         }
 
         // try and be smart, and reuse an already loaded and constructed QueryResult of in VM execution
-        return new BytesQuerySearchResult(context.id(), context.shardTarget(), value, loader.isLoaded() ? context.queryResult() : null);
+        return new BytesQuerySearchResult(context.id(), context.shardTarget(), value, loader.isLoaded() ? loader.result : null);
     }
 
-    private static class Loader implements Callable<BytesReference> {
+    /**
+     * Can the results of the shard request be computed and cached per segment?
+     */
+    boolean canCachePerSegment(ShardSearchRequest request, SearchContext context) {
+        IndexMetaData index = clusterService.state().getMetaData().index(request.index());
+        if (index == null || !index.settings().getAsBoolean(INDEX_CACHE_QUERY_PER_SEGMENT, Boolean.FALSE)) {
+            return false;
+        }
+        // suggestions and early termination can't be computed independently per segment
+        if (context.suggest() != null || context.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            return false;
+        }
+        // segment results of aggregations that only return their top buckets, like terms, can't be reduced into the shard result
+        if (context.aggregations() != null && !context.aggregations().factories().reducesExactly()) {
+            return false;
+        }
+        // with a single segment, the shard level entry is all we need
+        return context.searcher().getIndexReader().leaves().size() > 1;
+    }
+
+    /**
+     * Executes the query phase of a request against a searcher over a single segment of the shard.
+     */
+    public static interface SegmentQueryPhase {
+
+        QuerySearchResult execute(Engine.Searcher segmentSearcher) throws Exception;
+    }
+
+    private class Loader implements Callable<BytesReference> {
 
         private final QueryPhase queryPhase;
+        @Nullable
+        private final SegmentQueryPhase segmentQueryPhase;
+        private final ShardSearchRequest request;
         private final SearchContext context;
         private final IndicesQueryCache.Key key;
         private boolean loaded;
+        private QuerySearchResult result;
 
-        Loader(QueryPhase queryPhase, SearchContext context, IndicesQueryCache.Key key) {
+        Loader(QueryPhase queryPhase, @Nullable SegmentQueryPhase segmentQueryPhase, ShardSearchRequest request, SearchContext context,
+               IndicesQueryCache.Key key) {
             this.queryPhase = queryPhase;
+            this.segmentQueryPhase = segmentQueryPhase;
+            this.request = request;
             this.context = context;
             this.key = key;
         }
@@ -260,33 +337,137 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
 
         @Override
         public BytesReference call() throws Exception {
-            queryPhase.execute(context);
+            if (segmentQueryPhase == null) {
+                queryPhase.execute(context);
+                result = context.queryResult();
+            } else {
+                result = loadPerSegment(request, context, segmentQueryPhase);
+            }
             BytesStreamOutput out = new BytesStreamOutput();
-            context.queryResult().writeToNoId(out);
+            result.writeToNoId(out);
             // for now, keep the paged data structure, which might have unused bytes to fill a page, but better to keep
             // the memory properly paged instead of having varied sized bytes
             BytesReference value = out.bytes();
-            assert verifyCacheSerializationSameAsQueryResult(value, context, context.queryResult());
+            assert verifyCacheSerializationSameAsQueryResult(value, context, result);
             loaded = true;
             key.shard.queryCache().onCached(key, value);
             return value;
         }
     }
 
+    private QuerySearchResult loadPerSegment(ShardSearchRequest request, SearchContext context, SegmentQueryPhase segmentQueryPhase) throws Exception {
+        final ShardQueryCache shardQueryCache = context.indexShard().queryCache();
+        final List<LeafReaderContext> leaves = context.searcher().getIndexReader().leaves();
+        final List<QuerySearchResult> results = new ArrayList<>(leaves.size());
+        for (LeafReaderContext leaf : leaves) {
+            LeafReader reader = leaf.reader();
+            Key key = new Key(context.indexShard(), -1, reader.getCoreCacheKey(), reader.getCombinedCoreAndDeletesKey(), request.cacheKey());
+            BytesReference value = cache.getIfPresent(key);
+            QuerySearchResult result;
+            if (value != null) {
+                shardQueryCache.onSegmentHit();
+                result = new QuerySearchResult(context.id(), context.shardTarget());
+                result.readFromWithId(context.id(), value.streamInput());
+            } else {
+                shardQueryCache.onSegmentMiss();
+                long start = System.nanoTime();
+                result = segmentQueryPhase.execute(new Engine.SimpleSearcher("query_cache_segment", new SegmentSearcher(leaf, context.searcher())));
+                long took = System.nanoTime() - start;
+                if (took >= minCost.nanos() && !result.searchTimedOut()) {
+                    BytesStreamOutput out = new BytesStreamOutput();
+                    result.writeToNoId(out);
+                    value = out.bytes();
+                    if (!registeredClosedSegments.containsKey(key.segmentCoreKey)) {
+                        Boolean previous = registeredClosedSegments.putIfAbsent(key.segmentCoreKey, Boolean.TRUE);
+                        if (previous == null) {
+                            reader.addCoreClosedListener(segmentCleanup);
+                        }
+                    }
+                    cache.put(key, value);
+                    shardQueryCache.onCached(key, value);
+                } else {
+                    // cheap to recompute, don't let it push more expensive entries out
+                    shardQueryCache.onRejected();
+                }
+            }
+            results.add(result);
+        }
+        return reduce(context, results);
+    }
+
+    /**
+     * Reduces the results of all the segments of a shard into the shard level result. The aggregations are only partially
+     * reduced, see {@link ReduceContext#isFinalReduce()}, since the shard result is reduced again with the other shard results.
+     */
+    static QuerySearchResult reduce(SearchContext context, List<QuerySearchResult> segmentResults) {
+        long totalHits = 0;
+        boolean timedOut = false;
+        List<InternalAggregations> aggregations = new ArrayList<>(segmentResults.size());
+        for (QuerySearchResult segmentResult : segmentResults) {
+            totalHits += segmentResult.topDocs().totalHits;
+            timedOut |= segmentResult.searchTimedOut();
+            if (segmentResult.aggregations() != null) {
+                aggregations.add((InternalAggregations) segmentResult.aggregations());
+            }
+        }
+        QuerySearchResult result = new QuerySearchResult(context.id(), context.shardTarget());
+        result.from(context.from());
+        result.size(context.size());
+        result.topDocs(new TopDocs(totalHits, Lucene.EMPTY_SCORE_DOCS, 0));
+        result.aggregations(InternalAggregations.reduce(aggregations, new ReduceContext(null, context.bigArrays(), context.scriptService(), false)));
+        result.searchTimedOut(timedOut);
+        return result;
+    }
+
+    /**
+     * Searches a single segment of a shard, but scores with the statistics of the whole shard so that scores
+     * don't depend on whether a result was computed per segment.
+     */
+    private static class SegmentSearcher extends IndexSearcher {
+
+        private final IndexSearcher shardSearcher;
+
+        SegmentSearcher(LeafReaderContext segment, IndexSearcher shardSearcher) {
+            super(segment.reader());
+            this.shardSearcher = shardSearcher;
+            setSimilarity(shardSearcher.getSimilarity());
+        }
+
+        @Override
+        public TermStatistics termStatistics(Term term, TermContext context) throws IOException {
+            return shardSearcher.termStatistics(term, TermContext.build(shardSearcher.getTopReaderContext(), term));
+        }
+
+        @Override
+        public CollectionStatistics collectionStatistics(String field) throws IOException {
+            return shardSearcher.collectionStatistics(field);
+        }
+    }
+
     public static class Key implements Accountable {
         public final IndexShard shard; // use as identity equality
         public final long readerVersion; // use the reader version to now keep a reference to a "short" lived reader until its reaped
+        @Nullable
+        public final Object segmentCoreKey; // the core of the segment for per segment entries, used to reap them
+        @Nullable
+        public final Object segmentKey; // the combined core and deletes key of the segment for per segment entries, used as identity equality
         public final BytesReference value;
 
         Key(IndexShard shard, long readerVersion, BytesReference value) {
+            this(shard, readerVersion, null, null, value);
+        }
+
+        Key(IndexShard shard, long readerVersion, @Nullable Object segmentCoreKey, @Nullable Object segmentKey, BytesReference value) {
             this.shard = shard;
             this.readerVersion = readerVersion;
+            this.segmentCoreKey = segmentCoreKey;
+            this.segmentKey = segmentKey;
             this.value = value;
         }
 
         @Override
         public long ramBytesUsed() {
-            return RamUsageEstimator.NUM_BYTES_OBJECT_REF + RamUsageEstimator.NUM_BYTES_LONG + value.length();
+            return 3 * RamUsageEstimator.NUM_BYTES_OBJECT_REF + RamUsageEstimator.NUM_BYTES_LONG + value.length();
         }
 
         @Override
@@ -300,6 +481,7 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
             if (this == o) return true;
             Key key = (Key) o;
             if (readerVersion != key.readerVersion) return false;
+            if (segmentKey != key.segmentKey) return false;
             if (!shard.equals(key.shard)) return false;
             if (!value.equals(key.value)) return false;
             return true;
@@ -309,6 +491,7 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
         public int hashCode() {
             int result = shard.hashCode();
             result = 31 * result + (int) (readerVersion ^ (readerVersion >>> 32));
+            result = 31 * result + System.identityHashCode(segmentKey);
             result = 31 * result + value.hashCode();
             return result;
         }
@@ -348,10 +531,22 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
         }
     }
 
+    private class SegmentCleanup implements LeafReader.CoreClosedListener {
+
+        @Override
+        public void onClose(Object ownerCoreCacheKey) {
+            Boolean remove = registeredClosedSegments.remove(ownerCoreCacheKey);
+            if (remove != null) {
+                segmentsToClean.add(ownerCoreCacheKey);
+            }
+        }
+    }
+
     private class Reaper implements Runnable {
 
         private final ObjectSet<CleanupKey> currentKeysToClean = ObjectOpenHashSet.newInstance();
         private final ObjectSet<IndexShard> currentFullClean = ObjectOpenHashSet.newInstance();
+        private final ObjectSet<Object> currentSegmentsToClean = ObjectOpenHashSet.newInstance();
 
         private volatile boolean closed;
 
@@ -364,7 +559,7 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
             if (closed) {
                 return;
             }
-            if (keysToClean.isEmpty()) {
+            if (keysToClean.isEmpty() && segmentsToClean.isEmpty()) {
                 schedule();
                 return;
             }
@@ -392,6 +587,11 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
         synchronized void reap() {
             currentKeysToClean.clear();
             currentFullClean.clear();
+            currentSegmentsToClean.clear();
+            for (Iterator<Object> iterator = segmentsToClean.iterator(); iterator.hasNext(); ) {
+                currentSegmentsToClean.add(iterator.next());
+                iterator.remove();
+            }
             for (Iterator<CleanupKey> iterator = keysToClean.iterator(); iterator.hasNext(); ) {
                 CleanupKey cleanupKey = iterator.next();
                 iterator.remove();
@@ -403,12 +603,16 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
                 }
             }
 
-            if (!currentKeysToClean.isEmpty() || !currentFullClean.isEmpty()) {
+            if (!currentKeysToClean.isEmpty() || !currentFullClean.isEmpty() || !currentSegmentsToClean.isEmpty()) {
                 CleanupKey lookupKey = new CleanupKey(null, -1);
                 for (Iterator<Key> iterator = cache.asMap().keySet().iterator(); iterator.hasNext(); ) {
                     Key key = iterator.next();
                     if (currentFullClean.contains(key.shard)) {
                         iterator.remove();
+                    } else if (key.segmentCoreKey != null) {
+                        if (currentSegmentsToClean.contains(key.segmentCoreKey)) {
+                            iterator.remove();
+                        }
                     } else {
                         lookupKey.indexShard = key.shard;
                         lookupKey.readerVersion = key.readerVersion;
@@ -422,6 +626,7 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
             cache.cleanUp();
             currentKeysToClean.clear();
             currentFullClean.clear();
+            currentSegmentsToClean.clear();
         }
     }
 
@@ -506,6 +711,7 @@ public class IndicesQueryCache extends AbstractComponent implements RemovalListe
         public void writeTo(StreamOutput out) throws IOException {
             super.writeTo(out);
             out.writeLong(id);
+            writeNodeStats(out);
 //          shardTarget.writeTo(out); not needed
             data.writeTo(out); // we need to write teh bytes as is, to be the same as QuerySearchResult
         }
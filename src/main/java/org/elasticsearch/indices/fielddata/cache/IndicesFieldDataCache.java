@@ -25,12 +25,15 @@ import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.SegmentReader;
 import org.apache.lucene.util.Accountable;
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.common.cache.EvictionPolicy;
+import org.elasticsearch.common.cache.WeightedCacheBuilder;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.logging.ESLogger;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.concurrent.ConcurrentCollections;
 import org.elasticsearch.index.Index;
 import org.elasticsearch.index.fielddata.AtomicFieldData;
 import org.elasticsearch.index.fielddata.FieldDataType;
@@ -46,7 +49,9 @@ import org.elasticsearch.threadpool.ThreadPool;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  */
@@ -54,6 +59,7 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
 
     public static final String FIELDDATA_CLEAN_INTERVAL_SETTING = "indices.fielddata.cache.cleanup_interval";
     public static final String FIELDDATA_CACHE_CONCURRENCY_LEVEL = "indices.fielddata.cache.concurrency_level";
+    public static final String FIELDDATA_CACHE_EVICTION_POLICY = "indices.fielddata.cache.eviction_policy";
 
 
     private final IndicesFieldDataCacheListener indicesFieldDataCacheListener;
@@ -70,7 +76,8 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         final String size = componentSettings.get("size", "-1");
         final long sizeInBytes = componentSettings.getAsMemory("size", "-1").bytes();
         final TimeValue expire = componentSettings.getAsTime("expire", null);
-        CacheBuilder<Key, Accountable> cacheBuilder = CacheBuilder.newBuilder()
+        final EvictionPolicy evictionPolicy = EvictionPolicy.fromString(settings.get(FIELDDATA_CACHE_EVICTION_POLICY, "lru"));
+        WeightedCacheBuilder<Key, Accountable> cacheBuilder = WeightedCacheBuilder.<Key, Accountable>newBuilder(evictionPolicy)
                 .removalListener(this);
         if (sizeInBytes > 0) {
             cacheBuilder.maximumWeight(sizeInBytes).weigher(new FieldDataWeigher());
@@ -84,7 +91,7 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         if (expire != null && expire.millis() > 0) {
             cacheBuilder.expireAfterAccess(expire.millis(), TimeUnit.MILLISECONDS);
         }
-        logger.debug("using size [{}] [{}], expire [{}]", size, new ByteSizeValue(sizeInBytes), expire);
+        logger.debug("using size [{}] [{}], expire [{}], eviction_policy [{}]", size, new ByteSizeValue(sizeInBytes), expire, evictionPolicy);
         cache = cacheBuilder.build();
 
         this.cleanInterval = settings.getAsTime(FIELDDATA_CLEAN_INTERVAL_SETTING, TimeValue.timeValueMinutes(1));
@@ -142,6 +149,8 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
         final FieldDataType fieldDataType;
         private final Cache<Key, Accountable> cache;
         private final IndicesFieldDataCacheListener indicesFieldDataCacheListener;
+        // the number of searches of each top level reader while its global field data wasn't loaded
+        private final ConcurrentMap<Object, AtomicLong> searchesWithoutGlobal = ConcurrentCollections.newConcurrentMap();
 
         IndexFieldCache(ESLogger logger,final Cache<Key, Accountable> cache, IndicesFieldDataCacheListener indicesFieldDataCacheListener, IndexService indexService, Index index, FieldMapper.Names fieldNames, FieldDataType fieldDataType) {
             this.logger = logger;
@@ -216,6 +225,26 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
             return (IFD) accountable;
         }
 
+        @Override
+        public boolean isLoaded(IndexReader indexReader) {
+            return cache.getIfPresent(new Key(this, indexReader.getCoreCacheKey())) != null;
+        }
+
+        @Override
+        public long onSearchWithoutGlobal(IndexReader indexReader) {
+            final Object coreKey = indexReader.getCoreCacheKey();
+            AtomicLong searches = searchesWithoutGlobal.get(coreKey);
+            if (searches == null) {
+                final AtomicLong newSearches = new AtomicLong();
+                searches = searchesWithoutGlobal.putIfAbsent(coreKey, newSearches);
+                if (searches == null) {
+                    indexReader.addReaderClosedListener(IndexFieldCache.this);
+                    searches = newSearches;
+                }
+            }
+            return searches.incrementAndGet();
+        }
+
         @Override
         public void onClose(Object coreKey) {
             cache.invalidate(new Key(this, coreKey));
@@ -223,6 +252,7 @@ public class IndicesFieldDataCache extends AbstractComponent implements RemovalL
 
         @Override
         public void onClose(IndexReader reader) {
+            searchesWithoutGlobal.remove(reader.getCoreCacheKey());
             cache.invalidate(new Key(this, reader.getCoreCacheKey()));
         }
 
@@ -22,6 +22,7 @@ package org.elasticsearch.indices.recovery;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
 
 import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.xcontent.ToXContent;
@@ -327,6 +328,10 @@ public class RecoveryState implements ToXContent, Streamable {
         static final XContentBuilderString TRANSLOG = new XContentBuilderString("translog");
         static final XContentBuilderString START = new XContentBuilderString("start");
         static final XContentBuilderString RECOVERED = new XContentBuilderString("recovered");
+        static final XContentBuilderString RECOVERED_SIZE = new XContentBuilderString("recovered_size");
+        static final XContentBuilderString RECOVERED_SIZE_IN_BYTES = new XContentBuilderString("recovered_size_in_bytes");
+        static final XContentBuilderString OPERATIONS_PER_SECOND = new XContentBuilderString("operations_per_second");
+        static final XContentBuilderString BYTES_PER_SECOND = new XContentBuilderString("bytes_per_second");
         static final XContentBuilderString CHECK_INDEX_TIME = new XContentBuilderString("check_index_time");
         static final XContentBuilderString CHECK_INDEX_TIME_IN_MILLIS = new XContentBuilderString("check_index_time_in_millis");
         static final XContentBuilderString LENGTH = new XContentBuilderString("length");
@@ -429,6 +434,7 @@ public class RecoveryState implements ToXContent, Streamable {
         private long startTime = 0;
         private long time;
         private volatile int currentTranslogOperations = 0;
+        private volatile long currentTranslogBytes = 0;
 
         public long startTime() {
             return this.startTime;
@@ -458,6 +464,45 @@ public class RecoveryState implements ToXContent, Streamable {
             return this.currentTranslogOperations;
         }
 
+        public void addTranslogBytes(long bytes) {
+            this.currentTranslogBytes += bytes;
+        }
+
+        /**
+         * The number of translog bytes replayed so far, as stored in the translog file or, for peer recoveries,
+         * as estimated from the received operations.
+         */
+        public long currentTranslogBytes() {
+            return this.currentTranslogBytes;
+        }
+
+        /**
+         * The number of operations replayed per second, over the total time once the stage is done or over
+         * the time elapsed so far while it is still running.
+         */
+        public double operationsPerSecond() {
+            long elapsed = elapsedMillis();
+            return elapsed > 0 ? currentTranslogOperations * 1000.0 / elapsed : 0;
+        }
+
+        /**
+         * The number of translog bytes replayed per second, see {@link #operationsPerSecond()}.
+         */
+        public double bytesPerSecond() {
+            long elapsed = elapsedMillis();
+            return elapsed > 0 ? currentTranslogBytes * 1000.0 / elapsed : 0;
+        }
+
+        private long elapsedMillis() {
+            if (time > 0) {
+                return time;
+            }
+            if (startTime > 0) {
+                return Math.max(0, System.currentTimeMillis() - startTime);
+            }
+            return 0;
+        }
+
         public static Translog readTranslog(StreamInput in) throws IOException {
             Translog translog = new Translog();
             translog.readFrom(in);
@@ -469,6 +514,9 @@ public class RecoveryState implements ToXContent, Streamable {
             startTime = in.readVLong();
             time = in.readVLong();
             currentTranslogOperations = in.readVInt();
+            if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+                currentTranslogBytes = in.readVLong();
+            }
         }
 
         @Override
@@ -476,11 +524,17 @@ public class RecoveryState implements ToXContent, Streamable {
             out.writeVLong(startTime);
             out.writeVLong(time);
             out.writeVInt(currentTranslogOperations);
+            if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+                out.writeVLong(currentTranslogBytes);
+            }
         }
 
         @Override
         public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
             builder.field(Fields.RECOVERED, currentTranslogOperations);
+            builder.byteSizeField(Fields.RECOVERED_SIZE_IN_BYTES, Fields.RECOVERED_SIZE, currentTranslogBytes);
+            builder.field(Fields.OPERATIONS_PER_SECOND, operationsPerSecond());
+            builder.field(Fields.BYTES_PER_SECOND, bytesPerSecond());
             builder.timeValueField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, time);
             return builder;
         }
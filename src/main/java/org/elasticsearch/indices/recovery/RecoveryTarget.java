@@ -325,6 +325,7 @@ public class RecoveryTarget extends AbstractComponent {
                 for (Translog.Operation operation : request.operations()) {
                     recoveryStatus.indexShard().performRecoveryOperation(operation);
                     recoveryStatus.state().getTranslog().incrementTranslogOperations();
+                    recoveryStatus.state().getTranslog().addTranslogBytes(operation.estimateSize());
                 }
             }
             channel.sendResponse(TransportResponse.Empty.INSTANCE);
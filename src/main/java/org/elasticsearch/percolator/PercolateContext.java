@@ -195,7 +195,7 @@ public class PercolateContext extends SearchContext {
     }
 
     @Override
-    public SearchLookup lookup() {
+    protected SearchLookup lookupImpl() {
         if (searchLookup == null) {
             searchLookup = new SearchLookup(mapperService(), fieldData(), types);
         }
@@ -77,6 +77,8 @@ public class RestNodesStatsAction extends BaseRestHandler {
             nodesStatsRequest.indices(metrics.contains("indices"));
             nodesStatsRequest.process(metrics.contains("process"));
             nodesStatsRequest.breaker(metrics.contains("breaker"));
+            nodesStatsRequest.adaptiveSelection(metrics.contains("adaptive_selection"));
+            nodesStatsRequest.allocation(metrics.contains("allocation"));
 
             // check for index specific metrics
             if (metrics.contains("indices")) {
@@ -136,6 +136,15 @@ public class RestIndicesAction extends AbstractCatAction {
         table.addCell("query_cache.miss_count", "sibling:pri;alias:qcmc,queryCacheMissCount;default:false;text-align:right;desc:query cache miss count");
         table.addCell("pri.query_cache.miss_count", "default:false;text-align:right;desc:query cache miss count");
 
+        table.addCell("query_cache.segment_hit_count", "sibling:pri;alias:qcshc,queryCacheSegmentHitCount;default:false;text-align:right;desc:query cache segment hit count");
+        table.addCell("pri.query_cache.segment_hit_count", "default:false;text-align:right;desc:query cache segment hit count");
+
+        table.addCell("query_cache.segment_miss_count", "sibling:pri;alias:qcsmc,queryCacheSegmentMissCount;default:false;text-align:right;desc:query cache segment miss count");
+        table.addCell("pri.query_cache.segment_miss_count", "default:false;text-align:right;desc:query cache segment miss count");
+
+        table.addCell("query_cache.rejected_count", "sibling:pri;alias:qcrc,queryCacheRejectedCount;default:false;text-align:right;desc:query cache results rejected as too cheap to cache");
+        table.addCell("pri.query_cache.rejected_count", "default:false;text-align:right;desc:query cache results rejected as too cheap to cache");
+
         table.addCell("flush.total", "sibling:pri;alias:ft,flushTotal;default:false;text-align:right;desc:number of flushes");
         table.addCell("pri.flush.total", "default:false;text-align:right;desc:number of flushes");
 
@@ -338,6 +347,15 @@ public class RestIndicesAction extends AbstractCatAction {
             table.addCell(indexStats == null ? null : indexStats.getTotal().getQueryCache().getMissCount());
             table.addCell(indexStats == null ? null : indexStats.getPrimaries().getQueryCache().getMissCount());
 
+            table.addCell(indexStats == null ? null : indexStats.getTotal().getQueryCache().getSegmentHitCount());
+            table.addCell(indexStats == null ? null : indexStats.getPrimaries().getQueryCache().getSegmentHitCount());
+
+            table.addCell(indexStats == null ? null : indexStats.getTotal().getQueryCache().getSegmentMissCount());
+            table.addCell(indexStats == null ? null : indexStats.getPrimaries().getQueryCache().getSegmentMissCount());
+
+            table.addCell(indexStats == null ? null : indexStats.getTotal().getQueryCache().getRejectedCount());
+            table.addCell(indexStats == null ? null : indexStats.getPrimaries().getQueryCache().getRejectedCount());
+
             table.addCell(indexStats == null ? null : indexStats.getTotal().getFlush().getTotal());
             table.addCell(indexStats == null ? null : indexStats.getPrimaries().getFlush().getTotal());
 
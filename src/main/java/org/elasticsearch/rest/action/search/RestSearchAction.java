@@ -24,6 +24,7 @@ import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.client.Client;
+import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.settings.Settings;
@@ -107,6 +108,12 @@ public class RestSearchAction extends BaseRestHandler {
         searchRequest.extraSource(parseSearchSource(request));
         searchRequest.searchType(request.param("search_type"));
         searchRequest.queryCache(request.paramAsBoolean("query_cache", null));
+        searchRequest.batchedReduceSize(request.paramAsInt("batched_reduce_size", searchRequest.batchedReduceSize()));
+        searchRequest.maxConcurrentShardRequestsPerNode(request.paramAsInt("max_concurrent_shard_requests_per_node", searchRequest.maxConcurrentShardRequestsPerNode()));
+        String priority = request.param("priority");
+        if (priority != null) {
+            searchRequest.priority(Priority.fromString(priority));
+        }
 
         String scroll = request.param("scroll");
         if (scroll != null) {
@@ -42,6 +42,7 @@ import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.metrics.ExponentiallyWeightedMovingAverage;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
@@ -89,6 +90,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static org.elasticsearch.common.Strings.hasLength;
@@ -104,6 +106,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
     public static final String DEFAULT_KEEPALIVE_KEY = "search." + DEFAULT_KEEPALIVE_COMPONENENT_KEY;
     private static final String KEEPALIVE_INTERVAL_COMPONENENT_KEY = "keep_alive_interval";
     public static final String KEEPALIVE_INTERVAL_KEY = "search." + KEEPALIVE_INTERVAL_COMPONENENT_KEY;
+    private static final double QUERY_PHASE_TIME_ALPHA = 0.3;
 
 
     private final ThreadPool threadPool;
@@ -138,6 +141,10 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
 
     private final ImmutableMap<String, SearchParseElement> elementParsers;
 
+    // the moving average of the time it takes to execute the query phase on this node, reported to the coordinating
+    // nodes with query results for adaptive replica selection
+    private final ExponentiallyWeightedMovingAverage queryPhaseTimeEWMA = new ExponentiallyWeightedMovingAverage(QUERY_PHASE_TIME_ALPHA, 0);
+
     @Inject
     public SearchService(Settings settings, ClusterService clusterService, IndicesService indicesService,IndicesWarmer indicesWarmer, ThreadPool threadPool,
                          ScriptService scriptService, PageCacheRecycler pageCacheRecycler, BigArrays bigArrays, DfsPhase dfsPhase, QueryPhase queryPhase, FetchPhase fetchPhase,
@@ -280,7 +287,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
             QuerySearchResultProvider result;
             boolean canCache = indicesQueryCache.canCache(request, context);
             if (canCache) {
-                result = indicesQueryCache.load(request, context, queryPhase);
+                result = indicesQueryCache.load(request, context, queryPhase, new SegmentQueryPhase(request));
             } else {
                 queryPhase.execute(context);
                 result = context.queryResult();
@@ -291,7 +298,11 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
             } else {
                 contextProcessedSuccessfully(context);
             }
-            context.indexShard().searchService().onQueryPhase(context, System.nanoTime() - time);
+            final long took = System.nanoTime() - time;
+            context.indexShard().searchService().onQueryPhase(context, took);
+            queryPhaseTimeEWMA.addValue(took);
+            result.serviceTimeEWMA((long) queryPhaseTimeEWMA.getAverage());
+            result.nodeQueueSize(searchQueueSize());
 
             return result;
         } catch (Throwable e) {
@@ -308,6 +319,14 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         }
     }
 
+    private int searchQueueSize() {
+        final Executor executor = threadPool.executor(ThreadPool.Names.SEARCH);
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getQueue().size();
+        }
+        return -1;
+    }
+
     public ScrollQuerySearchResult executeQueryPhase(InternalScrollSearchRequest request) throws ElasticsearchException {
         final SearchContext context = findContext(request.id());
         try {
@@ -573,6 +592,41 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
         return context;
     }
 
+    /**
+     * Executes the query phase of a request on a single segment, so that the query cache can compute and cache shard results per segment.
+     */
+    private class SegmentQueryPhase implements IndicesQueryCache.SegmentQueryPhase {
+
+        private final ShardSearchRequest request;
+
+        SegmentQueryPhase(ShardSearchRequest request) {
+            this.request = request;
+        }
+
+        @Override
+        public QuerySearchResult execute(Engine.Searcher segmentSearcher) throws Exception {
+            // creating the context replaces the current one, which is still in use by the shard request
+            final SearchContext current = SearchContext.current();
+            try {
+                SearchContext context = createContext(request, segmentSearcher);
+                try {
+                    // only count requests are cached, but warmers switch to count after parsing
+                    context.searchType(SearchType.COUNT);
+                    queryPhase.execute(context);
+                    return context.queryResult();
+                } finally {
+                    context.close();
+                }
+            } finally {
+                if (current == null) {
+                    SearchContext.removeCurrent();
+                } else {
+                    SearchContext.setCurrent(current);
+                }
+            }
+        }
+    }
+
     private void freeAllContextForIndex(Index index) {
         assert index != null;
         for (SearchContext ctx : activeContexts.values()) {
@@ -989,7 +1043,7 @@ public class SearchService extends AbstractLifecycleComponent<SearchService> {
                                 return;
                             }
                             if (canCache) {
-                                indicesQueryCache.load(request, context, queryPhase);
+                                indicesQueryCache.load(request, context, queryPhase, new SegmentQueryPhase(request));
                             } else {
                                 queryPhase.execute(context);
                             }
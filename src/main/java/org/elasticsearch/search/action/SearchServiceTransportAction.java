@@ -28,11 +28,14 @@ import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.cluster.ClusterService;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.cluster.routing.ResponseCollectorService;
+import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.common.util.concurrent.PrioritizedRunnable;
 import org.elasticsearch.search.SearchService;
 import org.elasticsearch.search.dfs.DfsSearchResult;
 import org.elasticsearch.search.fetch.*;
@@ -102,6 +105,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
     private final TransportService transportService;
     private final ClusterService clusterService;
     private final SearchService searchService;
+    private final ResponseCollectorService responseCollector;
     private final FreeContextResponseHandler freeContextResponseHandler = new FreeContextResponseHandler(new ActionListener<Boolean>() {
         @Override
         public void onResponse(Boolean aBoolean) {}
@@ -113,12 +117,14 @@ public class SearchServiceTransportAction extends AbstractComponent {
     });
 
     @Inject
-    public SearchServiceTransportAction(Settings settings, ThreadPool threadPool, TransportService transportService, ClusterService clusterService, SearchService searchService) {
+    public SearchServiceTransportAction(Settings settings, ThreadPool threadPool, TransportService transportService, ClusterService clusterService, SearchService searchService,
+                                        ResponseCollectorService responseCollector) {
         super(settings);
         this.threadPool = threadPool;
         this.transportService = transportService;
         this.clusterService = clusterService;
         this.searchService = searchService;
+        this.responseCollector = responseCollector;
 
         transportService.registerHandler(FREE_CONTEXT_SCROLL_ACTION_NAME, new ScrollFreeContextTransportHandler());
         transportService.registerHandler(FREE_CONTEXT_ACTION_NAME, new SearchFreeContextTransportHandler());
@@ -185,7 +191,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
 
     public void sendExecuteDfs(DiscoveryNode node, final ShardSearchTransportRequest request, final SearchServiceListener<DfsSearchResult> listener) {
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
-            execute(new Callable<DfsSearchResult>() {
+            execute(request.priority(), new Callable<DfsSearchResult>() {
                 @Override
                 public DfsSearchResult call() throws Exception {
                     return searchService.executeDfsPhase(request);
@@ -217,9 +223,10 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
-    public void sendExecuteQuery(DiscoveryNode node, final ShardSearchTransportRequest request, final SearchServiceListener<QuerySearchResultProvider> listener) {
+    public void sendExecuteQuery(DiscoveryNode node, final ShardSearchTransportRequest request, SearchServiceListener<QuerySearchResultProvider> queryListener) {
+        final SearchServiceListener<QuerySearchResultProvider> listener = collectingListener(node.id(), queryListener);
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
-            execute(new Callable<QuerySearchResultProvider>() {
+            execute(request.priority(), new Callable<QuerySearchResultProvider>() {
                 @Override
                 public QuerySearchResultProvider call() throws Exception {
                     return searchService.executeQueryPhase(request);
@@ -287,7 +294,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
 
     public void sendExecuteQuery(DiscoveryNode node, final InternalScrollSearchRequest request, final SearchServiceListener<QuerySearchResult> listener) {
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
-            execute(new Callable<QuerySearchResult>() {
+            execute(Priority.LOW, new Callable<QuerySearchResult>() {
                 @Override
                 public QuerySearchResult call() throws Exception {
                     return searchService.executeQueryPhase(request).queryResult();
@@ -321,7 +328,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
 
     public void sendExecuteFetch(DiscoveryNode node, final ShardSearchTransportRequest request, final SearchServiceListener<QueryFetchSearchResult> listener) {
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
-            execute(new Callable<QueryFetchSearchResult>() {
+            execute(request.priority(), new Callable<QueryFetchSearchResult>() {
                 @Override
                 public QueryFetchSearchResult call() throws Exception {
                     return searchService.executeFetchPhase(request);
@@ -389,7 +396,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
 
     public void sendExecuteFetch(DiscoveryNode node, final InternalScrollSearchRequest request, final SearchServiceListener<QueryFetchSearchResult> listener) {
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
-            execute(new Callable<QueryFetchSearchResult>() {
+            execute(Priority.LOW, new Callable<QueryFetchSearchResult>() {
                 @Override
                 public QueryFetchSearchResult call() throws Exception {
                     return searchService.executeFetchPhase(request).result();
@@ -465,7 +472,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
 
     public void sendExecuteScan(DiscoveryNode node, final ShardSearchTransportRequest request, final SearchServiceListener<QuerySearchResult> listener) {
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
-            execute(new Callable<QuerySearchResult>() {
+            execute(request.priority(), new Callable<QuerySearchResult>() {
                 @Override
                 public QuerySearchResult call() throws Exception {
                     return searchService.executeScan(request);
@@ -499,7 +506,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
 
     public void sendExecuteScan(DiscoveryNode node, final InternalScrollSearchRequest request, final SearchServiceListener<QueryFetchSearchResult> listener) {
         if (clusterService.state().nodes().localNodeId().equals(node.id())) {
-            execute(new Callable<QueryFetchSearchResult>() {
+            execute(Priority.LOW, new Callable<QueryFetchSearchResult>() {
                 @Override
                 public QueryFetchSearchResult call() throws Exception {
                     return searchService.executeScan(request).result();
@@ -531,9 +538,38 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
+    /**
+     * Wraps the listener of a query request sent to the given node to collect the response time of the node, and the
+     * search queue size and service time it reported, for adaptive replica selection.
+     */
+    private SearchServiceListener<QuerySearchResultProvider> collectingListener(final String nodeId, final SearchServiceListener<QuerySearchResultProvider> listener) {
+        responseCollector.onRequest(nodeId);
+        final long startTime = System.nanoTime();
+        return new SearchServiceListener<QuerySearchResultProvider>() {
+            @Override
+            public void onResult(QuerySearchResultProvider result) {
+                responseCollector.onResponse(nodeId);
+                if (result.nodeQueueSize() >= 0 && result.serviceTimeEWMA() >= 0) {
+                    responseCollector.addNodeStatistics(nodeId, result.nodeQueueSize(), System.nanoTime() - startTime, result.serviceTimeEWMA());
+                }
+                listener.onResult(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                responseCollector.onResponse(nodeId);
+                listener.onFailure(t);
+            }
+        };
+    }
+
     private <T> void execute(final Callable<? extends T> callable, final SearchServiceListener<T> listener) {
+        execute(Priority.NORMAL, callable, listener);
+    }
+
+    private <T> void execute(Priority priority, final Callable<? extends T> callable, final SearchServiceListener<T> listener) {
         try {
-            threadPool.executor(ThreadPool.Names.SEARCH).execute(new Runnable() {
+            threadPool.executor(ThreadPool.Names.SEARCH).execute(new PrioritizedRunnable(priority) {
                 @Override
                 public void run() {
                     // Listeners typically do counting on errors and successes, and the decision to move to second phase, etc. is based on
@@ -724,7 +760,43 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
-    private class SearchDfsTransportHandler extends BaseTransportRequestHandler<ShardSearchTransportRequest> {
+    /**
+     * Forks the execution of shard requests that start or continue a search to the search thread pool with the
+     * priority of the request, so that they are queued ahead of lower priority requests, like scrolls, if the search
+     * thread pool is prioritized.
+     */
+    private abstract class PrioritizedSearchTransportHandler<Request extends TransportRequest> extends BaseTransportRequestHandler<Request> {
+
+        protected abstract Priority priority(Request request);
+
+        protected abstract TransportResponse executePhase(Request request) throws Exception;
+
+        @Override
+        public void messageReceived(final Request request, final TransportChannel channel) throws Exception {
+            threadPool.executor(ThreadPool.Names.SEARCH).execute(new PrioritizedRunnable(priority(request)) {
+                @Override
+                public void run() {
+                    try {
+                        channel.sendResponse(executePhase(request));
+                    } catch (Throwable t) {
+                        try {
+                            channel.sendResponse(t);
+                        } catch (Throwable e) {
+                            logger.warn("failed to send error response for [{}]", e, channel.action());
+                        }
+                    }
+                }
+            });
+        }
+
+        @Override
+        public String executor() {
+            // forks to the search thread pool on its own, rejections are sent back by the transport
+            return ThreadPool.Names.SAME;
+        }
+    }
+
+    private class SearchDfsTransportHandler extends PrioritizedSearchTransportHandler<ShardSearchTransportRequest> {
 
         @Override
         public ShardSearchTransportRequest newInstance() {
@@ -732,18 +804,17 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
 
         @Override
-        public void messageReceived(ShardSearchTransportRequest request, TransportChannel channel) throws Exception {
-            DfsSearchResult result = searchService.executeDfsPhase(request);
-            channel.sendResponse(result);
+        protected Priority priority(ShardSearchTransportRequest request) {
+            return request.priority();
         }
 
         @Override
-        public String executor() {
-            return ThreadPool.Names.SEARCH;
+        protected TransportResponse executePhase(ShardSearchTransportRequest request) throws Exception {
+            return searchService.executeDfsPhase(request);
         }
     }
 
-    private class SearchQueryTransportHandler extends BaseTransportRequestHandler<ShardSearchTransportRequest> {
+    private class SearchQueryTransportHandler extends PrioritizedSearchTransportHandler<ShardSearchTransportRequest> {
 
         @Override
         public ShardSearchTransportRequest newInstance() {
@@ -751,14 +822,13 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
 
         @Override
-        public void messageReceived(ShardSearchTransportRequest request, TransportChannel channel) throws Exception {
-            QuerySearchResultProvider result = searchService.executeQueryPhase(request);
-            channel.sendResponse(result);
+        protected Priority priority(ShardSearchTransportRequest request) {
+            return request.priority();
         }
 
         @Override
-        public String executor() {
-            return ThreadPool.Names.SEARCH;
+        protected TransportResponse executePhase(ShardSearchTransportRequest request) throws Exception {
+            return searchService.executeQueryPhase(request);
         }
     }
 
@@ -781,7 +851,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
-    private class SearchQueryScrollTransportHandler extends BaseTransportRequestHandler<InternalScrollSearchRequest> {
+    private class SearchQueryScrollTransportHandler extends PrioritizedSearchTransportHandler<InternalScrollSearchRequest> {
 
         @Override
         public InternalScrollSearchRequest newInstance() {
@@ -789,18 +859,17 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
 
         @Override
-        public void messageReceived(InternalScrollSearchRequest request, TransportChannel channel) throws Exception {
-            ScrollQuerySearchResult result = searchService.executeQueryPhase(request);
-            channel.sendResponse(result);
+        protected Priority priority(InternalScrollSearchRequest request) {
+            return Priority.LOW;
         }
 
         @Override
-        public String executor() {
-            return ThreadPool.Names.SEARCH;
+        protected TransportResponse executePhase(InternalScrollSearchRequest request) throws Exception {
+            return searchService.executeQueryPhase(request);
         }
     }
 
-    private class SearchQueryFetchTransportHandler extends BaseTransportRequestHandler<ShardSearchTransportRequest> {
+    private class SearchQueryFetchTransportHandler extends PrioritizedSearchTransportHandler<ShardSearchTransportRequest> {
 
         @Override
         public ShardSearchTransportRequest newInstance() {
@@ -808,14 +877,13 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
 
         @Override
-        public void messageReceived(ShardSearchTransportRequest request, TransportChannel channel) throws Exception {
-            QueryFetchSearchResult result = searchService.executeFetchPhase(request);
-            channel.sendResponse(result);
+        protected Priority priority(ShardSearchTransportRequest request) {
+            return request.priority();
         }
 
         @Override
-        public String executor() {
-            return ThreadPool.Names.SEARCH;
+        protected TransportResponse executePhase(ShardSearchTransportRequest request) throws Exception {
+            return searchService.executeFetchPhase(request);
         }
     }
 
@@ -868,7 +936,7 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
     }
 
-    private class SearchQueryFetchScrollTransportHandler extends BaseTransportRequestHandler<InternalScrollSearchRequest> {
+    private class SearchQueryFetchScrollTransportHandler extends PrioritizedSearchTransportHandler<InternalScrollSearchRequest> {
 
         @Override
         public InternalScrollSearchRequest newInstance() {
@@ -876,18 +944,17 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
 
         @Override
-        public void messageReceived(InternalScrollSearchRequest request, TransportChannel channel) throws Exception {
-            ScrollQueryFetchSearchResult result = searchService.executeFetchPhase(request);
-            channel.sendResponse(result);
+        protected Priority priority(InternalScrollSearchRequest request) {
+            return Priority.LOW;
         }
 
         @Override
-        public String executor() {
-            return ThreadPool.Names.SEARCH;
+        protected TransportResponse executePhase(InternalScrollSearchRequest request) throws Exception {
+            return searchService.executeFetchPhase(request);
         }
     }
 
-    private class SearchScanTransportHandler extends BaseTransportRequestHandler<ShardSearchTransportRequest> {
+    private class SearchScanTransportHandler extends PrioritizedSearchTransportHandler<ShardSearchTransportRequest> {
 
         @Override
         public ShardSearchTransportRequest newInstance() {
@@ -895,18 +962,17 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
 
         @Override
-        public void messageReceived(ShardSearchTransportRequest request, TransportChannel channel) throws Exception {
-            QuerySearchResult result = searchService.executeScan(request);
-            channel.sendResponse(result);
+        protected Priority priority(ShardSearchTransportRequest request) {
+            return request.priority();
         }
 
         @Override
-        public String executor() {
-            return ThreadPool.Names.SEARCH;
+        protected TransportResponse executePhase(ShardSearchTransportRequest request) throws Exception {
+            return searchService.executeScan(request);
         }
     }
 
-    private class SearchScanScrollTransportHandler extends BaseTransportRequestHandler<InternalScrollSearchRequest> {
+    private class SearchScanScrollTransportHandler extends PrioritizedSearchTransportHandler<InternalScrollSearchRequest> {
 
         @Override
         public InternalScrollSearchRequest newInstance() {
@@ -914,14 +980,13 @@ public class SearchServiceTransportAction extends AbstractComponent {
         }
 
         @Override
-        public void messageReceived(InternalScrollSearchRequest request, TransportChannel channel) throws Exception {
-            ScrollQueryFetchSearchResult result = searchService.executeScan(request);
-            channel.sendResponse(result);
+        protected Priority priority(InternalScrollSearchRequest request) {
+            return Priority.LOW;
         }
 
         @Override
-        public String executor() {
-            return ThreadPool.Names.SEARCH;
+        protected TransportResponse executePhase(InternalScrollSearchRequest request) throws Exception {
+            return searchService.executeScan(request);
         }
     }
 }
@@ -163,6 +163,30 @@ public class AggregatorFactories {
         return factories.length;
     }
 
+    /**
+     * Whether all the factories support concurrent collection, see {@link AggregatorFactory#supportsConcurrentCollection()}.
+     */
+    public boolean supportsConcurrentCollection() {
+        for (AggregatorFactory factory : factories) {
+            if (!factory.supportsConcurrentCollection()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether all the factories and their sub factories reduce exactly, see {@link AggregatorFactory#reducesExactly()}.
+     */
+    public boolean reducesExactly() {
+        for (AggregatorFactory factory : factories) {
+            if (!factory.reducesExactly() || !factory.factories.reducesExactly()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     void setParent(AggregatorFactory parent) {
         for (AggregatorFactory factory : factories) {
             factory.parent = parent;
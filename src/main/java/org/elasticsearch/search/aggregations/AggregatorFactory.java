@@ -92,6 +92,26 @@ public abstract class AggregatorFactory {
     public void doValidate() {
     }
 
+    /**
+     * Whether aggregators created by this factory for different slices of the segments of a shard, each with its own
+     * {@link AggregationContext}, can collect concurrently and have their results reduced into the result of the shard.
+     * This requires the aggregator not to share per segment state, like scripts, across aggregation contexts, and its
+     * reduce to be exact.
+     */
+    public boolean supportsConcurrentCollection() {
+        return false;
+    }
+
+    /**
+     * Whether reducing, with partial reduces and in any grouping, the results of aggregators created by this factory over
+     * disjoint sets of segments of a shard gives the same result as an aggregator over the whole shard. This doesn't hold
+     * for aggregators that only return their top buckets, like terms, or that approximate. Aggregators that support
+     * concurrent collection already reduce exactly.
+     */
+    public boolean reducesExactly() {
+        return supportsConcurrentCollection();
+    }
+
     public void setMetaData(Map<String, Object> metaData) {
         this.metaData = metaData;
     }
@@ -92,11 +92,17 @@ public abstract class InternalAggregation implements Aggregation, ToXContent, St
         private final List<InternalAggregation> aggregations;
         private final BigArrays bigArrays;
         private ScriptService scriptService;
+        private final boolean finalReduce;
 
         public ReduceContext(List<InternalAggregation> aggregations, BigArrays bigArrays, ScriptService scriptService) {
+            this(aggregations, bigArrays, scriptService, true);
+        }
+
+        public ReduceContext(List<InternalAggregation> aggregations, BigArrays bigArrays, ScriptService scriptService, boolean finalReduce) {
             this.aggregations = aggregations;
             this.bigArrays = bigArrays;
             this.scriptService = scriptService;
+            this.finalReduce = finalReduce;
         }
 
         public List<InternalAggregation> aggregations() {
@@ -110,6 +116,15 @@ public abstract class InternalAggregation implements Aggregation, ToXContent, St
         public ScriptService scriptService() {
             return scriptService;
         }
+
+        /**
+         * Whether this is the last reduce of the aggregations. Otherwise only some of the shard results are reduced
+         * into a partial result that is reduced again with the other results later, so the reduce must not drop or
+         * finalize anything that later results might change, like buckets beyond the requested size.
+         */
+        public boolean isFinalReduce() {
+            return finalReduce;
+        }
     }
 
 
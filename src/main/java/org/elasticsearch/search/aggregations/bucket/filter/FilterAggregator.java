@@ -88,6 +88,11 @@ public class FilterAggregator extends SingleBucketAggregator {
             return new FilterAggregator(name, filter, factories, context, parent, metaData);
         }
 
+        @Override
+        public boolean reducesExactly() {
+            return true;
+        }
+
     }
 }
 
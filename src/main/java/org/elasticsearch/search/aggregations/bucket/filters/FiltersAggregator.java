@@ -128,6 +128,11 @@ public class FiltersAggregator extends BucketsAggregator {
         public Aggregator createInternal(AggregationContext context, Aggregator parent, long expectedBucketsCount, Map<String, Object> metaData) {
             return new FiltersAggregator(name, factories, filters, keyed, context, parent, metaData);
         }
+
+        @Override
+        public boolean reducesExactly() {
+            return true;
+        }
     }
 
 }
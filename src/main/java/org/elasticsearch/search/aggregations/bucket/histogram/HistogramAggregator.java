@@ -18,13 +18,16 @@
  */
 package org.elasticsearch.search.aggregations.bucket.histogram;
 
+import org.apache.lucene.index.IndexReader;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.index.SortedNumericDocValues;
 import org.apache.lucene.util.CollectionUtil;
 import org.elasticsearch.common.inject.internal.Nullable;
 import org.elasticsearch.common.lease.Releasables;
 import org.elasticsearch.common.rounding.Rounding;
+import org.elasticsearch.common.util.DenseLongHash;
 import org.elasticsearch.common.util.LongHash;
+import org.elasticsearch.search.aggregations.AggregationExecutionException;
 import org.elasticsearch.search.aggregations.Aggregator;
 import org.elasticsearch.search.aggregations.AggregatorFactories;
 import org.elasticsearch.search.aggregations.InternalAggregation;
@@ -43,6 +46,16 @@ import java.util.Map;
 
 public class HistogramAggregator extends BucketsAggregator {
 
+    /**
+     * The maximum number of possible keys between the minimum and the maximum key for the bucket ordinals to be looked
+     * up in an array, see {@link DenseLongHash}. The array takes 8 bytes per possible key of the range whether the key
+     * has documents or not, and there is one array per bucket of the parent aggregation, hence the lower limit under one.
+     * Keys that are not consecutive numbers, like the milliseconds since the epoch of date histogram keys, are counted
+     * in steps of {@link Rounding#minKeyDistance()}.
+     */
+    static final long MAX_DENSE_KEY_RANGE = 1 << 16;
+    static final long MAX_DENSE_KEY_RANGE_UNDER_BUCKET = 1 << 10;
+
     private final ValuesSource.Numeric valuesSource;
     private final @Nullable ValueFormatter formatter;
     private final Rounding rounding;
@@ -53,13 +66,19 @@ public class HistogramAggregator extends BucketsAggregator {
     private final ExtendedBounds extendedBounds;
     private final InternalHistogram.Factory histogramFactory;
 
+    // only one of them is set, the dense one if the range of the keys is known and small enough
     private final LongHash bucketOrds;
+    private final DenseLongHash denseBucketOrds;
     private SortedNumericDocValues values;
 
+    /**
+     * @param denseKeyRange the minimum and maximum keys to look the bucket ordinals up in an array for, or <tt>null</tt>
+     *                      to hash the keys
+     */
     public HistogramAggregator(String name, AggregatorFactories factories, Rounding rounding, InternalOrder order,
                                boolean keyed, long minDocCount, @Nullable ExtendedBounds extendedBounds,
                                @Nullable ValuesSource.Numeric valuesSource, @Nullable ValueFormatter formatter,
-                               long initialCapacity, InternalHistogram.Factory<?> histogramFactory,
+                               long initialCapacity, @Nullable long[] denseKeyRange, InternalHistogram.Factory<?> histogramFactory,
                                AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
 
         super(name, BucketAggregationMode.PER_BUCKET, factories, initialCapacity, aggregationContext, parent, metaData);
@@ -72,7 +91,13 @@ public class HistogramAggregator extends BucketsAggregator {
         this.formatter = formatter;
         this.histogramFactory = histogramFactory;
 
-        bucketOrds = new LongHash(initialCapacity, aggregationContext.bigArrays());
+        if (denseKeyRange == null) {
+            bucketOrds = new LongHash(initialCapacity, aggregationContext.bigArrays());
+            denseBucketOrds = null;
+        } else {
+            bucketOrds = null;
+            denseBucketOrds = new DenseLongHash(denseKeyRange[0], denseKeyRange[1], rounding.minKeyDistance(), initialCapacity, aggregationContext.bigArrays());
+        }
     }
 
     @Override
@@ -99,7 +124,7 @@ public class HistogramAggregator extends BucketsAggregator {
             if (key == previousKey) {
                 continue;
             }
-            long bucketOrd = bucketOrds.add(key);
+            long bucketOrd = denseBucketOrds != null ? denseBucketOrds.add(key) : bucketOrds.add(key);
             if (bucketOrd < 0) { // already seen
                 bucketOrd = -1 - bucketOrd;
                 collectExistingBucket(doc, bucketOrd);
@@ -113,9 +138,11 @@ public class HistogramAggregator extends BucketsAggregator {
     @Override
     public InternalAggregation buildAggregation(long owningBucketOrdinal) {
         assert owningBucketOrdinal == 0;
-        List<InternalHistogram.Bucket> buckets = new ArrayList<>((int) bucketOrds.size());
-        for (long i = 0; i < bucketOrds.size(); i++) {
-            buckets.add(histogramFactory.createBucket(rounding.valueForKey(bucketOrds.get(i)), bucketDocCount(i), bucketAggregations(i), keyed, formatter));
+        final long size = denseBucketOrds != null ? denseBucketOrds.size() : bucketOrds.size();
+        List<InternalHistogram.Bucket> buckets = new ArrayList<>((int) size);
+        for (long i = 0; i < size; i++) {
+            final long key = denseBucketOrds != null ? denseBucketOrds.get(i) : bucketOrds.get(i);
+            buckets.add(histogramFactory.createBucket(rounding.valueForKey(key), bucketDocCount(i), bucketAggregations(i), keyed, formatter));
         }
 
         // the contract of the histogram aggregation is that shards must return buckets ordered by key in ascending order
@@ -134,7 +161,7 @@ public class HistogramAggregator extends BucketsAggregator {
 
     @Override
     public void doClose() {
-        Releasables.close(bucketOrds);
+        Releasables.close(bucketOrds, denseBucketOrds);
     }
 
     public static class Factory extends ValuesSourceAggregatorFactory<ValuesSource.Numeric, Map<String, Object>> {
@@ -146,6 +173,9 @@ public class HistogramAggregator extends BucketsAggregator {
         private final ExtendedBounds extendedBounds;
         private final InternalHistogram.Factory<?> histogramFactory;
 
+        private boolean keyBoundsLoaded;
+        private long[] keyBounds;
+
         public Factory(String name, ValuesSourceConfig<ValuesSource.Numeric> config,
                        Rounding rounding, InternalOrder order, boolean keyed, long minDocCount,
                        ExtendedBounds extendedBounds, InternalHistogram.Factory<?> histogramFactory) {
@@ -161,7 +191,7 @@ public class HistogramAggregator extends BucketsAggregator {
 
         @Override
         protected Aggregator createUnmapped(AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
-            return new HistogramAggregator(name, factories, rounding, order, keyed, minDocCount, null, null, config.formatter(), 0, histogramFactory, aggregationContext, parent, metaData);
+            return new HistogramAggregator(name, factories, rounding, order, keyed, minDocCount, null, null, config.formatter(), 0, null, histogramFactory, aggregationContext, parent, metaData);
         }
 
         @Override
@@ -181,8 +211,54 @@ public class HistogramAggregator extends BucketsAggregator {
                 extendedBounds.processAndValidate(name, aggregationContext.searchContext(), config.parser());
                 roundedBounds = extendedBounds.round(rounding);
             }
-            return new HistogramAggregator(name, factories, rounding, order, keyed, minDocCount, roundedBounds, valuesSource, config.formatter(), estimatedBucketCount, histogramFactory, aggregationContext, parent, metaData);
+            long[] denseKeyRange = denseKeyRange(valuesSource, aggregationContext, hasParentBucketAggregator(parent));
+            return new HistogramAggregator(name, factories, rounding, order, keyed, minDocCount, roundedBounds, valuesSource, config.formatter(), estimatedBucketCount, denseKeyRange, histogramFactory, aggregationContext, parent, metaData);
         }
 
+        @Override
+        public boolean reducesExactly() {
+            // empty buckets and min_doc_count are only applied on the final reduce
+            return true;
+        }
+
+        /**
+         * The range of the keys to look the bucket ordinals up in an array for, <tt>null</tt> if the range is unknown or
+         * too sparse for the keys to be looked up in an array instead of being hashed.
+         */
+        private long[] denseKeyRange(ValuesSource.Numeric valuesSource, AggregationContext aggregationContext, boolean hasParentBucketAggregator) {
+            final IndexReader reader = aggregationContext.searchContext().searcher().getIndexReader();
+            if (!keyBoundsLoaded) {
+                // the bounds are the same for every aggregator this factory creates
+                try {
+                    final long[] valueBounds = valuesSource.longBounds(reader);
+                    if (valueBounds != null) {
+                        keyBounds = new long[]{rounding.roundKey(valueBounds[0]), rounding.roundKey(valueBounds[1])};
+                    }
+                } catch (IOException e) {
+                    throw new AggregationExecutionException("failed to read the bounds of the values of [" + name + "]", e);
+                }
+                keyBoundsLoaded = true;
+            }
+            return denseKeyRange(keyBounds, rounding.minKeyDistance(), reader.maxDoc(), hasParentBucketAggregator);
+        }
+
+
+        /**
+         * The given key bounds if the number of possible keys between them is small enough for the bucket ordinals to be
+         * looked up in an array, <tt>null</tt> otherwise.
+         */
+        @Nullable
+        static long[] denseKeyRange(@Nullable long[] keyBounds, long minKeyDistance, int maxDoc, boolean hasParentBucketAggregator) {
+            if (keyBounds == null || keyBounds[1] < keyBounds[0]) {
+                return null;
+            }
+            final long range = (keyBounds[1] - keyBounds[0]) / minKeyDistance + 1;
+            final long maxRange = hasParentBucketAggregator ? MAX_DENSE_KEY_RANGE_UNDER_BUCKET : MAX_DENSE_KEY_RANGE;
+            // a range wider than the number of documents has keys without documents for sure
+            if (range <= 0 || range > maxRange || range > maxDoc) {
+                return null;
+            }
+            return keyBounds;
+        }
     }
 }
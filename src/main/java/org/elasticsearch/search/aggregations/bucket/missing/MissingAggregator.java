@@ -87,6 +87,11 @@ public class MissingAggregator extends SingleBucketAggregator {
         protected MissingAggregator create(ValuesSource valuesSource, long expectedBucketsCount, AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
             return new MissingAggregator(name, factories, valuesSource, aggregationContext, parent, metaData);
         }
+
+        @Override
+        public boolean reducesExactly() {
+            return true;
+        }
     }
 
 }
@@ -304,6 +304,11 @@ public class RangeAggregator extends BucketsAggregator {
         protected Aggregator create(ValuesSource.Numeric valuesSource, long expectedBucketsCount, AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
             return new RangeAggregator(name, factories, valuesSource, config.format(), rangeFactory, ranges, keyed, aggregationContext, parent, metaData);
         }
+
+        @Override
+        public boolean reducesExactly() {
+            return true;
+        }
     }
 
 }
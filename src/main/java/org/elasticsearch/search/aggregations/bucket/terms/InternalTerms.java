@@ -115,6 +115,8 @@ public abstract class InternalTerms extends InternalMultiBucketAggregation imple
     protected long docCountError;
     protected boolean showTermDocCountError;
     protected long otherDocCount;
+    // whether this is a partial reduce of shard results, which keeps all buckets. only exists on the coordinating node
+    protected transient boolean partiallyReduced;
 
     protected InternalTerms() {} // for serialization
 
@@ -167,7 +169,10 @@ public abstract class InternalTerms extends InternalMultiBucketAggregation imple
             InternalTerms terms = (InternalTerms) aggregation;
             otherDocCount += terms.getSumOfOtherDocCounts();
             final long thisAggDocCountError;
-            if (terms.buckets.size() < this.shardSize || this.order == InternalOrder.TERM_ASC || this.order == InternalOrder.TERM_DESC) {
+            if (terms.partiallyReduced) {
+                // the error of the shard results it was reduced from
+                thisAggDocCountError = terms.docCountError;
+            } else if (terms.buckets.size() < this.shardSize || this.order == InternalOrder.TERM_ASC || this.order == InternalOrder.TERM_DESC) {
                 thisAggDocCountError = 0;
             } else if (InternalOrder.isCountDesc(this.order)) {
                 thisAggDocCountError = terms.buckets.get(terms.buckets.size() - 1).docCount;
@@ -183,12 +188,21 @@ public abstract class InternalTerms extends InternalMultiBucketAggregation imple
             }
             terms.docCountError = thisAggDocCountError;
             for (Bucket bucket : terms.buckets) {
-                bucket.docCountError = thisAggDocCountError;
+                if (terms.partiallyReduced == false) {
+                    bucket.docCountError = thisAggDocCountError;
+                } else if (thisAggDocCountError == -1 || bucket.docCountError == -1) {
+                    bucket.docCountError = -1;
+                } else {
+                    // a partially reduced bucket has the error of the shard results it is missing from, turn it
+                    // into the error of the shard results it was found in, like shard buckets have
+                    bucket.docCountError = thisAggDocCountError - bucket.docCountError;
+                }
                 buckets.put(bucket.getKeyAsObject(), bucket);
             }
         }
 
-        final int size = Math.min(requiredSize, buckets.size());
+        // a partial reduce can't tell which buckets will make it yet
+        final int size = reduceContext.isFinalReduce() ? Math.min(requiredSize, buckets.size()) : buckets.size();
         BucketPriorityQueue ordered = new BucketPriorityQueue(size, order.comparator(null));
         for (Collection<Bucket> l : buckets.asMap().values()) {
             List<Bucket> sameTermBuckets = (List<Bucket>) l; // cast is ok according to javadocs
@@ -200,7 +214,7 @@ public abstract class InternalTerms extends InternalMultiBucketAggregation imple
                     b.docCountError = sumDocCountError - b.docCountError;
                 }
             }
-            if (b.docCount >= minDocCount) {
+            if (b.docCount >= minDocCount || reduceContext.isFinalReduce() == false) {
                 Terms.Bucket removed = ordered.insertWithOverflow(b);
                 if (removed != null) {
                     otherDocCount += removed.getDocCount();
@@ -215,9 +229,11 @@ public abstract class InternalTerms extends InternalMultiBucketAggregation imple
         if (sumDocCountError == -1) {
             docCountError = -1;
         } else {
-            docCountError = aggregations.size() == 1 ? 0 : sumDocCountError;
+            docCountError = aggregations.size() == 1 && reduceContext.isFinalReduce() && this.partiallyReduced == false ? 0 : sumDocCountError;
         }
-        return newAggregation(name, Arrays.asList(list), showTermDocCountError, docCountError, otherDocCount, getMetaData());
+        InternalTerms reduced = newAggregation(name, Arrays.asList(list), showTermDocCountError, docCountError, otherDocCount, getMetaData());
+        reduced.partiallyReduced = reduceContext.isFinalReduce() == false;
+        return reduced;
     }
 
     protected abstract InternalTerms newAggregation(String name, List<Bucket> buckets, boolean showTermDocCountError, long docCountError, long otherDocCount, Map<String, Object> metaData);
@@ -0,0 +1,152 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.RandomAccessOrds;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.common.util.IntArray;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.AggregatorFactories;
+import org.elasticsearch.search.aggregations.bucket.terms.support.IncludeExclude;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
+import org.elasticsearch.search.aggregations.support.ValuesSource;
+
+import java.io.IOException;
+import java.util.Map;
+
+/**
+ * An aggregator of string values that counts the documents per segment ordinal and, at the end of each segment, adds
+ * the counts of the terms of the segment to buckets that are keyed by the bytes of the terms. Unlike the global
+ * ordinals based aggregators it doesn't need global ordinals, which take long to build on high cardinality fields and
+ * are built again after every refresh, at the cost of one hash lookup per term that has documents in a segment.
+ * <p/>
+ * The buckets are only known at the end of a segment, so this aggregator doesn't support sub aggregations.
+ */
+public class SegmentOrdinalsStringTermsAggregator extends StringTermsAggregator {
+
+    private final ValuesSource.Bytes.WithOrdinals valuesSource;
+    private final IncludeExclude includeExclude;
+
+    // the counts are stored at ord + 1 to avoid a branch to deal with the missing ord
+    private IntArray segmentDocCounts;
+    private RandomAccessOrds segmentOrds;
+    private Collector collector;
+
+    public SegmentOrdinalsStringTermsAggregator(String name, AggregatorFactories factories, ValuesSource.Bytes.WithOrdinals valuesSource,
+                                                long estimatedBucketCount, Terms.Order order, BucketCountThresholds bucketCountThresholds,
+                                                IncludeExclude includeExclude, AggregationContext aggregationContext, Aggregator parent,
+                                                SubAggCollectionMode collectionMode, boolean showTermDocCountError, Map<String, Object> metaData) {
+        super(name, factories, valuesSource, estimatedBucketCount, order, bucketCountThresholds, includeExclude, aggregationContext, parent, collectionMode, showTermDocCountError, metaData);
+        assert factories == null || factories.count() == 0;
+        this.valuesSource = valuesSource;
+        this.includeExclude = includeExclude;
+        this.segmentDocCounts = bigArrays.newIntArray(1, true);
+    }
+
+    private Collector newCollector(final RandomAccessOrds ords) {
+        final SortedDocValues singleValues = DocValues.unwrapSingleton(ords);
+        if (singleValues != null) {
+            return new Collector() {
+                @Override
+                public void collect(int doc) throws IOException {
+                    segmentDocCounts.increment(singleValues.getOrd(doc) + 1, 1);
+                }
+            };
+        } else {
+            return new Collector() {
+                @Override
+                public void collect(int doc) throws IOException {
+                    ords.setDocument(doc);
+                    final int numOrds = ords.cardinality();
+                    for (int i = 0; i < numOrds; i++) {
+                        segmentDocCounts.increment(ords.ordAt(i) + 1, 1);
+                    }
+                }
+            };
+        }
+    }
+
+    @Override
+    public void setNextReader(LeafReaderContext reader) {
+        if (segmentOrds != null) {
+            mapSegmentCountsToBuckets();
+        }
+        segmentOrds = valuesSource.ordinalsValues();
+        // the counts were reset while they were mapped to the buckets of the previous segment
+        segmentDocCounts = bigArrays.grow(segmentDocCounts, segmentOrds.getValueCount() + 1);
+        collector = newCollector(segmentOrds);
+    }
+
+    @Override
+    public void collect(int doc, long owningBucketOrdinal) throws IOException {
+        assert owningBucketOrdinal == 0;
+        collector.collect(doc);
+    }
+
+    @Override
+    protected void doPostCollection() {
+        if (segmentOrds != null) {
+            mapSegmentCountsToBuckets();
+            segmentOrds = null;
+        }
+    }
+
+    private void mapSegmentCountsToBuckets() {
+        final long maxOrd = segmentOrds.getValueCount();
+        for (long ord = 0; ord < maxOrd; ord++) {
+            final int inc = segmentDocCounts.set(ord + 1, 0);
+            if (inc == 0) {
+                continue;
+            }
+            final BytesRef term = segmentOrds.lookupOrd(ord);
+            if (includeExclude != null && !includeExclude.accept(term)) {
+                continue;
+            }
+            long bucketOrd = bucketOrds.add(term);
+            if (bucketOrd < 0) { // already seen
+                bucketOrd = -1 - bucketOrd;
+            }
+            try {
+                incrementBucketDocCount(bucketOrd, inc);
+            } catch (IOException e) {
+                throw ExceptionsHelper.convertToElastic(e);
+            }
+        }
+        // documents without a value
+        segmentDocCounts.set(0, 0);
+    }
+
+    @Override
+    public void doClose() {
+        try {
+            super.doClose();
+        } finally {
+            Releasables.close(segmentDocCounts);
+        }
+    }
+
+    private interface Collector {
+        void collect(int doc) throws IOException;
+    }
+}
@@ -98,6 +98,23 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
             boolean needsGlobalOrdinals() {
                 return true;
             }
+        },
+        SEGMENT_ORDINALS(new ParseField("segment_ordinals")) {
+
+            @Override
+            Aggregator create(String name, AggregatorFactories factories, ValuesSource valuesSource, long estimatedBucketCount,
+                              long maxOrd, Terms.Order order, TermsAggregator.BucketCountThresholds bucketCountThresholds, IncludeExclude includeExclude,
+                              AggregationContext aggregationContext, Aggregator parent, SubAggCollectionMode subAggCollectMode, boolean showTermDocCountError, Map<String, Object> metaData) {
+                if (factories.count() > 0) {
+                    return MAP.create(name, factories, valuesSource, estimatedBucketCount, maxOrd, order, bucketCountThresholds, includeExclude, aggregationContext, parent, subAggCollectMode, showTermDocCountError, metaData);
+                }
+                return new SegmentOrdinalsStringTermsAggregator(name, factories, (ValuesSource.Bytes.WithOrdinals) valuesSource, estimatedBucketCount, order, bucketCountThresholds, includeExclude, aggregationContext, parent, subAggCollectMode, showTermDocCountError, metaData);
+            }
+
+            @Override
+            boolean needsGlobalOrdinals() {
+                return false;
+            }
         };
 
         public static ExecutionMode fromString(String value) {
@@ -127,6 +144,46 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
         }
     }
 
+    /**
+     * The sum of the number of unique values of all segments above which a top-level terms aggregation without
+     * sub-aggregations counts segment ordinals rather than building global ordinals. Below it, building global ordinals
+     * is cheap and {@link ExecutionMode#GLOBAL_ORDINALS_LOW_CARDINALITY} is faster.
+     */
+    static final long SEGMENT_ORDINALS_MIN_CARDINALITY = 2048;
+
+    /**
+     * How many times more building global ordinals costs per term of a segment than remapping the count of a segment
+     * ordinal to its bucket, for each level of the merge of the terms of the segments.
+     */
+    static final int GLOBAL_ORDINALS_BUILD_COST = 2;
+
+    /**
+     * The number of searches of the same reader that remapping segment ordinals is cheaper for than building global
+     * ordinals once. Remapping looks up at most every term of every segment on every search, while building global
+     * ordinals merges the terms of all segments once per reader, and then serves all further searches.
+     */
+    static long maxSegmentOrdinalsSearches(int numSegments) {
+        // the terms of the segments are merged with a priority queue, about log2(numSegments) comparisons per term
+        final int mergeLevels = 32 - Integer.numberOfLeadingZeros(numSegments - 1);
+        return (long) GLOBAL_ORDINALS_BUILD_COST * Math.max(1, mergeLevels);
+    }
+
+    /**
+     * Whether to count segment ordinals, see {@link ExecutionMode#SEGMENT_ORDINALS}, rather than building global
+     * ordinals for a search that is the given number of searches of its reader without global ordinals. Both count the
+     * same documents: the segment mode saves building global ordinals, which blocks the search after every refresh and
+     * takes long on high cardinality fields, but pays for remapping the counts of every segment to terms on every
+     * search. Segment ordinals are used until the remapping of the searches of a reader adds up to the cost of building
+     * global ordinals, at most about twice the cost of the cheaper choice had the number of searches been known.
+     */
+    static boolean useSegmentOrdinals(int numSegments, long searchesWithoutGlobalOrdinals) {
+        if (numSegments <= 1) {
+            // the ordinals of a single segment are global already
+            return false;
+        }
+        return searchesWithoutGlobalOrdinals <= maxSegmentOrdinalsSearches(numSegments);
+    }
+
     private final Terms.Order order;
     private final IncludeExclude includeExclude;
     private final String executionHint;
@@ -198,6 +255,19 @@ public class TermsAggregatorFactory extends ValuesSourceAggregatorFactory<Values
                 execution = ExecutionMode.MAP;
             }
 
+            if (execution == null && !Aggregator.hasParentBucketAggregator(parent) && factories == AggregatorFactories.EMPTY
+                    && valuesSource instanceof ValuesSource.Bytes.WithOrdinals.FieldData) {
+                ValuesSource.Bytes.WithOrdinals.FieldData fieldData = (ValuesSource.Bytes.WithOrdinals.FieldData) valuesSource;
+                IndexSearcher indexSearcher = aggregationContext.searchContext().searcher();
+                int numSegments = indexSearcher.getIndexReader().leaves().size();
+                // global ordinals that are loaded eagerly or were built by an earlier search are always cheaper
+                if (numSegments > 1 && fieldData.globalOrdinalsLoaded(indexSearcher) == false
+                        && fieldData.segmentMaxOrdSum(indexSearcher) > SEGMENT_ORDINALS_MIN_CARDINALITY
+                        && useSegmentOrdinals(numSegments, fieldData.onSearchWithoutGlobalOrdinals(indexSearcher))) {
+                    execution = ExecutionMode.SEGMENT_ORDINALS;
+                }
+            }
+
             final long maxOrd;
             final double ratio;
             if (execution == null || execution.needsGlobalOrdinals()) {
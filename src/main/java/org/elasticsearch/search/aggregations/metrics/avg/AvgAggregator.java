@@ -104,6 +104,11 @@ public class AvgAggregator extends NumericMetricsAggregator.SingleValue {
             super(name, type, valuesSourceConfig);
         }
 
+        @Override
+        public boolean supportsConcurrentCollection() {
+            return config.script() == null;
+        }
+
         @Override
         protected Aggregator createUnmapped(AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
             return new AvgAggregator(name, 0, null, aggregationContext, parent, metaData);
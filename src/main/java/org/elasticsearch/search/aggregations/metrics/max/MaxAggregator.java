@@ -104,6 +104,11 @@ public class MaxAggregator extends NumericMetricsAggregator.SingleValue {
             super(name, InternalMax.TYPE.name(), valuesSourceConfig);
         }
 
+        @Override
+        public boolean supportsConcurrentCollection() {
+            return config.script() == null;
+        }
+
         @Override
         protected Aggregator createUnmapped(AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
             return new MaxAggregator(name, 0, null, aggregationContext, parent, metaData);
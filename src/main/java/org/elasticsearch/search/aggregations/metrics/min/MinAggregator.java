@@ -104,6 +104,11 @@ public class MinAggregator extends NumericMetricsAggregator.SingleValue {
             super(name, InternalMin.TYPE.name(), valuesSourceConfig);
         }
 
+        @Override
+        public boolean supportsConcurrentCollection() {
+            return config.script() == null;
+        }
+
         @Override
         protected Aggregator createUnmapped(AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
             return new MinAggregator(name, 0, null, aggregationContext, parent, metaData);
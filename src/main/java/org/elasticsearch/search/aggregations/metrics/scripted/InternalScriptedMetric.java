@@ -57,6 +57,8 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
     private String reduceScript;
     private Map<String, Object> reduceParams;
     private Object aggregation;
+    // whether the aggregation is the list of the shard aggregations of a partial reduce. only exists on the coordinating node
+    private transient boolean partiallyReduced;
 
     private InternalScriptedMetric() {
     }
@@ -81,13 +83,25 @@ public class InternalScriptedMetric extends InternalMetricsAggregation implement
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public InternalAggregation reduce(ReduceContext reduceContext) {
         List<Object> aggregationObjects = new ArrayList<>();
         for (InternalAggregation aggregation : reduceContext.aggregations()) {
             InternalScriptedMetric mapReduceAggregation = (InternalScriptedMetric) aggregation;
-            aggregationObjects.add(mapReduceAggregation.aggregation());
+            if (mapReduceAggregation.partiallyReduced) {
+                aggregationObjects.addAll((List<Object>) mapReduceAggregation.aggregation());
+            } else {
+                aggregationObjects.add(mapReduceAggregation.aggregation());
+            }
         }
         InternalScriptedMetric firstAggregation = ((InternalScriptedMetric) reduceContext.aggregations().get(0));
+        if (reduceContext.isFinalReduce() == false) {
+            // the reduce script must see the aggregations of all shards at once
+            InternalScriptedMetric reduced = new InternalScriptedMetric(firstAggregation.getName(), aggregationObjects, firstAggregation.scriptLang,
+                    firstAggregation.scriptType, firstAggregation.reduceScript, firstAggregation.reduceParams, getMetaData());
+            reduced.partiallyReduced = true;
+            return reduced;
+        }
         Object aggregation;
         if (firstAggregation.reduceScript != null) {
             Map<String, Object> params;
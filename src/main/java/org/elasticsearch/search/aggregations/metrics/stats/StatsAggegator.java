@@ -146,6 +146,11 @@ public class StatsAggegator extends NumericMetricsAggregator.MultiValue {
             super(name, InternalStats.TYPE.name(), valuesSourceConfig);
         }
 
+        @Override
+        public boolean supportsConcurrentCollection() {
+            return config.script() == null;
+        }
+
         @Override
         protected Aggregator createUnmapped(AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
             return new StatsAggegator(name, 0, null, aggregationContext, parent, metaData);
@@ -167,6 +167,11 @@ public class ExtendedStatsAggregator extends NumericMetricsAggregator.MultiValue
             super(name, InternalExtendedStats.TYPE.name(), valuesSourceConfig);
         }
 
+        @Override
+        public boolean supportsConcurrentCollection() {
+            return config.script() == null;
+        }
+
         @Override
         protected Aggregator createUnmapped(AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
             return new ExtendedStatsAggregator(name, 0, null, aggregationContext, parent, metaData);
@@ -98,6 +98,11 @@ public class SumAggregator extends NumericMetricsAggregator.SingleValue {
             super(name, InternalSum.TYPE.name(), valuesSourceConfig);
         }
 
+        @Override
+        public boolean supportsConcurrentCollection() {
+            return config.script() == null;
+        }
+
         @Override
         protected Aggregator createUnmapped(AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
             return new SumAggregator(name, 0, null, aggregationContext, parent, metaData);
@@ -113,7 +113,13 @@ public class InternalTopHits extends InternalMetricsAggregation implements TopHi
 
         try {
             int[] tracker = new int[shardHits.length];
-            TopDocs reducedTopDocs = TopDocs.merge(sort, from, size, shardDocs);
+            final TopDocs reducedTopDocs;
+            if (reduceContext.isFinalReduce()) {
+                reducedTopDocs = TopDocs.merge(sort, from, size, shardDocs);
+            } else {
+                // the hits before from might still be pushed down to the requested page by hits of later results
+                reducedTopDocs = TopDocs.merge(sort, 0, from + size, shardDocs);
+            }
             InternalSearchHit[] hits = new InternalSearchHit[reducedTopDocs.scoreDocs.length];
             for (int i = 0; i < reducedTopDocs.scoreDocs.length; i++) {
                 ScoreDoc scoreDoc = reducedTopDocs.scoreDocs[i];
@@ -123,7 +129,12 @@ public class InternalTopHits extends InternalMetricsAggregation implements TopHi
                 } while (shardDocs[scoreDoc.shardIndex].scoreDocs[position] != scoreDoc);
                 hits[i] = (InternalSearchHit) shardHits[scoreDoc.shardIndex].getAt(position);
             }
-            return new InternalTopHits(name, new InternalSearchHits(hits, reducedTopDocs.totalHits, reducedTopDocs.getMaxScore()));
+            InternalSearchHits reducedHits = new InternalSearchHits(hits, reducedTopDocs.totalHits, reducedTopDocs.getMaxScore());
+            if (reduceContext.isFinalReduce() == false) {
+                // keep the top docs around, they are merged again with the top docs of the other results
+                return new InternalTopHits(name, from, size, reducedTopDocs, reducedHits);
+            }
+            return new InternalTopHits(name, reducedHits);
         } catch (IOException e) {
             throw ExceptionsHelper.convertToElastic(e);
         }
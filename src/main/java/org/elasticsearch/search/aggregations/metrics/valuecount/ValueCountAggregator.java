@@ -104,6 +104,11 @@ public class ValueCountAggregator extends NumericMetricsAggregator.SingleValue {
             super(name, InternalValueCount.TYPE.name(), config);
         }
 
+        @Override
+        public boolean supportsConcurrentCollection() {
+            return config.script() == null;
+        }
+
         @Override
         protected Aggregator createUnmapped(AggregationContext aggregationContext, Aggregator parent, Map<String, Object> metaData) {
             return new ValueCountAggregator(name, 0, null, aggregationContext, parent, metaData);
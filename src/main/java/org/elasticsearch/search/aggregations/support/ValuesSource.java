@@ -22,11 +22,14 @@ import org.apache.lucene.index.*;
 import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.util.Bits;
 import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.NumericUtils;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lucene.ReaderContextAware;
 import org.elasticsearch.common.lucene.TopReaderContextAware;
 import org.elasticsearch.index.fielddata.*;
 import org.elasticsearch.index.fielddata.plain.ParentChildAtomicFieldData;
 import org.elasticsearch.index.fielddata.plain.ParentChildIndexFieldData;
+import org.elasticsearch.index.mapper.FieldMapper;
 import org.elasticsearch.script.SearchScript;
 import org.elasticsearch.search.aggregations.support.ValuesSource.Numeric.WithScript.DoubleValues;
 import org.elasticsearch.search.aggregations.support.ValuesSource.WithScript.BytesValues;
@@ -35,6 +38,8 @@ import org.elasticsearch.search.aggregations.support.values.ScriptDoubleValues;
 import org.elasticsearch.search.aggregations.support.values.ScriptLongValues;
 import org.elasticsearch.search.internal.SearchContext;
 
+import java.io.IOException;
+
 public abstract class ValuesSource {
 
     public static class MetaData {
@@ -271,6 +276,35 @@ public abstract class ValuesSource {
                     return globalBytesValues;
                 }
 
+                /**
+                 * Whether global ordinals are available without having to build them, either because they are loaded
+                 * eagerly on refresh or because they have been built for the current reader already.
+                 */
+                public boolean globalOrdinalsLoaded(IndexSearcher indexSearcher) {
+                    return indexFieldData.getFieldDataType().getLoading() == FieldMapper.Loading.EAGER_GLOBAL_ORDINALS
+                            || indexFieldData.isGlobalLoaded(indexSearcher.getIndexReader());
+                }
+
+                /**
+                 * Records a search of the current reader while its global ordinals aren't loaded, and returns the number
+                 * of such searches so far, this one included.
+                 */
+                public long onSearchWithoutGlobalOrdinals(IndexSearcher indexSearcher) {
+                    return indexFieldData.onSearchWithoutGlobal(indexSearcher.getIndexReader());
+                }
+
+                /**
+                 * The sum of the number of unique values of each segment, which unlike {@link #globalMaxOrd(IndexSearcher)}
+                 * doesn't require global ordinals.
+                 */
+                public long segmentMaxOrdSum(IndexSearcher indexSearcher) {
+                    long sum = 0;
+                    for (LeafReaderContext context : indexSearcher.getIndexReader().leaves()) {
+                        sum += indexFieldData.load(context).getOrdinalsValues().getValueCount();
+                    }
+                    return sum;
+                }
+
                 @Override
                 public long globalMaxOrd(IndexSearcher indexSearcher) {
                     if (maxOrd != -1) {
@@ -415,6 +449,15 @@ public abstract class ValuesSource {
         /** Get the current {@link DoubleValues}. */
         public abstract SortedNumericDoubleValues doubleValues();
 
+        /**
+         * The minimum and maximum values in the given reader, <tt>null</tt> if they are unknown. These are hints, the
+         * values that are collected may still be out of them.
+         */
+        @Nullable
+        public long[] longBounds(IndexReader reader) throws IOException {
+            return null;
+        }
+
         public Bits docsWithValue(int maxDoc) {
             if (isFloatingPoint()) {
                 final SortedNumericDoubleValues values = doubleValues();
@@ -544,6 +587,31 @@ public abstract class ValuesSource {
                 return indexFieldData.getNumericType().isFloatingPoint();
             }
 
+            @Override
+            public long[] longBounds(IndexReader reader) throws IOException {
+                // the bounds are read from the terms of the field, fields that are not indexed have none
+                final IndexNumericFieldData.NumericType numericType = indexFieldData.getNumericType();
+                if (numericType.isFloatingPoint()) {
+                    return null;
+                }
+                final Terms terms = MultiFields.getTerms(reader, indexFieldData.getFieldNames().indexName());
+                if (terms == null) {
+                    return null;
+                }
+                final Number min, max;
+                if (numericType == IndexNumericFieldData.NumericType.LONG) {
+                    min = NumericUtils.getMinLong(terms);
+                    max = NumericUtils.getMaxLong(terms);
+                } else {
+                    min = NumericUtils.getMinInt(terms);
+                    max = NumericUtils.getMaxInt(terms);
+                }
+                if (min == null || max == null) {
+                    return null;
+                }
+                return new long[]{min.longValue(), max.longValue()};
+            }
+
             @Override
             public void setNextReader(LeafReaderContext reader) {
                 atomicFieldData = indexFieldData.load(reader);
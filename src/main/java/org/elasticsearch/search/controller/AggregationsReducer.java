@@ -0,0 +1,290 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.controller;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.lease.Releasable;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.script.ScriptService;
+import org.elasticsearch.search.aggregations.Aggregation;
+import org.elasticsearch.search.aggregations.Aggregations;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.bucket.MultiBucketsAggregation;
+import org.elasticsearch.search.aggregations.bucket.SingleBucketAggregation;
+import org.elasticsearch.search.query.QuerySearchResult;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * Reduces the aggregations of shard query results in batches as they arrive. Aggregations are buffered until
+ * <tt>batchedReduceSize</tt> of them arrived and then reduced, together with the result of the previous batch, into
+ * a partial result, see {@link ReduceContext#isFinalReduce()}. {@link #reduce()} reduces the partial result and the
+ * remaining buffered aggregations into the final aggregations.
+ * <p/>
+ * Shard results are added on the threads that handle shard responses, which may be network threads, so adding only
+ * buffers the aggregations. Partial reduces run on the given executor, one at a time, and results that arrive in the
+ * meantime are buffered for the next batch.
+ * <p/>
+ * The estimated size of the buffered aggregations and of the partial result is accounted on the request circuit
+ * breaker, so a search over many shards trips the breaker instead of running the coordinating node out of memory.
+ * The reducer must be closed to release what it accounted.
+ */
+public class AggregationsReducer implements Releasable {
+
+    // rough estimates of the heap used by an aggregation and by a bucket, excluding their sub aggregations
+    static final long AGGREGATION_BYTES = 256;
+    static final long BUCKET_BYTES = 128;
+
+    private final int batchedReduceSize;
+    private final BigArrays bigArrays;
+    private final ScriptService scriptService;
+    private final Executor executor;
+
+    private List<InternalAggregations> buffer;
+    private long bufferedBytes;
+    private InternalAggregations partial;
+    private long partialBytes;
+    private int numReducePhases;
+    private Throwable failure;
+    private boolean closed;
+    // whether a partial reduce was handed to the executor, and whether one is running and holds the buffered aggregations
+    private boolean partialReduceScheduled;
+    private boolean partialReduceRunning;
+
+    AggregationsReducer(int batchedReduceSize, BigArrays bigArrays, ScriptService scriptService, Executor executor) {
+        if (batchedReduceSize < 2) {
+            throw new ElasticsearchIllegalArgumentException("batched_reduce_size must be >= 2 but was [" + batchedReduceSize + "]");
+        }
+        this.batchedReduceSize = batchedReduceSize;
+        this.bigArrays = bigArrays;
+        this.scriptService = scriptService;
+        this.executor = executor;
+        this.buffer = new ArrayList<>(Math.min(batchedReduceSize, 64));
+    }
+
+    /**
+     * Takes over the aggregations of the given shard result, they are removed from it. A failure to reduce, like
+     * a tripped circuit breaker, is thrown by {@link #reduce()}.
+     */
+    public void add(QuerySearchResult result) {
+        final InternalAggregations aggregations = (InternalAggregations) result.aggregations();
+        result.aggregations(null);
+        if (aggregations == null) {
+            return;
+        }
+        synchronized (this) {
+            if (failure != null || closed) {
+                return;
+            }
+            try {
+                bufferedBytes += account(aggregations);
+            } catch (Throwable t) {
+                onFailure(t);
+                return;
+            }
+            buffer.add(aggregations);
+            if (buffer.size() < batchedReduceSize || partialReduceScheduled) {
+                return;
+            }
+            partialReduceScheduled = true;
+        }
+        executor.execute(new AbstractRunnable() {
+            @Override
+            protected void doRun() throws Exception {
+                partialReduce();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                synchronized (AggregationsReducer.this) {
+                    AggregationsReducer.this.onFailure(t);
+                }
+            }
+
+            @Override
+            public void onRejection(Throwable t) {
+                // the buffered aggregations are reduced with the next batch, or by the final reduce
+                synchronized (AggregationsReducer.this) {
+                    partialReduceScheduled = false;
+                }
+            }
+        });
+    }
+
+    private void partialReduce() {
+        while (true) {
+            final List<InternalAggregations> toReduce;
+            final long toReduceBytes;
+            synchronized (this) {
+                if (failure != null || closed || buffer.size() < batchedReduceSize) {
+                    partialReduceScheduled = false;
+                    return;
+                }
+                toReduce = new ArrayList<>(buffer.size() + 1);
+                if (partial != null) {
+                    toReduce.add(partial);
+                }
+                toReduce.addAll(buffer);
+                toReduceBytes = partialBytes + bufferedBytes;
+                buffer = new ArrayList<>(Math.min(batchedReduceSize, 64));
+                bufferedBytes = 0;
+                partial = null;
+                partialBytes = 0;
+                partialReduceRunning = true;
+            }
+            InternalAggregations reduced = null;
+            long reducedBytes = 0;
+            Throwable reduceFailure = null;
+            try {
+                reduced = InternalAggregations.reduce(toReduce, new ReduceContext(null, bigArrays, scriptService, false));
+                // the reduced result replaces the buffered results and the previous partial result
+                reducedBytes = account(reduced);
+            } catch (Throwable t) {
+                reduceFailure = t;
+            }
+            release(toReduceBytes);
+            synchronized (this) {
+                partialReduceRunning = false;
+                notifyAll();
+                if (reduceFailure != null) {
+                    partialReduceScheduled = false;
+                    onFailure(reduceFailure);
+                    return;
+                }
+                numReducePhases++;
+                if (closed) {
+                    release(reducedBytes);
+                    partialReduceScheduled = false;
+                    return;
+                }
+                partial = reduced;
+                partialBytes = reducedBytes;
+            }
+        }
+    }
+
+    /**
+     * Reduces the aggregations that were added into the final aggregations, returns <tt>null</tt> if no aggregations
+     * were added. Waits for a running partial reduce to complete. Releases what was accounted on the circuit breaker.
+     */
+    @Nullable
+    public synchronized InternalAggregations reduce() {
+        try {
+            while (partialReduceRunning) {
+                wait();
+            }
+            if (failure != null) {
+                throw ExceptionsHelper.convertToRuntime(failure);
+            }
+            final List<InternalAggregations> toReduce = new ArrayList<>(buffer.size() + 1);
+            if (partial != null) {
+                toReduce.add(partial);
+            }
+            toReduce.addAll(buffer);
+            if (toReduce.isEmpty()) {
+                return null;
+            }
+            numReducePhases++;
+            return InternalAggregations.reduce(toReduce, new ReduceContext(null, bigArrays, scriptService));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ElasticsearchException("interrupted while waiting for a partial reduce", e);
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * The number of times aggregations were reduced so far, including the final reduce.
+     */
+    public synchronized int numReducePhases() {
+        return numReducePhases;
+    }
+
+    @Override
+    public synchronized void close() throws ElasticsearchException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // a running partial reduce releases the aggregations it took over itself
+        release(partialBytes + bufferedBytes);
+        partialBytes = 0;
+        bufferedBytes = 0;
+        buffer.clear();
+        partial = null;
+    }
+
+    private void onFailure(Throwable t) {
+        assert Thread.holdsLock(this);
+        if (failure == null) {
+            failure = t;
+        }
+        release(partialBytes + bufferedBytes);
+        partialBytes = 0;
+        bufferedBytes = 0;
+        buffer.clear();
+        partial = null;
+    }
+
+    private long account(InternalAggregations aggregations) {
+        final long bytes = estimateSize(aggregations);
+        try {
+            bigArrays.adjustBreaker(bytes);
+        } catch (Throwable t) {
+            // the breaker keeps the bytes even if it tripped
+            release(bytes);
+            throw t;
+        }
+        return bytes;
+    }
+
+    private void release(long bytes) {
+        if (bytes != 0) {
+            bigArrays.adjustBreaker(-bytes);
+        }
+    }
+
+    /**
+     * Estimates the heap used by the given aggregations from the number of aggregations and buckets they contain,
+     * which is much cheaper than serializing them.
+     */
+    static long estimateSize(Aggregations aggregations) {
+        long bytes = 0;
+        for (Aggregation aggregation : aggregations) {
+            bytes += AGGREGATION_BYTES;
+            if (aggregation instanceof MultiBucketsAggregation) {
+                for (MultiBucketsAggregation.Bucket bucket : ((MultiBucketsAggregation) aggregation).getBuckets()) {
+                    bytes += BUCKET_BYTES + estimateSize(bucket.getAggregations());
+                }
+            } else if (aggregation instanceof SingleBucketAggregation) {
+                bytes += estimateSize(((SingleBucketAggregation) aggregation).getAggregations());
+            }
+        }
+        return bytes;
+    }
+}
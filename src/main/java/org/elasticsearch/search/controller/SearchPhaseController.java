@@ -24,6 +24,7 @@ import com.carrotsearch.hppc.ObjectObjectOpenHashMap;
 import org.apache.lucene.index.Term;
 import org.apache.lucene.search.*;
 import org.elasticsearch.action.search.SearchRequest;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.collect.HppcMaps;
 import org.elasticsearch.common.component.AbstractComponent;
 import org.elasticsearch.common.inject.Inject;
@@ -47,6 +48,7 @@ import org.elasticsearch.search.suggest.Suggest;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.Executor;
 
 /**
  *
@@ -234,6 +236,24 @@ public class SearchPhaseController extends AbstractComponent {
         return mergedTopDocs.scoreDocs;
     }
 
+    /**
+     * Creates a reducer that merges the top docs of query results as they arrive, it yields the same docs as
+     * {@link #sortDocs(boolean, AtomicArray)} would for the same results.
+     *
+     * @param ignoreFrom Whether to ignore the from and sort all hits in each shard result.
+     */
+    public TopDocsReducer newTopDocsReducer(boolean ignoreFrom) {
+        return new TopDocsReducer(ignoreFrom);
+    }
+
+    /**
+     * Creates a reducer that reduces the aggregations of query results in batches of the given size as they arrive,
+     * running the partial reduces on the given executor.
+     */
+    public AggregationsReducer newAggregationsReducer(int batchedReduceSize, Executor executor) {
+        return new AggregationsReducer(batchedReduceSize, bigArrays.withCircuitBreaking(), scriptService, executor);
+    }
+
     public ScoreDoc[] getLastEmittedDocPerShard(SearchRequest request, ScoreDoc[] sortedShardList, int numShards) {
         if (request.scroll() != null) {
             return getLastEmittedDocPerShard(sortedShardList, numShards);
@@ -265,6 +285,15 @@ public class SearchPhaseController extends AbstractComponent {
     }
 
     public InternalSearchResponse merge(ScoreDoc[] sortedDocs, AtomicArray<? extends QuerySearchResultProvider> queryResultsArr, AtomicArray<? extends FetchSearchResultProvider> fetchResultsArr) {
+        return merge(sortedDocs, queryResultsArr, fetchResultsArr, null);
+    }
+
+    /**
+     * @param aggregationsReducer the reducer the aggregations of the query results were added to as they arrived, or
+     *                            <tt>null</tt> to reduce the aggregations of the query results
+     */
+    public InternalSearchResponse merge(ScoreDoc[] sortedDocs, AtomicArray<? extends QuerySearchResultProvider> queryResultsArr,
+                                        AtomicArray<? extends FetchSearchResultProvider> fetchResultsArr, @Nullable AggregationsReducer aggregationsReducer) {
 
         List<? extends AtomicArray.Entry<? extends QuerySearchResultProvider>> queryResults = queryResultsArr.asList();
         List<? extends AtomicArray.Entry<? extends FetchSearchResultProvider>> fetchResults = fetchResultsArr.asList();
@@ -366,7 +395,9 @@ public class SearchPhaseController extends AbstractComponent {
 
         // merge addAggregation
         InternalAggregations aggregations = null;
-        if (!queryResults.isEmpty()) {
+        if (aggregationsReducer != null) {
+            aggregations = aggregationsReducer.reduce();
+        } else if (!queryResults.isEmpty()) {
             if (firstResult.aggregations() != null && firstResult.aggregations().asList() != null) {
                 List<InternalAggregations> aggregationsList = new ArrayList<>(queryResults.size());
                 for (AtomicArray.Entry<? extends QuerySearchResultProvider> entry : queryResults) {
@@ -0,0 +1,163 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.controller;
+
+import org.apache.lucene.search.FieldComparator;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.elasticsearch.search.query.QuerySearchResult;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Merges the top docs of shard query results as they arrive, instead of holding on to all of them until the last
+ * shard responded and merging them with {@link TopDocs#merge}.
+ * <p/>
+ * Only the best <tt>from + size</tt> docs seen so far are kept. Once a shard result is added its score docs are
+ * dropped from it, the result keeps its total hits, max score and sort fields for building the response. Docs are
+ * ordered exactly like {@link TopDocs#merge} orders them, ties are broken by shard index and then by the position
+ * of the doc in its shard.
+ */
+public class TopDocsReducer {
+
+    private final boolean ignoreFrom;
+
+    private boolean initialized;
+    private IOException failure;
+    private int from;
+    private int topN;
+    private FieldComparator<Object>[] comparators;
+    private int[] reverseMul;
+
+    // the best docs seen so far, in order, at most topN of them
+    private ScoreDoc[] topDocs = SearchPhaseController.EMPTY_DOCS;
+
+    /**
+     * @param ignoreFrom whether to ignore the from of the results and keep the first <tt>size</tt> docs, see
+     *                   {@link SearchPhaseController#sortDocs}
+     */
+    TopDocsReducer(boolean ignoreFrom) {
+        this.ignoreFrom = ignoreFrom;
+    }
+
+    /**
+     * Merges the docs of the result of the shard at the given index into the top docs. A failure to merge is
+     * thrown by {@link #reduce()}.
+     */
+    public synchronized void add(int shardIndex, QuerySearchResult result) {
+        if (failure != null) {
+            return;
+        }
+        final TopDocs shardTopDocs = result.topDocs();
+        if (initialized == false) {
+            try {
+                initialize(result);
+            } catch (IOException e) {
+                failure = e;
+                return;
+            }
+        }
+        final ScoreDoc[] shardDocs = shardTopDocs.scoreDocs;
+        for (ScoreDoc shardDoc : shardDocs) {
+            shardDoc.shardIndex = shardIndex;
+        }
+        if (shardDocs.length > 0 && topN > 0) {
+            topDocs = merge(topDocs, shardDocs);
+        }
+        // we hold on to the docs that made it, release the rest with the shard top docs
+        if (shardTopDocs instanceof TopFieldDocs) {
+            result.topDocs(new TopFieldDocs(shardTopDocs.totalHits, SearchPhaseController.EMPTY_DOCS, ((TopFieldDocs) shardTopDocs).fields, shardTopDocs.getMaxScore()));
+        } else {
+            result.topDocs(new TopDocs(shardTopDocs.totalHits, SearchPhaseController.EMPTY_DOCS, shardTopDocs.getMaxScore()));
+        }
+    }
+
+    /**
+     * The merged docs starting at <tt>from</tt>, with their shard index set to the index of the shard they come from.
+     */
+    public synchronized ScoreDoc[] reduce() throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        if (topDocs.length <= from) {
+            return SearchPhaseController.EMPTY_DOCS;
+        }
+        return Arrays.copyOfRange(topDocs, from, topDocs.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void initialize(QuerySearchResult result) throws IOException {
+        from = ignoreFrom ? 0 : result.from();
+        topN = from + result.size();
+        if (result.topDocs() instanceof TopFieldDocs) {
+            final SortField[] fields = ((TopFieldDocs) result.topDocs()).fields;
+            comparators = new FieldComparator[fields.length];
+            reverseMul = new int[fields.length];
+            for (int i = 0; i < fields.length; i++) {
+                comparators[i] = (FieldComparator<Object>) fields[i].getComparator(1, i);
+                reverseMul[i] = fields[i].getReverse() ? -1 : 1;
+            }
+        }
+        initialized = true;
+    }
+
+    private ScoreDoc[] merge(ScoreDoc[] left, ScoreDoc[] right) {
+        final ScoreDoc[] merged = new ScoreDoc[Math.min(topN, left.length + right.length)];
+        int l = 0;
+        int r = 0;
+        for (int i = 0; i < merged.length; i++) {
+            // docs of the same shard never end up on both sides, so the order is never ambiguous
+            if (r == right.length || (l < left.length && lessThan(left[l], right[r]))) {
+                merged[i] = left[l++];
+            } else {
+                merged[i] = right[r++];
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Whether the first doc ranks before the second one, mirrors the merge sort queues of {@link TopDocs#merge}.
+     */
+    private boolean lessThan(ScoreDoc first, ScoreDoc second) {
+        if (comparators == null) {
+            if (first.score < second.score) {
+                return false;
+            } else if (first.score > second.score) {
+                return true;
+            }
+        } else {
+            final FieldDoc firstFD = (FieldDoc) first;
+            final FieldDoc secondFD = (FieldDoc) second;
+            for (int i = 0; i < comparators.length; i++) {
+                final int cmp = reverseMul[i] * comparators[i].compareValues(firstFD.fields[i], secondFD.fields[i]);
+                if (cmp != 0) {
+                    return cmp < 0;
+                }
+            }
+        }
+        // tie break: earlier shard wins
+        return first.shardIndex < second.shardIndex;
+    }
+}
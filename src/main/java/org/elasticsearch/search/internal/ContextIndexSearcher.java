@@ -19,6 +19,7 @@
 
 package org.elasticsearch.search.internal;
 
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.apache.lucene.index.LeafReaderContext;
 import org.apache.lucene.search.Collector;
 import org.apache.lucene.search.Explanation;
@@ -27,19 +28,27 @@ import org.apache.lucene.search.IndexSearcher;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TimeLimitingCollector;
 import org.apache.lucene.search.Weight;
+import org.elasticsearch.ExceptionsHelper;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.lease.Releasable;
 import org.elasticsearch.common.lucene.Lucene;
 import org.elasticsearch.common.lucene.MinimumScoreCollector;
 import org.elasticsearch.common.lucene.MultiCollector;
 import org.elasticsearch.common.lucene.search.FilteredCollector;
 import org.elasticsearch.common.lucene.search.XCollector;
+import org.elasticsearch.common.util.concurrent.EsRejectedExecutionException;
 import org.elasticsearch.index.engine.Engine;
 import org.elasticsearch.search.dfs.CachedDfSource;
 import org.elasticsearch.search.internal.SearchContext.Lifetime;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.FutureTask;
 
 /**
  * Context-aware extension of {@link IndexSearcher}.
@@ -193,6 +202,107 @@ public class ContextIndexSearcher extends IndexSearcher implements Releasable {
         }
     }
 
+    /**
+     * Splits the leaves of the reader into at most <tt>maxSlices</tt> slices of consecutive leaves, holding about the
+     * same number of documents each. Since slices are consecutive, ties between hits of different slices can be broken
+     * by the slice index, the same way a sequential search breaks them by doc id.
+     */
+    public LeafSlice[] concurrentSlices(int maxSlices) {
+        final List<LeafReaderContext> leaves = getIndexReader().leaves();
+        final int numSlices = Math.max(1, Math.min(maxSlices, leaves.size()));
+        final long docsPerSlice = Math.max(1, getIndexReader().maxDoc() / numSlices);
+        final List<LeafSlice> slices = new ArrayList<>(numSlices);
+        int start = 0;
+        long docs = 0;
+        for (int i = 0; i < leaves.size(); i++) {
+            docs += leaves.get(i).reader().maxDoc();
+            final int leavesLeft = leaves.size() - i - 1;
+            final int slicesLeft = numSlices - slices.size() - 1;
+            // cut once the slice holds its share of the docs, or when every remaining leaf needs a slice of its own
+            if (leavesLeft == 0 || (slicesLeft > 0 && (docs >= docsPerSlice || leavesLeft == slicesLeft))) {
+                slices.add(new LeafSlice(leaves.subList(start, i + 1).toArray(new LeafReaderContext[i + 1 - start])));
+                start = i + 1;
+                docs = 0;
+            }
+        }
+        return slices.toArray(new LeafSlice[slices.size()]);
+    }
+
+    /**
+     * Searches the main query over the given slices concurrently, the first slice on the calling thread and the others
+     * on the given executor, or on the calling thread as well if the executor rejects them. Each slice is collected
+     * by its own collector, wrapped with the post filter and minimum score of the request like the main query collector
+     * of a sequential search, and combined with its own query collector, if any.
+     * <p/>
+     * Timeouts and terminate after are not supported, and the query collectors added with
+     * {@link #addMainQueryCollector(Collector)} are not used, the caller provides one per slice instead.
+     */
+    public void searchConcurrently(Query query, LeafSlice[] slices, Collector[] collectors, @Nullable Collector[] queryCollectors,
+                                   Executor executor) throws IOException {
+        assert currentState == Stage.MAIN_QUERY : "Expected stage " + Stage.MAIN_QUERY + " but was stage " + currentState;
+        assert searchContext.timeoutInMillis() == -1 && searchContext.terminateAfter() == SearchContext.DEFAULT_TERMINATE_AFTER;
+        assert slices.length == collectors.length;
+        try {
+            final Weight weight = createNormalizedWeight(query);
+            final List<FutureTask<Void>> tasks = new ArrayList<>(slices.length);
+            for (int i = 0; i < slices.length; i++) {
+                final List<LeafReaderContext> leaves = Arrays.asList(slices[i].leaves);
+                final Collector queryCollector = queryCollectors == null ? null : queryCollectors[i];
+                final Collector collector = sliceCollector(collectors[i], queryCollector);
+                tasks.add(new FutureTask<>(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        final long start = System.nanoTime();
+                        ContextIndexSearcher.super.search(leaves, weight, collector);
+                        if (queryCollector instanceof XCollector) {
+                            ((XCollector) queryCollector).postCollection();
+                        }
+                        searchContext.indexShard().searchService().onQuerySlice(searchContext, System.nanoTime() - start);
+                        return null;
+                    }
+                }));
+            }
+            for (int i = 1; i < tasks.size(); i++) {
+                try {
+                    executor.execute(tasks.get(i));
+                } catch (EsRejectedExecutionException e) {
+                    tasks.get(i).run();
+                }
+            }
+            tasks.get(0).run();
+
+            // wait for all slices, even if one failed, they all use the reader of this searcher
+            Throwable failure = null;
+            for (FutureTask<Void> task : tasks) {
+                try {
+                    Uninterruptibles.getUninterruptibly(task);
+                } catch (ExecutionException e) {
+                    failure = ExceptionsHelper.useOrSuppress(failure, e.getCause());
+                }
+            }
+            if (failure instanceof IOException) {
+                throw (IOException) failure;
+            } else if (failure != null) {
+                throw ExceptionsHelper.convertToRuntime(failure);
+            }
+        } finally {
+            searchContext.clearReleasables(Lifetime.COLLECTION);
+        }
+    }
+
+    private Collector sliceCollector(Collector collector, @Nullable Collector queryCollector) {
+        if (searchContext.parsedPostFilter() != null) {
+            collector = new FilteredCollector(collector, searchContext.parsedPostFilter().filter());
+        }
+        if (queryCollector != null) {
+            collector = new MultiCollector(collector, new Collector[]{queryCollector});
+        }
+        if (searchContext.minimumScore() != null) {
+            collector = new MinimumScoreCollector(collector, searchContext.minimumScore());
+        }
+        return collector;
+    }
+
     @Override
     public Explanation explain(Query query, int doc) throws IOException {
         try {
@@ -644,7 +644,7 @@ public class DefaultSearchContext extends SearchContext {
         return lastEmittedDoc;
     }
 
-    public SearchLookup lookup() {
+    protected SearchLookup lookupImpl() {
         // TODO: The types should take into account the parsing context in QueryParserContext...
         if (searchLookup == null) {
             searchLookup = new SearchLookup(mapperService(), fieldData(), request.types());
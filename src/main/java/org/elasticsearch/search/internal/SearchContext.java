@@ -102,6 +102,7 @@ public abstract class SearchContext implements Releasable {
     }
 
     private boolean nowInMillisUsed;
+    private boolean lookupUsed;
 
     protected abstract void doClose();
 
@@ -309,7 +310,20 @@ public abstract class SearchContext implements Releasable {
 
     public abstract ScoreDoc lastEmittedDoc();
 
-    public abstract SearchLookup lookup();
+    public final SearchLookup lookup() {
+        lookupUsed = true;
+        return lookupImpl();
+    }
+
+    /**
+     * Whether the search lookup has been used, which all scripts do. Scripts keep the state of the segment and the
+     * document they run on, so a search that used the lookup by the time the query runs can't be searched concurrently.
+     */
+    public final boolean lookupUsed() {
+        return lookupUsed;
+    }
+
+    protected abstract SearchLookup lookupImpl();
 
     public abstract DfsSearchResult dfsResult();
 
@@ -19,12 +19,14 @@
 
 package org.elasticsearch.search.internal;
 
+import org.elasticsearch.Version;
 import org.elasticsearch.action.IndicesRequest;
 import org.elasticsearch.action.OriginalIndices;
 import org.elasticsearch.action.search.SearchRequest;
 import org.elasticsearch.action.search.SearchType;
 import org.elasticsearch.action.support.IndicesOptions;
 import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
@@ -46,6 +48,8 @@ public class ShardSearchTransportRequest extends TransportRequest implements Sha
 
     private ShardSearchLocalRequest shardSearchLocalRequest;
 
+    private Priority priority = Priority.NORMAL;
+
     public ShardSearchTransportRequest(){
     }
 
@@ -54,6 +58,19 @@ public class ShardSearchTransportRequest extends TransportRequest implements Sha
         super(searchRequest);
         this.shardSearchLocalRequest = new ShardSearchLocalRequest(searchRequest, shardRouting, numberOfShards, filteringAliases, nowInMillis);
         this.originalIndices = new OriginalIndices(searchRequest);
+        if (searchRequest.priority() != null) {
+            this.priority = searchRequest.priority();
+        } else if (searchRequest.scroll() != null) {
+            // scrolls usually export data in the background, interactive searches should not wait for them
+            this.priority = Priority.LOW;
+        }
+    }
+
+    /**
+     * The priority of this request on the search thread pool of the node that executes it.
+     */
+    public Priority priority() {
+        return priority;
     }
 
     @Override
@@ -158,6 +175,9 @@ public class ShardSearchTransportRequest extends TransportRequest implements Sha
         shardSearchLocalRequest = new ShardSearchLocalRequest();
         shardSearchLocalRequest.innerReadFrom(in);
         originalIndices = OriginalIndices.readOriginalIndices(in);
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            priority = Priority.readFrom(in);
+        }
     }
 
     @Override
@@ -165,6 +185,9 @@ public class ShardSearchTransportRequest extends TransportRequest implements Sha
         super.writeTo(out);
         shardSearchLocalRequest.innerWriteTo(out, false);
         OriginalIndices.writeOriginalIndices(originalIndices, out);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            Priority.writeTo(priority, out);
+        }
     }
 
     @Override
@@ -338,7 +338,7 @@ public class SubSearchContext extends FilteredSearchContext {
     private SearchLookup searchLookup;
 
     @Override
-    public SearchLookup lookup() {
+    protected SearchLookup lookupImpl() {
         if (searchLookup == null) {
             searchLookup = new SearchLookup(mapperService(), fieldData(), request().types());
         }
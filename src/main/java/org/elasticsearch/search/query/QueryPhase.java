@@ -20,16 +20,29 @@
 package org.elasticsearch.search.query;
 
 import com.google.common.collect.ImmutableMap;
+import org.apache.lucene.search.Collector;
+import org.apache.lucene.search.IndexSearcher.LeafSlice;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.Sort;
 import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopDocsCollector;
+import org.apache.lucene.search.TopFieldCollector;
+import org.apache.lucene.search.TopScoreDocCollector;
 import org.apache.lucene.search.TotalHitCountCollector;
 import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.inject.Inject;
 import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.index.search.stats.ShardSearchService;
 import org.elasticsearch.search.SearchParseElement;
 import org.elasticsearch.search.SearchPhase;
 import org.elasticsearch.search.aggregations.AggregationPhase;
+import org.elasticsearch.search.aggregations.Aggregator;
+import org.elasticsearch.search.aggregations.InternalAggregation;
+import org.elasticsearch.search.aggregations.InternalAggregation.ReduceContext;
+import org.elasticsearch.search.aggregations.InternalAggregations;
+import org.elasticsearch.search.aggregations.support.AggregationContext;
 import org.elasticsearch.search.internal.ContextIndexSearcher;
 import org.elasticsearch.search.internal.SearchContext;
 import org.elasticsearch.search.rescore.RescorePhase;
@@ -37,20 +50,30 @@ import org.elasticsearch.search.rescore.RescoreSearchContext;
 import org.elasticsearch.search.sort.SortParseElement;
 import org.elasticsearch.search.sort.TrackScoresParseElement;
 import org.elasticsearch.search.suggest.SuggestPhase;
+import org.elasticsearch.threadpool.ThreadPool;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
- *
+ * The query phase of a search on a shard. When {@link ShardSearchService#INDEX_SEARCH_CONCURRENT_ENABLED} is set on
+ * the index, the main query is searched concurrently over slices of the segments of the shard on the
+ * {@link ThreadPool.Names#SEARCH_SLICE} thread pool, and the top docs, hit counts and aggregations of the slices
+ * are merged into the result of the shard. Requests that can't be split that way, like scrolls, requests with a
+ * timeout or terminate after, or aggregations other than simple metrics, are searched sequentially.
  */
 public class QueryPhase implements SearchPhase {
 
+    private final ThreadPool threadPool;
     private final AggregationPhase aggregationPhase;
     private final SuggestPhase suggestPhase;
     private RescorePhase rescorePhase;
 
     @Inject
-    public QueryPhase(AggregationPhase aggregationPhase, SuggestPhase suggestPhase, RescorePhase rescorePhase) {
+    public QueryPhase(ThreadPool threadPool, AggregationPhase aggregationPhase, SuggestPhase suggestPhase, RescorePhase rescorePhase) {
+        this.threadPool = threadPool;
         this.aggregationPhase = aggregationPhase;
         this.suggestPhase = suggestPhase;
         this.rescorePhase = rescorePhase;
@@ -106,11 +129,16 @@ public class QueryPhase implements SearchPhase {
 
             TopDocs topDocs;
             int numDocs = searchContext.from() + searchContext.size();
+            final int maxSlices = maxSlices(searchContext);
 
             if (searchContext.searchType() == SearchType.COUNT || numDocs == 0) {
-                TotalHitCountCollector collector = new TotalHitCountCollector();
-                searchContext.searcher().search(query, collector);
-                topDocs = new TopDocs(collector.getTotalHits(), Lucene.EMPTY_SCORE_DOCS, 0);
+                if (maxSlices > 1) {
+                    topDocs = searchConcurrently(searchContext, query, 0, null, maxSlices);
+                } else {
+                    TotalHitCountCollector collector = new TotalHitCountCollector();
+                    searchContext.searcher().search(query, collector);
+                    topDocs = new TopDocs(collector.getTotalHits(), Lucene.EMPTY_SCORE_DOCS, 0);
+                }
             } else if (searchContext.searchType() == SearchType.SCAN) {
                 topDocs = searchContext.scanContext().execute(searchContext);
             } else {
@@ -140,6 +168,14 @@ public class QueryPhase implements SearchPhase {
                             searchContext.lastEmittedDoc(topDocs.scoreDocs[size - 1]);
                         }
                     }
+                } else if (maxSlices > 1) {
+                    if (searchContext.sort() == null) {
+                        rescore = !searchContext.rescore().isEmpty();
+                        for (RescoreSearchContext rescoreContext : searchContext.rescore()) {
+                            numDocs = Math.max(rescoreContext.window(), numDocs);
+                        }
+                    }
+                    topDocs = searchConcurrently(searchContext, query, numDocs, searchContext.sort(), maxSlices);
                 } else {
                     if (searchContext.sort() != null) {
                         topDocs = searchContext.searcher().search(query, null, numDocs, searchContext.sort(),
@@ -165,4 +201,109 @@ public class QueryPhase implements SearchPhase {
         suggestPhase.execute(searchContext);
         aggregationPhase.execute(searchContext);
     }
+
+    /**
+     * The number of slices to search the main query with concurrently, <tt>1</tt> to search it sequentially.
+     */
+    private int maxSlices(SearchContext searchContext) {
+        final ShardSearchService searchService = searchContext.indexShard().searchService();
+        if (!searchService.concurrentEnabled()) {
+            return 1;
+        }
+        if (searchContext.searchType() == SearchType.SCAN || searchContext.request().scroll() != null) {
+            return 1;
+        }
+        if (searchContext.timeoutInMillis() != -1 || searchContext.terminateAfter() != SearchContext.DEFAULT_TERMINATE_AFTER) {
+            return 1;
+        }
+        if (searchContext.aggregations() != null && !searchContext.aggregations().factories().supportsConcurrentCollection()) {
+            return 1;
+        }
+        if (searchContext.lookupUsed()) {
+            // the request has scripts, in its query, filters or sort, which all slices would share and run on their
+            // own segments and documents at the same time
+            return 1;
+        }
+        int maxSlices = searchService.concurrentMaxSlices();
+        if (maxSlices == -1) {
+            maxSlices = threadPool.info(ThreadPool.Names.SEARCH_SLICE).getMax();
+        }
+        return Math.min(maxSlices, searchContext.searcher().getIndexReader().leaves().size());
+    }
+
+    /**
+     * Searches the main query concurrently over slices of the segments of the shard. Each slice collects its own top
+     * docs, or hit count if no docs are requested, and its own aggregations, which are merged into the shard result.
+     */
+    private TopDocs searchConcurrently(SearchContext searchContext, Query query, int numDocs, @Nullable Sort sort, int maxSlices) throws IOException {
+        final ContextIndexSearcher searcher = searchContext.searcher();
+        final LeafSlice[] slices = searcher.concurrentSlices(maxSlices);
+
+        final Collector[] collectors = new Collector[slices.length];
+        for (int i = 0; i < slices.length; i++) {
+            if (numDocs == 0) {
+                collectors[i] = new TotalHitCountCollector();
+            } else if (sort != null) {
+                collectors[i] = TopFieldCollector.create(sort, numDocs, true, searchContext.trackScores(), searchContext.trackScores(), false);
+            } else {
+                collectors[i] = TopScoreDocCollector.create(numDocs, false);
+            }
+        }
+
+        // every slice aggregates in its own context, the aggregators created in the pre process phase stay unused
+        Aggregator[][] sliceAggregators = null;
+        Collector[] aggregationCollectors = null;
+        if (searchContext.aggregations() != null) {
+            sliceAggregators = new Aggregator[slices.length][];
+            aggregationCollectors = new Collector[slices.length];
+            for (int i = 0; i < slices.length; i++) {
+                AggregationContext aggregationContext = new AggregationContext(searchContext);
+                sliceAggregators[i] = searchContext.aggregations().factories().createTopLevelAggregators(aggregationContext);
+                List<Aggregator> collecting = new ArrayList<>(sliceAggregators[i].length);
+                for (Aggregator aggregator : sliceAggregators[i]) {
+                    if (aggregator.shouldCollect()) {
+                        collecting.add(aggregator);
+                    }
+                }
+                if (!collecting.isEmpty()) {
+                    aggregationCollectors[i] = new AggregationPhase.AggregationsCollector(collecting, aggregationContext);
+                }
+                aggregationContext.setNextReader(searcher.getIndexReader().getContext());
+            }
+        }
+
+        searcher.searchConcurrently(query, slices, collectors, aggregationCollectors, threadPool.executor(ThreadPool.Names.SEARCH_SLICE));
+
+        if (sliceAggregators != null) {
+            List<InternalAggregations> aggregations = new ArrayList<>(slices.length);
+            for (Aggregator[] aggregators : sliceAggregators) {
+                List<InternalAggregation> sliceAggregations = new ArrayList<>(aggregators.length);
+                for (Aggregator aggregator : aggregators) {
+                    sliceAggregations.add(aggregator.buildAggregation(0));
+                }
+                aggregations.add(new InternalAggregations(sliceAggregations));
+            }
+            // the aggregation phase skips aggregations that are already computed
+            searchContext.queryResult().aggregations(InternalAggregations.reduce(aggregations,
+                    new ReduceContext(null, searchContext.bigArrays(), searchContext.scriptService())));
+        }
+
+        if (numDocs == 0) {
+            int totalHits = 0;
+            for (Collector collector : collectors) {
+                totalHits += ((TotalHitCountCollector) collector).getTotalHits();
+            }
+            return new TopDocs(totalHits, Lucene.EMPTY_SCORE_DOCS, 0);
+        }
+        final TopDocs[] sliceTopDocs = new TopDocs[slices.length];
+        for (int i = 0; i < slices.length; i++) {
+            sliceTopDocs[i] = ((TopDocsCollector<?>) collectors[i]).topDocs();
+        }
+        // slices hold consecutive segments, so breaking ties by slice keeps the order of a sequential search
+        final TopDocs topDocs = TopDocs.merge(sort, numDocs, sliceTopDocs);
+        for (ScoreDoc scoreDoc : topDocs.scoreDocs) {
+            scoreDoc.shardIndex = -1;
+        }
+        return topDocs;
+    }
 }
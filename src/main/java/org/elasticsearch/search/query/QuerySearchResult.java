@@ -148,6 +148,7 @@ public class QuerySearchResult extends QuerySearchResultProvider {
     public void readFrom(StreamInput in) throws IOException {
         super.readFrom(in);
         long id = in.readLong();
+        readNodeStats(in);
         readFromWithId(id, in);
     }
 
@@ -171,6 +172,7 @@ public class QuerySearchResult extends QuerySearchResultProvider {
     public void writeTo(StreamOutput out) throws IOException {
         super.writeTo(out);
         out.writeLong(id);
+        writeNodeStats(out);
         writeToNoId(out);
     }
 
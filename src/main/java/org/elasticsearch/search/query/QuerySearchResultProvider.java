@@ -19,14 +19,59 @@
 
 package org.elasticsearch.search.query;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.search.SearchPhaseResult;
 import org.elasticsearch.transport.TransportResponse;
 
+import java.io.IOException;
+
 /**
  *
  */
 public abstract class QuerySearchResultProvider extends TransportResponse implements SearchPhaseResult {
 
+    private int nodeQueueSize = -1;
+    private long serviceTimeEWMA = -1;
+
+    /**
+     * The size of the search queue of the node that executed the query when the query completed, <tt>-1</tt> if unknown.
+     */
+    public int nodeQueueSize() {
+        return nodeQueueSize;
+    }
+
+    public void nodeQueueSize(int nodeQueueSize) {
+        this.nodeQueueSize = nodeQueueSize;
+    }
+
+    /**
+     * The moving average of the time the node that executed the query takes to execute queries, in nanoseconds,
+     * <tt>-1</tt> if unknown.
+     */
+    public long serviceTimeEWMA() {
+        return serviceTimeEWMA;
+    }
+
+    public void serviceTimeEWMA(long serviceTimeEWMA) {
+        this.serviceTimeEWMA = serviceTimeEWMA;
+    }
+
+    protected void readNodeStats(StreamInput in) throws IOException {
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            nodeQueueSize = in.readInt();
+            serviceTimeEWMA = in.readLong();
+        }
+    }
+
+    protected void writeNodeStats(StreamOutput out) throws IOException {
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeInt(nodeQueueSize);
+            out.writeLong(serviceTimeEWMA);
+        }
+    }
+
     /**
      * If both query and fetch happened on the same call.
      */
@@ -19,9 +19,13 @@
 
 package org.elasticsearch.threadpool;
 
+import org.elasticsearch.Version;
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.Priority;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
@@ -30,11 +34,74 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
 
 /**
  */
 public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadPoolStats.Stats> {
 
+    /**
+     * The time the tasks of a priority waited in the queue of a prioritized thread pool before their execution.
+     */
+    public static class QueueWait implements Streamable, ToXContent {
+
+        private Priority priority;
+        private long count;
+        private long totalNanos;
+
+        QueueWait() {
+
+        }
+
+        public QueueWait(Priority priority, long count, long totalNanos) {
+            this.priority = priority;
+            this.count = count;
+            this.totalNanos = totalNanos;
+        }
+
+        public Priority getPriority() {
+            return this.priority;
+        }
+
+        /**
+         * The number of tasks of the priority that were taken from the queue for execution.
+         */
+        public long getCount() {
+            return this.count;
+        }
+
+        /**
+         * The total time the tasks of the priority waited in the queue.
+         */
+        public TimeValue getTotalTime() {
+            return new TimeValue(totalNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            priority = Priority.readFrom(in);
+            count = in.readVLong();
+            totalNanos = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            Priority.writeTo(priority, out);
+            out.writeVLong(count);
+            out.writeVLong(totalNanos);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.startObject(priority.toString().toLowerCase(Locale.ROOT));
+            builder.field(Fields.COUNT, count);
+            builder.timeValueField(Fields.TOTAL_TIME_IN_MILLIS, Fields.TOTAL_TIME, getTotalTime().millis());
+            builder.endObject();
+            return builder;
+        }
+    }
+
     public static class Stats implements Streamable, ToXContent {
 
         private String name;
@@ -44,12 +111,19 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
         private long rejected;
         private int largest;
         private long completed;
+        @Nullable
+        private List<QueueWait> queueWait;
 
         Stats() {
 
         }
 
         public Stats(String name, int threads, int queue, int active, long rejected, int largest, long completed) {
+            this(name, threads, queue, active, rejected, largest, completed, null);
+        }
+
+        public Stats(String name, int threads, int queue, int active, long rejected, int largest, long completed,
+                     @Nullable List<QueueWait> queueWait) {
             this.name = name;
             this.threads = threads;
             this.queue = queue;
@@ -57,6 +131,7 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
             this.rejected = rejected;
             this.largest = largest;
             this.completed = completed;
+            this.queueWait = queueWait;
         }
 
         public String getName() {
@@ -87,6 +162,14 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
             return this.completed;
         }
 
+        /**
+         * The time tasks waited in the queue per priority, <tt>null</tt> if the thread pool is not prioritized.
+         */
+        @Nullable
+        public List<QueueWait> getQueueWait() {
+            return this.queueWait;
+        }
+
         @Override
         public void readFrom(StreamInput in) throws IOException {
             name = in.readString();
@@ -96,6 +179,15 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
             rejected = in.readLong();
             largest = in.readInt();
             completed = in.readLong();
+            if (in.getVersion().onOrAfter(Version.V_2_0_0) && in.readBoolean()) {
+                int size = in.readVInt();
+                queueWait = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    QueueWait wait = new QueueWait();
+                    wait.readFrom(in);
+                    queueWait.add(wait);
+                }
+            }
         }
 
         @Override
@@ -107,6 +199,17 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
             out.writeLong(rejected);
             out.writeInt(largest);
             out.writeLong(completed);
+            if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+                if (queueWait == null) {
+                    out.writeBoolean(false);
+                } else {
+                    out.writeBoolean(true);
+                    out.writeVInt(queueWait.size());
+                    for (QueueWait wait : queueWait) {
+                        wait.writeTo(out);
+                    }
+                }
+            }
         }
 
         @Override
@@ -130,6 +233,13 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
             if (completed != -1) {
                 builder.field(Fields.COMPLETED, completed);
             }
+            if (queueWait != null) {
+                builder.startObject(Fields.QUEUE_WAIT);
+                for (QueueWait wait : queueWait) {
+                    wait.toXContent(builder, params);
+                }
+                builder.endObject();
+            }
             builder.endObject();
             return builder;
         }
@@ -183,6 +293,10 @@ public class ThreadPoolStats implements Streamable, ToXContent, Iterable<ThreadP
         static final XContentBuilderString REJECTED = new XContentBuilderString("rejected");
         static final XContentBuilderString LARGEST = new XContentBuilderString("largest");
         static final XContentBuilderString COMPLETED = new XContentBuilderString("completed");
+        static final XContentBuilderString QUEUE_WAIT = new XContentBuilderString("queue_wait");
+        static final XContentBuilderString COUNT = new XContentBuilderString("count");
+        static final XContentBuilderString TOTAL_TIME = new XContentBuilderString("total_time");
+        static final XContentBuilderString TOTAL_TIME_IN_MILLIS = new XContentBuilderString("total_time_in_millis");
     }
 
     @Override
@@ -26,6 +26,7 @@ import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.collect.MapBuilder;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
 import org.elasticsearch.common.inject.Inject;
+import org.elasticsearch.common.metrics.CounterMetric;
 import org.elasticsearch.common.metrics.MeanMetric;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.BoundTransportAddress;
@@ -37,10 +38,13 @@ import org.elasticsearch.common.util.concurrent.FutureUtils;
 import org.elasticsearch.threadpool.ThreadPool;
 
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -89,6 +93,7 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
     protected void doStart() throws ElasticsearchException {
         adapter.rxMetric.clear();
         adapter.txMetric.clear();
+        adapter.compressionMetrics.clear();
         transport.transportServiceAdapter(adapter);
         transport.start();
         if (transport.boundAddress() != null && logger.isInfoEnabled()) {
@@ -141,7 +146,13 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
     }
 
     public TransportStats stats() {
-        return new TransportStats(transport.serverOpen(), adapter.rxMetric.count(), adapter.rxMetric.sum(), adapter.txMetric.count(), adapter.txMetric.sum());
+        Map<String, TransportStats.CompressionStats> compressionStats = new HashMap<>(adapter.compressionMetrics.size());
+        for (Map.Entry<String, CompressionMetric> entry : adapter.compressionMetrics.entrySet()) {
+            CompressionMetric metric = entry.getValue();
+            compressionStats.put(entry.getKey(), new TransportStats.CompressionStats(metric.count.count(), metric.uncompressedSize.count(),
+                    metric.compressedSize.count(), TimeUnit.NANOSECONDS.toMillis(metric.timeInNanos.count())));
+        }
+        return new TransportStats(transport.serverOpen(), adapter.rxMetric.count(), adapter.rxMetric.sum(), adapter.txMetric.count(), adapter.txMetric.sum(), compressionStats);
     }
 
     public BoundTransportAddress boundAddress() {
@@ -260,10 +271,18 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
         return serverHandlers.get(action);
     }
 
+    static class CompressionMetric {
+        final CounterMetric count = new CounterMetric();
+        final CounterMetric uncompressedSize = new CounterMetric();
+        final CounterMetric compressedSize = new CounterMetric();
+        final CounterMetric timeInNanos = new CounterMetric();
+    }
+
     class Adapter implements TransportServiceAdapter {
 
         final MeanMetric rxMetric = new MeanMetric();
         final MeanMetric txMetric = new MeanMetric();
+        final ConcurrentMap<String, CompressionMetric> compressionMetrics = ConcurrentCollections.newConcurrentMap();
 
         @Override
         public void received(long size) {
@@ -275,6 +294,22 @@ public class TransportService extends AbstractLifecycleComponent<TransportServic
             txMetric.inc(size);
         }
 
+        @Override
+        public void compressed(String action, long uncompressedSize, long compressedSize, long tookInNanos) {
+            CompressionMetric metric = compressionMetrics.get(action);
+            if (metric == null) {
+                metric = new CompressionMetric();
+                CompressionMetric existing = compressionMetrics.putIfAbsent(action, metric);
+                if (existing != null) {
+                    metric = existing;
+                }
+            }
+            metric.count.inc();
+            metric.uncompressedSize.inc(uncompressedSize);
+            metric.compressedSize.inc(compressedSize);
+            metric.timeInNanos.inc(tookInNanos);
+        }
+
         @Override
         public TransportRequestHandler handler(String action) {
             return serverHandlers.get(action);
@@ -30,6 +30,11 @@ public interface TransportServiceAdapter {
 
     void sent(long size);
 
+    /**
+     * Called when a message of the given action was compressed before it was sent.
+     */
+    void compressed(String action, long uncompressedSize, long compressedSize, long tookInNanos);
+
     TransportRequestHandler handler(String action);
 
     TransportResponseHandler remove(long requestId);
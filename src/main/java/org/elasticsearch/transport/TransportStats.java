@@ -19,15 +19,20 @@
 
 package org.elasticsearch.transport;
 
+import com.google.common.collect.ImmutableMap;
+import org.elasticsearch.Version;
 import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.io.stream.Streamable;
 import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.xcontent.ToXContent;
 import org.elasticsearch.common.xcontent.XContentBuilder;
 import org.elasticsearch.common.xcontent.XContentBuilderString;
 
 import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
 
 public class TransportStats implements Streamable, ToXContent {
 
@@ -36,17 +41,23 @@ public class TransportStats implements Streamable, ToXContent {
     private long rxSize;
     private long txCount;
     private long txSize;
+    private Map<String, CompressionStats> compressionStats = ImmutableMap.of();
 
     TransportStats() {
 
     }
 
     public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize) {
+        this(serverOpen, rxCount, rxSize, txCount, txSize, ImmutableMap.<String, CompressionStats>of());
+    }
+
+    public TransportStats(long serverOpen, long rxCount, long rxSize, long txCount, long txSize, Map<String, CompressionStats> compressionStats) {
         this.serverOpen = serverOpen;
         this.rxCount = rxCount;
         this.rxSize = rxSize;
         this.txCount = txCount;
         this.txSize = txSize;
+        this.compressionStats = compressionStats;
     }
 
     public long serverOpen() {
@@ -89,6 +100,17 @@ public class TransportStats implements Streamable, ToXContent {
         return txSize();
     }
 
+    /**
+     * The compression stats of the messages that were compressed when sent, per action.
+     */
+    public Map<String, CompressionStats> compressionStats() {
+        return compressionStats;
+    }
+
+    public Map<String, CompressionStats> getCompressionStats() {
+        return compressionStats();
+    }
+
     public static TransportStats readTransportStats(StreamInput in) throws IOException {
         TransportStats stats = new TransportStats();
         stats.readFrom(in);
@@ -102,6 +124,14 @@ public class TransportStats implements Streamable, ToXContent {
         rxSize = in.readVLong();
         txCount = in.readVLong();
         txSize = in.readVLong();
+        if (in.getVersion().onOrAfter(Version.V_2_0_0)) {
+            int size = in.readVInt();
+            Map<String, CompressionStats> compressionStats = new HashMap<>(size);
+            for (int i = 0; i < size; i++) {
+                compressionStats.put(in.readString(), CompressionStats.readCompressionStats(in));
+            }
+            this.compressionStats = compressionStats;
+        }
     }
 
     @Override
@@ -111,6 +141,13 @@ public class TransportStats implements Streamable, ToXContent {
         out.writeVLong(rxSize);
         out.writeVLong(txCount);
         out.writeVLong(txSize);
+        if (out.getVersion().onOrAfter(Version.V_2_0_0)) {
+            out.writeVInt(compressionStats.size());
+            for (Map.Entry<String, CompressionStats> entry : compressionStats.entrySet()) {
+                out.writeString(entry.getKey());
+                entry.getValue().writeTo(out);
+            }
+        }
     }
 
     @Override
@@ -121,10 +158,99 @@ public class TransportStats implements Streamable, ToXContent {
         builder.byteSizeField(Fields.RX_SIZE_IN_BYTES, Fields.RX_SIZE, rxSize);
         builder.field(Fields.TX_COUNT, txCount);
         builder.byteSizeField(Fields.TX_SIZE_IN_BYTES, Fields.TX_SIZE, txSize);
+        if (!compressionStats.isEmpty()) {
+            builder.startObject(Fields.COMPRESSION);
+            for (Map.Entry<String, CompressionStats> entry : compressionStats.entrySet()) {
+                builder.startObject(entry.getKey(), XContentBuilder.FieldCaseConversion.NONE);
+                entry.getValue().toXContent(builder, params);
+                builder.endObject();
+            }
+            builder.endObject();
+        }
         builder.endObject();
         return builder;
     }
 
+    /**
+     * How well and how fast the messages of an action compressed.
+     */
+    public static class CompressionStats implements Streamable, ToXContent {
+
+        private long count;
+        private long uncompressedSize;
+        private long compressedSize;
+        private long timeInMillis;
+
+        CompressionStats() {
+
+        }
+
+        public CompressionStats(long count, long uncompressedSize, long compressedSize, long timeInMillis) {
+            this.count = count;
+            this.uncompressedSize = uncompressedSize;
+            this.compressedSize = compressedSize;
+            this.timeInMillis = timeInMillis;
+        }
+
+        /**
+         * The number of messages that were compressed.
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public ByteSizeValue getUncompressedSize() {
+            return new ByteSizeValue(uncompressedSize);
+        }
+
+        public ByteSizeValue getCompressedSize() {
+            return new ByteSizeValue(compressedSize);
+        }
+
+        /**
+         * The compressed size divided by the uncompressed size, the lower the better.
+         */
+        public double getRatio() {
+            return uncompressedSize == 0 ? 1 : (double) compressedSize / uncompressedSize;
+        }
+
+        public TimeValue getTime() {
+            return new TimeValue(timeInMillis);
+        }
+
+        public static CompressionStats readCompressionStats(StreamInput in) throws IOException {
+            CompressionStats stats = new CompressionStats();
+            stats.readFrom(in);
+            return stats;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            count = in.readVLong();
+            uncompressedSize = in.readVLong();
+            compressedSize = in.readVLong();
+            timeInMillis = in.readVLong();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            out.writeVLong(count);
+            out.writeVLong(uncompressedSize);
+            out.writeVLong(compressedSize);
+            out.writeVLong(timeInMillis);
+        }
+
+        @Override
+        public XContentBuilder toXContent(XContentBuilder builder, Params params) throws IOException {
+            builder.field(Fields.COUNT, count);
+            builder.byteSizeField(Fields.UNCOMPRESSED_SIZE_IN_BYTES, Fields.UNCOMPRESSED_SIZE, uncompressedSize);
+            builder.byteSizeField(Fields.COMPRESSED_SIZE_IN_BYTES, Fields.COMPRESSED_SIZE, compressedSize);
+            builder.field(Fields.RATIO, getRatio());
+            builder.timeValueField(Fields.TIME_IN_MILLIS, Fields.TIME, timeInMillis);
+            return builder;
+        }
+    }
+
     static final class Fields {
         static final XContentBuilderString TRANSPORT = new XContentBuilderString("transport");
         static final XContentBuilderString SERVER_OPEN = new XContentBuilderString("server_open");
@@ -134,5 +260,14 @@ public class TransportStats implements Streamable, ToXContent {
         static final XContentBuilderString TX_COUNT = new XContentBuilderString("tx_count");
         static final XContentBuilderString TX_SIZE = new XContentBuilderString("tx_size");
         static final XContentBuilderString TX_SIZE_IN_BYTES = new XContentBuilderString("tx_size_in_bytes");
+        static final XContentBuilderString COMPRESSION = new XContentBuilderString("compression");
+        static final XContentBuilderString COUNT = new XContentBuilderString("count");
+        static final XContentBuilderString UNCOMPRESSED_SIZE = new XContentBuilderString("uncompressed_size");
+        static final XContentBuilderString UNCOMPRESSED_SIZE_IN_BYTES = new XContentBuilderString("uncompressed_size_in_bytes");
+        static final XContentBuilderString COMPRESSED_SIZE = new XContentBuilderString("compressed_size");
+        static final XContentBuilderString COMPRESSED_SIZE_IN_BYTES = new XContentBuilderString("compressed_size_in_bytes");
+        static final XContentBuilderString RATIO = new XContentBuilderString("ratio");
+        static final XContentBuilderString TIME = new XContentBuilderString("time");
+        static final XContentBuilderString TIME_IN_MILLIS = new XContentBuilderString("time_in_millis");
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport.netty;
+
+import org.elasticsearch.common.Nullable;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ReleasableBytesReference;
+import org.elasticsearch.common.io.stream.ReleasableBytesStreamOutput;
+import org.elasticsearch.common.netty.NettyUtils;
+import org.elasticsearch.common.util.BigArrays;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A {@link ReleasableBytesStreamOutput} that appends large {@link BytesReference}s by reference instead of copying
+ * them into its pages, so that payloads like <tt>_source</tt>, recovery file chunks or search hits go to the socket
+ * without being copied. The content of the stream is {@link #toChannelBuffer()}, a composite buffer of slices of the
+ * pages of the stream and of the referenced bytes.
+ * <p/>
+ * The referenced bytes must not be modified until the buffer has been written. {@link #bytes()} only holds the
+ * pages of the stream, it is what needs to be released once the buffer has been written.
+ */
+public class ChannelBufferBytesStreamOutput extends ReleasableBytesStreamOutput {
+
+    /**
+     * Bytes references smaller than this are copied, adding them as a component of the composite buffer costs more
+     * than copying them.
+     */
+    public static final int REFERENCE_THRESHOLD = 2048;
+
+    private final List<BytesReference> references = new ArrayList<>();
+    // the number of bytes of the pages that come before each reference
+    private final List<Integer> referenceOffsets = new ArrayList<>();
+    private long referencedBytes;
+
+    public ChannelBufferBytesStreamOutput(BigArrays bigarrays) {
+        super(bigarrays);
+    }
+
+    @Override
+    public void writeBytesReference(@Nullable BytesReference bytes) throws IOException {
+        if (bytes == null || bytes.length() < REFERENCE_THRESHOLD) {
+            super.writeBytesReference(bytes);
+            return;
+        }
+        writeVInt(bytes.length());
+        referenceOffsets.add(count);
+        references.add(bytes);
+        referencedBytes += bytes.length();
+    }
+
+    @Override
+    public long position() throws IOException {
+        return count + referencedBytes;
+    }
+
+    @Override
+    public void seek(long position) throws IOException {
+        if (!references.isEmpty()) {
+            throw new UnsupportedOperationException("can't seek once bytes were appended by reference");
+        }
+        super.seek(position);
+    }
+
+    @Override
+    public void reset() {
+        super.reset();
+        references.clear();
+        referenceOffsets.clear();
+        referencedBytes = 0;
+    }
+
+    /**
+     * The content of the stream, the pages of the stream interleaved with the bytes that were appended by reference.
+     */
+    public ChannelBuffer toChannelBuffer() {
+        final ReleasableBytesReference pages = bytes();
+        if (references.isEmpty()) {
+            return pages.toChannelBuffer();
+        }
+        final List<ChannelBuffer> buffers = new ArrayList<>(2 * references.size() + 1);
+        int from = 0;
+        for (int i = 0; i < references.size(); i++) {
+            final int to = referenceOffsets.get(i);
+            if (to > from) {
+                buffers.add(pages.slice(from, to - from).toChannelBuffer());
+            }
+            buffers.add(references.get(i).toChannelBuffer());
+            from = to;
+        }
+        if (count > from) {
+            buffers.add(pages.slice(from, count - from).toChannelBuffer());
+        }
+        return ChannelBuffers.wrappedBuffer(NettyUtils.DEFAULT_GATHERING, buffers.toArray(new ChannelBuffer[buffers.size()]));
+    }
+}
@@ -25,6 +25,7 @@ import com.google.common.collect.Maps;
 import org.elasticsearch.*;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.common.Booleans;
+import org.elasticsearch.common.Nullable;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
 import org.elasticsearch.common.component.AbstractLifecycleComponent;
@@ -46,6 +47,7 @@ import org.elasticsearch.common.transport.BoundTransportAddress;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
 import org.elasticsearch.common.transport.PortsRange;
 import org.elasticsearch.common.transport.TransportAddress;
+import org.elasticsearch.common.unit.ByteSizeUnit;
 import org.elasticsearch.common.unit.ByteSizeValue;
 import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.common.util.BigArrays;
@@ -104,6 +106,12 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
     public static final String CONNECTIONS_PER_NODE_REG = "transport.connections_per_node.reg";
     public static final String CONNECTIONS_PER_NODE_STATE = "transport.connections_per_node.state";
     public static final String CONNECTIONS_PER_NODE_PING = "transport.connections_per_node.ping";
+    public static final String COMPRESS_ADAPTIVE = "transport.tcp.compress_adaptive";
+    public static final String COMPRESS_THRESHOLD_RECOVERY = "transport.compress_threshold.recovery";
+    public static final String COMPRESS_THRESHOLD_BULK = "transport.compress_threshold.bulk";
+    public static final String COMPRESS_THRESHOLD_REG = "transport.compress_threshold.reg";
+    public static final String COMPRESS_THRESHOLD_STATE = "transport.compress_threshold.state";
+    public static final String COMPRESS_THRESHOLD_PING = "transport.compress_threshold.ping";
     private static final String DEFAULT_PORT_RANGE = "9300-9400";
 
     private final NetworkService networkService;
@@ -114,6 +122,12 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
     private final ByteSizeValue maxCumulationBufferCapacity;
     private final int maxCompositeBufferComponents;
     final boolean compress;
+    final boolean compressAdaptive;
+    private final ByteSizeValue compressThresholdRecovery;
+    private final ByteSizeValue compressThresholdBulk;
+    private final ByteSizeValue compressThresholdReg;
+    private final ByteSizeValue compressThresholdState;
+    private final ByteSizeValue compressThresholdPing;
     private final ReceiveBufferSizePredictorFactory receiveBufferSizePredictorFactory;
     private final int workerCount;
     private final ByteSizeValue receivePredictorMin;
@@ -193,6 +207,12 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         this.maxCumulationBufferCapacity = componentSettings.getAsBytesSize("max_cumulation_buffer_capacity", null);
         this.maxCompositeBufferComponents = componentSettings.getAsInt("max_composite_buffer_components", -1);
         this.compress = settings.getAsBoolean(TransportSettings.TRANSPORT_TCP_COMPRESS, false);
+        this.compressAdaptive = settings.getAsBoolean(COMPRESS_ADAPTIVE, false);
+        this.compressThresholdRecovery = componentSettings.getAsBytesSize("compress_threshold.recovery", settings.getAsBytesSize(COMPRESS_THRESHOLD_RECOVERY, new ByteSizeValue(64, ByteSizeUnit.KB)));
+        this.compressThresholdBulk = componentSettings.getAsBytesSize("compress_threshold.bulk", settings.getAsBytesSize(COMPRESS_THRESHOLD_BULK, new ByteSizeValue(16, ByteSizeUnit.KB)));
+        this.compressThresholdReg = componentSettings.getAsBytesSize("compress_threshold.reg", settings.getAsBytesSize(COMPRESS_THRESHOLD_REG, new ByteSizeValue(64, ByteSizeUnit.KB)));
+        this.compressThresholdState = componentSettings.getAsBytesSize("compress_threshold.state", settings.getAsBytesSize(COMPRESS_THRESHOLD_STATE, new ByteSizeValue(64, ByteSizeUnit.KB)));
+        this.compressThresholdPing = componentSettings.getAsBytesSize("compress_threshold.ping", settings.getAsBytesSize(COMPRESS_THRESHOLD_PING, new ByteSizeValue(-1)));
 
         this.connectionsPerNodeRecovery = componentSettings.getAsInt("connections_per_node.recovery", settings.getAsInt(CONNECTIONS_PER_NODE_RECOVERY, 2));
         this.connectionsPerNodeBulk = componentSettings.getAsInt("connections_per_node.bulk", settings.getAsInt(CONNECTIONS_PER_NODE_BULK, 3));
@@ -440,8 +460,8 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         ByteSizeValue tcpSendBufferSize = settings.getAsBytesSize("tcp_send_buffer_size", TCP_DEFAULT_SEND_BUFFER_SIZE);
         ByteSizeValue tcpReceiveBufferSize = settings.getAsBytesSize("tcp_receive_buffer_size", TCP_DEFAULT_RECEIVE_BUFFER_SIZE);
 
-        logger.debug("using profile[{}], worker_count[{}], port[{}], bind_host[{}], publish_host[{}], compress[{}], connect_timeout[{}], connections_per_node[{}/{}/{}/{}/{}], receive_predictor[{}->{}]",
-                name, workerCount, port, bindHost, publishHost, compress, connectTimeout, connectionsPerNodeRecovery, connectionsPerNodeBulk, connectionsPerNodeReg, connectionsPerNodeState, connectionsPerNodePing, receivePredictorMin, receivePredictorMax);
+        logger.debug("using profile[{}], worker_count[{}], port[{}], bind_host[{}], publish_host[{}], compress[{}], compress_adaptive[{}], connect_timeout[{}], connections_per_node[{}/{}/{}/{}/{}], receive_predictor[{}->{}]",
+                name, workerCount, port, bindHost, publishHost, compress, compressAdaptive, connectTimeout, connectionsPerNodeRecovery, connectionsPerNodeBulk, connectionsPerNodeReg, connectionsPerNodeState, connectionsPerNodePing, receivePredictorMin, receivePredictorMax);
 
         ServerBootstrap serverBootstrap;
         if (blockingServer) {
@@ -646,18 +666,12 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
         byte status = 0;
         status = TransportStatus.setRequest(status);
 
-        ReleasableBytesStreamOutput bStream = new ReleasableBytesStreamOutput(bigArrays);
+        ChannelBufferBytesStreamOutput bStream = new ChannelBufferBytesStreamOutput(bigArrays);
+        ReleasableBytesStreamOutput cStream = null;
         boolean addedReleaseListener = false;
         try {
             bStream.skip(NettyHeader.HEADER_SIZE);
-            StreamOutput stream = bStream;
-            // only compress if asked, and, the request is not bytes, since then only
-            // the header part is compressed, and the "body" can't be extracted as compressed
-            if (options.compress() && (!(request instanceof BytesTransportRequest))) {
-                status = TransportStatus.setCompress(status);
-                stream = CompressorFactory.defaultCompressor().streamOutput(stream);
-            }
-            stream = new HandlesStreamOutput(stream);
+            StreamOutput stream = new HandlesStreamOutput(bStream);
 
             // we pick the smallest of the 2, to support both backward and forward compatibility
             // note, this is the only place we need to do this, since from here on, we use the serialized version
@@ -678,14 +692,24 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
                 bRequest.writeThin(stream);
                 stream.close();
                 bytes = bStream.bytes();
-                ChannelBuffer headerBuffer = bytes.toChannelBuffer();
+                ChannelBuffer headerBuffer = bStream.toChannelBuffer();
                 ChannelBuffer contentBuffer = bRequest.bytes().toChannelBuffer();
                 buffer = ChannelBuffers.wrappedBuffer(NettyUtils.DEFAULT_GATHERING, headerBuffer, contentBuffer);
             } else {
                 request.writeTo(stream);
                 stream.close();
-                bytes = bStream.bytes();
-                buffer = bytes.toChannelBuffer();
+                // only requests that are not bytes are compressed, since then only the header
+                // part would be compressed, and the "body" can't be extracted as compressed
+                cStream = compressMessage(action, bStream, options.compress(), options.type());
+                if (cStream != null) {
+                    status = TransportStatus.setCompress(status);
+                    bytes = cStream.bytes();
+                    buffer = bytes.toChannelBuffer();
+                } else {
+                    bytes = bStream.bytes();
+                    // large bytes references of the request, like a document source, are not copied into the stream
+                    buffer = bStream.toChannelBuffer();
+                }
             }
             NettyHeader.writeHeader(buffer, requestId, status, version);
             ChannelFuture future = targetChannel.write(buffer);
@@ -693,10 +717,74 @@ public class NettyTransport extends AbstractLifecycleComponent<Transport> implem
             future.addListener(listener);
             addedReleaseListener = true;
         } finally {
-            if (!addedReleaseListener) {
+            // the uncompressed message is not written if it was compressed
+            if (!addedReleaseListener || cStream != null) {
                 Releasables.close(bStream.bytes());
             }
+            if (!addedReleaseListener && cStream != null) {
+                Releasables.close(cStream.bytes());
+            }
+        }
+    }
+
+    /**
+     * Compresses the serialized message, the bytes that follow the header, if compression was asked for or if
+     * adaptive compression is enabled and the message is at least as large as the compression threshold of its
+     * channel type. Returns the stream holding the compressed message after the space of the header, or
+     * <tt>null</tt> if the message should be sent uncompressed, which is also the case if adaptive compression
+     * didn't make it smaller.
+     */
+    @Nullable
+    ReleasableBytesStreamOutput compressMessage(String action, ChannelBufferBytesStreamOutput message, boolean compress, TransportRequestOptions.Type type) throws IOException {
+        final long length = message.position() - NettyHeader.HEADER_SIZE;
+        if (!compress && (!compressAdaptive || !shouldCompress(type, length))) {
+            return null;
+        }
+        final long startTime = System.nanoTime();
+        final ReleasableBytesStreamOutput cStream = new ReleasableBytesStreamOutput(bigArrays);
+        boolean success = false;
+        try {
+            cStream.skip(NettyHeader.HEADER_SIZE);
+            StreamOutput stream = CompressorFactory.defaultCompressor().streamOutput(cStream);
+            message.toChannelBuffer().getBytes(NettyHeader.HEADER_SIZE, stream, (int) length);
+            stream.close();
+            final long compressedLength = cStream.size() - NettyHeader.HEADER_SIZE;
+            transportServiceAdapter.compressed(action, length, compressedLength, System.nanoTime() - startTime);
+            if (compress || compressedLength < length) {
+                success = true;
+                return cStream;
+            }
+            return null;
+        } finally {
+            if (!success) {
+                Releasables.close(cStream.bytes());
+            }
+        }
+    }
+
+    /**
+     * Whether adaptive compression compresses a message of the given size, sent on a channel of the given type.
+     * Responses use the threshold of {@link TransportRequestOptions.Type#REG}.
+     */
+    boolean shouldCompress(TransportRequestOptions.Type type, long size) {
+        final ByteSizeValue threshold;
+        switch (type) {
+            case RECOVERY:
+                threshold = compressThresholdRecovery;
+                break;
+            case BULK:
+                threshold = compressThresholdBulk;
+                break;
+            case STATE:
+                threshold = compressThresholdState;
+                break;
+            case PING:
+                threshold = compressThresholdPing;
+                break;
+            default:
+                threshold = compressThresholdReg;
         }
+        return threshold.bytes() >= 0 && size >= threshold.bytes();
     }
 
     @Override
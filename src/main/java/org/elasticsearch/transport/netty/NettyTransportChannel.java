@@ -22,7 +22,6 @@ package org.elasticsearch.transport.netty;
 import org.elasticsearch.Version;
 import org.elasticsearch.common.bytes.BytesReference;
 import org.elasticsearch.common.bytes.ReleasableBytesReference;
-import org.elasticsearch.common.compress.CompressorFactory;
 import org.elasticsearch.common.io.ThrowableObjectOutputStream;
 import org.elasticsearch.common.io.stream.BytesStreamOutput;
 import org.elasticsearch.common.io.stream.HandlesStreamOutput;
@@ -77,31 +76,41 @@ public class NettyTransportChannel implements TransportChannel {
         byte status = 0;
         status = TransportStatus.setResponse(status);
 
-        ReleasableBytesStreamOutput bStream = new ReleasableBytesStreamOutput(transport.bigArrays);
+        ChannelBufferBytesStreamOutput bStream = new ChannelBufferBytesStreamOutput(transport.bigArrays);
+        ReleasableBytesStreamOutput cStream = null;
         boolean addedReleaseListener = false;
         try {
             bStream.skip(NettyHeader.HEADER_SIZE);
-            StreamOutput stream = bStream;
-            if (options.compress()) {
-                status = TransportStatus.setCompress(status);
-                stream = CompressorFactory.defaultCompressor().streamOutput(stream);
-            }
-            stream = new HandlesStreamOutput(stream);
+            StreamOutput stream = new HandlesStreamOutput(bStream);
             stream.setVersion(version);
             response.writeTo(stream);
             stream.close();
 
-            ReleasableBytesReference bytes = bStream.bytes();
-            ChannelBuffer buffer = bytes.toChannelBuffer();
+            ReleasableBytesReference bytes;
+            ChannelBuffer buffer;
+            cStream = transport.compressMessage(action, bStream, options.compress(), TransportRequestOptions.Type.REG);
+            if (cStream != null) {
+                status = TransportStatus.setCompress(status);
+                bytes = cStream.bytes();
+                buffer = bytes.toChannelBuffer();
+            } else {
+                bytes = bStream.bytes();
+                // large bytes references of the response, like search hit sources, are not copied into the stream
+                buffer = bStream.toChannelBuffer();
+            }
             NettyHeader.writeHeader(buffer, requestId, status, version);
             ChannelFuture future = channel.write(buffer);
             ReleaseChannelFutureListener listener = new ReleaseChannelFutureListener(bytes);
             future.addListener(listener);
             addedReleaseListener = true;
         } finally {
-            if (!addedReleaseListener) {
+            // the uncompressed response is not written if it was compressed
+            if (!addedReleaseListener || cStream != null) {
                 Releasables.close(bStream.bytes());
             }
+            if (!addedReleaseListener && cStream != null) {
+                Releasables.close(cStream.bytes());
+            }
         }
     }
 
@@ -28,7 +28,11 @@ import org.elasticsearch.action.update.UpdateRequest;
 import org.elasticsearch.client.Requests;
 import org.elasticsearch.common.Strings;
 import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ChannelBufferBytesReference;
 import org.elasticsearch.test.ElasticsearchTestCase;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
 import org.junit.Test;
 
 import java.util.ArrayList;
@@ -117,4 +121,62 @@ public class BulkRequestTests extends ElasticsearchTestCase {
         assertThat(bulkRequest.requests().get(1), instanceOf(UpdateRequest.class));
         assertThat(bulkRequest.requests().get(2), instanceOf(DeleteRequest.class));
     }
+
+    @Test
+    public void testBulkOverCompositeBuffer() throws Exception {
+        String bulkAction = copyToStringFromClasspath("/org/elasticsearch/action/bulk/simple-bulk4.json");
+        if (Constants.WINDOWS) {
+            bulkAction = Strings.replace(bulkAction, "\r\n", "\n");
+        }
+        byte[] bytes = bulkAction.getBytes(Charsets.UTF_8);
+        BulkRequest expected = new BulkRequest().add(new BytesArray(bytes), true, null, null);
+
+        // split the data into heap and direct buffers at random offsets
+        List<ChannelBuffer> buffers = new ArrayList<>();
+        int from = 0;
+        while (from < bytes.length) {
+            int length = randomIntBetween(1, bytes.length - from);
+            ChannelBuffer buffer = randomBoolean() ? ChannelBuffers.buffer(length) : ChannelBuffers.directBuffer(length);
+            buffer.writeBytes(bytes, from, length);
+            buffers.add(buffer);
+            from += length;
+        }
+        BytesReference data = new ChannelBufferBytesReference(ChannelBuffers.wrappedBuffer(buffers.toArray(new ChannelBuffer[buffers.size()])));
+        BulkRequest actual = new BulkRequest().add(data, true, null, null);
+
+        assertThat(actual.numberOfActions(), equalTo(expected.numberOfActions()));
+        for (int i = 0; i < expected.numberOfActions(); i++) {
+            assertThat(actual.requests().get(i).getClass(), equalTo((Object) expected.requests().get(i).getClass()));
+            if (expected.requests().get(i) instanceof IndexRequest) {
+                assertThat(((IndexRequest) actual.requests().get(i)).source().toBytes(), equalTo(((IndexRequest) expected.requests().get(i)).source().toBytes()));
+            }
+        }
+    }
+
+    @Test
+    public void testMarkerScanner() {
+        byte[] bytes = new byte[randomIntBetween(0, 100)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = rarely() ? (byte) '\n' : (byte) 'a';
+        }
+        BulkRequest.MarkerScanner arrayScanner = new BulkRequest.MarkerScanner((byte) '\n', new BytesArray(bytes));
+        BulkRequest.MarkerScanner compositeScanner = new BulkRequest.MarkerScanner((byte) '\n', new ChannelBufferBytesReference(
+                ChannelBuffers.wrappedBuffer(ChannelBuffers.wrappedBuffer(bytes, 0, bytes.length / 2), ChannelBuffers.wrappedBuffer(bytes, bytes.length / 2, bytes.length - bytes.length / 2))));
+        int from = 0;
+        while (true) {
+            int expected = -1;
+            for (int i = from; i < bytes.length; i++) {
+                if (bytes[i] == '\n') {
+                    expected = i;
+                    break;
+                }
+            }
+            assertThat(arrayScanner.next(from), equalTo(expected));
+            assertThat(compositeScanner.next(from), equalTo(expected));
+            if (expected == -1) {
+                break;
+            }
+            from = expected + 1;
+        }
+    }
 }
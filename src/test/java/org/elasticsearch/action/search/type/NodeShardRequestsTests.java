@@ -0,0 +1,115 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.action.search.type;
+
+import org.elasticsearch.ElasticsearchException;
+import org.elasticsearch.action.search.type.TransportSearchTypeAction.NodeShardRequests;
+import org.elasticsearch.common.util.concurrent.AbstractRunnable;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+
+public class NodeShardRequestsTests extends ElasticsearchTestCase {
+
+    private static class ShardRequest extends AbstractRunnable {
+
+        final NodeShardRequests requests;
+        final String nodeId;
+        final int id;
+        final boolean failOnSend;
+        final List<Integer> sent;
+        final List<Integer> failed;
+
+        ShardRequest(NodeShardRequests requests, String nodeId, int id, boolean failOnSend, List<Integer> sent, List<Integer> failed) {
+            this.requests = requests;
+            this.nodeId = nodeId;
+            this.id = id;
+            this.failOnSend = failOnSend;
+            this.sent = sent;
+            this.failed = failed;
+        }
+
+        @Override
+        protected void doRun() throws Exception {
+            if (failOnSend) {
+                throw new ElasticsearchException("failed to send [" + id + "]");
+            }
+            sent.add(id);
+        }
+
+        @Override
+        public void onFailure(Throwable t) {
+            failed.add(id);
+            requests.onDone(nodeId);
+        }
+    }
+
+    @Test
+    public void testQueuesAndReleasesSlots() {
+        final NodeShardRequests requests = new NodeShardRequests(2);
+        final List<Integer> sent = new ArrayList<>();
+        final List<Integer> failed = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            requests.execute("node1", new ShardRequest(requests, "node1", i, false, sent, failed));
+        }
+        requests.execute("node2", new ShardRequest(requests, "node2", 5, false, sent, failed));
+        assertThat(sent, contains(0, 1, 5));
+        assertThat(requests.executing("node1"), equalTo(2));
+        assertThat(requests.pending("node1"), equalTo(3));
+        assertThat(requests.executing("node2"), equalTo(1));
+
+        // a successful request hands its slot over to the next pending request
+        requests.onDone("node1");
+        assertThat(sent, contains(0, 1, 5, 2));
+        assertThat(requests.executing("node1"), equalTo(2));
+        assertThat(requests.pending("node1"), equalTo(2));
+
+        // a request that fails to be sent releases its slot as well
+        requests.execute("node1", new ShardRequest(requests, "node1", 6, true, sent, failed));
+        requests.execute("node1", new ShardRequest(requests, "node1", 7, false, sent, failed));
+        assertThat(requests.pending("node1"), equalTo(4));
+        requests.onDone("node1");
+        requests.onDone("node1");
+        assertThat(sent, contains(0, 1, 5, 2, 3, 4));
+        requests.onDone("node1");
+        // request 6 fails synchronously and hands its slot over to request 7
+        assertThat(failed, contains(6));
+        assertThat(sent, contains(0, 1, 5, 2, 3, 4, 7));
+        assertThat(requests.executing("node1"), equalTo(2));
+        assertThat(requests.pending("node1"), equalTo(0));
+
+        requests.onDone("node1");
+        requests.onDone("node1");
+        requests.onDone("node2");
+        assertThat(requests.executing("node1"), equalTo(0));
+        assertThat(requests.executing("node2"), equalTo(0));
+
+        // failures of requests that did not have to wait release their slot too
+        requests.execute("node1", new ShardRequest(requests, "node1", 8, true, sent, failed));
+        assertThat(failed, contains(6, 8));
+        assertThat(requests.executing("node1"), equalTo(0));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.common.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.Weigher;
+import org.elasticsearch.common.cache.EvictionPolicy;
+import org.elasticsearch.common.cache.WeightedCacheBuilder;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark that compares the hit rate and the throughput of the eviction policies of the node level caches, on a
+ * workload of skewed (zipfian) lookups mixed with scans over keys that are looked up only once, like a filter cache
+ * sees when many one-off queries run next to a few heavily reused filters.
+ */
+public class CacheBenchmark {
+
+    private static final long NUM_OPS = 5000000L;
+    private static final int NUM_KEYS = 100000;
+    private static final long MAXIMUM_WEIGHT = 1000 * 1024;
+    private static final double SCAN_RATIO = 0.2;
+
+    private static final Weigher<Long, byte[]> WEIGHER = new Weigher<Long, byte[]>() {
+        @Override
+        public int weigh(Long key, byte[] value) {
+            return value.length;
+        }
+    };
+
+    private static long[] zipf(int count, int numKeys, double skew, Random random) {
+        final double[] cumulative = new double[numKeys];
+        double sum = 0;
+        for (int i = 0; i < numKeys; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        final long[] keys = new long[count];
+        for (int i = 0; i < count; i++) {
+            final double value = random.nextDouble() * sum;
+            int index = Arrays.binarySearch(cumulative, value);
+            keys[i] = index >= 0 ? index : -index - 1;
+        }
+        return keys;
+    }
+
+    private static Cache<Long, byte[]> newCache(EvictionPolicy evictionPolicy) {
+        return WeightedCacheBuilder.<Long, byte[]>newBuilder(evictionPolicy)
+                .maximumWeight(MAXIMUM_WEIGHT)
+                .weigher(WEIGHER)
+                .concurrencyLevel(16)
+                .build();
+    }
+
+    private static void bench(EvictionPolicy evictionPolicy, final long[] keys, int numThreads, boolean print) throws InterruptedException {
+        final Cache<Long, byte[]> cache = newCache(evictionPolicy);
+        final AtomicLong ops = new AtomicLong(NUM_OPS);
+        final AtomicLong scanKeys = new AtomicLong(NUM_KEYS);
+        final AtomicLong hits = new AtomicLong();
+        final CountDownLatch latch = new CountDownLatch(1);
+        final Thread[] threads = new Thread[numThreads];
+        for (int i = 0; i < numThreads; ++i) {
+            final Random random = new Random(i);
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    long localHits = 0;
+                    long op;
+                    while ((op = ops.getAndDecrement()) > 0) {
+                        final long key = random.nextDouble() < SCAN_RATIO ? scanKeys.incrementAndGet() : keys[(int) (op % keys.length)];
+                        if (cache.getIfPresent(key) != null) {
+                            ++localHits;
+                        } else {
+                            cache.put(key, new byte[1024]);
+                        }
+                    }
+                    hits.addAndGet(localHits);
+                }
+            };
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        final long start = System.nanoTime();
+        latch.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        final long took = System.nanoTime() - start;
+        if (print) {
+            System.out.println(evictionPolicy + "\t" + TimeUnit.NANOSECONDS.toMillis(took) + "ms\t"
+                    + String.format(Locale.ROOT, "%.2f%%", 100d * hits.get() / NUM_OPS) + " hits");
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        final long[] keys = zipf(1 << 20, NUM_KEYS, 0.9, new Random(0));
+
+        // warmup
+        final long start = System.nanoTime();
+        while (System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10)) {
+            for (EvictionPolicy evictionPolicy : EvictionPolicy.values()) {
+                bench(evictionPolicy, keys, 2, false);
+            }
+        }
+
+        // run
+        for (int numThreads = 1; numThreads <= 4 * Runtime.getRuntime().availableProcessors(); numThreads *= 2) {
+            System.out.println("## " + numThreads + " threads\n");
+            System.gc();
+            Thread.sleep(1000);
+            for (int i = 0; i < 3; ++i) {
+                for (EvictionPolicy evictionPolicy : EvictionPolicy.values()) {
+                    bench(evictionPolicy, keys, numThreads, true);
+                }
+                System.out.println();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.compress;
+
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.compress.Compressor;
+import org.elasticsearch.common.compress.CompressorFactory;
+import org.elasticsearch.common.compress.lz4.LZ4Compressor;
+import org.elasticsearch.common.compress.lzf.LZFCompressor;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+
+import java.io.IOException;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+
+/**
+ * Compares the throughput and the compression ratio of the compressors on <tt>_source</tt> like documents, both when
+ * compressing documents one by one, like <tt>_source</tt> compression does, and as a stream of documents, like
+ * transport compression of a bulk request does.
+ */
+public class CompressorBenchmark {
+
+    private static final int NUMBER_OF_DOCS = 20000;
+    private static final int ITERATIONS = 10;
+
+    private static final String[] WORDS = {"error", "warning", "info", "request", "response", "timeout", "connection",
+            "user", "login", "logout", "failed", "succeeded", "index", "search", "shard", "node", "cluster", "query"};
+    private static final String[] HOSTS = {"web-01", "web-02", "web-03", "db-01", "db-02", "cache-01"};
+
+    public static void main(String[] args) throws Exception {
+        Random random = new Random(0);
+        byte[][] docs = new byte[NUMBER_OF_DOCS][];
+        long totalBytes = 0;
+        for (int i = 0; i < docs.length; i++) {
+            docs[i] = randomDoc(random, i).bytes().toBytes();
+            totalBytes += docs[i].length;
+        }
+        System.out.println("Generated " + docs.length + " docs, " + new ByteSizeValue(totalBytes));
+
+        Compressor[] compressors = new Compressor[]{CompressorFactory.compressor(LZFCompressor.TYPE), CompressorFactory.compressor(LZ4Compressor.TYPE)};
+        // warm up
+        for (Compressor compressor : compressors) {
+            perDoc(compressor, docs, 2, false);
+            stream(compressor, docs, 2, false);
+        }
+        for (Compressor compressor : compressors) {
+            perDoc(compressor, docs, ITERATIONS, true);
+            stream(compressor, docs, ITERATIONS, true);
+        }
+    }
+
+    private static void perDoc(Compressor compressor, byte[][] docs, int iterations, boolean print) throws IOException {
+        long uncompressedBytes = 0;
+        long compressedBytes = 0;
+        byte[][] compressed = new byte[docs.length][];
+        StopWatch compressWatch = new StopWatch().start();
+        for (int iter = 0; iter < iterations; iter++) {
+            for (int i = 0; i < docs.length; i++) {
+                compressed[i] = compressor.compress(docs[i], 0, docs[i].length);
+            }
+        }
+        compressWatch.stop();
+        StopWatch uncompressWatch = new StopWatch().start();
+        for (int iter = 0; iter < iterations; iter++) {
+            for (int i = 0; i < docs.length; i++) {
+                uncompressedBytes += compressor.uncompress(compressed[i], 0, compressed[i].length).length;
+            }
+        }
+        uncompressWatch.stop();
+        for (byte[] doc : compressed) {
+            compressedBytes += doc.length;
+        }
+        if (print) {
+            print(compressor.type() + " per doc", uncompressedBytes, compressedBytes * iterations, compressWatch, uncompressWatch);
+        }
+    }
+
+    private static void stream(Compressor compressor, byte[][] docs, int iterations, boolean print) throws IOException {
+        long uncompressedBytes = 0;
+        BytesReference compressed = null;
+        StopWatch compressWatch = new StopWatch().start();
+        for (int iter = 0; iter < iterations; iter++) {
+            BytesStreamOutput bytes = new BytesStreamOutput();
+            StreamOutput out = compressor.streamOutput(bytes);
+            for (byte[] doc : docs) {
+                out.writeBytes(doc);
+            }
+            out.close();
+            compressed = bytes.bytes();
+        }
+        compressWatch.stop();
+        byte[] buffer = new byte[8192];
+        StopWatch uncompressWatch = new StopWatch().start();
+        for (int iter = 0; iter < iterations; iter++) {
+            StreamInput in = compressor.streamInput(compressed.streamInput());
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                uncompressedBytes += read;
+            }
+            in.close();
+        }
+        uncompressWatch.stop();
+        if (print) {
+            print(compressor.type() + " stream", uncompressedBytes, (long) compressed.length() * iterations, compressWatch, uncompressWatch);
+        }
+    }
+
+    private static void print(String name, long uncompressedBytes, long compressedBytes, StopWatch compressWatch, StopWatch uncompressWatch) {
+        final double mb = uncompressedBytes / 1024d / 1024d;
+        System.out.println(String.format(Locale.ROOT, "%-14s ratio %.3f, compress %.1f MB/s, uncompress %.1f MB/s",
+                name, (double) compressedBytes / uncompressedBytes,
+                mb / compressWatch.totalTime().secondsFrac(), mb / uncompressWatch.totalTime().secondsFrac()));
+    }
+
+    private static XContentBuilder randomDoc(Random random, int id) throws IOException {
+        XContentBuilder builder = jsonBuilder().startObject()
+                .field("@timestamp", 1420070400000L + id * 1000L + random.nextInt(1000))
+                .field("host", HOSTS[random.nextInt(HOSTS.length)])
+                .field("status", 200 + random.nextInt(5) * 100)
+                .field("bytes", random.nextInt(100000))
+                .field("duration", random.nextDouble() * 1000);
+        StringBuilder message = new StringBuilder();
+        for (int i = 0, words = 5 + random.nextInt(30); i < words; i++) {
+            if (i > 0) {
+                message.append(' ');
+            }
+            message.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        builder.field("message", message.toString());
+        builder.startArray("tags");
+        for (int i = 0, tags = random.nextInt(4); i < tags; i++) {
+            builder.value(WORDS[random.nextInt(WORDS.length)]);
+        }
+        builder.endArray();
+        builder.startObject("user").field("id", random.nextInt(10000)).field("name", "user_" + random.nextInt(1000)).endObject();
+        return builder.endObject();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.search.aggregations;
+
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.rounding.DateTimeUnit;
+import org.elasticsearch.common.rounding.Rounding;
+import org.elasticsearch.common.rounding.TimeZoneRounding;
+import org.elasticsearch.common.unit.SizeValue;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.DenseLongHash;
+import org.elasticsearch.common.util.LongHash;
+
+import java.util.Random;
+
+/**
+ * Compares the time it takes to look the bucket ordinals of an hourly date histogram over a year up with the
+ * {@link LongHash} the histogram aggregation uses by default and with the {@link DenseLongHash} it uses once the
+ * bounds of the field are known. It uses the rounding the date_histogram aggregation builds for an hourly interval,
+ * whose keys are milliseconds since the epoch.
+ */
+public class HistogramBucketOrdsBenchmark {
+
+    static final long NUMBER_OF_VALUES = SizeValue.parseSizeValue("100m").singles();
+    static final int ITERS = 5;
+
+    public static void main(String[] args) {
+        final BigArrays bigArrays = BigArrays.NON_RECYCLING_INSTANCE;
+        final Rounding rounding = TimeZoneRounding.builder(DateTimeUnit.HOUR_OF_DAY).build();
+        final long start = 1420070400000L; // 2015-01-01
+        final long end = start + TimeValue.timeValueHours(24 * 365).millis();
+        final long minKey = rounding.roundKey(start);
+        final long maxKey = rounding.roundKey(end);
+
+        // pre-compute the values, sorted by time in chunks like documents in time based indices
+        final long[] values = new long[1 << 20];
+        final Random random = new Random(0);
+        for (int i = 0; i < values.length; i++) {
+            values[i] = start + (long) ((end - start) * ((double) i / values.length)) + random.nextInt(60 * 1000);
+        }
+
+        for (int iter = 0; iter < ITERS; iter++) {
+            final StopWatch hashWatch = new StopWatch().start();
+            long hashChecksum = 0;
+            try (LongHash hash = new LongHash(50, bigArrays)) {
+                for (long i = 0; i < NUMBER_OF_VALUES; i++) {
+                    long ord = hash.add(rounding.roundKey(values[(int) (i & (values.length - 1))]));
+                    hashChecksum += ord < 0 ? -1 - ord : ord;
+                }
+            }
+            hashWatch.stop();
+
+            final StopWatch denseWatch = new StopWatch().start();
+            long denseChecksum = 0;
+            try (DenseLongHash hash = new DenseLongHash(minKey, maxKey, rounding.minKeyDistance(), 50, bigArrays)) {
+                for (long i = 0; i < NUMBER_OF_VALUES; i++) {
+                    long ord = hash.add(rounding.roundKey(values[(int) (i & (values.length - 1))]));
+                    denseChecksum += ord < 0 ? -1 - ord : ord;
+                }
+            }
+            denseWatch.stop();
+
+            if (hashChecksum != denseChecksum) {
+                throw new IllegalStateException("the bucket ordinals differ");
+            }
+            System.out.println("--> [" + iter + "] " + NUMBER_OF_VALUES + " values, " + ((maxKey - minKey) / rounding.minKeyDistance() + 1) + " buckets: LongHash "
+                    + hashWatch.totalTime() + ", DenseLongHash " + denseWatch.totalTime());
+        }
+    }
+}
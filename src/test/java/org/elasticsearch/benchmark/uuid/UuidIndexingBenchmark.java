@@ -0,0 +1,124 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.benchmark.uuid;
+
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.IOUtils;
+import org.elasticsearch.common.StopWatch;
+import org.elasticsearch.common.TimeBasedUUIDGenerator;
+import org.elasticsearch.common.TimeWindowBasedUUIDGenerator;
+import org.elasticsearch.common.UUIDGenerator;
+import org.elasticsearch.common.lucene.Lucene;
+import org.elasticsearch.common.lucene.uid.Versions;
+import org.elasticsearch.common.unit.ByteSizeValue;
+import org.elasticsearch.common.unit.SizeValue;
+import org.elasticsearch.index.mapper.Uid;
+import org.elasticsearch.index.mapper.internal.UidFieldMapper;
+import org.elasticsearch.index.mapper.internal.VersionFieldMapper;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Compares the size of the index and the indexing and uid lookup throughput of auto generated ids from the time based
+ * uuid generator and from the time window based one. Documents are indexed the way the engine indexes them, an
+ * update of the document with the same <tt>_uid</tt>, after looking up its version.
+ */
+public class UuidIndexingBenchmark {
+
+    private static final long NUMBER_OF_DOCS = SizeValue.parseSizeValue("2m").singles();
+    private static final long NUMBER_OF_LOOKUPS = SizeValue.parseSizeValue("200k").singles();
+    private static final int REFRESH_EVERY = 10000;
+
+    public static void main(String[] args) throws Exception {
+        UUIDGenerator[] generators = new UUIDGenerator[]{new TimeBasedUUIDGenerator(), new TimeWindowBasedUUIDGenerator()};
+        // warm up
+        for (UUIDGenerator generator : generators) {
+            run(generator, NUMBER_OF_DOCS / 10, false);
+        }
+        for (UUIDGenerator generator : generators) {
+            run(generator, NUMBER_OF_DOCS, true);
+        }
+    }
+
+    private static void run(UUIDGenerator generator, long numDocs, boolean print) throws Exception {
+        Path path = Paths.get("work/uuid-bench").resolve(generator.getClass().getSimpleName());
+        IOUtils.rm(path);
+        FSDirectory dir = FSDirectory.open(path);
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(Lucene.STANDARD_ANALYZER));
+        DirectoryReader reader = DirectoryReader.open(writer, true);
+
+        String[] ids = new String[(int) numDocs];
+        StopWatch watch = new StopWatch().start();
+        for (int i = 0; i < numDocs; i++) {
+            ids[i] = generator.getBase64UUID();
+            Term uid = new Term(UidFieldMapper.NAME, Uid.createUidAsBytes("type", ids[i]));
+            Versions.loadVersion(reader, uid);
+            Document doc = new Document();
+            doc.add(new Field(UidFieldMapper.NAME, uid.text(), UidFieldMapper.Defaults.FIELD_TYPE));
+            doc.add(new NumericDocValuesField(VersionFieldMapper.NAME, 1));
+            writer.updateDocument(uid, doc);
+            if (i % REFRESH_EVERY == 0) {
+                DirectoryReader newReader = DirectoryReader.openIfChanged(reader, writer, true);
+                if (newReader != null) {
+                    reader.close();
+                    reader = newReader;
+                }
+            }
+        }
+        writer.commit();
+        watch.stop();
+        reader.close();
+        reader = DirectoryReader.open(dir);
+
+        long sizeInBytes = 0;
+        for (String file : dir.listAll()) {
+            sizeInBytes += dir.fileLength(file);
+        }
+
+        StopWatch lookupWatch = new StopWatch().start();
+        for (long i = 0; i < NUMBER_OF_LOOKUPS; i++) {
+            String id = ids[ThreadLocalRandom.current().nextInt(ids.length)];
+            if (Versions.loadVersion(reader, new Term(UidFieldMapper.NAME, Uid.createUidAsBytes("type", id))) != 1) {
+                throw new IllegalStateException("id [" + id + "] not found");
+            }
+        }
+        lookupWatch.stop();
+
+        if (print) {
+            System.out.println(generator.getClass().getSimpleName() + ": indexed " + numDocs + " docs in " + watch.totalTime()
+                    + " (" + (long) (numDocs / watch.totalTime().secondsFrac()) + " docs/s), " + reader.leaves().size() + " segments, index size "
+                    + new ByteSizeValue(sizeInBytes) + ", " + NUMBER_OF_LOOKUPS + " lookups in " + lookupWatch.totalTime()
+                    + " (" + (long) (NUMBER_OF_LOOKUPS / lookupWatch.totalTime().secondsFrac()) + " lookups/s), sample id " + ids[0]);
+        }
+
+        reader.close();
+        writer.close();
+        dir.close();
+    }
+}
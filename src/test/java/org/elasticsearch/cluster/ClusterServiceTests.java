@@ -23,6 +23,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 import org.elasticsearch.ElasticsearchException;
 import org.elasticsearch.action.admin.cluster.health.ClusterHealthResponse;
 import org.elasticsearch.action.admin.cluster.tasks.PendingClusterTasksResponse;
+import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
 import org.elasticsearch.cluster.service.PendingClusterTask;
 import org.elasticsearch.common.Nullable;
@@ -41,6 +42,7 @@ import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.Test;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -715,6 +717,58 @@ public class ClusterServiceTests extends ElasticsearchIntegrationTest {
         }
     }
 
+    @Test
+    public void testBatchedTasks() throws Exception {
+        Settings settings = settingsBuilder()
+                .put("discovery.type", "local")
+                .build();
+        internalCluster().startNode(settings);
+        ClusterService clusterService = internalCluster().getInstance(ClusterService.class);
+        BlockingTask block = new BlockingTask();
+        clusterService.submitStateUpdateTask("test", Priority.IMMEDIATE, block);
+        int taskCount = randomIntBetween(5, 20);
+
+        final CountDownLatch latch = new CountDownLatch(taskCount);
+        final Set<Long> processedVersions = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+        for (int i = 0; i < taskCount; i++) {
+            final String key = "batched_" + i;
+            clusterService.submitStateUpdateTask(key, new ProcessedClusterStateUpdateTask() {
+                @Override
+                public String batchingKey() {
+                    return "test";
+                }
+
+                @Override
+                public ClusterState execute(ClusterState currentState) {
+                    MetaData metaData = MetaData.builder(currentState.metaData())
+                            .transientSettings(settingsBuilder().put(currentState.metaData().transientSettings()).put(key, true).build())
+                            .build();
+                    return ClusterState.builder(currentState).metaData(metaData).build();
+                }
+
+                @Override
+                public void onFailure(String source, Throwable t) {
+                    fail();
+                }
+
+                @Override
+                public void clusterStateProcessed(String source, ClusterState oldState, ClusterState newState) {
+                    processedVersions.add(newState.version());
+                    latch.countDown();
+                }
+            });
+        }
+
+        block.release();
+        latch.await();
+
+        // all tasks were queued behind the blocking task, so they must have been applied as a single cluster state
+        assertThat(processedVersions.size(), equalTo(1));
+        for (int i = 0; i < taskCount; i++) {
+            assertThat(clusterService.state().metaData().transientSettings().getAsBoolean("batched_" + i, false), is(true));
+        }
+    }
+
     private static class BlockingTask extends ClusterStateUpdateTask {
         private final CountDownLatch latch = new CountDownLatch(1);
 
@@ -20,9 +20,13 @@
 package org.elasticsearch.cluster.routing.allocation;
 
 import com.carrotsearch.hppc.cursors.ObjectCursor;
+import com.google.common.collect.ImmutableMap;
 import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfo;
 import org.elasticsearch.cluster.ClusterInfoService;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.DiskUsage;
+import org.elasticsearch.cluster.InternalClusterInfoService;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNode;
@@ -41,7 +45,13 @@ import org.elasticsearch.test.ElasticsearchAllocationTestCase;
 import org.hamcrest.Matchers;
 import org.junit.Test;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
 import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
+import static org.elasticsearch.cluster.routing.ShardRoutingState.RELOCATING;
 import static org.elasticsearch.cluster.routing.ShardRoutingState.STARTED;
 import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
 
@@ -471,4 +481,66 @@ public class BalanceConfigurationTests extends ElasticsearchAllocationTestCase {
 
     }
 
+
+    @Test
+    public void testSearchRateBalance() {
+        ImmutableSettings.Builder settings = settingsBuilder();
+        settings.put(ClusterRebalanceAllocationDecider.CLUSTER_ROUTING_ALLOCATION_ALLOW_REBALANCE, ClusterRebalanceAllocationDecider.ClusterRebalanceType.ALWAYS.toString());
+        settings.put(BalancedShardsAllocator.SETTING_SEARCH_RATE_BALANCE_FACTOR, 1.0f);
+        final AtomicReference<ClusterInfo> clusterInfo = new AtomicReference<>(ClusterInfoService.EMPTY.getClusterInfo());
+        ClusterInfoService clusterInfoService = new ClusterInfoService() {
+            @Override
+            public ClusterInfo getClusterInfo() {
+                return clusterInfo.get();
+            }
+
+            @Override
+            public void addListener(Listener listener) {
+            }
+        };
+        AllocationService strategy = new AllocationService(settings.build(), randomAllocationDeciders(settings.build(),
+                new NodeSettingsService(ImmutableSettings.Builder.EMPTY_SETTINGS), getRandom()), new ShardsAllocators(settings.build(),
+                NoopGatewayAllocator.INSTANCE), clusterInfoService);
+
+        MetaData metaData = MetaData.builder()
+                .put(IndexMetaData.builder("test").settings(settings(Version.CURRENT)).numberOfShards(4).numberOfReplicas(0))
+                .build();
+        RoutingTable routingTable = RoutingTable.builder().addAsNew(metaData.index("test")).build();
+        ClusterState clusterState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.DEFAULT).metaData(metaData).routingTable(routingTable)
+                .nodes(DiscoveryNodes.builder().put(newNode("node1")).put(newNode("node2"))).build();
+
+        logger.info("allocate and start the shards without statistics");
+        routingTable = strategy.reroute(clusterState).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+        routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+        assertThat(clusterState.routingNodes().node("node1").size(), Matchers.equalTo(2));
+        assertThat(clusterState.routingNodes().node("node2").size(), Matchers.equalTo(2));
+
+        logger.info("the shards on node1 get searched, node2 shards are idle");
+        final Map<String, Double> searchRates = new HashMap<>();
+        for (MutableShardRouting shard : clusterState.routingNodes().node("node1")) {
+            searchRates.put(InternalClusterInfoService.shardIdentifierFromRouting(shard), 100.0d);
+        }
+        clusterInfo.set(new ClusterInfo(ImmutableMap.<String, DiskUsage>of(), ImmutableMap.<String, Long>of(),
+                ImmutableMap.<String, Double>of(), ImmutableMap.copyOf(searchRates)));
+
+        logger.info("rebalancing moves one of the searched shards to node2");
+        routingTable = strategy.reroute(clusterState).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+        List<MutableShardRouting> relocating = clusterState.routingNodes().shardsWithState(RELOCATING);
+        assertThat(relocating.size(), Matchers.equalTo(1));
+        assertThat(searchRates.containsKey(InternalClusterInfoService.shardIdentifierFromRouting(relocating.get(0))), Matchers.equalTo(true));
+        routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+        for (RoutingNode routingNode : clusterState.routingNodes()) {
+            int searchedShards = 0;
+            for (MutableShardRouting shard : routingNode) {
+                if (searchRates.containsKey(InternalClusterInfoService.shardIdentifierFromRouting(shard))) {
+                    searchedShards++;
+                }
+            }
+            assertThat(searchedShards, Matchers.equalTo(1));
+        }
+    }
 }
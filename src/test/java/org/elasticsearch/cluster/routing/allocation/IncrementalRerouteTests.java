@@ -0,0 +1,166 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.cluster.routing.allocation;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.cluster.ClusterInfoService;
+import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.metadata.IndexMetaData;
+import org.elasticsearch.cluster.metadata.MetaData;
+import org.elasticsearch.cluster.node.DiscoveryNodes;
+import org.elasticsearch.cluster.routing.RoutingNode;
+import org.elasticsearch.cluster.routing.RoutingTable;
+import org.elasticsearch.cluster.routing.ShardRouting;
+import org.elasticsearch.cluster.routing.allocation.allocator.ShardsAllocators;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecider;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDeciders;
+import org.elasticsearch.cluster.routing.allocation.decider.AllocationDecidersModule;
+import org.elasticsearch.cluster.routing.allocation.decider.Decision;
+import org.elasticsearch.cluster.routing.allocation.decider.SameShardAllocationDecider;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
+import org.elasticsearch.node.settings.NodeSettingsService;
+import org.elasticsearch.test.ElasticsearchAllocationTestCase;
+import org.elasticsearch.test.gateway.NoopGatewayAllocator;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
+import static org.elasticsearch.cluster.routing.ShardRoutingState.STARTED;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class IncrementalRerouteTests extends ElasticsearchAllocationTestCase {
+
+    @Test
+    public void testSkipsMovingAndRebalancingWhenNothingChanged() {
+        final AtomicInteger canRemainCalls = new AtomicInteger();
+        final NodeSettingsService.Listener[] listeners = new NodeSettingsService.Listener[1];
+        NodeSettingsService nodeSettingsService = new NodeSettingsService(ImmutableSettings.Builder.EMPTY_SETTINGS) {
+            @Override
+            public void addListener(Listener listener) {
+                assertNull("addListener was called twice while only one time was expected", listeners[0]);
+                listeners[0] = listener;
+            }
+        };
+        Settings settings = settingsBuilder().put(AllocationService.CLUSTER_ROUTING_ALLOCATION_INCREMENTAL, true).build();
+        AllocationDeciders deciders = new AllocationDeciders(settings, new AllocationDecider[]{new AllocationDecider(settings) {
+            @Override
+            public Decision canRemain(ShardRouting shardRouting, RoutingNode node, RoutingAllocation allocation) {
+                canRemainCalls.incrementAndGet();
+                return Decision.YES;
+            }
+        }});
+        AllocationService strategy = new AllocationService(settings, deciders, new ShardsAllocators(settings, NoopGatewayAllocator.INSTANCE),
+                ClusterInfoService.EMPTY, nodeSettingsService, new AllocationStatsService(settings));
+
+        MetaData metaData = MetaData.builder()
+                .put(IndexMetaData.builder("test").settings(settings(Version.CURRENT)).numberOfShards(2).numberOfReplicas(1))
+                .build();
+        RoutingTable routingTable = RoutingTable.builder().addAsNew(metaData.index("test")).build();
+        ClusterState clusterState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.DEFAULT).metaData(metaData).routingTable(routingTable)
+                .nodes(DiscoveryNodes.builder().put(newNode("node1")).put(newNode("node2"))).build();
+        routingTable = strategy.reroute(clusterState).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+        routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+        assertThat(clusterState.routingNodes().shardsWithState(STARTED).size(), equalTo(4));
+
+        logger.info("a reroute that changes nothing remembers its inputs");
+        canRemainCalls.set(0);
+        RoutingAllocation.Result result = strategy.reroute(clusterState);
+        assertThat(result.changed(), equalTo(false));
+        assertThat(canRemainCalls.get(), equalTo(4));
+
+        logger.info("the next reroute of the same cluster state skips moving shards");
+        canRemainCalls.set(0);
+        result = strategy.reroute(clusterState);
+        assertThat(result.changed(), equalTo(false));
+        assertThat(result.routingTable(), sameInstance(clusterState.routingTable()));
+        assertThat(canRemainCalls.get(), equalTo(0));
+        assertThat(strategy.stats().getSkippedRebalances(), equalTo(1l));
+
+        logger.info("a settings update may change the deciders, the next reroute moves shards again");
+        listeners[0].onRefreshSettings(ImmutableSettings.Builder.EMPTY_SETTINGS);
+        result = strategy.reroute(clusterState);
+        assertThat(result.changed(), equalTo(false));
+        assertThat(canRemainCalls.get(), equalTo(4));
+
+        logger.info("a reroute of a different cluster state moves shards again");
+        canRemainCalls.set(0);
+        clusterState = ClusterState.builder(clusterState).nodes(DiscoveryNodes.builder(clusterState.nodes()).put(newNode("node3"))).build();
+        strategy.reroute(clusterState);
+        assertThat(canRemainCalls.get(), greaterThan(0));
+
+        logger.info("disabling the incremental mode always moves shards");
+        listeners[0].onRefreshSettings(settingsBuilder().put(AllocationService.CLUSTER_ROUTING_ALLOCATION_INCREMENTAL, false).build());
+        canRemainCalls.set(0);
+        routingTable = strategy.reroute(clusterState).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+        strategy.reroute(clusterState);
+        assertThat(canRemainCalls.get(), greaterThan(0));
+        canRemainCalls.set(0);
+        strategy.reroute(clusterState);
+        assertThat(canRemainCalls.get(), greaterThan(0));
+        assertThat(strategy.stats().getSkippedRebalances(), equalTo(1l));
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        AllocationService strategy = new AllocationService(ImmutableSettings.EMPTY, randomAllocationDeciders(ImmutableSettings.EMPTY,
+                new NodeSettingsService(ImmutableSettings.EMPTY), getRandom()), new ShardsAllocators(ImmutableSettings.EMPTY, NoopGatewayAllocator.INSTANCE),
+                ClusterInfoService.EMPTY, new NodeSettingsService(ImmutableSettings.EMPTY), new AllocationStatsService(ImmutableSettings.EMPTY));
+        ClusterState clusterState = startedCluster(strategy);
+        strategy.reroute(clusterState);
+        strategy.reroute(clusterState);
+        assertThat(strategy.stats().getSkippedRebalances(), equalTo(0l));
+    }
+
+    @Test
+    public void testRerouteStats() {
+        AllocationService strategy = createAllocationService();
+        startedCluster(strategy);
+        // the first reroute and the one after the shards started
+        AllocationStats stats = strategy.stats();
+        assertThat(stats.getReroutes(), equalTo(2l));
+        assertThat(stats.getSkippedRebalances(), equalTo(0l));
+        assertThat(stats.getDeciders().size(), equalTo(AllocationDecidersModule.DEFAULT_ALLOCATION_DECIDERS.size()));
+        AllocationStats.DeciderStats sameShard = stats.getDeciders().get(SameShardAllocationDecider.class.getSimpleName());
+        assertThat(sameShard.getDecisions(), greaterThan(0l));
+    }
+
+    private ClusterState startedCluster(AllocationService strategy) {
+        MetaData metaData = MetaData.builder()
+                .put(IndexMetaData.builder("test").settings(settings(Version.CURRENT)).numberOfShards(2).numberOfReplicas(1))
+                .build();
+        RoutingTable routingTable = RoutingTable.builder().addAsNew(metaData.index("test")).build();
+        ClusterState clusterState = ClusterState.builder(org.elasticsearch.cluster.ClusterName.DEFAULT).metaData(metaData).routingTable(routingTable)
+                .nodes(DiscoveryNodes.builder().put(newNode("node1")).put(newNode("node2"))).build();
+        routingTable = strategy.reroute(clusterState).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+        routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+        assertThat(clusterState.routingNodes().shardsWithState(STARTED).size(), equalTo(4));
+        return clusterState;
+    }
+}
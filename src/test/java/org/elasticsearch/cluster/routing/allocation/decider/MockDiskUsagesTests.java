@@ -151,7 +151,7 @@ public class MockDiskUsagesTests extends ElasticsearchIntegrationTest {
                 System.currentTimeMillis(),
                 null, null, null, null, null, null,
                 fsStats,
-                null, null, null);
+                null, null, null, null, null);
     }
 
     /**
@@ -22,6 +22,7 @@ package org.elasticsearch.cluster.serialization;
 import org.elasticsearch.Version;
 import org.elasticsearch.cluster.ClusterName;
 import org.elasticsearch.cluster.ClusterState;
+import org.elasticsearch.cluster.IncompatibleClusterStateVersionException;
 import org.elasticsearch.cluster.metadata.IndexMetaData;
 import org.elasticsearch.cluster.metadata.MetaData;
 import org.elasticsearch.cluster.node.DiscoveryNodes;
@@ -88,4 +89,56 @@ public class ClusterSerializationTests extends ElasticsearchAllocationTestCase {
         assertThat(target.prettyPrint(), equalTo(source.prettyPrint()));
     }
 
+    @Test
+    public void testClusterStateDiffSerialization() throws Exception {
+        MetaData metaData = MetaData.builder()
+                .put(IndexMetaData.builder("test").settings(settings(Version.CURRENT)).numberOfShards(10).numberOfReplicas(1))
+                .build();
+
+        RoutingTable routingTable = RoutingTable.builder()
+                .addAsNew(metaData.index("test"))
+                .build();
+
+        DiscoveryNodes nodes = DiscoveryNodes.builder().put(newNode("node1")).put(newNode("node2")).localNodeId("node1").masterNodeId("node2").build();
+
+        ClusterState previousState = ClusterState.builder(new ClusterName("clusterName1")).nodes(nodes).metaData(metaData).routingTable(routingTable).build();
+        ClusterState receivedState = ClusterState.Builder.fromBytes(ClusterState.Builder.toBytes(previousState), newNode("node1"), new ClusterName("clusterName1"));
+
+        AllocationService strategy = createAllocationService();
+        MetaData newMetaData = MetaData.builder(previousState.metaData())
+                .put(IndexMetaData.builder("test2").settings(settings(Version.CURRENT)).numberOfShards(2).numberOfReplicas(0))
+                .build();
+        ClusterState clusterState = ClusterState.builder(previousState)
+                .version(previousState.version() + 1)
+                .metaData(newMetaData)
+                .routingTable(RoutingTable.builder(previousState.routingTable()).addAsNew(newMetaData.index("test2")))
+                .nodes(DiscoveryNodes.builder(previousState.nodes()).put(newNode("node3")))
+                .build();
+        clusterState = ClusterState.builder(clusterState).routingTable(strategy.reroute(clusterState).routingTable()).build();
+
+        BytesStreamOutput outStream = new BytesStreamOutput();
+        ClusterState.Builder.writeDiffTo(previousState, clusterState, outStream);
+        BytesStreamInput inStream = new BytesStreamInput(outStream.bytes().toBytes(), false);
+        ClusterState diffedState = ClusterState.Builder.readDiffFrom(inStream, receivedState, newNode("node1"));
+
+        assertThat(diffedState.version(), equalTo(clusterState.version()));
+        assertThat(diffedState.nodes().size(), equalTo(3));
+        assertThat(diffedState.nodes().masterNodeId(), equalTo("node2"));
+        assertThat(diffedState.metaData().hasIndex("test2"), equalTo(true));
+        assertThat(diffedState.routingTable().prettyPrint(), equalTo(clusterState.routingTable().prettyPrint()));
+        assertThat(diffedState.metaData().indices().size(), equalTo(2));
+    }
+
+    @Test(expected = IncompatibleClusterStateVersionException.class)
+    public void testClusterStateDiffOnWrongVersion() throws Exception {
+        DiscoveryNodes nodes = DiscoveryNodes.builder().put(newNode("node1")).put(newNode("node2")).localNodeId("node1").masterNodeId("node2").build();
+        ClusterState previousState = ClusterState.builder(new ClusterName("clusterName1")).nodes(nodes).version(5).build();
+        ClusterState clusterState = ClusterState.builder(previousState).version(6).build();
+
+        BytesStreamOutput outStream = new BytesStreamOutput();
+        ClusterState.Builder.writeDiffTo(previousState, clusterState, outStream);
+        BytesStreamInput inStream = new BytesStreamInput(outStream.bytes().toBytes(), false);
+        ClusterState.Builder.readDiffFrom(inStream, ClusterState.builder(previousState).version(4).build(), newNode("node1"));
+    }
+
 }
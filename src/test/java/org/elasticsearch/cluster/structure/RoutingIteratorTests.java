@@ -33,8 +33,11 @@ import org.elasticsearch.cluster.routing.allocation.decider.AwarenessAllocationD
 import org.elasticsearch.cluster.routing.allocation.decider.ClusterRebalanceAllocationDecider;
 import org.elasticsearch.cluster.routing.OperationRouting;
 import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.unit.TimeValue;
 import org.elasticsearch.index.shard.ShardId;
+import org.elasticsearch.node.settings.NodeSettingsService;
 import org.elasticsearch.test.ElasticsearchAllocationTestCase;
+import org.elasticsearch.test.cluster.NoopClusterService;
 import org.junit.Test;
 
 import static org.elasticsearch.cluster.routing.ShardRoutingState.INITIALIZING;
@@ -324,4 +327,72 @@ public class RoutingIteratorTests extends ElasticsearchAllocationTestCase {
         assertThat(shardIterators.iterator().next().shardId().id(), equalTo(0));
         assertThat(shardIterators.iterator().next().nextOrNull().currentNodeId(), equalTo("node1"));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAdaptiveReplicaSelection() {
+        AllocationService strategy = createAllocationService(settingsBuilder()
+                .put("cluster.routing.allocation.concurrent_recoveries", 10)
+                .build());
+
+        MetaData metaData = MetaData.builder()
+                .put(IndexMetaData.builder("test").settings(settings(Version.CURRENT)).numberOfShards(1).numberOfReplicas(2))
+                .build();
+
+        RoutingTable routingTable = RoutingTable.builder()
+                .addAsNew(metaData.index("test"))
+                .build();
+
+        ClusterState clusterState = ClusterState.builder(ClusterName.DEFAULT).metaData(metaData).routingTable(routingTable).build();
+
+        clusterState = ClusterState.builder(clusterState).nodes(DiscoveryNodes.builder()
+                .put(newNode("node1"))
+                .put(newNode("node2"))
+                .put(newNode("node3"))
+                .localNodeId("node1")
+        ).build();
+        routingTable = strategy.reroute(clusterState).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+
+        routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+
+        routingTable = strategy.applyStartedShards(clusterState, clusterState.routingNodes().shardsWithState(INITIALIZING)).routingTable();
+        clusterState = ClusterState.builder(clusterState).routingTable(routingTable).build();
+
+        ResponseCollectorService collector = new ResponseCollectorService(ImmutableSettings.Builder.EMPTY_SETTINGS, new NoopClusterService(clusterState));
+        OperationRouting operationRouting = new OperationRouting(settingsBuilder()
+                .put(OperationRouting.CLUSTER_ROUTING_USE_ADAPTIVE_REPLICA_SELECTION, true).build(),
+                new AwarenessAllocationDecider(), collector, new NodeSettingsService(ImmutableSettings.Builder.EMPTY_SETTINGS));
+
+        // node2 has no statistics yet, it is tried first to get measured
+        collector.addNodeStatistics("node1", 10, TimeValue.timeValueMillis(100).nanos(), TimeValue.timeValueMillis(50).nanos());
+        collector.addNodeStatistics("node3", 2, TimeValue.timeValueMillis(10).nanos(), TimeValue.timeValueMillis(5).nanos());
+        ShardIterator shardIterator = operationRouting.searchShards(clusterState, new String[]{"test"}, new String[]{"test"}, null, null).iterator().next();
+        assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node2"));
+        assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node3"));
+        assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node1"));
+
+        // the fastest node with the shortest queue comes first
+        collector.addNodeStatistics("node2", 0, TimeValue.timeValueMillis(2).nanos(), TimeValue.timeValueMillis(1).nanos());
+        shardIterator = operationRouting.searchShards(clusterState, new String[]{"test"}, new String[]{"test"}, null, "_shards:0").iterator().next();
+        assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node2"));
+        assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node3"));
+        assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node1"));
+
+        // requests that are in flight count as queued on the node
+        for (int i = 0; i < 10; i++) {
+            collector.onRequest("node2");
+        }
+        shardIterator = operationRouting.searchShards(clusterState, new String[]{"test"}, new String[]{"test"}, null, null).iterator().next();
+        assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node3"));
+
+        // explicit preferences are not ranked
+        shardIterator = operationRouting.searchShards(clusterState, new String[]{"test"}, new String[]{"test"}, null, "_only_node:node1").iterator().next();
+        assertThat(shardIterator.nextOrNull().currentNodeId(), equalTo("node1"));
+
+        AdaptiveSelectionStats stats = collector.getAdaptiveStats();
+        assertThat(stats.getOutstandingRequests().get("node2"), equalTo(10l));
+        assertThat(stats.getNodeStats().size(), equalTo(3));
+        assertThat(stats.getRanks().get("node3"), lessThan(stats.getRanks().get("node1")));
+    }
+}
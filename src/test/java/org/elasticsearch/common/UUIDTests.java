@@ -28,6 +28,7 @@ public class UUIDTests extends ElasticsearchTestCase {
 
     static UUIDGenerator timeUUIDGen = new TimeBasedUUIDGenerator();
     static UUIDGenerator randomUUIDGen = new RandomBasedUUIDGenerator();
+    static UUIDGenerator timeWindowUUIDGen = new TimeWindowBasedUUIDGenerator();
 
     @Test
     public void testRandomUUID() {
@@ -39,6 +40,34 @@ public class UUIDTests extends ElasticsearchTestCase {
         verifyUUIDSet(100000, timeUUIDGen);
     }
 
+    @Test
+    public void testTimeWindowUUID() {
+        verifyUUIDSet(100000, timeWindowUUIDGen);
+    }
+
+    @Test
+    public void testTimeWindowUUIDOrderAndPrefix() {
+        String previous = timeWindowUUIDGen.getBase64UUID();
+        assertEquals(20, previous.length());
+        for (int i = 0; i < 10000; ++i) {
+            String uuid = timeWindowUUIDGen.getBase64UUID();
+            // ids of a single thread come in order
+            assertTrue(uuid.compareTo(previous) > 0);
+            previous = uuid;
+        }
+        // ids of the same time window share the timestamp and MAC address bytes, ie. the first 12 chars
+        String first = timeWindowUUIDGen.getBase64UUID();
+        String second = timeWindowUUIDGen.getBase64UUID();
+        if (first.substring(0, 6).equals(second.substring(0, 6))) {
+            assertEquals(first.substring(0, 12), second.substring(0, 12));
+        }
+    }
+
+    @Test
+    public void testThreadedTimeWindowUUID() {
+        testUUIDThreaded(timeWindowUUIDGen);
+    }
+
     @Test
     public void testThreadedTimeUUID() {
         testUUIDThreaded(timeUUIDGen);
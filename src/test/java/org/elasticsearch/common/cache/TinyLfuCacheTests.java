@@ -0,0 +1,378 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.cache;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalListener;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.cache.Weigher;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.hamcrest.Matchers.nullValue;
+
+public class TinyLfuCacheTests extends ElasticsearchTestCase {
+
+    private static final Weigher<Integer, String> LENGTH_WEIGHER = new Weigher<Integer, String>() {
+        @Override
+        public int weigh(Integer key, String value) {
+            return value.length();
+        }
+    };
+
+    @Test
+    public void testMaximumWeight() {
+        final long maximumWeight = randomIntBetween(10, 50);
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(maximumWeight, LENGTH_WEIGHER, -1, null, 4);
+        final int numEntries = scaledRandomIntBetween(100, 10000);
+        for (int i = 0; i < numEntries; i++) {
+            cache.put(randomInt(numEntries), randomAsciiOfLengthBetween(1, 10));
+            assertThat(cache.weight(), lessThanOrEqualTo(maximumWeight));
+        }
+        long weight = 0;
+        for (Map.Entry<Integer, String> entry : cache.asMap().entrySet()) {
+            weight += entry.getValue().length();
+        }
+        assertThat(cache.weight(), equalTo(weight));
+        assertThat(cache.stats().evictionCount(), greaterThan(0l));
+    }
+
+    @Test
+    public void testFrequentEntriesSurviveScans() {
+        final int maximumWeight = 100;
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(maximumWeight, null, -1, null, 4);
+        final int hotKeys = 20;
+        int nextScanKey = hotKeys;
+        for (int round = 0; round < 100; round++) {
+            for (int i = 0; i < hotKeys; i++) {
+                if (cache.getIfPresent(i) == null) {
+                    cache.put(i, "hot");
+                }
+            }
+            // keys that are accessed exactly once
+            for (int i = 0; i < 2 * maximumWeight; i++) {
+                cache.put(nextScanKey++, "scan");
+            }
+            cache.cleanUp();
+        }
+        assertThat(cache.size(), lessThanOrEqualTo((long) maximumWeight));
+        for (int i = 0; i < hotKeys; i++) {
+            assertThat("hot key [" + i + "] was evicted", cache.getIfPresent(i), equalTo("hot"));
+        }
+    }
+
+    @Test
+    public void testRemovalNotifications() {
+        final List<RemovalNotification<Integer, String>> notifications = new ArrayList<>();
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(10, null, -1, new RemovalListener<Integer, String>() {
+            @Override
+            public void onRemoval(RemovalNotification<Integer, String> notification) {
+                notifications.add(notification);
+            }
+        }, 4);
+
+        cache.put(1, "a");
+        cache.put(1, "b");
+        assertThat(notifications.size(), equalTo(1));
+        assertThat(notifications.get(0).getKey(), equalTo(1));
+        assertThat(notifications.get(0).getValue(), equalTo("a"));
+        assertThat(notifications.get(0).getCause(), equalTo(RemovalCause.REPLACED));
+
+        cache.invalidate(1);
+        assertThat(notifications.size(), equalTo(2));
+        assertThat(notifications.get(1).getValue(), equalTo("b"));
+        assertThat(notifications.get(1).getCause(), equalTo(RemovalCause.EXPLICIT));
+
+        notifications.clear();
+        for (int i = 0; i < 20; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        assertThat(cache.size(), equalTo(10l));
+        assertThat(notifications.size(), equalTo(10));
+        for (RemovalNotification<Integer, String> notification : notifications) {
+            assertThat(notification.getCause(), equalTo(RemovalCause.SIZE));
+            assertThat(cache.getIfPresent(notification.getKey()), nullValue());
+        }
+
+        notifications.clear();
+        cache.invalidateAll();
+        assertThat(cache.size(), equalTo(0l));
+        assertThat(cache.weight(), equalTo(0l));
+        assertThat(notifications.size(), equalTo(10));
+    }
+
+    @Test
+    public void testMapOperationsNotifyOutsideOfTheLock() throws Exception {
+        final List<Boolean> blocked = new CopyOnWriteArrayList<>();
+        final AtomicInteger otherKeys = new AtomicInteger(100);
+        final TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(3, null, -1, new RemovalListener<Integer, String>() {
+            @Override
+            public void onRemoval(RemovalNotification<Integer, String> notification) {
+                if (Thread.currentThread().getName().equals("other-writer")) {
+                    return;
+                }
+                // another thread can only modify the cache if the eviction lock is not held while listeners run
+                final Thread thread = new Thread("other-writer") {
+                    @Override
+                    public void run() {
+                        cache.put(otherKeys.incrementAndGet(), "other");
+                    }
+                };
+                thread.start();
+                try {
+                    thread.join(TimeUnit.SECONDS.toMillis(10));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                blocked.add(thread.isAlive());
+            }
+        }, 4);
+
+        final Map<Integer, String> map = cache.asMap();
+        cache.put(1, "a");
+        map.replace(1, "b");
+        map.replace(1, "b", "c");
+        map.remove(1, "c");
+        assertThat(blocked.size(), equalTo(3));
+        // the cache is full, so this evicts an entry
+        map.putIfAbsent(2, "d");
+        assertThat(blocked.size(), equalTo(4));
+        assertThat(blocked.contains(true), equalTo(false));
+    }
+
+    @Test
+    public void testExpireAfterAccess() {
+        final List<RemovalCause> causes = new ArrayList<>();
+        // entries expire as soon as they are written
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(-1, null, 0, new RemovalListener<Integer, String>() {
+            @Override
+            public void onRemoval(RemovalNotification<Integer, String> notification) {
+                causes.add(notification.getCause());
+            }
+        }, 4);
+        final int numEntries = randomIntBetween(1, 100);
+        for (int i = 0; i < numEntries; i++) {
+            cache.put(i, "value");
+        }
+        assertThat(cache.asMap().get(0), nullValue());
+        assertThat(cache.asMap().entrySet().iterator().hasNext(), equalTo(false));
+        cache.cleanUp();
+        assertThat(cache.size(), equalTo(0l));
+        assertThat(causes.size(), equalTo(numEntries));
+        for (RemovalCause cause : causes) {
+            assertThat(cause, equalTo(RemovalCause.EXPIRED));
+        }
+    }
+
+    @Test
+    public void testGetWithLoader() throws Exception {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100, null, -1, null, 4);
+        final AtomicInteger loads = new AtomicInteger();
+        final Callable<String> loader = new Callable<String>() {
+            @Override
+            public String call() throws Exception {
+                loads.incrementAndGet();
+                return "loaded";
+            }
+        };
+        assertThat(cache.get(1, loader), equalTo("loaded"));
+        assertThat(cache.get(1, loader), equalTo("loaded"));
+        assertThat(loads.get(), equalTo(1));
+        assertThat(cache.stats().hitCount(), equalTo(1l));
+        assertThat(cache.stats().loadSuccessCount(), equalTo(1l));
+
+        try {
+            cache.get(2, new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    throw new ElasticsearchIllegalArgumentException("boom");
+                }
+            });
+            fail("expected the loader failure to be rethrown");
+        } catch (UncheckedExecutionException e) {
+            assertThat(e.getCause().getMessage(), equalTo("boom"));
+        }
+        try {
+            cache.get(2, new Callable<String>() {
+                @Override
+                public String call() throws Exception {
+                    return null;
+                }
+            });
+            fail("expected loading null to fail");
+        } catch (CacheLoader.InvalidCacheLoadException e) {
+            // expected
+        }
+        assertThat(cache.getIfPresent(2), nullValue());
+        assertThat(cache.stats().loadExceptionCount(), equalTo(2l));
+    }
+
+    @Test
+    public void testConcurrentLoadsOfTheSameKeyLoadOnce() throws Exception {
+        final TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100, null, -1, null, 4);
+        final AtomicInteger loads = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> failures = new CopyOnWriteArrayList<>();
+        final Thread[] threads = new Thread[randomIntBetween(2, 8)];
+        for (int i = 0; i < threads.length; i++) {
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        String value = cache.get(1, new Callable<String>() {
+                            @Override
+                            public String call() throws Exception {
+                                loads.incrementAndGet();
+                                Thread.sleep(10);
+                                return "loaded";
+                            }
+                        });
+                        assertThat(value, equalTo("loaded"));
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(failures.toString(), failures.isEmpty(), equalTo(true));
+        assertThat(loads.get(), equalTo(1));
+    }
+
+    @Test
+    public void testConcurrentAccess() throws Exception {
+        final long maximumWeight = randomIntBetween(10, 500);
+        final TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(maximumWeight, LENGTH_WEIGHER, -1, null, 4);
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Throwable> failures = new CopyOnWriteArrayList<>();
+        final int numOps = scaledRandomIntBetween(1000, 20000);
+        final Thread[] threads = new Thread[randomIntBetween(2, 8)];
+        for (int i = 0; i < threads.length; i++) {
+            final long seed = randomLong();
+            threads[i] = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        final Random random = new Random(seed);
+                        start.await();
+                        for (int op = 0; op < numOps; op++) {
+                            final int key = random.nextInt(1000);
+                            switch (random.nextInt(10)) {
+                                case 0:
+                                    cache.invalidate(key);
+                                    break;
+                                case 1:
+                                case 2:
+                                    cache.put(key, Integer.toString(key));
+                                    break;
+                                default:
+                                    final String value = cache.getIfPresent(key);
+                                    if (value != null) {
+                                        assertThat(value, equalTo(Integer.toString(key)));
+                                    }
+                            }
+                        }
+                    } catch (Throwable t) {
+                        failures.add(t);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertThat(failures.toString(), failures.isEmpty(), equalTo(true));
+        cache.cleanUp();
+        assertThat(cache.weight(), lessThanOrEqualTo(maximumWeight));
+        long weight = 0;
+        for (String value : cache.asMap().values()) {
+            weight += value.length();
+        }
+        assertThat(cache.weight(), equalTo(weight));
+    }
+
+    @Test
+    public void testAsMapIteratorRemove() {
+        TinyLfuCache<Integer, String> cache = new TinyLfuCache<>(100, null, -1, null, 4);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, Integer.toString(i));
+        }
+        for (Iterator<Map.Entry<Integer, String>> iterator = cache.asMap().entrySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().getKey() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertThat(cache.size(), equalTo(5l));
+        assertThat(cache.weight(), equalTo(5l));
+        for (int i = 0; i < 10; i++) {
+            assertThat(cache.asMap().containsKey(i), equalTo(i % 2 == 1));
+        }
+    }
+
+    @Test
+    public void testBuilder() {
+        for (EvictionPolicy evictionPolicy : EvictionPolicy.values()) {
+            Cache<Integer, String> cache = WeightedCacheBuilder.<Integer, String>newBuilder(evictionPolicy)
+                    .maximumWeight(10)
+                    .weigher(LENGTH_WEIGHER)
+                    .expireAfterAccess(1, TimeUnit.HOURS)
+                    .build();
+            for (int i = 0; i < 100; i++) {
+                cache.put(i, "a");
+            }
+            cache.cleanUp();
+            assertThat(cache.size(), lessThanOrEqualTo(10l));
+        }
+        assertThat(EvictionPolicy.fromString("lru"), equalTo(EvictionPolicy.LRU));
+        assertThat(EvictionPolicy.fromString("tinylfu"), equalTo(EvictionPolicy.TINY_LFU));
+        assertThat(EvictionPolicy.fromString("tiny_lfu"), equalTo(EvictionPolicy.TINY_LFU));
+        try {
+            EvictionPolicy.fromString("fifo");
+            fail("expected an unknown eviction policy to be rejected");
+        } catch (ElasticsearchIllegalArgumentException e) {
+            // expected
+        }
+    }
+}
@@ -27,6 +27,7 @@ import org.elasticsearch.common.io.stream.StreamInput;
 import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.After;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
@@ -43,7 +44,12 @@ public class CompressedStreamTests extends ElasticsearchTestCase {
     @Override
     public void setUp() throws Exception {
         super.setUp();
-        CompressorFactory.configure(ImmutableSettings.settingsBuilder().put("compress.default.type", "lzf").build());
+        CompressorFactory.configure(ImmutableSettings.settingsBuilder().put("compress.default.type", randomFrom("lzf", "lz4")).build());
+    }
+
+    @After
+    public void resetDefaultCompressor() {
+        CompressorFactory.configure(ImmutableSettings.EMPTY);
     }
 
     public void testRandom() throws IOException {
@@ -22,6 +22,7 @@ package org.elasticsearch.common.compress;
 import org.apache.lucene.util.TestUtil;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.After;
 import org.junit.Test;
 
 import java.io.IOException;
@@ -35,11 +36,36 @@ import static org.hamcrest.Matchers.not;
  */
 public class CompressedStringTests extends ElasticsearchTestCase {
 
+    @After
+    public void resetDefaultCompressor() {
+        CompressorFactory.configure(ImmutableSettings.EMPTY);
+    }
+
     @Test
     public void simpleTestsLZF() throws IOException {
         simpleTests("lzf");
     }
 
+    @Test
+    public void simpleTestsLZ4() throws IOException {
+        simpleTests("lz4");
+    }
+
+    @Test
+    public void testMixedCompressors() throws IOException {
+        String str = TestUtil.randomUnicodeString(getRandom(), 10000);
+        CompressorFactory.configure(ImmutableSettings.settingsBuilder().put("compress.default.type", "lzf").build());
+        CompressedString lzf = new CompressedString(str);
+        CompressorFactory.configure(ImmutableSettings.settingsBuilder().put("compress.default.type", "lz4").build());
+        CompressedString lz4 = new CompressedString(str);
+        assertThat(CompressorFactory.compressor(lzf.compressed()).type(), equalTo("lzf"));
+        assertThat(CompressorFactory.compressor(lz4.compressed()).type(), equalTo("lz4"));
+        // data compressed with another compressor than the default one is still detected and read
+        assertThat(lzf.string(), equalTo(str));
+        assertThat(lz4.string(), equalTo(str));
+        assertThat(new CompressedString(lzf.compressed(), 0, lzf.compressed().length), equalTo(lzf));
+    }
+
     public void simpleTests(String compressor) throws IOException {
         CompressorFactory.configure(ImmutableSettings.settingsBuilder().put("compress.default.type", compressor).build());
         String str = "this is a simple string";
@@ -55,7 +81,7 @@ public class CompressedStringTests extends ElasticsearchTestCase {
     }
     
     public void testRandom() throws IOException {
-        String compressor = "lzf";
+        String compressor = randomFrom("lzf", "lz4");
         CompressorFactory.configure(ImmutableSettings.settingsBuilder().put("compress.default.type", compressor).build());
         Random r = getRandom();
         for (int i = 0; i < 1000; i++) {
@@ -280,4 +280,85 @@ public class VersionsTests extends ElasticsearchLuceneTestCase {
         ir.close();
         dir.close();
     }
+
+    @Test
+    public void testLoadVersions() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(Lucene.STANDARD_ANALYZER));
+        final int numDocs = scaledRandomIntBetween(10, 100);
+        for (int i = 0; i < numDocs; i++) {
+            Document doc = new Document();
+            doc.add(new Field(UidFieldMapper.NAME, Integer.toString(i), UidFieldMapper.Defaults.FIELD_TYPE));
+            doc.add(new NumericDocValuesField(VersionFieldMapper.NAME, i + 1));
+            if (randomBoolean()) {
+                writer.addDocument(doc);
+            } else {
+                writer.updateDocument(new Term(UidFieldMapper.NAME, Integer.toString(i)), doc);
+            }
+            if (rarely()) {
+                writer.commit();
+            }
+            if (rarely()) {
+                writer.deleteDocuments(new Term(UidFieldMapper.NAME, Integer.toString(randomInt(i))));
+            }
+        }
+        DirectoryReader directoryReader = DirectoryReader.open(writer, true);
+
+        // some uids are missing, some are looked up twice
+        BytesRef[] uids = new BytesRef[randomIntBetween(1, 2 * numDocs)];
+        for (int i = 0; i < uids.length; i++) {
+            uids[i] = new BytesRef(Integer.toString(randomInt(numDocs + 10)));
+        }
+        long[] versions = Versions.loadVersions(directoryReader, uids);
+        assertThat(versions.length, equalTo(uids.length));
+        for (int i = 0; i < uids.length; i++) {
+            assertThat(versions[i], equalTo(Versions.loadVersion(directoryReader, new Term(UidFieldMapper.NAME, uids[i]))));
+        }
+
+        directoryReader.close();
+        writer.close();
+        dir.close();
+    }
+
+    @Test
+    public void testSkipSegmentsOutOfUidRange() throws IOException {
+        Directory dir = newDirectory();
+        IndexWriter writer = new IndexWriter(dir, new IndexWriterConfig(Lucene.STANDARD_ANALYZER).setMergePolicy(NoMergePolicy.INSTANCE));
+        // one segment per prefix
+        for (String prefix : new String[] {"a", "b", "c"}) {
+            for (int i = 0; i < 10; i++) {
+                Document doc = new Document();
+                doc.add(new Field(UidFieldMapper.NAME, prefix + i, UidFieldMapper.Defaults.FIELD_TYPE));
+                doc.add(new NumericDocValuesField(VersionFieldMapper.NAME, i + 1));
+                writer.addDocument(doc);
+            }
+            writer.commit();
+        }
+        DirectoryReader directoryReader = DirectoryReader.open(writer, true);
+        assertThat(directoryReader.leaves().size(), equalTo(3));
+
+        Versions.LookupStats stats = new Versions.LookupStats();
+        // found in the second segment, the last segment is skipped
+        assertThat(Versions.loadVersion(directoryReader, new Term(UidFieldMapper.NAME, "b5"), stats), equalTo(6l));
+        assertThat(stats.searchedSegments(), equalTo(1l));
+        assertThat(stats.skippedSegments(), equalTo(1l));
+        // out of the range of all segments
+        assertThat(Versions.loadVersion(directoryReader, new Term(UidFieldMapper.NAME, "d0"), stats), equalTo(Versions.NOT_FOUND));
+        assertThat(stats.searchedSegments(), equalTo(1l));
+        assertThat(stats.skippedSegments(), equalTo(4l));
+        // in the range of one segment but missing
+        assertThat(Versions.loadVersion(directoryReader, new Term(UidFieldMapper.NAME, "b55"), stats), equalTo(Versions.NOT_FOUND));
+        assertThat(stats.searchedSegments(), equalTo(2l));
+        assertThat(stats.skippedSegments(), equalTo(6l));
+
+        long[] versions = Versions.loadVersions(directoryReader, new BytesRef[] {new BytesRef("a1"), new BytesRef("c9"), new BytesRef("d0")}, stats);
+        assertThat(versions[0], equalTo(2l));
+        assertThat(versions[1], equalTo(10l));
+        assertThat(versions[2], equalTo(Versions.NOT_FOUND));
+        assertThat(stats.searchedSegments(), equalTo(4l));
+
+        directoryReader.close();
+        writer.close();
+        dir.close();
+    }
 }
@@ -23,25 +23,52 @@ import org.apache.lucene.util.BytesRef;
 import org.elasticsearch.cache.recycler.PageCacheRecycler;
 import org.elasticsearch.common.breaker.CircuitBreaker;
 import org.elasticsearch.common.breaker.CircuitBreakingException;
+import org.elasticsearch.common.lease.Releasables;
+import org.elasticsearch.ElasticsearchIllegalArgumentException;
 import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.indices.breaker.HierarchyCircuitBreakerService;
 import org.elasticsearch.indices.breaker.NoneCircuitBreakerService;
 import org.elasticsearch.node.settings.NodeSettingsService;
 import org.elasticsearch.test.ElasticsearchSingleNodeTest;
 import org.elasticsearch.test.cache.recycler.MockBigArrays;
+import org.elasticsearch.test.cache.recycler.MockPageCacheRecycler;
+import org.elasticsearch.threadpool.ThreadPool;
 import org.junit.Before;
 
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.Arrays;
 
+import static org.elasticsearch.common.util.BigArrays.LONG_PAGE_SIZE;
+
 public class BigArraysTests extends ElasticsearchSingleNodeTest {
 
     public static BigArrays randombigArrays() {
-        final PageCacheRecycler recycler = randomBoolean() ? null : ElasticsearchSingleNodeTest.getInstanceFromNode(PageCacheRecycler.class);
+        final PageCacheRecycler recycler;
+        switch (randomInt(2)) {
+            case 0:
+                recycler = null;
+                break;
+            case 1:
+                recycler = ElasticsearchSingleNodeTest.getInstanceFromNode(PageCacheRecycler.class);
+                break;
+            default:
+                recycler = offHeapRecycler();
+                break;
+        }
         return new MockBigArrays(ImmutableSettings.EMPTY, recycler, new NoneCircuitBreakerService());
     }
 
+    private static PageCacheRecycler offHeapRecycler() {
+        return offHeapRecycler(ImmutableSettings.EMPTY);
+    }
+
+    private static PageCacheRecycler offHeapRecycler(Settings settings) {
+        return new MockPageCacheRecycler(ImmutableSettings.builder().put(settings).put("cache.recycler." + PageCacheRecycler.OFF_HEAP, true).build(),
+                ElasticsearchSingleNodeTest.getInstanceFromNode(ThreadPool.class));
+    }
+
     private BigArrays bigArrays;
 
     @Before
@@ -379,4 +406,128 @@ public class BigArraysTests extends ElasticsearchSingleNodeTest {
         }
     }
 
+    public void testOffHeapArrays() throws Exception {
+        final long maxSize = 1 << 22;
+        HierarchyCircuitBreakerService hcbs = new HierarchyCircuitBreakerService(
+                ImmutableSettings.builder()
+                        .put(HierarchyCircuitBreakerService.REQUEST_CIRCUIT_BREAKER_LIMIT_SETTING, maxSize)
+                        .build(),
+                new NodeSettingsService(ImmutableSettings.EMPTY));
+        BigArrays bigArrays = new BigArrays(ImmutableSettings.EMPTY, offHeapRecycler(), hcbs).withCircuitBreaking();
+        assertTrue(bigArrays.offHeap());
+
+        final int size = randomIntBetween(LONG_PAGE_SIZE + 1, 10 * LONG_PAGE_SIZE);
+        LongArray longs = bigArrays.newLongArray(size);
+        IntArray ints = bigArrays.newIntArray(size);
+        DoubleArray doubles = bigArrays.newDoubleArray(size);
+        FloatArray floats = bigArrays.newFloatArray(size);
+        assertTrue(longs instanceof DirectBigLongArray);
+        assertTrue(ints instanceof DirectBigIntArray);
+        assertTrue(doubles instanceof DirectBigDoubleArray);
+        assertTrue(floats instanceof DirectBigFloatArray);
+        final long expectedBreaker = longs.ramBytesUsed() + ints.ramBytesUsed() + doubles.ramBytesUsed() + floats.ramBytesUsed();
+        assertEquals(expectedBreaker, hcbs.getBreaker(CircuitBreaker.Name.REQUEST).getUsed());
+
+        // pages are cleared on creation
+        for (int i = 0; i < size; ++i) {
+            assertEquals(0L, longs.get(i));
+            assertEquals(0, ints.get(i));
+            assertEquals(0d, doubles.get(i), 0d);
+            assertEquals(0f, floats.get(i), 0f);
+        }
+
+        final long[] expected = new long[size];
+        for (int i = 0; i < size; ++i) {
+            expected[i] = randomInt(1000);
+            longs.set(i, expected[i]);
+            ints.set(i, (int) expected[i]);
+            doubles.set(i, expected[i]);
+            floats.set(i, expected[i]);
+        }
+        final int incIndex = randomInt(size - 1);
+        expected[incIndex] += 3;
+        assertEquals(expected[incIndex], longs.increment(incIndex, 3));
+        assertEquals(expected[incIndex], ints.increment(incIndex, 3));
+        assertEquals(expected[incIndex], doubles.increment(incIndex, 3), 0d);
+        assertEquals(expected[incIndex], floats.increment(incIndex, 3), 0f);
+
+        final int newSize = randomIntBetween(1, 2 * size);
+        longs = bigArrays.resize(longs, newSize);
+        ints = bigArrays.resize(ints, newSize);
+        doubles = bigArrays.resize(doubles, newSize);
+        floats = bigArrays.resize(floats, newSize);
+        for (int i = 0; i < Math.min(size, newSize); ++i) {
+            assertEquals(expected[i], longs.get(i));
+            assertEquals(expected[i], ints.get(i));
+            assertEquals(expected[i], doubles.get(i), 0d);
+            assertEquals(expected[i], floats.get(i), 0f);
+        }
+
+        final int from = randomInt(newSize);
+        final int to = randomIntBetween(from, newSize);
+        longs.fill(from, to, 7);
+        ints.fill(from, to, 7);
+        doubles.fill(from, to, 7);
+        floats.fill(from, to, 7);
+        for (int i = from; i < to; ++i) {
+            assertEquals(7L, longs.get(i));
+            assertEquals(7, ints.get(i));
+            assertEquals(7d, doubles.get(i), 0d);
+            assertEquals(7f, floats.get(i), 0f);
+        }
+
+        Releasables.close(longs, ints, doubles, floats);
+        assertEquals(0, hcbs.getBreaker(CircuitBreaker.Name.REQUEST).getUsed());
+    }
+
+    public void testOffHeapLimit() {
+        final PageCacheRecycler recycler = offHeapRecycler(ImmutableSettings.builder()
+                .put("cache.recycler." + PageCacheRecycler.LIMIT_OFF_HEAP, 4 * BigArrays.PAGE_SIZE_IN_BYTES + "b").build());
+        final BigArrays bigArrays = new BigArrays(ImmutableSettings.EMPTY, recycler, new NoneCircuitBreakerService());
+
+        LongArray longs = bigArrays.newLongArray(3 * LONG_PAGE_SIZE);
+        assertTrue(longs instanceof DirectBigLongArray);
+        assertEquals(3, recycler.reservedDirectPages());
+
+        // not enough pages left, falls back to on-heap pages
+        IntArray ints = bigArrays.newIntArray(2 * BigArrays.INT_PAGE_SIZE);
+        assertTrue(ints instanceof BigIntArray);
+        assertEquals(3, recycler.reservedDirectPages());
+
+        // growing within the limit stays off-heap
+        for (int i = 0; i < longs.size(); ++i) {
+            longs.set(i, i);
+        }
+        longs = bigArrays.resize(longs, 4 * LONG_PAGE_SIZE);
+        assertTrue(longs instanceof DirectBigLongArray);
+        assertEquals(4, recycler.reservedDirectPages());
+
+        // growing beyond the limit moves the content to on-heap pages and gives the off-heap pages back
+        longs = bigArrays.resize(longs, 5 * LONG_PAGE_SIZE);
+        assertTrue(longs instanceof BigLongArray);
+        assertEquals(0, recycler.reservedDirectPages());
+        for (int i = 0; i < 3 * LONG_PAGE_SIZE; ++i) {
+            assertEquals(i, longs.get(i));
+        }
+
+        // shrinking gives pages back
+        DoubleArray doubles = bigArrays.newDoubleArray(4 * BigArrays.DOUBLE_PAGE_SIZE);
+        assertTrue(doubles instanceof DirectBigDoubleArray);
+        assertEquals(4, recycler.reservedDirectPages());
+        doubles = bigArrays.resize(doubles, BigArrays.DOUBLE_PAGE_SIZE + 1);
+        assertEquals(2, recycler.reservedDirectPages());
+
+        Releasables.close(longs, ints, doubles);
+        assertEquals(0, recycler.reservedDirectPages());
+    }
+
+    public void testOffHeapLimitAboveMaxDirectMemory() {
+        try {
+            offHeapRecycler(ImmutableSettings.builder().put("cache.recycler." + PageCacheRecycler.LIMIT_OFF_HEAP, "1pb").build());
+            fail("the off-heap limit should be checked against the maximum direct memory");
+        } catch (ElasticsearchIllegalArgumentException e) {
+            assertTrue(e.getMessage().contains("MaxDirectMemorySize"));
+        }
+    }
+
 }
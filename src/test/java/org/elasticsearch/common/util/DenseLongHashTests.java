@@ -0,0 +1,121 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.common.util;
+
+import com.carrotsearch.hppc.LongLongMap;
+import com.carrotsearch.hppc.LongLongOpenHashMap;
+import com.carrotsearch.hppc.cursors.LongLongCursor;
+import org.elasticsearch.test.ElasticsearchSingleNodeTest;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+public class DenseLongHashTests extends ElasticsearchSingleNodeTest {
+
+    public void testDuell() {
+        final long min = randomIntBetween(-1000, 1000);
+        final long max = min + randomIntBetween(0, 10000);
+        final boolean outOfRange = randomBoolean();
+        final Long[] values = new Long[randomIntBetween(1, 10000)];
+        for (int i = 0; i < values.length; ++i) {
+            if (outOfRange && rarely()) {
+                values[i] = randomLong();
+            } else {
+                values[i] = min + randomInt((int) (max - min));
+            }
+        }
+        final DenseLongHash hash = new DenseLongHash(min, max, randomIntBetween(0, 100), BigArraysTests.randombigArrays());
+        final LongLongMap valueToId = new LongLongOpenHashMap();
+        final long[] idToValue = new long[values.length];
+        boolean addedOutOfRange = false;
+        final int iters = randomInt(100000);
+        for (int i = 0; i < iters; ++i) {
+            final Long value = randomFrom(values);
+            addedOutOfRange |= value < min || value > max;
+            if (valueToId.containsKey(value)) {
+                assertEquals(-1 - valueToId.get(value), hash.add(value));
+            } else {
+                assertEquals(valueToId.size(), hash.add(value));
+                idToValue[valueToId.size()] = value;
+                valueToId.put(value, valueToId.size());
+            }
+            assertEquals(!addedOutOfRange, hash.isDense());
+        }
+
+        assertEquals(valueToId.size(), hash.size());
+        for (Iterator<LongLongCursor> iterator = valueToId.iterator(); iterator.hasNext(); ) {
+            final LongLongCursor next = iterator.next();
+            assertEquals(next.value, hash.find(next.key));
+        }
+        for (int id = 0; id < valueToId.size(); ++id) {
+            assertEquals(idToValue[id], hash.get(id));
+        }
+        hash.close();
+    }
+
+    public void testDuellWithStep() {
+        final long step = randomIntBetween(1, 1000);
+        final long min = randomIntBetween(-1000000, 1000000);
+        final int numSteps = randomIntBetween(0, 1000);
+        final long max = min + numSteps * step;
+        // values that are not a multiple of the step apart collide with others
+        final boolean closeValues = randomBoolean();
+        final Long[] values = new Long[randomIntBetween(1, 10000)];
+        for (int i = 0; i < values.length; ++i) {
+            if (closeValues && rarely()) {
+                values[i] = min + randomInt((int) (max - min));
+            } else {
+                values[i] = min + randomInt(numSteps) * step;
+            }
+        }
+        final DenseLongHash hash = new DenseLongHash(min, max, step, randomIntBetween(0, 100), BigArraysTests.randombigArrays());
+        final LongLongMap valueToId = new LongLongOpenHashMap();
+        final long[] idToValue = new long[values.length];
+        final int iters = randomInt(100000);
+        for (int i = 0; i < iters; ++i) {
+            final Long value = randomFrom(values);
+            if (valueToId.containsKey(value)) {
+                assertEquals(-1 - valueToId.get(value), hash.add(value));
+            } else {
+                assertEquals(valueToId.size(), hash.add(value));
+                idToValue[valueToId.size()] = value;
+                valueToId.put(value, valueToId.size());
+            }
+        }
+        if (!closeValues) {
+            assertTrue(hash.isDense());
+        }
+
+        assertEquals(valueToId.size(), hash.size());
+        for (Iterator<LongLongCursor> iterator = valueToId.iterator(); iterator.hasNext(); ) {
+            final LongLongCursor next = iterator.next();
+            assertEquals(next.value, hash.find(next.key));
+        }
+        for (int id = 0; id < valueToId.size(); ++id) {
+            assertEquals(idToValue[id], hash.get(id));
+        }
+        hash.close();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidRange() {
+        new DenseLongHash(Long.MIN_VALUE, Long.MAX_VALUE, 0, BigArraysTests.randombigArrays());
+    }
+}
@@ -31,6 +31,7 @@ import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 
 /**
@@ -240,6 +241,59 @@ public class PrioritizedExecutorsTests extends ElasticsearchTestCase {
         assertTrue(terminate(timer, executor));
     }
 
+    @Test
+    public void testFixedPrioritizedExecutor() throws Exception {
+        PrioritizedFixedEsThreadPoolExecutor executor = EsExecutors.newFixedPrioritizing(1, 4, EsExecutors.daemonThreadFactory(getTestName()));
+        final List<Integer> results = new ArrayList<>(4);
+        CountDownLatch awaitingLatch = new CountDownLatch(1);
+        final CountDownLatch finishedLatch = new CountDownLatch(4);
+        executor.execute(new AwaitingJob(awaitingLatch));
+        executor.execute(new Job(3, Priority.LOW, results, finishedLatch));
+        executor.execute(new Job(0, Priority.HIGH, results, finishedLatch));
+        executor.execute(new Job(1, Priority.NORMAL, results, finishedLatch));
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                // not prioritized, will execute as NORMAL after the first NORMAL (fifo)
+                results.add(2);
+                finishedLatch.countDown();
+            }
+        });
+        // the queue is full
+        final AtomicBoolean rejected = new AtomicBoolean();
+        executor.execute(new AbstractRunnable() {
+            @Override
+            protected void doRun() throws Exception {
+                fail();
+            }
+
+            @Override
+            public void onRejection(Throwable t) {
+                rejected.set(true);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                fail();
+            }
+        });
+        assertThat(rejected.get(), equalTo(true));
+        awaitingLatch.countDown();
+        finishedLatch.await();
+
+        assertThat(results.size(), equalTo(4));
+        assertThat(results.get(0), equalTo(0));
+        assertThat(results.get(1), equalTo(1));
+        assertThat(results.get(2), equalTo(2));
+        assertThat(results.get(3), equalTo(3));
+        assertThat(executor.queueWaitCount(Priority.URGENT), equalTo(1l));
+        assertThat(executor.queueWaitCount(Priority.HIGH), equalTo(1l));
+        assertThat(executor.queueWaitCount(Priority.NORMAL), equalTo(2l));
+        assertThat(executor.queueWaitCount(Priority.LOW), equalTo(1l));
+        assertThat(executor.queueWaitNanos(Priority.LOW), greaterThan(0l));
+        terminate(executor);
+    }
+
     static class AwaitingJob extends PrioritizedRunnable {
 
         private final CountDownLatch latch;
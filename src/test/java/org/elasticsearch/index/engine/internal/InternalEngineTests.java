@@ -125,6 +125,7 @@ public class InternalEngineTests extends ElasticsearchLuceneTestCase {
                 .put(InternalEngineHolder.INDEX_COMPOUND_ON_FLUSH, randomBoolean())
                 .put(InternalEngineHolder.INDEX_GC_DELETES, "1h") // make sure this doesn't kick in on us
                 .put(InternalEngineHolder.INDEX_FAIL_ON_CORRUPTION, randomBoolean())
+                .put(InternalEngineHolder.INDEX_VERSION_MAP_PACKED, randomBoolean())
                 .build(); // TODO randomize more settings
         threadPool = new ThreadPool(getClass().getName());
         store = createStore();
@@ -916,6 +917,40 @@ public class InternalEngineTests extends ElasticsearchLuceneTestCase {
         assertThat(index.version(), equalTo(1l));
     }
 
+    @Test
+    public void testPreloadedVersions() {
+        ParsedDocument doc = testParsedDocument("1", "1", "test", null, -1, -1, testDocument(), Lucene.STANDARD_ANALYZER, B_1, false);
+        engine.index(new Engine.Index(null, newUid("1"), doc));
+        engine.index(new Engine.Index(null, newUid("2"), doc));
+        // the versions are now only in the index
+        engine.refresh("test", true);
+
+        Engine.PreloadedVersions preloadedVersions = engine.preloadVersions(new Term[]{newUid("1"), newUid("2"), newUid("3")});
+        Engine.Index index = new Engine.Index(null, newUid("1"), doc);
+        index.preloadedVersions(preloadedVersions);
+        engine.index(index);
+        assertThat(index.version(), equalTo(2l));
+        Engine.Create create = new Engine.Create(null, newUid("3"), doc);
+        create.preloadedVersions(preloadedVersions);
+        engine.create(create);
+        assertThat(create.version(), equalTo(1l));
+
+        // preloaded versions are not used anymore once a refresh removed changes from the version map
+        preloadedVersions = engine.preloadVersions(new Term[]{newUid("1"), newUid("2")});
+        engine.index(new Engine.Index(null, newUid("2"), doc));
+        engine.refresh("test", true);
+        index = new Engine.Index(null, newUid("2"), doc);
+        index.preloadedVersions(preloadedVersions);
+        engine.index(index);
+        assertThat(index.version(), equalTo(3l));
+
+        Engine.Delete delete = new Engine.Delete("test", "1", newUid("1"));
+        delete.preloadedVersions(engine.preloadVersions(new Term[]{newUid("1"), newUid("2")}));
+        engine.delete(delete);
+        assertThat(delete.found(), equalTo(true));
+        assertThat(delete.version(), equalTo(3l));
+    }
+
     @Test
     public void testExternalVersioningNewIndex() {
         ParsedDocument doc = testParsedDocument("1", "1", "test", null, -1, -1, testDocument(), Lucene.STANDARD_ANALYZER, B_1, false);
@@ -0,0 +1,133 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.engine.internal;
+
+import org.apache.lucene.util.BytesRef;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.index.translog.Translog;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.nullValue;
+
+public class PackedLiveVersionMapTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testDuelWithLiveVersionMap() throws Exception {
+        LiveVersionMap expected = new LiveVersionMap();
+        PackedLiveVersionMap actual = new PackedLiveVersionMap(BigArrays.NON_RECYCLING_INSTANCE);
+        VersionLookup expectedLookup = new VersionLookup();
+        VersionLookup actualLookup = new VersionLookup();
+        final int numUids = randomIntBetween(1, 500);
+        final int iters = scaledRandomIntBetween(100, 10000);
+        for (int i = 0; i < iters; i++) {
+            BytesRef uid = new BytesRef("uid_" + randomInt(numUids));
+            switch (randomInt(9)) {
+                case 0:
+                    expected.beforeRefresh();
+                    actual.beforeRefresh();
+                    break;
+                case 1:
+                    expected.afterRefresh(randomBoolean());
+                    actual.afterRefresh(randomBoolean());
+                    break;
+                case 2:
+                case 3:
+                    long time = randomIntBetween(0, 1000);
+                    Translog.Location location = new Translog.Location(randomInt(10), randomInt(1000), randomIntBetween(1, 100));
+                    expected.putDeleteUnderLock(uid, i, time, location);
+                    actual.putDeleteUnderLock(uid, i, time, location);
+                    break;
+                case 4:
+                    expected.removeTombstoneUnderLock(uid);
+                    actual.removeTombstoneUnderLock(uid);
+                    break;
+                default:
+                    location = new Translog.Location(randomInt(10), randomInt(1000), randomIntBetween(1, 100));
+                    expected.putUnderLock(uid, i, location);
+                    actual.putUnderLock(uid, i, location);
+                    break;
+            }
+            uid = new BytesRef("uid_" + randomInt(numUids));
+            boolean found = expected.getUnderLock(uid, expectedLookup);
+            assertThat(actual.getUnderLock(uid, actualLookup), equalTo(found));
+            if (found) {
+                assertThat(actualLookup.version(), equalTo(expectedLookup.version()));
+                assertThat(actualLookup.delete(), equalTo(expectedLookup.delete()));
+                if (expectedLookup.delete()) {
+                    assertThat(actualLookup.time(), equalTo(expectedLookup.time()));
+                }
+            }
+            assertVersionValue(actual.getUnderLock(uid), expected.getUnderLock(uid));
+            assertVersionValue(actual.getTombstoneUnderLock(uid), expected.getTombstoneUnderLock(uid));
+        }
+
+        Set<BytesRef> expectedTombstones = new HashSet<>();
+        for (BytesRef uid : expected.getAllTombstones()) {
+            expectedTombstones.add(uid);
+        }
+        Set<BytesRef> actualTombstones = new HashSet<>();
+        for (BytesRef uid : actual.getAllTombstones()) {
+            actualTombstones.add(uid);
+        }
+        assertThat(actualTombstones, equalTo(expectedTombstones));
+
+        actual.clear();
+        expected.clear();
+        assertThat(actual.ramBytesUsed(), equalTo(0l));
+    }
+
+    @Test
+    public void testRamBytesUsed() throws Exception {
+        PackedLiveVersionMap map = new PackedLiveVersionMap(BigArrays.NON_RECYCLING_INSTANCE);
+        assertThat(map.ramBytesUsed(), equalTo(0l));
+        for (int i = 0; i < 1000; i++) {
+            map.putUnderLock(new BytesRef("uid_" + i), i, new Translog.Location(1, i, 1));
+        }
+        assertThat(map.ramBytesUsedForRefresh(), greaterThan(0l));
+        assertThat(map.ramBytesUsed(), equalTo(map.ramBytesUsedForRefresh()));
+        map.beforeRefresh();
+        assertThat(map.ramBytesUsedForRefresh(), equalTo(0l));
+        assertThat(map.ramBytesUsed(), greaterThan(0l));
+        map.afterRefresh(true);
+        assertThat(map.ramBytesUsed(), equalTo(0l));
+        assertThat(map.getUnderLock(new BytesRef("uid_0")), nullValue());
+    }
+
+    private static void assertVersionValue(VersionValue actual, VersionValue expected) {
+        if (expected == null) {
+            assertThat(actual, nullValue());
+            return;
+        }
+        assertThat(actual.version(), equalTo(expected.version()));
+        assertThat(actual.delete(), equalTo(expected.delete()));
+        if (expected.delete()) {
+            assertThat(actual.time(), equalTo(expected.time()));
+        }
+        assertThat(actual.translogLocation().translogId, equalTo(expected.translogLocation().translogId));
+        assertThat(actual.translogLocation().translogLocation, equalTo(expected.translogLocation().translogLocation));
+        assertThat(actual.translogLocation().size, equalTo(expected.translogLocation().size));
+    }
+}
@@ -595,7 +595,11 @@ public abstract class AbstractStringFieldDataTests extends AbstractFieldDataImpl
         refreshReader();
         FieldDataType fieldDataType = new FieldDataType("string", ImmutableSettings.builder().put("global_values", "fixed").put("cache", "node"));
         IndexOrdinalsFieldData ifd = getForField(fieldDataType, "value");
+        assertFalse(ifd.isGlobalLoaded(topLevelReader));
+        assertThat(ifd.onSearchWithoutGlobal(topLevelReader), equalTo(1l));
+        assertThat(ifd.onSearchWithoutGlobal(topLevelReader), equalTo(2l));
         IndexOrdinalsFieldData globalOrdinals = ifd.loadGlobal(topLevelReader);
+        assertTrue(ifd.isGlobalLoaded(topLevelReader));
         assertThat(ifd.loadGlobal(topLevelReader), sameInstance(globalOrdinals));
         // 3 b/c 1 segment level caches and 1 top level cache
         assertThat(indicesFieldDataCache.getCache().size(), equalTo(4l));
@@ -613,6 +617,9 @@ public abstract class AbstractStringFieldDataTests extends AbstractFieldDataImpl
         assertThat(indicesFieldDataCache.getCache().size(), equalTo(3l));
 
         refreshReader();
+        assertFalse(ifd.isGlobalLoaded(topLevelReader));
+        // searches are counted per reader
+        assertThat(ifd.onSearchWithoutGlobal(topLevelReader), equalTo(1l));
         assertThat(ifd.loadGlobal(topLevelReader), not(sameInstance(globalOrdinals)));
 
         ifdService.clear();
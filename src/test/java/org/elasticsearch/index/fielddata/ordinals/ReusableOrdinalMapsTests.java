@@ -0,0 +1,107 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.index.fielddata.ordinals;
+
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.SortedSetDocValuesField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.MultiDocValues.OrdinalMap;
+import org.apache.lucene.index.NoMergePolicy;
+import org.apache.lucene.index.SortedSetDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.store.RAMDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.packed.PackedInts;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+
+public class ReusableOrdinalMapsTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testReuseOnSameSegments() throws Exception {
+        IndexWriter writer = new IndexWriter(new RAMDirectory(), new IndexWriterConfig(new StandardAnalyzer()).setMergePolicy(NoMergePolicy.INSTANCE));
+        addDoc(writer, "1", "a");
+        addDoc(writer, "2", "b");
+        writer.commit();
+        addDoc(writer, "3", "b");
+        addDoc(writer, "4", "c");
+        DirectoryReader reader = DirectoryReader.open(writer, true);
+        assertThat(reader.leaves().size(), equalTo(2));
+
+        ReusableOrdinalMaps reusableOrdinalMaps = new ReusableOrdinalMaps();
+        assertThat(reusableOrdinalMaps.get(reader), nullValue());
+        OrdinalMap ordinalMap = buildOrdinalMap(reader);
+        reusableOrdinalMaps.put(reader, ordinalMap);
+        assertThat(reusableOrdinalMaps.get(reader), sameInstance(ordinalMap));
+
+        // deletes don't change the segment cores
+        writer.deleteDocuments(new Term("_id", "1"));
+        DirectoryReader readerWithDeletes = DirectoryReader.openIfChanged(reader, writer, true);
+        assertThat(readerWithDeletes.leaves().size(), equalTo(2));
+        assertThat(reusableOrdinalMaps.get(readerWithDeletes), sameInstance(ordinalMap));
+
+        // a new segment requires a new ordinal map, which replaces the one of the older reader
+        addDoc(writer, "5", "d");
+        DirectoryReader readerWithNewSegment = DirectoryReader.openIfChanged(readerWithDeletes, writer, true);
+        assertThat(readerWithNewSegment.leaves().size(), equalTo(3));
+        assertThat(reusableOrdinalMaps.get(readerWithNewSegment), nullValue());
+        OrdinalMap newOrdinalMap = buildOrdinalMap(readerWithNewSegment);
+        reusableOrdinalMaps.put(readerWithNewSegment, newOrdinalMap);
+        assertThat(reusableOrdinalMaps.size(), equalTo(1));
+        assertThat(reusableOrdinalMaps.get(reader), nullValue());
+        assertThat(reusableOrdinalMaps.get(readerWithNewSegment), sameInstance(newOrdinalMap));
+
+        reusableOrdinalMaps.clear();
+        assertThat(reusableOrdinalMaps.size(), equalTo(0));
+        assertThat(reusableOrdinalMaps.get(readerWithNewSegment), nullValue());
+
+        reader.close();
+        readerWithDeletes.close();
+        readerWithNewSegment.close();
+        writer.close();
+    }
+
+    private static void addDoc(IndexWriter writer, String id, String value) throws IOException {
+        Document doc = new Document();
+        doc.add(new StringField("_id", id, Field.Store.NO));
+        doc.add(new SortedSetDocValuesField("value", new BytesRef(value)));
+        writer.addDocument(doc);
+    }
+
+    private static OrdinalMap buildOrdinalMap(DirectoryReader reader) throws IOException {
+        SortedSetDocValues[] subs = new SortedSetDocValues[reader.leaves().size()];
+        for (int i = 0; i < subs.length; i++) {
+            subs[i] = DocValues.getSortedSet(reader.leaves().get(i).reader(), "value");
+        }
+        return OrdinalMap.build(null, subs, PackedInts.DEFAULT);
+    }
+}
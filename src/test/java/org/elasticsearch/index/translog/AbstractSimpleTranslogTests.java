@@ -105,6 +105,65 @@ public abstract class AbstractSimpleTranslogTests extends ElasticsearchTestCase
         assertThat(translog.read(loc3).getSource().source.toBytesArray(), equalTo(new BytesArray(new byte[]{3})));
     }
 
+    @Test
+    public void testEnsureSynced() throws Exception {
+        final AtomicInteger synced = new AtomicInteger();
+        final List<Throwable> failures = newArrayList();
+        Translog.SyncListener listener = new Translog.SyncListener() {
+            @Override
+            public void onSynced() {
+                synced.incrementAndGet();
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                failures.add(t);
+            }
+        };
+        Translog.Location loc1 = translog.add(new Translog.Create("test", "1", new byte[]{1}));
+        translog.ensureSynced(loc1, listener);
+        assertThat(synced.get(), equalTo(1));
+        assertFalse(translog.syncNeeded());
+
+        translog.add(new Translog.Create("test", "2", new byte[]{2}));
+        translog.ensureSynced(null, listener);
+        assertThat(synced.get(), equalTo(2));
+        assertFalse(translog.syncNeeded());
+
+        // locations of older translogs are part of a commit already
+        translog.newTranslog(2);
+        translog.add(new Translog.Create("test", "3", new byte[]{3}));
+        translog.ensureSynced(loc1, listener);
+        assertThat(synced.get(), equalTo(3));
+        assertTrue(translog.syncNeeded());
+        assertThat(failures.size(), equalTo(0));
+    }
+
+    @Test
+    public void testSnapshotAcrossReadBuffers() throws IOException {
+        // sources larger than the read-ahead buffer force operations to span buffer refills
+        int numOps = randomIntBetween(10, 50);
+        List<byte[]> sources = newArrayList();
+        for (int i = 0; i < numOps; i++) {
+            byte[] source = new byte[randomIntBetween(1, BufferedTranslogReader.DEFAULT_BUFFER_SIZE * 2)];
+            Arrays.fill(source, (byte) i);
+            sources.add(source);
+            translog.add(new Translog.Index("test", Integer.toString(i), source));
+        }
+        Translog.Snapshot snapshot = translog.snapshot();
+        List<Translog.Operation> operations = newArrayList();
+        Translog.Operation operation;
+        while ((operation = snapshot.next()) != null) {
+            operations.add(operation);
+        }
+        snapshot.close();
+        assertThat(operations.size(), equalTo(numOps));
+        // operations read earlier must not be affected by later reads
+        for (int i = 0; i < numOps; i++) {
+            assertThat(operations.get(i).getSource().source.toBytesArray(), equalTo(new BytesArray(sources.get(i))));
+        }
+    }
+
     @Test
     public void testTransientTranslog() throws IOException {
         Translog.Snapshot snapshot = translog.snapshot();
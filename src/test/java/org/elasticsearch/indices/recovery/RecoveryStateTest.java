@@ -21,6 +21,7 @@ package org.elasticsearch.indices.recovery;
 import org.elasticsearch.test.ElasticsearchTestCase;
 
 import static org.hamcrest.Matchers.closeTo;
+import static org.hamcrest.Matchers.equalTo;
 
 public class RecoveryStateTest extends ElasticsearchTestCase {
 
@@ -57,4 +58,19 @@ public class RecoveryStateTest extends ElasticsearchTestCase {
         index.recoveredFileCount(20);
         assertThat((double)index.percentFilesRecovered(), closeTo(100.0d, 0.1d));
     }
+
+    public void testTranslogThroughput() {
+        RecoveryState state = new RecoveryState();
+        RecoveryState.Translog translog = state.getTranslog();
+        assertThat(translog.operationsPerSecond(), closeTo(0d, 0.1d));
+        assertThat(translog.bytesPerSecond(), closeTo(0d, 0.1d));
+
+        translog.startTime(System.currentTimeMillis() - 2000);
+        translog.addTranslogOperations(100);
+        translog.addTranslogBytes(1000);
+        translog.time(2000);
+        assertThat(translog.currentTranslogBytes(), equalTo(1000l));
+        assertThat(translog.operationsPerSecond(), closeTo(50d, 0.1d));
+        assertThat(translog.bytesPerSecond(), closeTo(500d, 0.1d));
+    }
 }
@@ -45,6 +45,9 @@ import org.elasticsearch.index.merge.scheduler.ConcurrentMergeSchedulerProvider;
 import org.elasticsearch.index.query.FilterBuilders;
 import org.elasticsearch.index.store.support.AbstractIndexStore;
 import org.elasticsearch.indices.cache.query.IndicesQueryCache;
+import org.elasticsearch.search.aggregations.AggregationBuilders;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
 import org.elasticsearch.search.sort.SortOrder;
 import org.elasticsearch.test.ElasticsearchIntegrationTest;
 import org.elasticsearch.test.ElasticsearchIntegrationTest.ClusterScope;
@@ -63,6 +66,7 @@ import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
 import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.lessThan;
 import static org.hamcrest.Matchers.notNullValue;
@@ -77,6 +81,7 @@ public class IndexStatsTests extends ElasticsearchIntegrationTest {
         return ImmutableSettings.settingsBuilder().put(super.nodeSettings(nodeOrdinal))
                 .put("indices.cache.filter.clean_interval", "1ms")
                 .put(IndicesQueryCache.INDICES_CACHE_QUERY_CLEAN_INTERVAL, "1ms")
+                .put(IndicesQueryCache.INDICES_CACHE_QUERY_MIN_COST, "0ms")
                 .put(AutoFilterCachingPolicy.AGGRESSIVE_CACHING_SETTINGS)
                 .put(FilterCacheModule.FilterCacheSettings.FILTER_CACHE_TYPE, WeightedFilterCache.class)
                 .build();
@@ -301,6 +306,89 @@ public class IndexStatsTests extends ElasticsearchIntegrationTest {
         assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMemorySizeInBytes(), greaterThan(0l));
     }
 
+    @Test
+    public void testPerSegmentQueryCache() throws Exception {
+        assertAcked(client().admin().indices().prepareCreate("idx").setSettings(ImmutableSettings.builder()
+                .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+                .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(IndicesQueryCache.INDEX_CACHE_QUERY_ENABLED, true)
+                .put(IndicesQueryCache.INDEX_CACHE_QUERY_PER_SEGMENT, true)).get());
+        ensureGreen();
+
+        // one segment per refresh
+        client().prepareIndex("idx", "type", "1").setSource("value", 1).get();
+        refresh();
+        client().prepareIndex("idx", "type", "2").setSource("value", 12).get();
+        refresh();
+
+        SearchResponse response = client().prepareSearch("idx").setSearchType(SearchType.COUNT)
+                .addAggregation(AggregationBuilders.histogram("histo").field("value").interval(10).minDocCount(0)).get();
+        assertThat(response.getHits().getTotalHits(), equalTo(2l));
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getSegmentMissCount(), equalTo(2l));
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getSegmentHitCount(), equalTo(0l));
+
+        // a new segment only requires computing the new segment
+        client().prepareIndex("idx", "type", "3").setSource("value", 31).get();
+        refresh();
+
+        response = client().prepareSearch("idx").setSearchType(SearchType.COUNT)
+                .addAggregation(AggregationBuilders.histogram("histo").field("value").interval(10).minDocCount(0)).get();
+        assertThat(response.getHits().getTotalHits(), equalTo(3l));
+        Histogram histo = response.getAggregations().get("histo");
+        assertThat(histo.getBuckets().size(), equalTo(4));
+        assertThat(histo.getBucketByKey(0).getDocCount(), equalTo(1l));
+        assertThat(histo.getBucketByKey(10).getDocCount(), equalTo(1l));
+        // the empty bucket is only added on the final reduce, but the segment results are only partially reduced
+        assertThat(histo.getBucketByKey(20).getDocCount(), equalTo(0l));
+        assertThat(histo.getBucketByKey(30).getDocCount(), equalTo(1l));
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getSegmentMissCount(), equalTo(3l));
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getSegmentHitCount(), greaterThanOrEqualTo(2l));
+    }
+
+    @Test
+    public void testPerSegmentQueryCacheTopTerms() throws Exception {
+        assertAcked(client().admin().indices().prepareCreate("idx").setSettings(ImmutableSettings.builder()
+                .put(IndexMetaData.SETTING_NUMBER_OF_SHARDS, 1)
+                .put(IndexMetaData.SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(IndicesQueryCache.INDEX_CACHE_QUERY_ENABLED, true)
+                .put(IndicesQueryCache.INDEX_CACHE_QUERY_PER_SEGMENT, true)).get());
+        ensureGreen();
+
+        // the top 2 terms of the shard are d and c, but c is not in the top 2 terms of the first segment and d is in
+        // none of the top 2 terms of the first two segments
+        String[][] segments = new String[][] {
+                {"a", "a", "a", "b", "b", "c"},
+                {"c", "c", "c", "b", "d", "d"},
+                {"d", "d", "d"}
+        };
+        int id = 0;
+        for (String[] segment : segments) {
+            for (String value : segment) {
+                client().prepareIndex("idx", "type", Integer.toString(id++)).setSource("str_value", value).get();
+            }
+            refresh();
+        }
+
+        SearchResponse cached = client().prepareSearch("idx").setSearchType(SearchType.COUNT)
+                .addAggregation(AggregationBuilders.terms("terms").field("str_value").size(2).shardSize(2)).get();
+        SearchResponse uncached = client().prepareSearch("idx").setSearchType(SearchType.COUNT).setQueryCache(false)
+                .addAggregation(AggregationBuilders.terms("terms").field("str_value").size(2).shardSize(2)).get();
+
+        Terms cachedTerms = cached.getAggregations().get("terms");
+        Terms uncachedTerms = uncached.getAggregations().get("terms");
+        assertThat(cachedTerms.getBuckets().size(), equalTo(2));
+        assertThat(cachedTerms.getBuckets().size(), equalTo(uncachedTerms.getBuckets().size()));
+        for (int i = 0; i < cachedTerms.getBuckets().size(); i++) {
+            assertThat(cachedTerms.getBuckets().get(i).getKey(), equalTo(uncachedTerms.getBuckets().get(i).getKey()));
+            assertThat(cachedTerms.getBuckets().get(i).getDocCount(), equalTo(uncachedTerms.getBuckets().get(i).getDocCount()));
+        }
+        assertThat(cachedTerms.getDocCountError(), equalTo(uncachedTerms.getDocCountError()));
+        assertThat(cachedTerms.getBucketByKey("d").getDocCount(), equalTo(5l));
+        assertThat(cachedTerms.getBucketByKey("c").getDocCount(), equalTo(4l));
+        // the terms aggregation can't be reduced from segment results, so the shard result is cached as a whole
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getSegmentMissCount(), equalTo(0l));
+        assertThat(client().admin().indices().prepareStats("idx").setQueryCache(true).get().getTotal().getQueryCache().getMissCount(), equalTo(1l));
+    }
 
     @Test
     public void nonThrottleStats() throws Exception {
@@ -0,0 +1,101 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations;
+
+import org.elasticsearch.action.index.IndexRequestBuilder;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.common.xcontent.ToXContent;
+import org.elasticsearch.common.xcontent.XContentBuilder;
+import org.elasticsearch.search.aggregations.bucket.histogram.Histogram;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.common.xcontent.XContentFactory.jsonBuilder;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.*;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Checks that reducing aggregations in batches on the coordinating node returns the same aggregations as reducing
+ * the results of all shards at once.
+ */
+public class BatchedReduceTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testBatchedReduceMatchesSingleReduce() throws Exception {
+        assertAcked(prepareCreate("idx").setSettings(settingsBuilder().put(SETTING_NUMBER_OF_SHARDS, between(2, 10)))
+                .addMapping("type", "term", "type=string,index=not_analyzed", "value", "type=long", "number", "type=long"));
+        IndexRequestBuilder[] builders = new IndexRequestBuilder[scaledRandomIntBetween(50, 500)];
+        for (int i = 0; i < builders.length; i++) {
+            builders[i] = client().prepareIndex("idx", "type").setSource(jsonBuilder()
+                    .startObject()
+                    .field("term", "term_" + randomIntBetween(0, 9))
+                    .field("value", randomIntBetween(0, 100))
+                    .field("number", i)
+                    .endObject());
+        }
+        indexRandom(true, builders);
+        ensureSearchable();
+
+        for (SearchType searchType : new SearchType[]{SearchType.QUERY_THEN_FETCH, SearchType.DFS_QUERY_THEN_FETCH, SearchType.COUNT}) {
+            SearchResponse expected = search(searchType, -1);
+            SearchResponse actual = search(searchType, between(2, 4));
+            assertThat(aggregationsAsString(actual), equalTo(aggregationsAsString(expected)));
+
+            Terms terms = actual.getAggregations().get("terms");
+            assertThat(terms.getBuckets().size(), equalTo(5));
+            Histogram histogram = actual.getAggregations().get("histo");
+            for (Histogram.Bucket bucket : histogram.getBuckets()) {
+                assertThat(bucket.getDocCount() >= 3, equalTo(true));
+            }
+        }
+    }
+
+    private SearchResponse search(SearchType searchType, int batchedReduceSize) {
+        SearchRequestBuilder request = client().prepareSearch("idx")
+                .setSearchType(searchType)
+                .addAggregation(terms("terms").field("term").size(5).shardSize(20)
+                        .subAggregation(topHits("top").addSort("number", SortOrder.DESC).setSize(3)))
+                .addAggregation(histogram("histo").field("value").interval(10).minDocCount(3)
+                        .subAggregation(sum("sum").field("number")))
+                .addAggregation(max("max").field("number"));
+        if (batchedReduceSize > 0) {
+            request.setBatchedReduceSize(batchedReduceSize);
+        }
+        SearchResponse response = request.get();
+        assertSearchResponse(response);
+        return response;
+    }
+
+    private static String aggregationsAsString(SearchResponse response) throws IOException {
+        XContentBuilder builder = jsonBuilder().startObject();
+        ((InternalAggregations) response.getAggregations()).toXContent(builder, ToXContent.EMPTY_PARAMS);
+        return builder.endObject().string();
+    }
+}
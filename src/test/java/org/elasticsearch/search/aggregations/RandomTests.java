@@ -218,6 +218,7 @@ public class RandomTests extends ElasticsearchIntegrationTest {
                 .addAggregation(terms("string_map").field("string_values").collectMode(randomFrom(SubAggCollectionMode.values())).executionHint(TermsAggregatorFactory.ExecutionMode.MAP.toString()).size(maxNumTerms).subAggregation(stats("stats").field("num")))
                 .addAggregation(terms("string_global_ordinals").field("string_values").collectMode(randomFrom(SubAggCollectionMode.values())).executionHint(globalOrdinalModes[randomInt(globalOrdinalModes.length - 1)].toString()).size(maxNumTerms).subAggregation(extendedStats("stats").field("num")))
                 .addAggregation(terms("string_global_ordinals_doc_values").field("string_values.doc_values").collectMode(randomFrom(SubAggCollectionMode.values())).executionHint(globalOrdinalModes[randomInt(globalOrdinalModes.length - 1)].toString()).size(maxNumTerms).subAggregation(extendedStats("stats").field("num")))
+                .addAggregation(terms("string_segment_ordinals").field("string_values").executionHint(TermsAggregatorFactory.ExecutionMode.SEGMENT_ORDINALS.toString()).size(maxNumTerms))
                 .execute().actionGet();
         assertAllSuccessful(resp);
         assertEquals(numDocs, resp.getHits().getTotalHits());
@@ -227,25 +228,30 @@ public class RandomTests extends ElasticsearchIntegrationTest {
         final Terms stringMapTerms = resp.getAggregations().get("string_map");
         final Terms stringGlobalOrdinalsTerms = resp.getAggregations().get("string_global_ordinals");
         final Terms stringGlobalOrdinalsDVTerms = resp.getAggregations().get("string_global_ordinals_doc_values");
+        final Terms stringSegmentOrdinalsTerms = resp.getAggregations().get("string_segment_ordinals");
 
         assertEquals(valuesSet.size(), longTerms.getBuckets().size());
         assertEquals(valuesSet.size(), doubleTerms.getBuckets().size());
         assertEquals(valuesSet.size(), stringMapTerms.getBuckets().size());
         assertEquals(valuesSet.size(), stringGlobalOrdinalsTerms.getBuckets().size());
         assertEquals(valuesSet.size(), stringGlobalOrdinalsDVTerms.getBuckets().size());
+        assertEquals(valuesSet.size(), stringSegmentOrdinalsTerms.getBuckets().size());
         for (Terms.Bucket bucket : longTerms.getBuckets()) {
             final Terms.Bucket doubleBucket = doubleTerms.getBucketByKey(Double.toString(Long.parseLong(bucket.getKeyAsText().string())));
             final Terms.Bucket stringMapBucket = stringMapTerms.getBucketByKey(bucket.getKeyAsText().string());
             final Terms.Bucket stringGlobalOrdinalsBucket = stringGlobalOrdinalsTerms.getBucketByKey(bucket.getKeyAsText().string());
             final Terms.Bucket stringGlobalOrdinalsDVBucket = stringGlobalOrdinalsDVTerms.getBucketByKey(bucket.getKeyAsText().string());
+            final Terms.Bucket stringSegmentOrdinalsBucket = stringSegmentOrdinalsTerms.getBucketByKey(bucket.getKeyAsText().string());
             assertNotNull(doubleBucket);
             assertNotNull(stringMapBucket);
             assertNotNull(stringGlobalOrdinalsBucket);
             assertNotNull(stringGlobalOrdinalsDVBucket);
+            assertNotNull(stringSegmentOrdinalsBucket);
             assertEquals(bucket.getDocCount(), doubleBucket.getDocCount());
             assertEquals(bucket.getDocCount(), stringMapBucket.getDocCount());
             assertEquals(bucket.getDocCount(), stringGlobalOrdinalsBucket.getDocCount());
             assertEquals(bucket.getDocCount(), stringGlobalOrdinalsDVBucket.getDocCount());
+            assertEquals(bucket.getDocCount(), stringSegmentOrdinalsBucket.getDocCount());
         }
     }
 
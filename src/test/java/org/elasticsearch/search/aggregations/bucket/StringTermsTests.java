@@ -285,7 +285,8 @@ public class StringTermsTests extends AbstractTermsTests {
                 null,
                 ExecutionMode.GLOBAL_ORDINALS,
                 ExecutionMode.GLOBAL_ORDINALS_HASH,
-                ExecutionMode.GLOBAL_ORDINALS_LOW_CARDINALITY
+                ExecutionMode.GLOBAL_ORDINALS_LOW_CARDINALITY,
+                ExecutionMode.SEGMENT_ORDINALS
         };
         for (ExecutionMode executionMode : executionModes) {
             logger.info("Execution mode:" + executionMode);
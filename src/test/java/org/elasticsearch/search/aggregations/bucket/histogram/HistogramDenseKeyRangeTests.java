@@ -0,0 +1,95 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.aggregations.bucket.histogram;
+
+import org.elasticsearch.common.rounding.DateTimeUnit;
+import org.elasticsearch.common.rounding.Rounding;
+import org.elasticsearch.common.rounding.TimeZoneRounding;
+import org.elasticsearch.common.unit.TimeValue;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.DenseLongHash;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.joda.time.DateTimeZone;
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
+public class HistogramDenseKeyRangeTests extends ElasticsearchTestCase {
+
+    private static final long START = 1420071420000L; // 2015-01-01T00:17:00Z
+
+    @Test
+    public void testHourlyDateHistogram() {
+        // the rounding the date_histogram aggregation builds for "interval": "hour"
+        Rounding rounding = TimeZoneRounding.builder(DateTimeUnit.HOUR_OF_DAY).build();
+        // the keys are milliseconds since the epoch, one day of them is too wide to be dense
+        long[] keyBounds = assertDense(rounding, START, START + TimeValue.timeValueHours(24).millis() - 1, 25);
+        assertThat(keyBounds[1] - keyBounds[0], greaterThan(HistogramAggregator.MAX_DENSE_KEY_RANGE));
+        assertThat(HistogramAggregator.Factory.denseKeyRange(keyBounds, 1, Integer.MAX_VALUE, false), nullValue());
+    }
+
+    @Test
+    public void testHourlyDateHistogramWithTimeZone() {
+        Rounding rounding = TimeZoneRounding.builder(DateTimeUnit.HOUR_OF_DAY).preZone(DateTimeZone.forID("Europe/Paris")).build();
+        // spans the daylight saving time switch of 2015-03-29
+        assertDense(rounding, 1427500800000L, 1427500800000L + TimeValue.timeValueHours(48).millis() - 1, 48);
+    }
+
+    @Test
+    public void testMonthlyDateHistogram() {
+        Rounding rounding = TimeZoneRounding.builder(DateTimeUnit.MONTH_OF_YEAR).build();
+        // months vary in length
+        assertDense(rounding, START, START + TimeValue.timeValueHours(24 * 365 * 3).millis(), 36);
+    }
+
+    @Test
+    public void testIntervalDateHistogram() {
+        Rounding rounding = TimeZoneRounding.builder(TimeValue.timeValueMinutes(90)).build();
+        assertDense(rounding, START, START + TimeValue.timeValueHours(24).millis(), 17);
+    }
+
+    @Test
+    public void testTooWideRange() {
+        Rounding rounding = TimeZoneRounding.builder(DateTimeUnit.SECOND_OF_MINUTE).build();
+        long[] keyBounds = new long[] {rounding.roundKey(START), rounding.roundKey(START + TimeValue.timeValueHours(24).millis())};
+        assertThat(HistogramAggregator.Factory.denseKeyRange(keyBounds, rounding.minKeyDistance(), Integer.MAX_VALUE, false), nullValue());
+    }
+
+    /**
+     * Checks that the keys of the values between the given bounds are looked up in an array, assuming one document per
+     * minute.
+     */
+    private static long[] assertDense(Rounding rounding, long min, long max, long expectedNumKeys) {
+        long[] keyBounds = new long[] {rounding.roundKey(min), rounding.roundKey(max)};
+        int maxDoc = (int) ((max - min) / TimeValue.timeValueMinutes(1).millis());
+        assertThat(HistogramAggregator.Factory.denseKeyRange(keyBounds, rounding.minKeyDistance(), maxDoc, false), notNullValue());
+        try (DenseLongHash hash = new DenseLongHash(keyBounds[0], keyBounds[1], rounding.minKeyDistance(), 0, BigArrays.NON_RECYCLING_INSTANCE)) {
+            for (long value = min; value <= max; value += TimeValue.timeValueMinutes(1).millis()) {
+                hash.add(rounding.roundKey(value));
+            }
+            assertThat(hash.isDense(), equalTo(true));
+            assertThat(hash.size(), equalTo(expectedNumKeys));
+        }
+        return keyBounds;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.elasticsearch.search.aggregations.bucket.terms;
+
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import static org.elasticsearch.search.aggregations.bucket.terms.TermsAggregatorFactory.maxSegmentOrdinalsSearches;
+import static org.elasticsearch.search.aggregations.bucket.terms.TermsAggregatorFactory.useSegmentOrdinals;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+
+/**
+ *
+ */
+public class TermsAggregatorFactoryTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testSegmentOrdinalsWhileCheaperThanBuildingGlobalOrdinals() {
+        int numSegments = 2 + randomInt(100);
+        long maxSearches = maxSegmentOrdinalsSearches(numSegments);
+        assertThat(maxSearches, greaterThanOrEqualTo(1l));
+        // without a field data cache global ordinals would be built on every search, and the count stays at 0
+        assertTrue(useSegmentOrdinals(numSegments, 0));
+        assertTrue(useSegmentOrdinals(numSegments, 1 + randomInt((int) maxSearches - 1)));
+        assertTrue(useSegmentOrdinals(numSegments, maxSearches));
+    }
+
+    @Test
+    public void testGlobalOrdinalsOnceCheaperThanRemapping() {
+        int numSegments = 2 + randomInt(100);
+        long maxSearches = maxSegmentOrdinalsSearches(numSegments);
+        assertFalse(useSegmentOrdinals(numSegments, maxSearches + 1));
+        assertFalse(useSegmentOrdinals(numSegments, maxSearches + 1 + randomInt(1000000)));
+    }
+
+    @Test
+    public void testGlobalOrdinalsForSingleSegment() {
+        assertFalse(useSegmentOrdinals(0, randomInt(10)));
+        assertFalse(useSegmentOrdinals(1, randomInt(10)));
+    }
+
+    @Test
+    public void testBuildingGlobalOrdinalsCostsMoreWithMoreSegments() {
+        int numSegments = 2 + randomInt(100);
+        assertThat(maxSegmentOrdinalsSearches(numSegments * 2), greaterThan(maxSegmentOrdinalsSearches(numSegments)));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.controller;
+
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.elasticsearch.common.settings.ImmutableSettings;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.common.util.concurrent.AtomicArray;
+import org.elasticsearch.search.SearchShardTarget;
+import org.elasticsearch.search.query.QuerySearchResult;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class TopDocsReducerTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testDuelWithSortDocs() throws Exception {
+        SearchPhaseController controller = new SearchPhaseController(ImmutableSettings.EMPTY, BigArrays.NON_RECYCLING_INSTANCE, null);
+        final int iters = scaledRandomIntBetween(10, 100);
+        for (int iter = 0; iter < iters; iter++) {
+            final int numShards = randomIntBetween(1, 20);
+            final int from = randomIntBetween(0, 10);
+            final int size = randomIntBetween(0, 20);
+            final boolean ignoreFrom = randomBoolean();
+            final SortField sortField = randomBoolean() ? null : new SortField("field", SortField.Type.LONG, randomBoolean());
+            final boolean[] missing = new boolean[numShards];
+            for (int i = 0; i < numShards; i++) {
+                missing[i] = rarely();
+            }
+            final long seed = randomLong();
+
+            AtomicArray<QuerySearchResult> expectedResults = randomResults(new Random(seed), numShards, missing, from, size, ignoreFrom, sortField);
+            ScoreDoc[] expected = controller.sortDocs(ignoreFrom, expectedResults);
+
+            // shards respond in any order
+            List<Integer> order = new ArrayList<>();
+            for (int i = 0; i < numShards; i++) {
+                order.add(i);
+            }
+            Collections.shuffle(order, getRandom());
+            AtomicArray<QuerySearchResult> results = randomResults(new Random(seed), numShards, missing, from, size, ignoreFrom, sortField);
+            TopDocsReducer reducer = controller.newTopDocsReducer(ignoreFrom);
+            for (int shardIndex : order) {
+                QuerySearchResult result = results.get(shardIndex);
+                if (result != null) {
+                    final int totalHits = result.topDocs().totalHits;
+                    reducer.add(shardIndex, result);
+                    assertThat(result.topDocs().scoreDocs.length, equalTo(0));
+                    assertThat(result.topDocs().totalHits, equalTo(totalHits));
+                    assertThat(result.topDocs() instanceof TopFieldDocs, equalTo(sortField != null));
+                }
+            }
+            ScoreDoc[] actual = reducer.reduce();
+
+            assertThat(actual.length, equalTo(expected.length));
+            for (int i = 0; i < expected.length; i++) {
+                assertThat(actual[i].shardIndex, equalTo(expected[i].shardIndex));
+                assertThat(actual[i].doc, equalTo(expected[i].doc));
+                assertThat(actual[i].score, equalTo(expected[i].score));
+            }
+        }
+    }
+
+    private AtomicArray<QuerySearchResult> randomResults(Random random, int numShards, boolean[] missing, int from, int size,
+                                                         boolean ignoreFrom, SortField sortField) {
+        AtomicArray<QuerySearchResult> results = new AtomicArray<>(numShards);
+        final int maxDocs = ignoreFrom ? size : from + size;
+        for (int shardIndex = 0; shardIndex < numShards; shardIndex++) {
+            if (missing[shardIndex]) {
+                // the shard failed
+                continue;
+            }
+            final int numDocs = random.nextInt(maxDocs + 1);
+            // few distinct values, so that docs tie across shards
+            final long[] values = new long[numDocs];
+            for (int i = 0; i < numDocs; i++) {
+                values[i] = random.nextInt(5);
+            }
+            Arrays.sort(values);
+            final boolean descending = sortField == null || sortField.getReverse();
+            ScoreDoc[] scoreDocs = new ScoreDoc[numDocs];
+            for (int i = 0; i < numDocs; i++) {
+                final long value = descending ? values[numDocs - 1 - i] : values[i];
+                if (sortField == null) {
+                    scoreDocs[i] = new ScoreDoc(i, value);
+                } else {
+                    scoreDocs[i] = new FieldDoc(i, Float.NaN, new Object[]{value});
+                }
+            }
+            final TopDocs topDocs;
+            if (sortField == null) {
+                topDocs = new TopDocs(numDocs + random.nextInt(100), scoreDocs, numDocs == 0 ? Float.NaN : scoreDocs[0].score);
+            } else {
+                topDocs = new TopFieldDocs(numDocs + random.nextInt(100), scoreDocs, new SortField[]{sortField}, Float.NaN);
+            }
+            QuerySearchResult result = new QuerySearchResult(shardIndex, new SearchShardTarget("node", "index", shardIndex));
+            result.topDocs(topDocs);
+            result.from(from);
+            result.size(size);
+            results.set(shardIndex, result);
+        }
+        return results;
+    }
+}
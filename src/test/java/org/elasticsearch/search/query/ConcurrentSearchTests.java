@@ -0,0 +1,191 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.search.query;
+
+import org.elasticsearch.action.admin.indices.stats.IndicesStatsResponse;
+import org.elasticsearch.action.search.SearchRequestBuilder;
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.action.search.SearchType;
+import org.elasticsearch.index.merge.policy.MergePolicyModule;
+import org.elasticsearch.index.query.functionscore.ScoreFunctionBuilders;
+import org.elasticsearch.index.search.stats.ShardSearchService;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.aggregations.bucket.terms.Terms;
+import org.elasticsearch.search.aggregations.metrics.avg.Avg;
+import org.elasticsearch.search.aggregations.metrics.stats.Stats;
+import org.elasticsearch.search.sort.SortOrder;
+import org.elasticsearch.test.ElasticsearchIntegrationTest;
+import org.elasticsearch.test.index.merge.NoMergePolicyProvider;
+import org.junit.Test;
+
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_REPLICAS;
+import static org.elasticsearch.cluster.metadata.IndexMetaData.SETTING_NUMBER_OF_SHARDS;
+import static org.elasticsearch.common.settings.ImmutableSettings.settingsBuilder;
+import static org.elasticsearch.index.query.FilterBuilders.rangeFilter;
+import static org.elasticsearch.index.query.FilterBuilders.scriptFilter;
+import static org.elasticsearch.index.query.QueryBuilders.filteredQuery;
+import static org.elasticsearch.index.query.QueryBuilders.functionScoreQuery;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.rangeQuery;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.avg;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.stats;
+import static org.elasticsearch.search.aggregations.AggregationBuilders.terms;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertAcked;
+import static org.elasticsearch.test.hamcrest.ElasticsearchAssertions.assertSearchResponse;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class ConcurrentSearchTests extends ElasticsearchIntegrationTest {
+
+    @Test
+    public void testConcurrentSearchMatchesSequentialSearch() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(settingsBuilder()
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(MergePolicyModule.MERGE_POLICY_TYPE_KEY, NoMergePolicyProvider.class))
+                .addMapping("type", "value", "type=long", "tag", "type=string,index=not_analyzed"));
+        // several segments, one per refresh, that are not merged
+        final int numSegments = randomIntBetween(2, 8);
+        int id = 0;
+        for (int segment = 0; segment < numSegments; segment++) {
+            final int numDocs = randomIntBetween(1, 50);
+            for (int i = 0; i < numDocs; i++) {
+                client().prepareIndex("test", "type", Integer.toString(id++))
+                        .setSource("value", randomIntBetween(0, 20), "tag", "tag_" + randomIntBetween(0, 3)).get();
+            }
+            refresh();
+        }
+
+        SearchResponse[] sequential = searchAll();
+        assertAcked(client().admin().indices().prepareUpdateSettings("test").setSettings(settingsBuilder()
+                .put(ShardSearchService.INDEX_SEARCH_CONCURRENT_ENABLED, true)
+                .put(ShardSearchService.INDEX_SEARCH_CONCURRENT_MAX_SLICES, randomIntBetween(2, 4))));
+        SearchResponse[] concurrent = searchAll();
+
+        for (int i = 0; i < sequential.length; i++) {
+            assertThat(concurrent[i].getHits().totalHits(), equalTo(sequential[i].getHits().totalHits()));
+            assertThat(concurrent[i].getHits().hits().length, equalTo(sequential[i].getHits().hits().length));
+            for (int j = 0; j < sequential[i].getHits().hits().length; j++) {
+                SearchHit expected = sequential[i].getHits().getAt(j);
+                SearchHit actual = concurrent[i].getHits().getAt(j);
+                assertThat(actual.id(), equalTo(expected.id()));
+                assertThat(actual.score(), equalTo(expected.score()));
+            }
+            if (sequential[i].getAggregations() != null) {
+                Avg expectedAvg = sequential[i].getAggregations().get("avg");
+                Avg actualAvg = concurrent[i].getAggregations().get("avg");
+                assertThat(actualAvg.getValue(), equalTo(expectedAvg.getValue()));
+                Stats expectedStats = sequential[i].getAggregations().get("stats");
+                Stats actualStats = concurrent[i].getAggregations().get("stats");
+                assertThat(actualStats.getCount(), equalTo(expectedStats.getCount()));
+                assertThat(actualStats.getMin(), equalTo(expectedStats.getMin()));
+                assertThat(actualStats.getMax(), equalTo(expectedStats.getMax()));
+                assertThat(actualStats.getSum(), equalTo(expectedStats.getSum()));
+            }
+        }
+
+        IndicesStatsResponse indicesStats = client().admin().indices().prepareStats("test").setSearch(true).get();
+        assertThat(indicesStats.getTotal().getSearch().getTotal().getQuerySliceCount(), greaterThan(0l));
+
+        // aggregations that can't be collected per slice fall back to a sequential search
+        SearchResponse response = client().prepareSearch("test").setQuery(matchAllQuery())
+                .addAggregation(terms("tags").field("tag")).get();
+        assertSearchResponse(response);
+        Terms tags = response.getAggregations().get("tags");
+        long docCount = 0;
+        for (Terms.Bucket bucket : tags.getBuckets()) {
+            docCount += bucket.getDocCount();
+        }
+        assertThat(docCount, equalTo((long) id));
+    }
+
+    @Test
+    public void testScriptsAreSearchedSequentially() throws Exception {
+        assertAcked(prepareCreate("test").setSettings(settingsBuilder()
+                .put(SETTING_NUMBER_OF_SHARDS, 1)
+                .put(SETTING_NUMBER_OF_REPLICAS, 0)
+                .put(MergePolicyModule.MERGE_POLICY_TYPE_KEY, NoMergePolicyProvider.class))
+                .addMapping("type", "value", "type=long"));
+        final int numSegments = randomIntBetween(2, 8);
+        int id = 0;
+        for (int segment = 0; segment < numSegments; segment++) {
+            final int numDocs = randomIntBetween(1, 50);
+            for (int i = 0; i < numDocs; i++) {
+                client().prepareIndex("test", "type", Integer.toString(id++)).setSource("value", randomIntBetween(0, 20)).get();
+            }
+            refresh();
+        }
+
+        SearchResponse[] sequential = searchScripts();
+        assertAcked(client().admin().indices().prepareUpdateSettings("test").setSettings(settingsBuilder()
+                .put(ShardSearchService.INDEX_SEARCH_CONCURRENT_ENABLED, true)
+                .put(ShardSearchService.INDEX_SEARCH_CONCURRENT_MAX_SLICES, randomIntBetween(2, 4))));
+        SearchResponse[] concurrent = searchScripts();
+
+        for (int i = 0; i < sequential.length; i++) {
+            assertThat(concurrent[i].getHits().totalHits(), equalTo(sequential[i].getHits().totalHits()));
+            assertThat(concurrent[i].getHits().hits().length, equalTo(sequential[i].getHits().hits().length));
+            for (int j = 0; j < sequential[i].getHits().hits().length; j++) {
+                SearchHit expected = sequential[i].getHits().getAt(j);
+                SearchHit actual = concurrent[i].getHits().getAt(j);
+                assertThat(actual.id(), equalTo(expected.id()));
+                assertThat(actual.score(), equalTo(expected.score()));
+            }
+        }
+
+        // the scripts share their state between segments, none of the searches was split into slices
+        IndicesStatsResponse indicesStats = client().admin().indices().prepareStats("test").setSearch(true).get();
+        assertThat(indicesStats.getTotal().getSearch().getTotal().getQuerySliceCount(), equalTo(0l));
+    }
+
+    private SearchResponse[] searchScripts() {
+        SearchRequestBuilder[] requests = new SearchRequestBuilder[] {
+                client().prepareSearch("test").setQuery(functionScoreQuery(matchAllQuery())
+                        .add(ScoreFunctionBuilders.scriptFunction("doc['value'].value + 1"))).setSize(50),
+                client().prepareSearch("test").setQuery(filteredQuery(matchAllQuery(), scriptFilter("doc['value'].value > 10")))
+                        .setSize(50).addSort("value", SortOrder.DESC)
+        };
+        SearchResponse[] responses = new SearchResponse[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            responses[i] = requests[i].get();
+            assertSearchResponse(responses[i]);
+        }
+        return responses;
+    }
+
+    private SearchResponse[] searchAll() {
+        SearchRequestBuilder[] requests = new SearchRequestBuilder[] {
+                // all hits score the same, ties are broken by doc id
+                client().prepareSearch("test").setQuery(matchAllQuery()).setSize(25),
+                client().prepareSearch("test").setQuery(matchAllQuery()).setSize(25).addSort("value", SortOrder.DESC),
+                client().prepareSearch("test").setQuery(rangeQuery("value").gte(5)).setFrom(5).setSize(10).addSort("value", SortOrder.ASC),
+                client().prepareSearch("test").setSearchType(SearchType.COUNT).setQuery(rangeQuery("value").lte(10))
+                        .addAggregation(avg("avg").field("value")).addAggregation(stats("stats").field("value")),
+                client().prepareSearch("test").setQuery(matchAllQuery()).setPostFilter(rangeFilter("value").lte(15)).setSize(30)
+                        .addAggregation(avg("avg").field("value")).addAggregation(stats("stats").field("value"))
+        };
+        SearchResponse[] responses = new SearchResponse[requests.length];
+        for (int i = 0; i < requests.length; i++) {
+            responses[i] = requests[i].get();
+            assertSearchResponse(responses[i]);
+        }
+        return responses;
+    }
+}
@@ -93,7 +93,7 @@ public final class MockInternalEngineHolder extends InternalEngineHolder impleme
         return new MockInternalEngine(mockContext, shardId, logger, codecService, threadPool, indexingService,
                 warmer, store, deletionPolicy, translog, mergePolicyProvider, mergeScheduler, analysisService, similarityService,
                 enableGcDeletes, gcDeletesInMillis,
-                indexingBufferSize, codecName, compoundOnFlush, indexConcurrency, optimizeAutoGenerateId, failEngineOnCorruption, this);
+                indexingBufferSize, codecName, compoundOnFlush, indexConcurrency, optimizeAutoGenerateId, failEngineOnCorruption, packedVersionMap, this);
     }
 
     public static abstract class DirectoryReaderWrapper extends FilterDirectoryReader {
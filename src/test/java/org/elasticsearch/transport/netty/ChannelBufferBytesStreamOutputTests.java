@@ -0,0 +1,77 @@
+/*
+ * Licensed to Elasticsearch under one or more contributor
+ * license agreements. See the NOTICE file distributed with
+ * this work for additional information regarding copyright
+ * ownership. Elasticsearch licenses this file to you under
+ * the Apache License, Version 2.0 (the "License"); you may
+ * not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+
+package org.elasticsearch.transport.netty;
+
+import org.elasticsearch.Version;
+import org.elasticsearch.common.bytes.BytesArray;
+import org.elasticsearch.common.bytes.BytesReference;
+import org.elasticsearch.common.bytes.ChannelBufferBytesReference;
+import org.elasticsearch.common.io.stream.BytesStreamOutput;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
+import org.elasticsearch.common.util.BigArrays;
+import org.elasticsearch.test.ElasticsearchTestCase;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.hamcrest.Matchers.equalTo;
+
+public class ChannelBufferBytesStreamOutputTests extends ElasticsearchTestCase {
+
+    @Test
+    public void testSameContentAsCopyingStream() throws IOException {
+        ChannelBufferBytesStreamOutput out = new ChannelBufferBytesStreamOutput(BigArrays.NON_RECYCLING_INSTANCE);
+        BytesStreamOutput expected = new BytesStreamOutput();
+        out.skip(NettyHeader.HEADER_SIZE);
+        expected.skip(NettyHeader.HEADER_SIZE);
+        final int iters = scaledRandomIntBetween(10, 100);
+        final BytesReference[] references = new BytesReference[iters];
+        for (int i = 0; i < iters; i++) {
+            final int value = randomInt();
+            final byte[] bytes = new byte[randomBoolean() ? randomInt(ChannelBufferBytesStreamOutput.REFERENCE_THRESHOLD) : randomIntBetween(1, 100000)];
+            getRandom().nextBytes(bytes);
+            references[i] = randomBoolean() ? new BytesArray(bytes) : new ChannelBufferBytesReference(new BytesArray(bytes).toChannelBuffer());
+            for (StreamOutput stream : new StreamOutput[]{out, expected}) {
+                stream.writeInt(value);
+                stream.writeBytesReference(references[i]);
+            }
+            assertThat(out.position(), equalTo(expected.position()));
+        }
+
+        ChannelBuffer buffer = out.toChannelBuffer();
+        assertThat(buffer.readableBytes(), equalTo(expected.size()));
+        assertThat(new ChannelBufferBytesReference(buffer), equalTo(expected.bytes()));
+
+        // the header can still be written in place
+        NettyHeader.writeHeader(buffer, randomLong(), (byte) 0, Version.CURRENT);
+        assertThat(buffer.getByte(0), equalTo((byte) 'E'));
+        assertThat(buffer.getInt(2), equalTo(expected.size() - 6));
+
+        StreamInput in = new ChannelBufferStreamInput(buffer);
+        in.skip(NettyHeader.HEADER_SIZE);
+        for (int i = 0; i < iters; i++) {
+            in.readInt();
+            assertThat(in.readBytesReference(), equalTo(references[i]));
+        }
+        out.bytes().close();
+    }
+}
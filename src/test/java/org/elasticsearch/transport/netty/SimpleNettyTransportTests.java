@@ -20,17 +20,28 @@
 package org.elasticsearch.transport.netty;
 
 import org.elasticsearch.Version;
+import com.google.common.base.Strings;
 import org.elasticsearch.cluster.node.DiscoveryNode;
+import org.elasticsearch.common.io.stream.StreamInput;
+import org.elasticsearch.common.io.stream.StreamOutput;
 import org.elasticsearch.common.network.NetworkService;
 import org.elasticsearch.common.settings.ImmutableSettings;
 import org.elasticsearch.common.settings.Settings;
 import org.elasticsearch.common.transport.InetSocketTransportAddress;
 import org.elasticsearch.common.util.BigArrays;
 import org.elasticsearch.test.transport.MockTransportService;
-import org.elasticsearch.transport.AbstractSimpleTransportTests;
-import org.elasticsearch.transport.ConnectTransportException;
+import org.elasticsearch.threadpool.ThreadPool;
+import org.elasticsearch.transport.*;
 import org.junit.Test;
 
+import java.io.IOException;
+import java.util.Map;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+
 public class SimpleNettyTransportTests extends AbstractSimpleTransportTests {
 
     @Override
@@ -52,4 +63,124 @@ public class SimpleNettyTransportTests extends AbstractSimpleTransportTests {
             // all is well
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testAdaptiveCompression() throws Exception {
+        Settings settings = ImmutableSettings.builder()
+                .put(NettyTransport.COMPRESS_ADAPTIVE, true)
+                .put(NettyTransport.COMPRESS_THRESHOLD_REG, "1kb")
+                .build();
+        MockTransportService serviceC = build(ImmutableSettings.builder().put(settings).put("name", "TS_C").build(), Version.CURRENT);
+        MockTransportService serviceD = build(ImmutableSettings.builder().put(settings).put("name", "TS_D").build(), Version.CURRENT);
+        try {
+            DiscoveryNode nodeC = new DiscoveryNode("TS_C", serviceC.boundAddress().publishAddress(), Version.CURRENT);
+            serviceD.connectToNode(nodeC);
+            serviceC.registerHandler("echo", new BaseTransportRequestHandler<EchoRequest>() {
+                @Override
+                public EchoRequest newInstance() {
+                    return new EchoRequest();
+                }
+
+                @Override
+                public String executor() {
+                    return ThreadPool.Names.GENERIC;
+                }
+
+                @Override
+                public void messageReceived(EchoRequest request, TransportChannel channel) throws Exception {
+                    channel.sendResponse(new EchoResponse(request.message));
+                }
+            });
+
+            // small messages are sent as is
+            assertThat(echo(serviceD, nodeC, "small"), equalTo("small"));
+            assertThat(serviceD.stats().compressionStats().get("echo"), nullValue());
+            assertThat(serviceC.stats().compressionStats().get("echo"), nullValue());
+
+            // large messages that compress well are compressed, both ways
+            String large = Strings.repeat("compress me ", randomIntBetween(100, 1000));
+            assertThat(echo(serviceD, nodeC, large), equalTo(large));
+            for (MockTransportService service : new MockTransportService[]{serviceC, serviceD}) {
+                Map<String, TransportStats.CompressionStats> compressionStats = service.stats().compressionStats();
+                TransportStats.CompressionStats stats = compressionStats.get("echo");
+                assertThat(stats, notNullValue());
+                assertThat(stats.getCount(), equalTo(1l));
+                assertThat(stats.getCompressedSize().bytes(), lessThan(stats.getUncompressedSize().bytes()));
+                assertThat(stats.getRatio(), lessThan(1d));
+            }
+        } finally {
+            serviceC.close();
+            serviceD.close();
+        }
+    }
+
+    private String echo(MockTransportService service, DiscoveryNode node, String message) {
+        return service.submitRequest(node, "echo", new EchoRequest(message), new BaseTransportResponseHandler<EchoResponse>() {
+            @Override
+            public EchoResponse newInstance() {
+                return new EchoResponse();
+            }
+
+            @Override
+            public String executor() {
+                return ThreadPool.Names.SAME;
+            }
+
+            @Override
+            public void handleResponse(EchoResponse response) {
+            }
+
+            @Override
+            public void handleException(TransportException exp) {
+            }
+        }).txGet().message;
+    }
+
+    static class EchoRequest extends TransportRequest {
+
+        private String message;
+
+        EchoRequest() {
+        }
+
+        EchoRequest(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            message = in.readString();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeString(message);
+        }
+    }
+
+    static class EchoResponse extends TransportResponse {
+
+        private String message;
+
+        EchoResponse() {
+        }
+
+        EchoResponse(String message) {
+            this.message = message;
+        }
+
+        @Override
+        public void readFrom(StreamInput in) throws IOException {
+            super.readFrom(in);
+            message = in.readString();
+        }
+
+        @Override
+        public void writeTo(StreamOutput out) throws IOException {
+            super.writeTo(out);
+            out.writeString(message);
+        }
+    }
+}